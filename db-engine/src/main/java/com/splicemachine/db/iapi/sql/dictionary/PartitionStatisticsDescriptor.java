@@ -48,11 +48,12 @@ public class PartitionStatisticsDescriptor extends TupleDescriptor {
     private boolean inProgress;
     private long numberOfPartitions;
     /**
-     * statsType: currently it only support four possible values:
+     * statsType: currently it only support five possible values:
      * 0: regular non-merged stats (SYSTABLESTATISTICSRowFactory.REGULAR_NONMERGED_STATS)
      * 1: sample non-merged stats (SYSTABLESTATISTICSRowFactory.SAMPLE_NONMERGED_STATS)
      * 2: regular merged stats (SYSTABLESTATISTICSRowFactory.REGULAR_MERGED_STATS)
      * 3: sample merged stats (SYSTABLESTATISTICSRowFactory.SAMPLE_NONMERGED_STATS)
+     * 4: incremental stats maintained by the write pipeline (SYSTABLESTATISTICSRowFactory.INCREMENTAL_STATS)
      */
     private int statsType;
     private double sampleFraction;
@@ -101,7 +101,7 @@ public class ColumnStatisticsMerge implements Aggregator<ColumnStatisticsImpl, C
         quantilesSketchUnion.update(columnStatistics.quantilesSketch);
         frequenciesSketch.merge(columnStatistics.frequenciesSketch);
         thetaSketchUnion.update(columnStatistics.thetaSketch);
-        nullCount =+ columnStatistics.nullCount();
+        nullCount += columnStatistics.nullCount();
     }
 
     /**
@@ -115,7 +115,7 @@ public class ColumnStatisticsMerge implements Aggregator<ColumnStatisticsImpl, C
         quantilesSketchUnion.update(columnStatisticsMerge.quantilesSketchUnion.getResult());
         frequenciesSketch.merge(columnStatisticsMerge.frequenciesSketch);
         thetaSketchUnion.update(columnStatisticsMerge.thetaSketchUnion.getResult());
-        nullCount =+ columnStatisticsMerge.nullCount;
+        nullCount += columnStatisticsMerge.nullCount;
     }
 
     /**
@@ -1242,6 +1242,22 @@ public abstract class DataDictionaryImpl extends BaseDataDictionary{
         deleteColumnStatistics(conglomerate,tc);
     }
 
+    @Override
+    public void deletePartitionStatistics(long conglomerate,
+                                          String partitionId,
+                                          TransactionController tc) throws StandardException{
+        TabInfoImpl ti=getNonCoreTI(SYSTABLESTATS_CATALOG_NUM);
+        ExecIndexRow keyRow=exFactory.getIndexableRow(2);
+        keyRow.setColumn(1, new SQLLongint(conglomerate));
+        keyRow.setColumn(2, new SQLVarchar(partitionId));
+        ti.deleteRow(tc,keyRow, SYSTABLESTATISTICSRowFactory.SYSTABLESTATISTICS_INDEX2_ID);
+        ti=getNonCoreTI(SYSCOLUMNSTATS_CATALOG_NUM);
+        keyRow=exFactory.getIndexableRow(2);
+        keyRow.setColumn(1, new SQLLongint(conglomerate));
+        keyRow.setColumn(2, new SQLVarchar(partitionId));
+        ti.deleteRow(tc,keyRow,SYSCOLUMNSTATISTICSRowFactory.SYSCOLUMNSTATISTICS_INDEX2_ID);
+    }
+
     @Override
     public void deleteColumnStatistics(long conglomerate,
                                       TransactionController tc) throws StandardException{
@@ -66,6 +66,8 @@ public class SYSTABLESTATISTICSRowFactory extends CatalogRowFactory {
     public static final int SAMPLE_NONMERGED_STATS = 1;
     public static final int REGULAR_MERGED_STATS = 2;
     public static final int SAMPLE_MERGED_STATS = 3;
+    /* rows inserted into a partition since the last collection, merged into that partition's stats on read */
+    public static final int INCREMENTAL_STATS = 4;
 
 
     protected static final int		SYSTABLESTATISTICS_INDEX1_ID = 0;
@@ -676,6 +676,7 @@ public interface SQLState {
 	String LANG_COL_NOT_NULL									   	   = "01503";
 	String LANG_INDEX_DUPLICATE									   	   = "01504";
 	String LANG_VALUE_TRUNCATED                                        = "01505";
+	String LANG_TABLE_PINNED                                           = "01506";
 	String LANG_SYNONYM_UNDEFINED                                      = "01522";
 	String LANG_NULL_ELIMINATED_IN_SET_FUNCTION						   = "01003";
 	String LANG_PRIVILEGE_NOT_REVOKED						   		   = "01006";
@@ -15,8 +15,12 @@
 package com.splicemachine.pipeline;
 
 import java.io.IOException;
+import java.util.Arrays;
 import org.apache.log4j.Logger;
 
+import com.splicemachine.encoding.ExpandingEncoder;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.utils.PipelineBufferPool;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.compression.SpliceSnappy;
 
@@ -28,16 +32,50 @@ public class SnappyPipelineCompressor implements PipelineCompressor{
     private static final Logger LOG=Logger.getLogger(SnappyPipelineCompressor.class);
 
     private final PipelineCompressor delegate;
+    private final PipelineBufferPool bufferPool;
 
     public SnappyPipelineCompressor(PipelineCompressor delegate){
+        this(delegate,null);
+    }
+
+    /**
+     * @param bufferPool the pool to encode and compress into, or {@code null} to allocate new buffers for
+     *                   each request
+     */
+    public SnappyPipelineCompressor(PipelineCompressor delegate,PipelineBufferPool bufferPool){
         this.delegate=delegate;
+        this.bufferPool=bufferPool;
     }
 
     @Override
     public byte[] compress(Object o) throws IOException {
-        byte[] d = delegate.compress(o);
-        d = SpliceSnappy.compress(d);
-        return d;
+        if(bufferPool==null){
+            byte[] d = delegate.compress(o);
+            d = SpliceSnappy.compress(d);
+            return d;
+        }
+        /*
+         * Encode into one pooled buffer, and compress from there into another, so that the only
+         * array we allocate is the (exactly sized) compressed result.
+         */
+        int sizeHint = o instanceof BulkWrites?((BulkWrites)o).getBufferHeapSize()+64:0;
+        ExpandingEncoder encoded = new ExpandingEncoder(bufferPool.get(sizeHint));
+        byte[] compressed = null;
+        try{
+            delegate.compress(o,encoded);
+            compressed = bufferPool.get(SpliceSnappy.maxCompressedLength(encoded.getLength()));
+            int length = SpliceSnappy.compress(encoded.getRawBuffer(),0,encoded.getLength(),compressed,0);
+            return Arrays.copyOf(compressed,length);
+        }finally{
+            bufferPool.release(encoded.getRawBuffer());
+            bufferPool.release(compressed);
+        }
+    }
+
+    @Override
+    public void compress(Object o,ExpandingEncoder buffer) throws IOException{
+        byte[] d = compress(o);
+        buffer.write(d,0,d.length);
     }
 
     @Override
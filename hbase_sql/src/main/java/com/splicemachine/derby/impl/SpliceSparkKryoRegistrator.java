@@ -804,6 +804,6 @@ public class SpliceSparkKryoRegistrator implements KryoRegistrator, KryoPool.Kry
                 return aggregator;
             }
         });
-
+        instance.register(StreamProtocol.ColumnBatch.class,EXTERNALIZABLE_SERIALIZER);
     }
 }
\ No newline at end of file
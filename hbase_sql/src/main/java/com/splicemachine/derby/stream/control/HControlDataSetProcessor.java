@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.utils.ExternalTableUtils;
+import com.splicemachine.orc.input.SpliceOrcFileScanner;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.server.Transactor;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * The control-side processor of the HBase-backed engine.
+ * <p>
+ * ORC external tables are read in-process with the native ORC reader (see {@link SpliceOrcFileScanner}),
+ * so that small control-side scans of them do not pay for scheduling a Spark job. This can be turned off
+ * with {@code splice.dataset.control.nativeOrcReader}, in which case they go through the distributed
+ * processor as before.
+ */
+public class HControlDataSetProcessor extends ControlDataSetProcessor{
+
+    public HControlDataSetProcessor(TxnSupplier txnSupplier,
+                                    Transactor transactory,
+                                    TxnOperationFactory txnOperationFactory){
+        super(txnSupplier,transactory,txnOperationFactory);
+    }
+
+    @Override
+    public <V> DataSet<V> readORCFile(int[] baseColumnMap,int[] partitionColumnMap,String location,OperationContext context,
+                                      Qualifier[][] qualifiers,DataValueDescriptor probeValue,ExecRow execRow,
+                                      boolean useSample,double sampleFraction,boolean statsjob) throws StandardException{
+        if(!EngineDriver.driver().getConfiguration().getControlSideNativeOrcReader())
+            return super.readORCFile(baseColumnMap,partitionColumnMap,location,context,qualifiers,probeValue,execRow,
+                    useSample,sampleFraction,statsjob);
+        assert baseColumnMap != null:"baseColumnMap Null";
+        assert partitionColumnMap != null:"partitionColumnMap Null";
+        try{
+            if(!ExternalTableUtils.isExisting(location))
+                throw StandardException.newException(SQLState.EXTERNAL_TABLES_LOCATION_NOT_EXIST,location);
+
+            if(ExternalTableUtils.isEmptyDirectory(location)) // Handle Empty Directory
+                return getEmpty();
+
+            SpliceOrcFileScanner scanner=new SpliceOrcFileScanner(new Configuration(HConfiguration.unwrapDelegate()),
+                    location,baseColumnMap,partitionColumnMap,context,qualifiers,execRow,
+                    useSample?sampleFraction:1d,statsjob);
+            SpliceOperation op=context==null?null:(SpliceOperation)context.getOperation();
+            if(op!=null)
+                op.registerCloseable(scanner);
+            return new ControlDataSet(scanner);
+        }catch(StandardException se){
+            throw se;
+        }catch(Exception e){
+            throw StandardException.newException(
+                    SQLState.EXTERNAL_TABLES_READ_FAILURE,e.getMessage());
+        }
+    }
+}
@@ -47,6 +47,9 @@ import com.splicemachine.derby.stream.output.ExportDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.InsertDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.UpdateDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.*;
+import com.splicemachine.derby.stream.spark.pin.ColumnarPinFunction;
+import com.splicemachine.derby.stream.spark.pin.ColumnarPinnedBatch;
+import com.splicemachine.derby.stream.spark.pin.ColumnarPinnedTable;
 import com.splicemachine.derby.stream.utils.ExternalTableUtils;
 import com.splicemachine.utils.ByteDataInput;
 import org.apache.commons.codec.binary.Base64;
@@ -875,12 +878,24 @@ public class SparkDataSet<V> implements DataSet<V> {
     }
 
     @Override @SuppressWarnings({ "unchecked", "rawtypes" })
-    public void pin(ExecRow template, long conglomId) throws StandardException {
+    public long pin(ExecRow template, long conglomId) throws StandardException {
+        StructType schema = template.schema();
+        if (ColumnarPinnedBatch.isSupported(schema)) {
+            JavaRDD<ColumnarPinnedBatch> batches = ((JavaRDD<ExecRow>) rdd)
+                    .mapPartitions(new ColumnarPinFunction(schema, ColumnarPinnedBatch.DEFAULT_BATCH_SIZE))
+                    .setName("SPLICE_"+conglomId);
+            batches.persist(StorageLevel.MEMORY_ONLY());
+            // materializes the batches, so the table is in memory once we return
+            long size = batches.map(ColumnarPinnedBatch::getSizeInBytes).fold(0L, Long::sum);
+            ColumnarPinnedTable.register(conglomId, new ColumnarPinnedTable(batches, template, size));
+            return size;
+        }
         Dataset<Row> pinDF = SpliceSpark.getSession().createDataFrame(
                 rdd.map(new LocatedRowToRowFunction()),
-                template.schema());
+                schema);
         pinDF.createOrReplaceTempView("SPLICE_"+conglomId);
         SpliceSpark.getSession().catalog().cacheTable("SPLICE_"+conglomId);
+        return -1L;
     }
 
     @Override
@@ -38,6 +38,9 @@ import com.splicemachine.derby.stream.function.Partitioner;
 import com.splicemachine.derby.stream.function.RowToLocatedRowAvroFunction;
 import com.splicemachine.derby.stream.function.RowToLocatedRowFunction;
 import com.splicemachine.derby.stream.iapi.*;
+import com.splicemachine.derby.stream.spark.pin.ColumnarPinnedPredicate;
+import com.splicemachine.derby.stream.spark.pin.ColumnarPinnedScanFunction;
+import com.splicemachine.derby.stream.spark.pin.ColumnarPinnedTable;
 import com.splicemachine.derby.stream.utils.ExternalTableUtils;
 import com.splicemachine.derby.stream.utils.StreamUtils;
 import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
@@ -555,6 +558,8 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
 
     @Override
     public void dropPinnedTable(long conglomerateId) throws StandardException {
+        if (ColumnarPinnedTable.drop(conglomerateId))
+            return;
         if (SpliceSpark.getSession().catalog().isCached("SPLICE_"+conglomerateId)) {
             SpliceSpark.getSession().catalog().uncacheTable("SPLICE_"+conglomerateId);
             SpliceSpark.getSession().catalog().dropTempView("SPLICE_"+conglomerateId);
@@ -564,6 +569,8 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
 
     @Override
     public Boolean isCached(long conglomerateId) throws StandardException {
+        if (ColumnarPinnedTable.get(conglomerateId) != null)
+            return true;
         return  SpliceSpark.getSession().catalog().tableExists("SPLICE_"+conglomerateId)
                 && SpliceSpark.getSession().catalog().isCached("SPLICE_"+conglomerateId);
 
@@ -592,6 +599,12 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
     @Override
     public <V> DataSet<V> readPinnedTable(long conglomerateId, int[] baseColumnMap, String location, OperationContext context, Qualifier[][] qualifiers, DataValueDescriptor probeValue, ExecRow execRow) throws StandardException {
         try {
+            ColumnarPinnedTable pinned = ColumnarPinnedTable.get(conglomerateId);
+            if (pinned != null) {
+                ColumnarPinnedPredicate predicate = ColumnarPinnedPredicate.create(qualifiers, probeValue);
+                return new SparkDataSet(pinned.getBatches()
+                        .mapPartitions(new ColumnarPinnedScanFunction(context, execRow, pinned.getTemplate(), baseColumnMap, predicate)));
+            }
             Dataset<Row> table = SpliceSpark.getSession().table("SPLICE_"+conglomerateId);
             table = processExternalDataset(table,baseColumnMap,qualifiers,probeValue);
             return new SparkDataSet(table
@@ -418,6 +418,31 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         return regionTooBusyExceptions.value();
     }
 
+    @Override
+    public void recordSpill(long bytes){
+        // Spark manages its own spilling
+    }
+
+    @Override
+    public long getSpillCount(){
+        return 0L;
+    }
+
+    @Override
+    public long getSpilledBytes(){
+        return 0L;
+    }
+
+    @Override
+    public void recordMemoryUsage(long bytes){
+        // Spark tracks its own execution memory
+    }
+
+    @Override
+    public long getPeakMemoryUsage(){
+        return 0L;
+    }
+
 
     @Override
     public void pushScope(String displayName){
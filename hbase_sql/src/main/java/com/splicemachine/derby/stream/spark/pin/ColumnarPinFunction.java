@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark.pin;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.sql.types.StructType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Encodes a partition of a table's rows into {@link ColumnarPinnedBatch}es.
+ */
+public class ColumnarPinFunction implements FlatMapFunction<Iterator<ExecRow>,ColumnarPinnedBatch>{
+    private static final long serialVersionUID=1L;
+
+    private final StructType schema;
+    private final int batchSize;
+
+    public ColumnarPinFunction(StructType schema,int batchSize){
+        this.schema=schema;
+        this.batchSize=batchSize;
+    }
+
+    @Override
+    public Iterator<ColumnarPinnedBatch> call(Iterator<ExecRow> rows) throws Exception{
+        List<ColumnarPinnedBatch> batches=new ArrayList<>();
+        ColumnarPinnedBatch.Builder builder=ColumnarPinnedBatch.newBuilder(schema,batchSize);
+        while(rows.hasNext()){
+            builder.append(rows.next());
+            if(builder.isFull()){
+                batches.add(builder.build());
+                builder=ColumnarPinnedBatch.newBuilder(schema,batchSize);
+            }
+        }
+        if(!builder.isEmpty())
+            batches.add(builder.build());
+        return batches.iterator();
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark.pin;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.orc.block.BlockFactory;
+import com.splicemachine.orc.block.ColumnBlock;
+import com.splicemachine.orc.reader.SliceDictionary;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.spark.memory.MemoryMode;
+import org.apache.spark.sql.catalyst.util.DateTimeUtils;
+import org.apache.spark.sql.execution.vectorized.ColumnVector;
+import org.apache.spark.sql.types.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A fixed number of rows of a pinned table, stored column by column in typed {@link ColumnBlock}s
+ * instead of as individual rows.
+ * <p>
+ * Strings are dictionary encoded whenever that makes the column smaller (i.e. when at most half of the
+ * values in the batch are distinct); the dictionary ids are kept in the column's vector, so that scans can
+ * evaluate a predicate once per distinct value rather than once per row.
+ * <p>
+ * Batches are immutable once built, and may be read by any number of threads concurrently.
+ */
+public class ColumnarPinnedBatch{
+    public static final int DEFAULT_BATCH_SIZE=4096;
+
+    private static final int BOOLEAN=0;
+    private static final int BYTE=1;
+    private static final int SHORT=2;
+    private static final int INT=3;
+    private static final int LONG=4;
+    private static final int FLOAT=5;
+    private static final int DOUBLE=6;
+    private static final int DATE=7;
+    private static final int TIMESTAMP=8;
+    private static final int DECIMAL=9;
+    private static final int BINARY=10;
+    private static final int STRING=11;
+
+    /*rough per-object overhead of a dictionary entry (the Slice and its backing array)*/
+    private static final int DICTIONARY_ENTRY_OVERHEAD=64;
+
+    private final int numRows;
+    private final int[] kinds;
+    private final DataType[] types;
+    private final ColumnBlock[] columns;
+    private final Slice[][] dictionaries; //null for columns which are not dictionary encoded
+    private final long sizeInBytes;
+
+    private ColumnarPinnedBatch(int numRows,int[] kinds,DataType[] types,ColumnBlock[] columns,Slice[][] dictionaries,long sizeInBytes){
+        this.numRows=numRows;
+        this.kinds=kinds;
+        this.types=types;
+        this.columns=columns;
+        this.dictionaries=dictionaries;
+        this.sizeInBytes=sizeInBytes;
+    }
+
+    /**
+     * @return true if every column of {@code schema} can be stored in a columnar batch. Tables with
+     * other column types (arrays, user defined types stored as structs, etc.) are pinned as rows.
+     */
+    public static boolean isSupported(StructType schema){
+        for(StructField field : schema.fields()){
+            if(kindOf(field.dataType())<0)
+                return false;
+        }
+        return true;
+    }
+
+    public static Builder newBuilder(StructType schema,int capacity){
+        return new Builder(schema,capacity);
+    }
+
+    public int size(){
+        return numRows;
+    }
+
+    public int numColumns(){
+        return columns.length;
+    }
+
+    public ColumnBlock getColumn(int column){
+        return columns[column];
+    }
+
+    /**
+     * @return the approximate number of bytes of heap which are held by this batch
+     */
+    public long getSizeInBytes(){
+        return sizeInBytes;
+    }
+
+    public boolean isNullAt(int column,int row){
+        return columns[column].getColumnVector().isNullAt(row);
+    }
+
+    public boolean isDictionaryEncoded(int column){
+        return dictionaries[column]!=null;
+    }
+
+    public int dictionarySize(int column){
+        return dictionaries[column].length;
+    }
+
+    public int getDictionaryId(int column,int row){
+        return columns[column].getColumnVector().getDictionaryIds().getInt(row);
+    }
+
+    public String getDictionaryValue(int column,int dictionaryId){
+        return dictionaries[column][dictionaryId].toStringUtf8();
+    }
+
+    /**
+     * @return the value at the specified position, in the form which is accepted by
+     * {@link com.splicemachine.db.iapi.types.DataValueDescriptor#setSparkObject(Object)}.
+     */
+    public Object getSparkObject(int column,int row){
+        ColumnVector vector=columns[column].getColumnVector();
+        if(vector.isNullAt(row)) return null;
+        switch(kinds[column]){
+            case BOOLEAN: return vector.getBoolean(row);
+            case BYTE: return vector.getByte(row);
+            case SHORT: return vector.getShort(row);
+            case INT: return vector.getInt(row);
+            case LONG: return vector.getLong(row);
+            case FLOAT: return vector.getFloat(row);
+            case DOUBLE: return vector.getDouble(row);
+            case DATE: return DateTimeUtils.toJavaDate(vector.getInt(row));
+            case TIMESTAMP: return DateTimeUtils.toJavaTimestamp(vector.getLong(row));
+            case DECIMAL:
+                DecimalType dt=(DecimalType)types[column];
+                return vector.getDecimal(row,dt.precision(),dt.scale()).toJavaBigDecimal();
+            case BINARY: return vector.getBinary(row);
+            case STRING:
+                if(dictionaries[column]!=null)
+                    return getDictionaryValue(column,getDictionaryId(column,row));
+                return vector.getUTF8String(row).toString();
+            default:
+                throw new IllegalStateException("Programmer error: unexpected column kind "+kinds[column]);
+        }
+    }
+
+    /**
+     * Accumulates rows into column vectors, and turns them into a {@link ColumnarPinnedBatch} once full.
+     * Each builder produces a single batch.
+     */
+    public static class Builder{
+        private final int capacity;
+        private final int[] kinds;
+        private final DataType[] types;
+        private final ColumnVector[] vectors; //null for string columns, which are encoded in build()
+        private final String[][] strings;
+        private final long[] variableBytes;
+        private int numRows;
+
+        private Builder(StructType schema,int capacity){
+            StructField[] fields=schema.fields();
+            this.capacity=capacity;
+            this.kinds=new int[fields.length];
+            this.types=new DataType[fields.length];
+            this.vectors=new ColumnVector[fields.length];
+            this.strings=new String[fields.length][];
+            this.variableBytes=new long[fields.length];
+            for(int i=0;i<fields.length;i++){
+                DataType type=fields[i].dataType();
+                int kind=kindOf(type);
+                if(kind<0)
+                    throw new IllegalArgumentException("Column type "+type+" cannot be stored in a columnar batch");
+                kinds[i]=kind;
+                types[i]=type;
+                if(kind==STRING)
+                    strings[i]=new String[capacity];
+                else
+                    vectors[i]=ColumnVector.allocate(capacity,type,MemoryMode.ON_HEAP);
+            }
+        }
+
+        public boolean isFull(){
+            return numRows>=capacity;
+        }
+
+        public boolean isEmpty(){
+            return numRows==0;
+        }
+
+        public void append(ExecRow row) throws StandardException{
+            assert numRows<capacity: "Programmer error: appended to a full batch";
+            for(int i=0;i<kinds.length;i++){
+                Object value=row.getColumn(i+1).getSparkObject();
+                if(kinds[i]==STRING){
+                    strings[i][numRows]=(String)value;
+                    continue;
+                }
+                ColumnVector vector=vectors[i];
+                if(value==null){
+                    vector.appendNull();
+                    continue;
+                }
+                switch(kinds[i]){
+                    case BOOLEAN: vector.appendBoolean((Boolean)value); break;
+                    case BYTE: vector.appendByte((Byte)value); break;
+                    case SHORT: vector.appendShort((Short)value); break;
+                    case INT: vector.appendInt((Integer)value); break;
+                    case LONG: vector.appendLong((Long)value); break;
+                    case FLOAT: vector.appendFloat((Float)value); break;
+                    case DOUBLE: vector.appendDouble((Double)value); break;
+                    case DATE: vector.appendInt(DateTimeUtils.fromJavaDate((Date)value)); break;
+                    case TIMESTAMP: vector.appendLong(DateTimeUtils.fromJavaTimestamp((Timestamp)value)); break;
+                    case DECIMAL: appendDecimal(i,vector,(BigDecimal)value); break;
+                    case BINARY:
+                        byte[] bytes=(byte[])value;
+                        vector.appendByteArray(bytes,0,bytes.length);
+                        variableBytes[i]+=bytes.length;
+                        break;
+                    default:
+                        throw new IllegalStateException("Programmer error: unexpected column kind "+kinds[i]);
+                }
+            }
+            numRows++;
+        }
+
+        public ColumnarPinnedBatch build(){
+            ColumnBlock[] columns=new ColumnBlock[kinds.length];
+            Slice[][] dictionaries=new Slice[kinds.length][];
+            long size=0L;
+            for(int i=0;i<kinds.length;i++){
+                ColumnVector vector;
+                if(kinds[i]==STRING){
+                    Map<String,Integer> ids=dictionaryIds(strings[i]);
+                    if(ids!=null){
+                        dictionaries[i]=dictionary(ids);
+                        vector=encodeDictionary(strings[i],ids,dictionaries[i]);
+                        size+=(long)capacity*(2*Integer.BYTES+1);
+                        for(Slice s : dictionaries[i])
+                            size+=s.length()+DICTIONARY_ENTRY_OVERHEAD;
+                    }else{
+                        vector=encodePlain(i,strings[i]);
+                        size+=(long)capacity*(2*Integer.BYTES+1)+variableBytes[i];
+                    }
+                    strings[i]=null;
+                }else{
+                    vector=vectors[i];
+                    size+=(long)capacity*(fixedWidth(kinds[i],types[i])+1)+variableBytes[i];
+                }
+                columns[i]=BlockFactory.getColumnBlock(vector,types[i]);
+            }
+            return new ColumnarPinnedBatch(numRows,kinds,types,columns,dictionaries,size);
+        }
+
+        /* ****************************************************************************************************************/
+        /*private helper methods*/
+        private void appendDecimal(int column,ColumnVector vector,BigDecimal value){
+            DecimalType dt=(DecimalType)types[column];
+            Decimal decimal=Decimal.apply(value);
+            if(!decimal.changePrecision(dt.precision(),dt.scale())){
+                //same as Spark's own row conversion, which turns values that do not fit the column type into nulls
+                vector.appendNull();
+                return;
+            }
+            int row=vector.getElementsAppended();
+            vector.putDecimal(row,decimal,dt.precision());
+            vector.appendNotNull();
+            if(dt.precision()>Decimal.MAX_LONG_DIGITS())
+                variableBytes[column]+=decimal.toJavaBigDecimal().unscaledValue().bitLength()/8+1;
+        }
+
+        /**
+         * @return the dictionary id of each distinct value of the column, or {@code null} if dictionary
+         * encoding does not pay off for this column.
+         */
+        private Map<String,Integer> dictionaryIds(String[] values){
+            Map<String,Integer> ids=new HashMap<>();
+            int maxDistinct=numRows/2;
+            for(int i=0;i<numRows;i++){
+                String value=values[i];
+                if(value==null || ids.containsKey(value)) continue;
+                if(ids.size()>=maxDistinct)
+                    return null;
+                ids.put(value,ids.size());
+            }
+            return ids;
+        }
+
+        private Slice[] dictionary(Map<String,Integer> ids){
+            Slice[] dictionary=new Slice[ids.size()];
+            for(Map.Entry<String,Integer> entry : ids.entrySet())
+                dictionary[entry.getValue()]=Slices.utf8Slice(entry.getKey());
+            return dictionary;
+        }
+
+        private ColumnVector encodeDictionary(String[] values,Map<String,Integer> ids,Slice[] dictionary){
+            ColumnVector vector=ColumnVector.allocate(capacity,DataTypes.IntegerType,MemoryMode.ON_HEAP);
+            vector.setDictionary(new SliceDictionary(dictionary));
+            vector.reserveDictionaryIds(capacity);
+            ColumnVector dictionaryIds=vector.getDictionaryIds();
+            for(int i=0;i<numRows;i++){
+                String value=values[i];
+                if(value==null){
+                    vector.appendNull();
+                    dictionaryIds.appendInt(0);
+                }else{
+                    vector.appendNotNull();
+                    dictionaryIds.appendInt(ids.get(value));
+                }
+            }
+            return vector;
+        }
+
+        private ColumnVector encodePlain(int column,String[] values){
+            ColumnVector vector=ColumnVector.allocate(capacity,DataTypes.StringType,MemoryMode.ON_HEAP);
+            for(int i=0;i<numRows;i++){
+                String value=values[i];
+                if(value==null){
+                    vector.appendNull();
+                }else{
+                    byte[] bytes=value.getBytes(StandardCharsets.UTF_8);
+                    vector.appendByteArray(bytes,0,bytes.length);
+                    variableBytes[column]+=bytes.length;
+                }
+            }
+            return vector;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static int kindOf(DataType type){
+        if(type instanceof BooleanType) return BOOLEAN;
+        else if(type instanceof ByteType) return BYTE;
+        else if(type instanceof ShortType) return SHORT;
+        else if(type instanceof IntegerType) return INT;
+        else if(type instanceof LongType) return LONG;
+        else if(type instanceof FloatType) return FLOAT;
+        else if(type instanceof DoubleType) return DOUBLE;
+        else if(type instanceof DateType) return DATE;
+        else if(type instanceof TimestampType) return TIMESTAMP;
+        else if(type instanceof DecimalType) return DECIMAL;
+        else if(type instanceof BinaryType) return BINARY;
+        else if(type instanceof StringType) return STRING;
+        else return -1;
+    }
+
+    private static int fixedWidth(int kind,DataType type){
+        switch(kind){
+            case BOOLEAN:
+            case BYTE: return 1;
+            case SHORT: return 2;
+            case INT:
+            case FLOAT:
+            case DATE: return 4;
+            case LONG:
+            case DOUBLE:
+            case TIMESTAMP: return 8;
+            case DECIMAL:
+                int precision=((DecimalType)type).precision();
+                if(precision<=Decimal.MAX_INT_DIGITS()) return 4;
+                else if(precision<=Decimal.MAX_LONG_DIGITS()) return 8;
+                //fall through: large decimals are stored as byte arrays
+            case BINARY:
+            case STRING: return 2*Integer.BYTES; //offset and length of the value in the child vector
+            default:
+                throw new IllegalStateException("Programmer error: unexpected column kind "+kind);
+        }
+    }
+}
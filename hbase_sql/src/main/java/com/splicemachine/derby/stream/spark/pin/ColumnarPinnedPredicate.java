@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark.pin;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.utils.Scans;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The scan qualifiers of a query against a pinned table, resolved on the driver so that they can be
+ * evaluated directly against the columns of a {@link ColumnarPinnedBatch}.
+ * <p>
+ * The qualifiers are held in conjunctive normal form: a row qualifies if, for every group, at least one
+ * member of that group is true. Qualifiers which cannot be resolved ahead of time (variant qualifiers, or
+ * qualifiers which compare against null) are left out, along with the whole OR group they belong to; that
+ * makes this predicate weaker than the original qualifiers, which is fine because the scan re-applies
+ * all of them to every row which gets through.
+ */
+public class ColumnarPinnedPredicate implements Serializable{
+    private static final long serialVersionUID=1L;
+
+    private final int[][] columns;
+    private final int[][] operators;
+    private final boolean[][] negate;
+    private final boolean[][] orderedNulls;
+    private final boolean[][] unknownRV;
+    private final DataValueDescriptor[][] values;
+
+    private ColumnarPinnedPredicate(int[][] columns,int[][] operators,boolean[][] negate,
+                                    boolean[][] orderedNulls,boolean[][] unknownRV,DataValueDescriptor[][] values){
+        this.columns=columns;
+        this.operators=operators;
+        this.negate=negate;
+        this.orderedNulls=orderedNulls;
+        this.unknownRV=unknownRV;
+        this.values=values;
+    }
+
+    /**
+     * @return a predicate for {@code qualifiers}, or {@code null} if none of them can be pushed down.
+     */
+    public static ColumnarPinnedPredicate create(Qualifier[][] qualifiers,DataValueDescriptor probeValue) throws StandardException{
+        if(qualifiers==null)
+            return null;
+        List<Qualifier[]> groups=new ArrayList<>();
+        List<DataValueDescriptor[]> groupValues=new ArrayList<>();
+        for(int i=0;i<qualifiers[0].length;i++){
+            Qualifier q=qualifiers[0][i];
+            DataValueDescriptor value=resolve(q,probeValue==null || i!=0?null:probeValue);
+            if(value!=null){
+                groups.add(new Qualifier[]{q});
+                groupValues.add(new DataValueDescriptor[]{value});
+            }
+        }
+        for(int i=1;i<qualifiers.length;i++){
+            Qualifier[] or=qualifiers[i];
+            DataValueDescriptor[] orValues=new DataValueDescriptor[or.length];
+            boolean pushable=or.length>0;
+            for(int j=0;j<or.length && pushable;j++){
+                orValues[j]=resolve(or[j],null);
+                pushable=orValues[j]!=null;
+            }
+            if(pushable){
+                groups.add(or);
+                groupValues.add(orValues);
+            }
+        }
+        if(groups.isEmpty())
+            return null;
+
+        int n=groups.size();
+        int[][] columns=new int[n][];
+        int[][] operators=new int[n][];
+        boolean[][] negate=new boolean[n][];
+        boolean[][] orderedNulls=new boolean[n][];
+        boolean[][] unknownRV=new boolean[n][];
+        DataValueDescriptor[][] values=new DataValueDescriptor[n][];
+        for(int g=0;g<n;g++){
+            Qualifier[] group=groups.get(g);
+            columns[g]=new int[group.length];
+            operators[g]=new int[group.length];
+            negate[g]=new boolean[group.length];
+            orderedNulls[g]=new boolean[group.length];
+            unknownRV[g]=new boolean[group.length];
+            for(int i=0;i<group.length;i++){
+                columns[g][i]=group[i].getStoragePosition();
+                operators[g][i]=group[i].getOperator();
+                negate[g][i]=group[i].negateCompareResult();
+                orderedNulls[g][i]=group[i].getOrderedNulls();
+                unknownRV[g][i]=group[i].getUnknownRV();
+            }
+            values[g]=groupValues.get(g);
+        }
+        return new ColumnarPinnedPredicate(columns,operators,negate,orderedNulls,unknownRV,values);
+    }
+
+    public int numGroups(){
+        return columns.length;
+    }
+
+    public int groupSize(int group){
+        return columns[group].length;
+    }
+
+    /**
+     * @return the (0-based) position in the full table row of the column which the specified qualifier reads
+     */
+    public int column(int group,int member){
+        return columns[group][member];
+    }
+
+    /**
+     * Apply a single qualifier to a column value, with the same semantics as
+     * {@link Scans#qualifyRecordFromRow(Object[], Qualifier[][], int[], DataValueDescriptor)}.
+     */
+    public boolean qualifies(int group,int member,DataValueDescriptor columnValue) throws StandardException{
+        boolean result=columnValue.compare(operators[group][member],values[group][member],
+                orderedNulls[group][member],unknownRV[group][member]);
+        return negate[group][member]!=result;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static DataValueDescriptor resolve(Qualifier q,DataValueDescriptor probeValue) throws StandardException{
+        if(q.getVariantType()==Qualifier.VARIANT)
+            return null;
+        q.clearOrderableCache();
+        DataValueDescriptor value=probeValue!=null?probeValue:q.getOrderable();
+        if(Scans.filterNull(q.getOperator(),null,value,q.getVariantType()) || value==null || value.isNull())
+            return null;
+        return value.cloneValue(false);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark.pin;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Scans {@link ColumnarPinnedBatch}es, returning only the projected columns of the rows which
+ * satisfy the pushed down predicate.
+ * <p>
+ * Only the columns which the predicate reads are decoded to evaluate it, and only the projected columns
+ * of qualifying rows are materialized. For dictionary encoded columns, each qualifier is evaluated at most
+ * once per distinct value in a batch, and each distinct string is decoded at most once.
+ */
+public class ColumnarPinnedScanFunction implements FlatMapFunction<Iterator<ColumnarPinnedBatch>,ExecRow>,Externalizable{
+    private static final byte UNKNOWN=0;
+    private static final byte TRUE=1;
+    private static final byte FALSE=2;
+
+    private OperationContext operationContext;
+    private ExecRow execRow;
+    private ExecRow template;
+    private int[] projection;
+    private ColumnarPinnedPredicate predicate;
+
+    private transient SpliceOperation op;
+    private transient boolean initialized;
+
+    public ColumnarPinnedScanFunction(){ }
+
+    /**
+     * @param execRow the row to return, holding the projected columns in the order of {@code baseColumnMap}
+     * @param template a row holding every column of the pinned table
+     * @param baseColumnMap for each column of the table, its position in {@code execRow} or -1 if it is not read
+     * @param predicate the pushed down predicate, or {@code null} to return every row
+     */
+    public ColumnarPinnedScanFunction(OperationContext operationContext,ExecRow execRow,ExecRow template,
+                                      int[] baseColumnMap,ColumnarPinnedPredicate predicate){
+        this.operationContext=operationContext;
+        this.execRow=execRow;
+        this.template=template;
+        this.projection=projection(baseColumnMap);
+        this.predicate=predicate;
+    }
+
+    @Override
+    public Iterator<ExecRow> call(Iterator<ColumnarPinnedBatch> batches) throws Exception{
+        if(!initialized){
+            if(operationContext!=null)
+                op=(SpliceOperation)operationContext.getOperation();
+            initialized=true;
+        }
+        return new RowIterator(batches);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeObject(operationContext);
+        out.writeObject(execRow);
+        out.writeObject(template);
+        out.writeObject(projection);
+        out.writeObject(predicate);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        operationContext=(OperationContext)in.readObject();
+        execRow=(ExecRow)in.readObject();
+        template=(ExecRow)in.readObject();
+        projection=(int[])in.readObject();
+        predicate=(ColumnarPinnedPredicate)in.readObject();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static int[] projection(int[] baseColumnMap){
+        int n=0;
+        for(int position : baseColumnMap){
+            if(position!=-1) n++;
+        }
+        int[] projection=new int[n];
+        for(int i=0,j=0;i<baseColumnMap.length;i++){
+            if(baseColumnMap[i]!=-1)
+                projection[j++]=i;
+        }
+        return projection;
+    }
+
+    private class RowIterator implements Iterator<ExecRow>{
+        private final Iterator<ColumnarPinnedBatch> batches;
+        private final DataValueDescriptor[] scratch;
+        private Iterator<ExecRow> current=Collections.emptyIterator();
+
+        private ColumnarPinnedBatch batch;
+        private String[][] decoded;
+        private byte[][][] memo;
+
+        RowIterator(Iterator<ColumnarPinnedBatch> batches){
+            this.batches=batches;
+            this.scratch=template.getNewNullRow().getRowArray();
+        }
+
+        @Override
+        public boolean hasNext(){
+            while(!current.hasNext()){
+                if(!batches.hasNext())
+                    return false;
+                try{
+                    current=scan(batches.next());
+                }catch(StandardException se){
+                    throw new RuntimeException(se);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public ExecRow next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            ExecRow row=current.next();
+            if(op!=null)
+                op.setCurrentRow(row);
+            return row;
+        }
+
+        private Iterator<ExecRow> scan(ColumnarPinnedBatch batch) throws StandardException{
+            reset(batch);
+            List<ExecRow> rows=new ArrayList<>();
+            int numColumns=Math.min(projection.length,execRow.nColumns());
+            for(int r=0;r<batch.size();r++){
+                if(predicate!=null && !qualifies(r))
+                    continue;
+                ExecRow row=execRow.getNewNullRow();
+                for(int i=0;i<numColumns;i++)
+                    read(projection[i],r,row.getColumn(i+1));
+                rows.add(row);
+            }
+            return rows.iterator();
+        }
+
+        private void reset(ColumnarPinnedBatch batch){
+            this.batch=batch;
+            int numColumns=batch.numColumns();
+            if(decoded==null || decoded.length!=numColumns)
+                decoded=new String[numColumns][];
+            for(int c=0;c<numColumns;c++)
+                decoded[c]=batch.isDictionaryEncoded(c)?new String[batch.dictionarySize(c)]:null;
+            if(predicate==null)
+                return;
+            if(memo==null){
+                memo=new byte[predicate.numGroups()][][];
+                for(int g=0;g<memo.length;g++)
+                    memo[g]=new byte[predicate.groupSize(g)][];
+            }
+            for(int g=0;g<memo.length;g++){
+                for(int m=0;m<memo[g].length;m++){
+                    int column=predicate.column(g,m);
+                    memo[g][m]=batch.isDictionaryEncoded(column)?new byte[batch.dictionarySize(column)]:null;
+                }
+            }
+        }
+
+        private boolean qualifies(int row) throws StandardException{
+            for(int g=0;g<memo.length;g++){
+                boolean any=false;
+                for(int m=0;m<memo[g].length && !any;m++)
+                    any=qualifies(g,m,row);
+                if(!any)
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean qualifies(int group,int member,int row) throws StandardException{
+            int column=predicate.column(group,member);
+            byte[] known=memo[group][member];
+            if(known==null || batch.isNullAt(column,row)){
+                read(column,row,scratch[column]);
+                return predicate.qualifies(group,member,scratch[column]);
+            }
+            int id=batch.getDictionaryId(column,row);
+            if(known[id]==UNKNOWN){
+                read(column,row,scratch[column]);
+                known[id]=predicate.qualifies(group,member,scratch[column])?TRUE:FALSE;
+            }
+            return known[id]==TRUE;
+        }
+
+        private void read(int column,int row,DataValueDescriptor dvd) throws StandardException{
+            String[] dictionary=decoded[column];
+            if(dictionary==null || batch.isNullAt(column,row)){
+                dvd.setSparkObject(batch.getSparkObject(column,row));
+                return;
+            }
+            int id=batch.getDictionaryId(column,row);
+            String value=dictionary[id];
+            if(value==null){
+                value=batch.getDictionaryValue(column,id);
+                dictionary[id]=value;
+            }
+            dvd.setSparkObject(value);
+        }
+    }
+}
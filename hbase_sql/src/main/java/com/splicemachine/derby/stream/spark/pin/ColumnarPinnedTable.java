@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark.pin;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import org.apache.spark.api.java.JavaRDD;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A table which has been pinned into executor memory as {@link ColumnarPinnedBatch}es.
+ * <p>
+ * Pinned tables live for as long as the Spark context which holds them, so they are tracked here
+ * (in the driver) by conglomerate id, in the same way that row-based pinned tables are tracked as
+ * temporary views in the Spark catalog.
+ */
+public class ColumnarPinnedTable{
+    private static final ConcurrentMap<Long,ColumnarPinnedTable> PINNED_TABLES=new ConcurrentHashMap<>();
+
+    private final JavaRDD<ColumnarPinnedBatch> batches;
+    private final ExecRow template;
+    private final long sizeInBytes;
+
+    public ColumnarPinnedTable(JavaRDD<ColumnarPinnedBatch> batches,ExecRow template,long sizeInBytes){
+        this.batches=batches;
+        this.template=template;
+        this.sizeInBytes=sizeInBytes;
+    }
+
+    public static void register(long conglomerateId,ColumnarPinnedTable table){
+        ColumnarPinnedTable old=PINNED_TABLES.put(conglomerateId,table);
+        if(old!=null)
+            old.batches.unpersist(false);
+    }
+
+    public static ColumnarPinnedTable get(long conglomerateId){
+        return PINNED_TABLES.get(conglomerateId);
+    }
+
+    /**
+     * @return true if the table was pinned (and has now been released), false otherwise.
+     */
+    public static boolean drop(long conglomerateId){
+        ColumnarPinnedTable table=PINNED_TABLES.remove(conglomerateId);
+        if(table==null)
+            return false;
+        table.batches.unpersist(false);
+        return true;
+    }
+
+    public JavaRDD<ColumnarPinnedBatch> getBatches(){
+        return batches;
+    }
+
+    /**
+     * @return a row with every column of the pinned table
+     */
+    public ExecRow getTemplate(){
+        return template;
+    }
+
+    /**
+     * @return the approximate number of bytes of executor memory which are held by this table
+     */
+    public long getSizeInBytes(){
+        return sizeInBytes;
+    }
+}
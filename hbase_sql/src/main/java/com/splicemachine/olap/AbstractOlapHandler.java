@@ -55,9 +55,10 @@ public abstract class AbstractOlapHandler extends SimpleChannelInboundHandler<Ol
 
     /* ****************************************************************************************************************/
     /*Protected convenience methods*/
-    protected void writeResponse(Channel c,final String requestId,OlapStatus status) throws IOException{
+    protected OlapMessage.Response.Type writeResponse(Channel c,final String requestId,OlapStatus status) throws IOException{
         final boolean[] shouldRemove= {false};
-        ChannelFuture futureResponse = c.writeAndFlush(OlapSerializationUtils.buildResponse(status,shouldRemove,jobRegistry.tickTime()));
+        OlapMessage.Response response = OlapSerializationUtils.buildResponse(status,shouldRemove,jobRegistry.tickTime());
+        ChannelFuture futureResponse = c.writeAndFlush(response);
 
         futureResponse.addListener(new ChannelFutureListener(){
                                        @Override
@@ -73,6 +74,7 @@ public abstract class AbstractOlapHandler extends SimpleChannelInboundHandler<Ol
                                        }
                                    }
         );
+        return response.getType();
     }
 
     protected boolean shouldDisconnect(Throwable t){
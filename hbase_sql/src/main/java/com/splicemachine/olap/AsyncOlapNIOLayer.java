@@ -45,6 +45,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -198,8 +199,12 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         private volatile int notFound;
         private volatile Throwable cause=null;
         private volatile long tickTimeNanos=TimeUnit.MILLISECONDS.toNanos(1000L);
-        private volatile long waitTimeMillis = 1000;
-        private ScheduledFuture<?> keepAlive;
+        private volatile ScheduledFuture<?> keepAlive;
+        /*
+         * The channel the job was submitted on, which is held while the job runs so that the server can notify us
+         * on it as soon as the job finishes
+         */
+        private final AtomicReference<Channel> notificationChannel = new AtomicReference<>();
         private final ByteString data;
 
         OlapFuture(DistributedJob job) throws IOException {
@@ -279,10 +284,12 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             Future<Channel> channelFuture=channelPool.acquire();
             channelFuture.addListener(new CancelCommand(job.getUniqueName()));
             cancelled=true;
+            closeNotificationChannel();
             signal();
         }
 
-        void fail(Throwable cause){
+        synchronized void fail(Throwable cause){
+            if(isDone()) return; // the job has been notified and checked on at the same time
             if (LOG.isTraceEnabled())
                 LOG.trace("Failed job "+ job.getUniqueName() + " due to " + cause);
             if (cause instanceof SocketException || cause instanceof SocketTimeoutException) {
@@ -292,17 +299,73 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             this.failed=true;
             if (this.keepAlive != null)
                 this.keepAlive.cancel(false);
+            closeNotificationChannel();
             this.executionList.execute();
         }
 
-        void success(OlapResult result) {
+        synchronized void success(OlapResult result) {
+            if(isDone()) return; // the job has been notified and checked on at the same time
             if (LOG.isTraceEnabled())
                 LOG.trace("Successful job "+ job.getUniqueName());
             this.finalResult = result;
-            this.keepAlive.cancel(false);
+            if (this.keepAlive != null)
+                this.keepAlive.cancel(false);
+            closeNotificationChannel();
             this.executionList.execute();
         }
 
+        /**
+         * Updates the job with a status received from the server, either in response to a status check or
+         * as a notification.
+         */
+        void update(OlapResult or){
+            //TODO -sf- deal with a OlapServer failover here (i.e. a move to NOT_SUBMITTED from any other state
+            if(or instanceof SubmittedResult) {
+                tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
+                lastStatus = System.currentTimeMillis();
+            } else if(submitted && !isDone() && or instanceof NotSubmittedResult) {
+                // Server says the job is no longer submitted, give it a couple of tries in case messages are out of order
+                long millisSinceLastStatus = System.currentTimeMillis() - lastStatus;
+                LOG.warn("Status not available for job " + job.getUniqueName() +
+                        ", millis since last status " + millisSinceLastStatus);
+                if (notFound++ > maxRetries) {
+                    // The job is no longer submitted, assume aborted
+                    LOG.error("Failing job " + job.getUniqueName() + " after " + maxRetries +
+                            " status not available responses");
+                    fail(new IOException("Status not available, assuming aborted due to client timeout"));
+                }
+            }else if(or.isSuccess()){
+                success(or);
+            }else{
+                // It should have a throwable
+                Throwable t=or.getThrowable();
+                if(t!=null){
+                    fail(t);
+                } else {
+                    LOG.error("Message doesn't match any type of expected results: " + or);
+                }
+            }
+        }
+
+        /**
+         * Takes back the notification channel, once the server has written the final status of the job on it.
+         */
+        Channel takeNotificationChannel(){
+            return notificationChannel.getAndSet(null);
+        }
+
+        private void closeNotificationChannel(){
+            /*
+             * The job finished without the server notifying us of it (or we gave up on it), so the notification
+             * may still be on its way. Close the channel rather than risk handing it to another job; the pool
+             * drops closed channels.
+             */
+            Channel c=takeNotificationChannel();
+            if(c!=null){
+                c.close();
+            }
+        }
+
         void doSubmit() throws IOException{
             Future<Channel> channelFuture=channelPool.acquire();
             if (LOG.isTraceEnabled())
@@ -347,7 +410,11 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         }
 
         public void scheduleStatusCheck() {
-            this.keepAlive = executorService.scheduleWithFixedDelay(this, 0, tickTimeNanos, TimeUnit.NANOSECONDS);
+            /*
+             * The server notifies us when the job finishes, so these checks are only there to tell the server we
+             * are still waiting, and to find out if the notification got lost.
+             */
+            this.keepAlive = executorService.scheduleWithFixedDelay(this, tickTimeNanos, tickTimeNanos, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -374,7 +441,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Submitted job " + olapFuture.job.getUniqueName());
             }
 
-            OlapMessage.Submit submit=OlapMessage.Submit.newBuilder().setCommandBytes(olapFuture.data).build();
+            OlapMessage.Submit submit=OlapMessage.Submit.newBuilder()
+                    .setCommandBytes(olapFuture.data)
+                    .setNotifyCompletion(true)
+                    .build();
             OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setExtension(OlapMessage.Submit.command,submit)
@@ -408,15 +478,11 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Status check job " + olapFuture.job.getUniqueName());
             }
 
-            OlapMessage.Status.Builder status=OlapMessage.Status.newBuilder();
-            if (olapFuture.waitTimeMillis > 0) {
-                status.setWaitTimeMillis(olapFuture.waitTimeMillis);
-                olapFuture.waitTimeMillis = 0;
-            }
+            OlapMessage.Status status=OlapMessage.Status.newBuilder().build();
             OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setType(OlapMessage.Command.Type.STATUS)
-                    .setExtension(OlapMessage.Status.command,status.build()).build();
+                    .setExtension(OlapMessage.Status.command,status).build();
             ChannelFuture writeFuture=c.writeAndFlush(cmd);
             writeFuture.addListener(new GenericFutureListener<Future<Void>>(){
                 @Override
@@ -485,35 +551,13 @@ public class AsyncOlapNIOLayer implements JobExecutor{
 
         @Override
         protected void channelRead0(ChannelHandlerContext ctx,OlapMessage.Response olapResult) throws Exception{
-            OlapResult or=parseFromResponse(olapResult);
-            if (LOG.isTraceEnabled()) {
-                LOG.trace("Received " + or);
-            }
-            //TODO -sf- deal with a OlapServer failover here (i.e. a move to NOT_SUBMITTED from any other state
-            if(or instanceof SubmittedResult) {
-                future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
-                future.lastStatus = System.currentTimeMillis();
-            } else if(future.submitted && !future.isDone() && or instanceof NotSubmittedResult) {
-                // Server says the job is no longer submitted, give it a couple of tries in case messages are out of order
-                long millisSinceLastStatus = System.currentTimeMillis() - future.lastStatus;
-                LOG.warn("Status not available for job " + future.job.getUniqueName() +
-                        ", millis since last status " + millisSinceLastStatus);
-                if (future.notFound++ > maxRetries) {
-                    // The job is no longer submitted, assume aborted
-                    LOG.error("Failing job " + future.job.getUniqueName() + " after " + maxRetries +
-                            " status not available responses");
-                    future.fail(new IOException("Status not available, assuming aborted due to client timeout"));
-                }
-            }else if(or.isSuccess()){
-                future.success(or);
-            }else{
-                // It should have a throwable
-                Throwable t=or.getThrowable();
-                if(t!=null){
-                    future.fail(t);
-                } else {
-                    LOG.error("Message doesn't match any type of expected results: " + or);
+            if(!future.isDone()){
+                // otherwise we've been notified of the result already, and the job may be gone from the server
+                OlapResult or=parseFromResponse(olapResult);
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Received " + or);
                 }
+                future.update(or);
             }
             ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
             Channel channel=ctx.channel();
@@ -540,10 +584,19 @@ public class AsyncOlapNIOLayer implements JobExecutor{
 
         @Override
         protected void channelRead0(ChannelHandlerContext ctx,OlapMessage.Response olapResult) throws Exception{
+            if(future.submitted){
+                notified(ctx,olapResult);
+                return;
+            }
             OlapResult or=parseFromResponse(olapResult);
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
+                // keep the channel until the server notifies us that the job is done
+                future.notificationChannel.set(ctx.channel());
                 future.submitted = true;
+                future.scheduleStatusCheck();
+                future.signal();
+                return;
             }else{
                 Throwable t=or.getThrowable();
                 LOG.error("Job wasn't submitted, result: " + or);
@@ -556,16 +609,61 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
             Channel channel=ctx.channel();
             channelPool.release(channel); //release the underlying channel back to the pool cause we're done
-            future.scheduleStatusCheck();
             future.signal();
         }
 
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx,Throwable cause) throws Exception{
+            if(future.submitted && future.takeNotificationChannel()!=ctx.channel()){
+                // the channel has already been closed and given back
+                return;
+            }
             future.fail(cause);
             ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
             channelPool.release(ctx.channel());
             future.signal();
         }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception{
+            /*
+             * We lost the notification channel, so we'll have to rely on the status checks to find out about the
+             * job, which will fail it if the server is gone
+             */
+            if(future.submitted && future.takeNotificationChannel()==ctx.channel()){
+                ctx.pipeline().remove(this);
+                channelPool.release(ctx.channel());
+            }
+            super.channelInactive(ctx);
+        }
+
+        private void notified(ChannelHandlerContext ctx,OlapMessage.Response olapResult) throws IOException{
+            if(olapResult.getType()==OlapMessage.Response.Type.IN_PROGRESS){
+                future.update(parseFromResponse(olapResult));
+                return;
+            }
+            /*
+             * This is the final status of the job, after which the server writes nothing else on the channel,
+             * so it can go back to the pool. Take it back before updating the job, so that it isn't closed.
+             */
+            Channel channel=future.takeNotificationChannel();
+            if(channel==null){
+                // the job finished some other way, and the channel is being closed
+                return;
+            }
+            ctx.pipeline().remove(this);
+            channelPool.release(channel);
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Notified of the end of job " + future.job.getUniqueName());
+            }
+            try{
+                future.update(parseFromResponse(olapResult));
+            }catch(IOException e){
+                // the job failed. We're no longer in the pipeline, so deal with it here
+                future.fail(e);
+            }finally{
+                future.signal();
+            }
+        }
     }
 }
@@ -22,7 +22,9 @@ import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
 import org.apache.log4j.Logger;
 import scala.concurrent.duration.FiniteDuration;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -40,6 +42,7 @@ public class OlapJobStatus implements OlapStatus{
     private volatile AtomicReference<OlapStatus.State> currentState = new AtomicReference<>(State.NOT_SUBMITTED);
     private ArrayBlockingQueue<OlapResult> results;
     private volatile OlapResult cachedResult;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
 
     public OlapJobStatus(long tickTime,int numTicks){
         //TODO -sf- remove the constants
@@ -95,6 +98,21 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.CANCELED);
         }while(shouldContinue);
         results.offer(new CancelledResult());
+        notifyListeners();
+    }
+
+    /**
+     * Registers a listener which is run whenever the job starts running or finishes. If the job has already
+     * finished, the listener is run straight away, so it may be run more than once for the final state.
+     */
+    public void addListener(Runnable listener){
+        listeners.add(listener);
+        switch(currentState.get()){
+            case CANCELED:
+            case FAILED:
+            case COMPLETE:
+                listener.run();
+        }
     }
 
     public boolean isAvailable(){
@@ -134,6 +152,7 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.COMPLETE);
         }while(shouldContinue);
         results.offer(result);
+        notifyListeners();
     }
 
     public boolean markRunning(){
@@ -149,6 +168,7 @@ public class OlapJobStatus implements OlapStatus{
             }
             shouldContinue = !currentState.compareAndSet(currState,State.RUNNING);
         }while(shouldContinue);
+        notifyListeners();
         return true;
     }
 
@@ -195,13 +215,24 @@ public class OlapJobStatus implements OlapStatus{
              */
             if(!failureDetector.isAvailable()){
                 results.offer(new FailedOlapResult(new TimeoutException("Client timed out response, assuming it died")));
-                currentState.compareAndSet(curState,State.FAILED); //all other states don't have to be marked failed
+                if(currentState.compareAndSet(curState,State.FAILED)) //all other states don't have to be marked failed
+                    notifyListeners();
                 curState=State.FAILED;
             }
         }
         return curState;
     }
 
+    private void notifyListeners(){
+        for(Runnable listener:listeners){
+            try{
+                listener.run();
+            }catch(Exception e){
+                LOG.warn("Unexpected error notifying listener of job state change",e);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "OlapJobStatus{" +
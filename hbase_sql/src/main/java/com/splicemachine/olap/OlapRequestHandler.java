@@ -18,9 +18,11 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.concurrent.Clock;
 import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -93,6 +95,8 @@ class OlapRequestHandler extends AbstractOlapHandler{
         if(LOG.isTraceEnabled())
             LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted");
         writeResponse(ctx.channel(),jr.getUniqueName(),jobStatus);
+        if(extension.getNotifyCompletion())
+            jobStatus.addListener(new StatusNotifier(ctx.channel(),jr.getUniqueName(),jobStatus));
 
         executionPool.submit(new Callable<Void>() {
             @Override
@@ -122,5 +126,37 @@ class OlapRequestHandler extends AbstractOlapHandler{
         return Executors.newCachedThreadPool(tf);
     }
 
+    /**
+     * Writes the status of a job back to the client which submitted it each time it changes, so that the client
+     * sees the result as soon as it is available. Nothing is written once a final state has been written, as the
+     * client will have returned the channel to its pool by then.
+     */
+    private class StatusNotifier implements Runnable{
+        private final Channel channel;
+        private final String uniqueName;
+        private final OlapJobStatus jobStatus;
+        private boolean finished=false;
+
+        StatusNotifier(Channel channel,String uniqueName,OlapJobStatus jobStatus){
+            this.channel=channel;
+            this.uniqueName=uniqueName;
+            this.jobStatus=jobStatus;
+        }
+
+        @Override
+        public synchronized void run(){
+            /*
+             * Synchronized so that the responses are written in the order they were built, and that no response
+             * follows the final one.
+             */
+            if(finished || !channel.isActive()) return;
+            try{
+                finished=writeResponse(channel,uniqueName,jobStatus)!=OlapMessage.Response.Type.IN_PROGRESS;
+            }catch(IOException e){
+                LOG.warn("Unable to notify the client of the status of job "+uniqueName,e);
+            }
+        }
+    }
+
 
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.orc.input;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.orc.HdfsOrcDataSource;
+import com.splicemachine.orc.OrcDataSource;
+import com.splicemachine.orc.OrcReader;
+import com.splicemachine.orc.OrcRecordReader;
+import com.splicemachine.orc.memory.AggregatedMemoryContext;
+import com.splicemachine.orc.metadata.ColumnStatistics;
+import com.splicemachine.orc.metadata.OrcMetadataReader;
+import com.splicemachine.orc.predicate.SpliceORCPredicate;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.spark.sql.execution.vectorized.ColumnarBatch;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.StructType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static com.splicemachine.orc.input.SpliceOrcNewInputFormat.*;
+
+/**
+ * Reads the ORC files of an external table in the calling thread, without going through Spark.
+ * <p>
+ * This does the same work as a {@link SpliceOrcNewInputFormat} job, minus the scheduling: whole files are
+ * skipped when their partition values cannot satisfy the predicate, the {@link OrcRecordReader} of each
+ * remaining file skips the stripes and row groups whose statistics cannot satisfy it, and only the columns
+ * in the base column map are decoded. Like the Spark path, the predicate is only used for pruning; the
+ * rows which are returned still have to be filtered by the caller.
+ */
+public class SpliceOrcFileScanner implements Iterator<ExecRow>, AutoCloseable{
+    private final Configuration configuration;
+    private final Iterator<Path> files;
+    private final StructType rowStruct;
+    private final List<Integer> columnIds;
+    private final List<Integer> partitionIds;
+    private final Map<Integer,DataType> columnsAndTypes;
+    private final SpliceORCPredicate predicate;
+    private final boolean collectStats;
+    private final ExecRow execRow;
+    private final OperationContext operationContext;
+    private final Random sampler;
+    private final double sampleFraction;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadSize;
+    private final DataSize streamBufferSize;
+
+    private SpliceOperation op;
+    private boolean initialized;
+    private OrcRecordReader recordReader;
+    private Iterator<ColumnarBatch.Row> currentBatch = Collections.emptyIterator();
+    private ExecRow next;
+    private int filesRead;
+    private int filesPruned;
+
+    /**
+     * @param sampleFraction the fraction of rows to return, or a value {@code >= 1} to return every row
+     */
+    public SpliceOrcFileScanner(Configuration configuration,String location,int[] baseColumnMap,int[] partitionColumnMap,
+                                OperationContext operationContext,Qualifier[][] qualifiers,ExecRow execRow,
+                                double sampleFraction,boolean collectStats) throws IOException{
+        this.configuration = configuration;
+        this.execRow = execRow;
+        this.operationContext = operationContext;
+        this.rowStruct = execRow.createStructType(baseColumnMap);
+        this.columnIds = toList(baseColumnMap);
+        this.partitionIds = toList(partitionColumnMap);
+        this.columnsAndTypes = getColumnsAndTypes(columnIds,rowStruct);
+        this.predicate = new SpliceORCPredicate(qualifiers,baseColumnMap,rowStruct);
+        this.collectStats = collectStats;
+        this.sampleFraction = sampleFraction;
+        this.sampler = sampleFraction<1d? new Random(): null;
+        this.maxMergeDistance = new DataSize(configuration.getDouble(MAX_MERGE_DISTANCE,MAX_MERGE_DISTANCE_DEFAULT),DataSize.Unit.MEGABYTE);
+        this.maxReadSize = new DataSize(configuration.getDouble(MAX_READ_SIZE,MAX_READ_SIZE_DEFAULT),DataSize.Unit.MEGABYTE);
+        this.streamBufferSize = new DataSize(configuration.getDouble(STREAM_BUFFER_SIZE,STREAM_BUFFER_SIZE_DEFAULT),DataSize.Unit.MEGABYTE);
+        this.files = listFiles(configuration,new Path(location)).iterator();
+    }
+
+    @Override
+    public boolean hasNext(){
+        if(!initialized){
+            if(operationContext!=null)
+                op = (SpliceOperation)operationContext.getOperation();
+            else
+                SITableScanner.regionId.set("0"); // Sets PartitionId for columnar files.
+            initialized = true;
+        }
+        try{
+            while(next==null){
+                while(!currentBatch.hasNext()){
+                    if(recordReader!=null && recordReader.nextBatch()!=-1)
+                        currentBatch = recordReader.getColumnarBatch(rowStruct).rowIterator();
+                    else if(!openNextFile())
+                        return false;
+                }
+                ColumnarBatch.Row row = currentBatch.next();
+                if(sampler!=null && sampler.nextDouble()>=sampleFraction)
+                    continue;
+                next = execRow.getNewNullRow().fromSparkRow(new ColumnarBatchRow(row,rowStruct));
+            }
+            return true;
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public ExecRow next(){
+        if(!hasNext())
+            throw new NoSuchElementException();
+        ExecRow row = next;
+        next = null;
+        if(op!=null)
+            op.setCurrentRow(row);
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException{
+        if(recordReader!=null){
+            recordReader.close();
+            recordReader = null;
+        }
+    }
+
+    /**
+     * @return the number of files which have been opened so far
+     */
+    public int getFilesRead(){
+        return filesRead;
+    }
+
+    /**
+     * @return the number of files which have been skipped so far, because of their partition values
+     */
+    public int getFilesPruned(){
+        return filesPruned;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean openNextFile() throws IOException{
+        close();
+        while(files.hasNext()){
+            Path path = files.next();
+            List<String> values;
+            try{
+                values = Warehouse.getPartValuesFromPartName(path.toString());
+            }catch(MetaException me){
+                throw new IOException(me);
+            }
+            Map<Integer,ColumnStatistics> partitionStatistics = SpliceORCPredicate.partitionStatsEval(columnIds,rowStruct,
+                    partitionIds,values.toArray(new String[values.size()]),collectStats);
+            if(!predicate.matches(DEFAULT_PARTITION_SIZE,partitionStatistics)){
+                filesPruned++;
+                continue;
+            }
+            FileSystem fileSystem = path.getFileSystem(configuration);
+            long size = fileSystem.getFileStatus(path).getLen();
+            OrcDataSource orcDataSource = new HdfsOrcDataSource(path.toString(),size,maxMergeDistance,maxReadSize,
+                    streamBufferSize,fileSystem.open(path));
+            try{
+                OrcReader orcReader = new OrcReader(orcDataSource,new OrcMetadataReader(),maxMergeDistance,maxReadSize);
+                recordReader = orcReader.createRecordReader(columnsAndTypes,predicate,HIVE_STORAGE_TIME_ZONE,
+                        new AggregatedMemoryContext(),partitionIds,values);
+            }catch(IOException | RuntimeException e){
+                orcDataSource.close();
+                throw e;
+            }
+            filesRead++;
+            return true;
+        }
+        return false;
+    }
+
+    private static List<Path> listFiles(Configuration configuration,Path location) throws IOException{
+        FileSystem fileSystem = location.getFileSystem(configuration);
+        List<Path> files = new ArrayList<>();
+        FileStatus status = fileSystem.getFileStatus(location);
+        if(!status.isDirectory()){
+            files.add(location);
+            return files;
+        }
+        addFiles(fileSystem,location,files);
+        Collections.sort(files);
+        return files;
+    }
+
+    private static void addFiles(FileSystem fileSystem,Path directory,List<Path> files) throws IOException{
+        for(FileStatus status : fileSystem.listStatus(directory)){
+            String name = status.getPath().getName();
+            if(name.startsWith("_") || name.startsWith("."))
+                continue; // _SUCCESS, .crc files, etc.
+            if(status.isDirectory())
+                addFiles(fileSystem,status.getPath(),files);
+            else if(status.getLen()>0)
+                files.add(status.getPath());
+        }
+    }
+
+    private static List<Integer> toList(int[] ints){
+        List<Integer> list = new ArrayList<>(ints.length);
+        for(int i : ints)
+            list.add(i);
+        return list;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.stream;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.splicemachine.compression.SpliceSnappy;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.DataValueFactoryImpl;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.SpliceSparkKryoRegistrator;
+import com.splicemachine.utils.kryo.KryoObjectInput;
+import com.splicemachine.utils.kryo.KryoPool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the rows of the {@link StreamProtocol.ColumnBatch}es written by {@link ColumnBatchWriter}.
+ *
+ * Resetting the reader to a batch only splits it into its column vectors. Rows are decoded as they are read, into
+ * one of two rows which are reused from row to row and from batch to batch, so rows skipped for an offset are never
+ * decoded. A row returned by {@link #next()} stays valid until the second call after it, which lets
+ * {@link StreamListener} read one row ahead of the row it last returned.
+ */
+public class ColumnBatchReader {
+    private static final KryoPool kp = SpliceSparkKryoRegistrator.getInstance();
+
+    private int[] formatIds;
+    private Vector[] vectors;
+    private ExecRow[] rows;
+    private int current;
+    private boolean hasOther;
+    private int size;
+    private int position;
+
+    /**
+     * Starts reading the rows of a batch, dropping the rows left in the previous one.
+     */
+    public void reset(StreamProtocol.ColumnBatch batch) throws IOException {
+        byte[] data = batch.data;
+        int length = batch.length;
+        if (batch.compressed) {
+            if (!SpliceSnappy.isInstalled())
+                throw new IOException("Cannot read a compressed batch, Snappy is not installed");
+            data = SpliceSnappy.uncompress(data.length == length ? data : Arrays.copyOf(data, length));
+            length = data.length;
+        }
+        Input input = new Input(data, 0, length);
+        size = batch.rows;
+        position = 0;
+        hasOther = false;
+
+        int columns = input.readInt(true);
+        int[] ids = new int[columns];
+        vectors = new Vector[columns];
+        for (int i = 0; i < columns; i++) {
+            ids[i] = input.readInt(true);
+            boolean[] nulls = readNulls(input);
+            byte encoding = input.readByte();
+            switch (encoding) {
+                case StreamProtocol.ColumnBatch.LONG:
+                    vectors[i] = new LongVector(nulls);
+                    break;
+                case StreamProtocol.ColumnBatch.DOUBLE:
+                    vectors[i] = new DoubleVector(nulls);
+                    break;
+                case StreamProtocol.ColumnBatch.BOOLEAN:
+                    vectors[i] = new BooleanVector(nulls);
+                    break;
+                case StreamProtocol.ColumnBatch.STRING:
+                    vectors[i] = new StringVector(nulls);
+                    break;
+                case StreamProtocol.ColumnBatch.DICTIONARY:
+                    vectors[i] = new DictionaryVector(nulls);
+                    break;
+                case StreamProtocol.ColumnBatch.OTHER:
+                    vectors[i] = new OtherVector(nulls);
+                    hasOther = true;
+                    break;
+                default:
+                    throw new IOException("Unknown column encoding " + encoding);
+            }
+            vectors[i].read(input);
+        }
+        if (!Arrays.equals(ids, formatIds)) {
+            formatIds = ids;
+            rows = new ExecRow[]{newRow(ids), newRow(ids)};
+        }
+    }
+
+    public boolean hasNext() {
+        return position < size;
+    }
+
+    /**
+     * Decodes the next row of the batch.
+     */
+    public ExecRow next() throws StandardException, IOException {
+        current ^= 1;
+        ExecRow row = rows[current];
+        DataValueDescriptor[] dvds = row.getRowArray();
+        Kryo kryo = hasOther ? kp.get() : null;
+        try {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i].set(position, dvds[i], kryo);
+            }
+        } finally {
+            if (kryo != null)
+                kp.returnInstance(kryo);
+        }
+        position++;
+        return row;
+    }
+
+    /**
+     * Skips the next row of the batch, without decoding it.
+     */
+    public void skip() {
+        position++;
+    }
+
+    /**
+     * Drops the rows left in the batch.
+     */
+    public void clear() {
+        position = size;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean[] readNulls(Input input) {
+        boolean[] nulls = new boolean[size];
+        if (!input.readBoolean())
+            return nulls;
+        for (int i = 0; i < size; i += 8) {
+            int bits = input.readByte();
+            for (int j = i; j < i + 8 && j < size; j++) {
+                nulls[j] = (bits & (1 << (j - i))) != 0;
+            }
+        }
+        return nulls;
+    }
+
+    private static ExecRow newRow(int[] formatIds) {
+        ExecRow row = new ValueRow(formatIds.length);
+        for (int i = 0; i < formatIds.length; i++) {
+            row.setColumn(i + 1, getDVD(formatIds[i]));
+        }
+        return row;
+    }
+
+    private static DataValueDescriptor getDVD(int formatId) {
+        if (formatId == StoredFormatIds.SQL_DECIMAL_ID) {
+            return new SQLDecimal();
+        } else {
+            return DataValueFactoryImpl.getNullDVDWithUCS_BASICcollation(formatId);
+        }
+    }
+
+    private static abstract class Vector {
+        final boolean[] nulls;
+
+        Vector(boolean[] nulls) {
+            this.nulls = nulls;
+        }
+
+        void set(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException, IOException {
+            if (nulls[row])
+                dvd.setToNull();
+            else
+                setValue(row, dvd, kryo);
+        }
+
+        abstract void read(Input input);
+
+        abstract void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException, IOException;
+    }
+
+    private static class LongVector extends Vector {
+        final long[] values;
+
+        LongVector(boolean[] nulls) {
+            super(nulls);
+            values = new long[nulls.length];
+        }
+
+        @Override
+        void read(Input input) {
+            for (int i = 0; i < nulls.length; i++) {
+                if (!nulls[i])
+                    values[i] = input.readLong(false);
+            }
+        }
+
+        @Override
+        void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException {
+            dvd.setValue(values[row]);
+        }
+    }
+
+    private static class DoubleVector extends Vector {
+        final double[] values;
+
+        DoubleVector(boolean[] nulls) {
+            super(nulls);
+            values = new double[nulls.length];
+        }
+
+        @Override
+        void read(Input input) {
+            for (int i = 0; i < nulls.length; i++) {
+                if (!nulls[i])
+                    values[i] = input.readDouble();
+            }
+        }
+
+        @Override
+        void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException {
+            dvd.setValue(values[row]);
+        }
+    }
+
+    private static class BooleanVector extends Vector {
+        final boolean[] values;
+
+        BooleanVector(boolean[] nulls) {
+            super(nulls);
+            values = new boolean[nulls.length];
+        }
+
+        @Override
+        void read(Input input) {
+            for (int i = 0; i < nulls.length; i++) {
+                if (!nulls[i])
+                    values[i] = input.readBoolean();
+            }
+        }
+
+        @Override
+        void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException {
+            dvd.setValue(values[row]);
+        }
+    }
+
+    /**
+     * Values are decoded from the buffer of the batch only when their row is read.
+     */
+    private static class StringVector extends Vector {
+        final int[] offsets;
+        final int[] lengths;
+        byte[] buffer;
+
+        StringVector(boolean[] nulls) {
+            super(nulls);
+            offsets = new int[nulls.length];
+            lengths = new int[nulls.length];
+        }
+
+        @Override
+        void read(Input input) {
+            buffer = input.getBuffer();
+            for (int i = 0; i < nulls.length; i++) {
+                if (nulls[i])
+                    continue;
+                lengths[i] = input.readInt(true);
+                offsets[i] = input.position();
+                input.skip(lengths[i]);
+            }
+        }
+
+        @Override
+        void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException {
+            dvd.setValue(new String(buffer, offsets[row], lengths[row], StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class DictionaryVector extends Vector {
+        final int[] ids;
+        String[] dictionary;
+
+        DictionaryVector(boolean[] nulls) {
+            super(nulls);
+            ids = new int[nulls.length];
+        }
+
+        @Override
+        void read(Input input) {
+            dictionary = new String[input.readInt(true)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = new String(input.readBytes(input.readInt(true)), StandardCharsets.UTF_8);
+            }
+            for (int i = 0; i < nulls.length; i++) {
+                if (!nulls[i])
+                    ids[i] = input.readInt(true);
+            }
+        }
+
+        @Override
+        void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws StandardException {
+            dvd.setValue(dictionary[ids[row]]);
+        }
+    }
+
+    /**
+     * Values are read back into the row with {@link DataValueDescriptor#readExternal} when their row is read.
+     */
+    private static class OtherVector extends Vector {
+        final int[] offsets;
+        final int[] lengths;
+        final Input valueInput = new Input();
+        byte[] buffer;
+
+        OtherVector(boolean[] nulls) {
+            super(nulls);
+            offsets = new int[nulls.length];
+            lengths = new int[nulls.length];
+        }
+
+        @Override
+        void read(Input input) {
+            buffer = input.getBuffer();
+            for (int i = 0; i < nulls.length; i++) {
+                if (nulls[i])
+                    continue;
+                lengths[i] = input.readInt(true);
+                offsets[i] = input.position();
+                input.skip(lengths[i]);
+            }
+        }
+
+        @Override
+        void setValue(int row, DataValueDescriptor dvd, Kryo kryo) throws IOException {
+            valueInput.setBuffer(buffer, offsets[row], lengths[row]);
+            try {
+                dvd.readExternal(new KryoObjectInput(valueInput, kryo));
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
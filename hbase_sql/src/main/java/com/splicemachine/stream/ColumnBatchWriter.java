@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.stream;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.compression.SpliceSnappy;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.SpliceSparkKryoRegistrator;
+import com.splicemachine.utils.kryo.KryoObjectOutput;
+import com.splicemachine.utils.kryo.KryoPool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lays out the rows {@link ResultStreamer} sends to the control side by column, into
+ * {@link StreamProtocol.ColumnBatch}es.
+ *
+ * Integer, floating point and boolean columns are written as vectors of variable length values. Character columns
+ * are dictionary encoded when their values repeat within the batch, and other columns are written in their
+ * externalized form. The batch can optionally be Snappy compressed.
+ *
+ * All the rows of a batch have the same column types. A row with other types, or holding user defined types or
+ * LOBs, can't be added: the batch has to be flushed first, or the row sent on its own.
+ */
+public class ColumnBatchWriter {
+    private static final KryoPool kp = SpliceSparkKryoRegistrator.getInstance();
+    private static final int MAX_DICTIONARY_SIZE = 1 << 12;
+
+    private final boolean compress;
+    private final Output output = new Output(1 << 16, -1);
+    private int[] formatIds;
+    private Column[] columns;
+    private int rows;
+
+    public ColumnBatchWriter(boolean compress) {
+        this.compress = compress && SpliceSnappy.isInstalled();
+    }
+
+    /**
+     * Adds a row to the batch, copying its values.
+     *
+     * @return false if the row can't be added to this batch
+     */
+    public boolean add(Object row) throws StandardException {
+        if (row == null || row.getClass() != ValueRow.class)
+            return false;
+        DataValueDescriptor[] dvds = ((ExecRow) row).getRowArray();
+        if (rows == 0) {
+            if (!setColumns(dvds))
+                return false;
+        } else if (!sameColumns(dvds)) {
+            return false;
+        }
+        for (int i = 0; i < dvds.length; i++) {
+            columns[i].add(rows, dvds[i]);
+        }
+        rows++;
+        return true;
+    }
+
+    /**
+     * @return the number of rows added since the last flush
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Encodes the rows added since the last flush, and empties the batch.
+     */
+    public StreamProtocol.ColumnBatch flush() throws IOException, StandardException {
+        output.clear();
+        output.writeInt(columns.length, true);
+        Kryo kryo = kp.get();
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                output.writeInt(formatIds[i], true);
+                columns[i].write(output, rows, kryo);
+            }
+        } finally {
+            kp.returnInstance(kryo);
+        }
+
+        int length = output.position();
+        byte[] data;
+        if (compress) {
+            data = new byte[SpliceSnappy.maxCompressedLength(length)];
+            length = SpliceSnappy.compress(output.getBuffer(), 0, length, data, 0);
+        } else {
+            data = output.toBytes();
+        }
+        StreamProtocol.ColumnBatch batch = new StreamProtocol.ColumnBatch(rows, compress, data, length);
+        rows = 0;
+        return batch;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean setColumns(DataValueDescriptor[] dvds) {
+        if (sameColumns(dvds))
+            return true; // the columns of the previous batch can be reused
+        int[] ids = new int[dvds.length];
+        Column[] newColumns = new Column[dvds.length];
+        for (int i = 0; i < dvds.length; i++) {
+            if (dvds[i] == null)
+                return false;
+            ids[i] = dvds[i].getTypeFormatId();
+            newColumns[i] = newColumn(ids[i]);
+            if (newColumns[i] == null)
+                return false;
+        }
+        formatIds = ids;
+        columns = newColumns;
+        return true;
+    }
+
+    private boolean sameColumns(DataValueDescriptor[] dvds) {
+        if (formatIds == null || formatIds.length != dvds.length)
+            return false;
+        for (int i = 0; i < dvds.length; i++) {
+            if (dvds[i] == null || dvds[i].getTypeFormatId() != formatIds[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static Column newColumn(int formatId) {
+        switch (formatId) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return new LongColumn();
+            case StoredFormatIds.SQL_REAL_ID:
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return new DoubleColumn();
+            case StoredFormatIds.SQL_BOOLEAN_ID:
+                return new BooleanColumn();
+            case StoredFormatIds.SQL_CHAR_ID:
+            case StoredFormatIds.SQL_VARCHAR_ID:
+            case StoredFormatIds.SQL_LONGVARCHAR_ID:
+                return new StringColumn();
+            case StoredFormatIds.SQL_USERTYPE_ID_V3:
+            case StoredFormatIds.SQL_BLOB_ID:
+            case StoredFormatIds.SQL_CLOB_ID:
+                return null;
+            default:
+                return new OtherColumn();
+        }
+    }
+
+    private static abstract class Column {
+        boolean[] nulls = new boolean[0];
+        int nullCount;
+
+        void add(int row, DataValueDescriptor dvd) throws StandardException {
+            if (row == nulls.length) {
+                int capacity = Math.max(16, row << 1);
+                nulls = Arrays.copyOf(nulls, capacity);
+                grow(capacity);
+            }
+            nulls[row] = dvd.isNull();
+            if (nulls[row])
+                nullCount++;
+            else
+                set(row, dvd);
+        }
+
+        /**
+         * Writes the null bitmap of the column, if it has nulls, and the encoding and values of its non null rows.
+         */
+        void write(Output output, int rows, Kryo kryo) throws IOException, StandardException {
+            output.writeBoolean(nullCount > 0);
+            if (nullCount > 0) {
+                for (int i = 0; i < rows; i += 8) {
+                    int bits = 0;
+                    for (int j = i; j < i + 8 && j < rows; j++) {
+                        if (nulls[j])
+                            bits |= 1 << (j - i);
+                    }
+                    output.writeByte(bits);
+                }
+            }
+            writeValues(output, rows, kryo);
+            nullCount = 0;
+        }
+
+        abstract void grow(int capacity);
+
+        abstract void set(int row, DataValueDescriptor dvd) throws StandardException;
+
+        abstract void writeValues(Output output, int rows, Kryo kryo) throws IOException, StandardException;
+    }
+
+    private static class LongColumn extends Column {
+        long[] values;
+
+        @Override
+        void grow(int capacity) {
+            values = values == null ? new long[capacity] : Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void set(int row, DataValueDescriptor dvd) throws StandardException {
+            values[row] = dvd.getLong();
+        }
+
+        @Override
+        void writeValues(Output output, int rows, Kryo kryo) {
+            output.writeByte(StreamProtocol.ColumnBatch.LONG);
+            for (int i = 0; i < rows; i++) {
+                if (!nulls[i])
+                    output.writeLong(values[i], false);
+            }
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        double[] values;
+
+        @Override
+        void grow(int capacity) {
+            values = values == null ? new double[capacity] : Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void set(int row, DataValueDescriptor dvd) throws StandardException {
+            values[row] = dvd.getDouble();
+        }
+
+        @Override
+        void writeValues(Output output, int rows, Kryo kryo) {
+            output.writeByte(StreamProtocol.ColumnBatch.DOUBLE);
+            for (int i = 0; i < rows; i++) {
+                if (!nulls[i])
+                    output.writeDouble(values[i]);
+            }
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+        boolean[] values;
+
+        @Override
+        void grow(int capacity) {
+            values = values == null ? new boolean[capacity] : Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void set(int row, DataValueDescriptor dvd) throws StandardException {
+            values[row] = dvd.getBoolean();
+        }
+
+        @Override
+        void writeValues(Output output, int rows, Kryo kryo) {
+            output.writeByte(StreamProtocol.ColumnBatch.BOOLEAN);
+            for (int i = 0; i < rows; i++) {
+                if (!nulls[i])
+                    output.writeBoolean(values[i]);
+            }
+        }
+    }
+
+    private static class StringColumn extends Column {
+        String[] values;
+        int[] ids;
+        /* the id of each distinct value, until there are too many of them to bother */
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> dictionaryValues = new ArrayList<>();
+        boolean useDictionary = true;
+
+        @Override
+        void grow(int capacity) {
+            values = values == null ? new String[capacity] : Arrays.copyOf(values, capacity);
+            ids = ids == null ? new int[capacity] : Arrays.copyOf(ids, capacity);
+        }
+
+        @Override
+        void set(int row, DataValueDescriptor dvd) throws StandardException {
+            String value = dvd.getString();
+            values[row] = value;
+            if (!useDictionary)
+                return;
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+                    useDictionary = false;
+                    return;
+                }
+                id = dictionary.size();
+                dictionary.put(value, id);
+                dictionaryValues.add(value);
+            }
+            ids[row] = id;
+        }
+
+        @Override
+        void writeValues(Output output, int rows, Kryo kryo) {
+            if (useDictionary && dictionary.size() <= (rows - nullCount) / 2) {
+                output.writeByte(StreamProtocol.ColumnBatch.DICTIONARY);
+                output.writeInt(dictionaryValues.size(), true);
+                for (String value : dictionaryValues) {
+                    writeString(output, value);
+                }
+                for (int i = 0; i < rows; i++) {
+                    if (!nulls[i])
+                        output.writeInt(ids[i], true);
+                }
+            } else {
+                output.writeByte(StreamProtocol.ColumnBatch.STRING);
+                for (int i = 0; i < rows; i++) {
+                    if (!nulls[i])
+                        writeString(output, values[i]);
+                }
+            }
+            Arrays.fill(values, 0, rows, null);
+            dictionary.clear();
+            dictionaryValues.clear();
+            useDictionary = true;
+        }
+
+        private static void writeString(Output output, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length, true);
+            output.writeBytes(bytes);
+        }
+    }
+
+    private static class OtherColumn extends Column {
+        DataValueDescriptor[] values;
+        Output valueOutput = new Output(256, -1);
+
+        @Override
+        void grow(int capacity) {
+            values = values == null ? new DataValueDescriptor[capacity] : Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void set(int row, DataValueDescriptor dvd) throws StandardException {
+            values[row] = dvd.cloneValue(false);
+        }
+
+        @Override
+        void writeValues(Output output, int rows, Kryo kryo) throws IOException {
+            output.writeByte(StreamProtocol.ColumnBatch.OTHER);
+            KryoObjectOutput objectOutput = new KryoObjectOutput(valueOutput, kryo);
+            for (int i = 0; i < rows; i++) {
+                if (nulls[i])
+                    continue;
+                // each value is prefixed by its length, so the reader can find it without decoding the ones before
+                valueOutput.clear();
+                values[i].writeExternal(objectOutput);
+                output.writeInt(valueOutput.position(), true);
+                output.writeBytes(valueOutput.getBuffer(), 0, valueOutput.position());
+            }
+            Arrays.fill(values, 0, rows, null);
+        }
+    }
+}
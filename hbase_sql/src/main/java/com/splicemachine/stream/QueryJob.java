@@ -89,7 +89,8 @@ public class QueryJob implements Callable<Void>{
             int numPartitions = sparkDataSet.rdd.getNumPartitions();
 
             StreamableRDD streamableRDD = new StreamableRDD<>(sparkDataSet.rdd, context, uuid, clientHost, clientPort,
-                    queryRequest.streamingBatches, queryRequest.streamingBatchSize);
+                    queryRequest.streamingBatches, queryRequest.streamingBatchSize,
+                    queryRequest.streamingColumnar, queryRequest.streamingCompression);
             streamableRDD.setJobStatus(status);
             streamableRDD.submit();
 
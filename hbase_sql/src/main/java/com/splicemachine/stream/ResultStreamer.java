@@ -60,6 +60,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
     private NioEventLoopGroup workerGroup;
     private transient CountDownLatch active;
     private int batches;
+    private boolean columnar;
+    private boolean compression;
     private volatile TaskContext taskContext;
 
     // Serialization
@@ -67,6 +69,15 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
     }
 
     public ResultStreamer(OperationContext<?> context, UUID uuid, String host, int port, int numPartitions, int batches, int batchSize) {
+        this(context, uuid, host, port, numPartitions, batches, batchSize, false, false);
+    }
+
+    /**
+     * @param columnar send the rows in {@link StreamProtocol.ColumnBatch}es rather than one by one
+     * @param compression compress the batches of a columnar stream
+     */
+    public ResultStreamer(OperationContext<?> context, UUID uuid, String host, int port, int numPartitions, int batches, int batchSize,
+                          boolean columnar, boolean compression) {
         this.context = context;
         this.uuid = uuid;
         this.host = host;
@@ -74,6 +85,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         this.numPartitions = numPartitions;
         this.batches = batches;
         this.batchSize = batchSize;
+        this.columnar = columnar;
+        this.compression = compression;
         this.permits = new Semaphore(batches - 1); // we start with one permit taken
     }
 
@@ -87,9 +100,10 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
             private long consumed;
             private long sent;
             private int currentBatch;
+            private ColumnBatchWriter batchWriter = columnar ? new ColumnBatchWriter(compression) : null;
 
             @Override
-            public Long call() throws InterruptedException {
+            public Long call() throws Exception {
                 org.apache.spark.TaskContext$.MODULE$.setTaskContext(taskContext);
                 boolean prepared = false;
                 ActivationHolder ah = null;
@@ -104,7 +118,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                         consumed++;
 
 
-                        ctx.write(lr, ctx.voidPromise());
+                        write(lr);
                         currentBatch++;
                         sent++;
 
@@ -117,6 +131,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                         consumeOffset();
                     }
                     // Data has been written, request close
+                    writeColumnBatch();
                     ctx.writeAndFlush(new StreamProtocol.RequestClose());
 
                     return consumed;
@@ -130,12 +145,13 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the current batch exceeds the batch size, flush the connection and take a new permit, blocking if the client
              * hasn't had time yet to process previous messages
              */
-            private void flushAndGetPermit() throws InterruptedException {
+            private void flushAndGetPermit() throws Exception {
                 if (currentBatch >= batchSize) {
+                    writeColumnBatch();
                     ctx.flush();
                     currentBatch = 0;
                     permits.acquire();
-                    if (taskContext.isInterrupted())
+                    if (taskContext != null && taskContext.isInterrupted())
                         throw new TaskKilledException();
                 }
             }
@@ -144,8 +160,10 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the client hast told us to ignore up to 'offset' messages, consume them here. The client request can
              * arrive after we've already sent some messages.
              */
-            private void consumeOffset() {
+            private void consumeOffset() throws Exception {
                 if (consumed < offset) {
+                    // rows already batched come before the skipped ones
+                    writeColumnBatch();
                     long count = 0;
                     while (locatedRowIterator.hasNext() && consumed < offset) {
                         locatedRowIterator.next();
@@ -160,8 +178,9 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the client told us to send no more than 'limit' messages, check it here
              * @return true if there's a limit and we reached it, false otherwise
              */
-            private boolean checkLimit() {
+            private boolean checkLimit() throws Exception {
                 if (consumed > limit) {
+                    writeColumnBatch();
                     ctx.flush();
                     if (LOG.isTraceEnabled())
                         LOG.trace("Reached limit, stopping. consumed " + consumed + " sent " + sent + " limit " + limit);
@@ -169,6 +188,26 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                 }
                 return false;
             }
+
+            /**
+             * Add the row to the current batch of a columnar stream, or write it on its own if it can't be batched
+             */
+            private void write(T lr) throws Exception {
+                if (batchWriter != null) {
+                    if (batchWriter.add(lr))
+                        return;
+                    // the row doesn't fit the rows batched so far, try a new batch
+                    writeColumnBatch();
+                    if (batchWriter.add(lr))
+                        return;
+                }
+                ctx.write(lr, ctx.voidPromise());
+            }
+
+            private void writeColumnBatch() throws Exception {
+                if (batchWriter != null && batchWriter.size() > 0)
+                    ctx.write(batchWriter.flush(), ctx.voidPromise());
+            }
         });
         active.countDown();
     }
@@ -224,7 +263,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                     consumed = future.get(10, TimeUnit.SECONDS);
                     break;
                 } catch (TimeoutException e) {
-                    if (taskContext.isInterrupted()) {
+                    if (taskContext != null && taskContext.isInterrupted()) {
                         permits.release();
                         throw new TaskKilledException();
                     }
@@ -258,6 +297,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                 ", limit=" + limit +
                 ", partition=" + partition +
                 ", batches=" + batches +
+                ", columnar=" + columnar +
                 '}';
     }
 
@@ -272,6 +312,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         out.writeInt(numPartitions);
         out.writeInt(batches);
         out.writeInt(batchSize);
+        out.writeBoolean(columnar);
+        out.writeBoolean(compression);
         out.writeObject(permits); // WTF is this?
     }
 
@@ -284,6 +326,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         numPartitions = in.readInt();
         batches = in.readInt();
         batchSize = in.readInt();
+        columnar = in.readBoolean();
+        compression = in.readBoolean();
         permits = (Semaphore) in.readObject();
     }
 }
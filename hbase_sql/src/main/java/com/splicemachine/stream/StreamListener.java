@@ -14,6 +14,7 @@
 
 package com.splicemachine.stream;
 
+import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 import com.splicemachine.pipeline.Exceptions;
 import io.netty.channel.Channel;
@@ -22,6 +23,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -32,6 +34,9 @@ import java.util.concurrent.ConcurrentMap;
  * This class handles connections from Spark tasks streaming data to the query client. One connection is created from
  * each task, it handles failures and recovery in case the task is retried.
  *
+ * Tasks may send their rows in {@link StreamProtocol.ColumnBatch}es, which are read back one row at a time into
+ * reused rows: a row returned by {@link #next()} is only valid until the following call.
+ *
  * Created by dgomezferro on 5/20/16.
  */
 @ChannelHandler.Sharable
@@ -40,6 +45,8 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private static final Object SENTINEL = new Object();
     private static final Object FAILURE = new Object();
     private static final Object RETRY = new Object();
+    // Stands for the next row of the current column batch
+    private static final Object BATCHED_ROW = new Object();
     private final int queueSize;
     private final int batchSize;
     private final UUID uuid;
@@ -50,6 +57,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private ConcurrentMap<Integer, PartitionState> partitionStateMap = new ConcurrentHashMap<>();
 
     private T currentResult;
+    private final ColumnBatchReader columnBatch = new ColumnBatchReader();
     private int currentQueue = -1;
     // There's at least one partition, this will be updated when we get a connection
     private volatile long numPartitions = 1;
@@ -151,7 +159,11 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             while (next == null) {
                 PartitionState state = partitionStateMap.get(currentQueue);
                 // We take a message first to make sure we have a connection
-                Object msg = canBlock ? state.messages.take() : state.messages.remove();
+                Object msg;
+                if (columnBatch.hasNext())
+                    msg = BATCHED_ROW;
+                else
+                    msg = canBlock ? state.messages.take() : state.messages.remove();
                 if (msg == FAILURE) {
                     // The olap job failed, return right away
                     currentResult = null;
@@ -204,6 +216,9 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                     if (failure != null) {
                         ps.messages.add(FAILURE);
                     }
+                } else if (msg instanceof StreamProtocol.ColumnBatch) {
+                    // Its rows are read on the next iterations
+                    columnBatch.reset((StreamProtocol.ColumnBatch) msg);
                 } else {
                     if (msg instanceof StreamProtocol.Skipped) {
                         StreamProtocol.Skipped skipped = (StreamProtocol.Skipped) msg;
@@ -211,12 +226,14 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                         state.readTotal += skipped.skipped;
                     } else if (offset > 0) {
                         // We still have to ignore 'offset' messages
+                        if (msg == BATCHED_ROW)
+                            columnBatch.skip();
                         offset--;
                         state.consumed++;
                         state.readTotal++;
                     } else {
                         // We are returning a message
-                        next = (T) msg;
+                        next = msg == BATCHED_ROW ? (T) columnBatch.next() : (T) msg;
                         state.consumed++;
                         state.readTotal++;
                         // Check the limit
@@ -239,6 +256,8 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             currentResult = next;
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
+        } catch (IOException | StandardException e) {
+            Exceptions.throwAsRuntime(Exceptions.parseException(e));
         }
     }
 
@@ -262,6 +281,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             return;
         }
         stopped = true;
+        columnBatch.clear();
         // If a new channel has been added concurrently, it's either visible on the partitionMap, so we are going to close it,
         // or it has already seen the stopped flag, so it's been closed in accept()
         for (Channel channel : partitionMap.keySet()) {
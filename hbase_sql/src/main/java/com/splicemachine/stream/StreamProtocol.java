@@ -146,6 +146,60 @@ public class StreamProtocol implements Serializable {
         }
     }
 
+    /**
+     * A batch of rows laid out by column, written by {@link ColumnBatchWriter} and read by {@link ColumnBatchReader}.
+     * It stands for {@code rows} data messages: limits, offsets and flow control count each of its rows.
+     */
+    public static class ColumnBatch implements Serializable, Externalizable {
+        /* How the values of a column are encoded */
+        static final byte LONG = 0;
+        static final byte DOUBLE = 1;
+        static final byte BOOLEAN = 2;
+        static final byte STRING = 3;
+        static final byte DICTIONARY = 4;
+        static final byte OTHER = 5;
+
+        public int rows;
+        public boolean compressed;
+        public byte[] data;
+        public int length;
+
+        public ColumnBatch() {}
+
+        public ColumnBatch(int rows, boolean compressed, byte[] data, int length) {
+            this.rows = rows;
+            this.compressed = compressed;
+            this.data = data;
+            this.length = length;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeInt(rows);
+            out.writeBoolean(compressed);
+            out.writeInt(length);
+            out.write(data, 0, length);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            rows = in.readInt();
+            compressed = in.readBoolean();
+            length = in.readInt();
+            data = new byte[length];
+            in.readFully(data);
+        }
+
+        @Override
+        public String toString() {
+            return "ColumnBatch{" +
+                    "rows=" + rows +
+                    ", compressed=" + compressed +
+                    ", length=" + length +
+                    '}';
+        }
+    }
+
     public static class Continue implements Serializable, Externalizable {
         public Continue() {}
         @Override
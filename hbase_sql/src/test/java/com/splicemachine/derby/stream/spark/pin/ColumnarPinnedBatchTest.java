@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark.pin;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class ColumnarPinnedBatchTest {
+
+    @Test
+    public void valuesRoundTrip() throws Exception {
+        ExecRow template = template();
+        List<ExecRow> rows = rows(template, 100, 3);
+        ColumnarPinnedBatch batch = build(template, rows);
+
+        Assert.assertEquals(rows.size(), batch.size());
+        for (int r = 0; r < rows.size(); r++) {
+            for (int c = 0; c < template.nColumns(); c++) {
+                ExecRow actual = template.getNewNullRow();
+                actual.getColumn(c+1).setSparkObject(batch.getSparkObject(c, r));
+                Assert.assertEquals("Incorrect value at row " + r + ", column " + c,
+                        rows.get(r).getColumn(c+1), actual.getColumn(c+1));
+            }
+        }
+        Assert.assertTrue(batch.getSizeInBytes() > 0);
+    }
+
+    @Test
+    public void onlyLowCardinalityStringsAreDictionaryEncoded() throws Exception {
+        ExecRow template = template();
+        ColumnarPinnedBatch lowCardinality = build(template, rows(template, 100, 3));
+        ColumnarPinnedBatch highCardinality = build(template, rows(template, 100, 100));
+
+        Assert.assertTrue(lowCardinality.isDictionaryEncoded(1));
+        Assert.assertEquals(3, lowCardinality.dictionarySize(1));
+        Assert.assertFalse(highCardinality.isDictionaryEncoded(1));
+        Assert.assertFalse(lowCardinality.isDictionaryEncoded(0));
+        Assert.assertTrue("Dictionary encoding did not save memory",
+                lowCardinality.getSizeInBytes() < highCardinality.getSizeInBytes());
+    }
+
+    @Test
+    public void scanAppliesProjectionAndPredicate() throws Exception {
+        ExecRow template = template();
+        List<ExecRow> rows = rows(template, 1000, 5);
+        // name = 'name2' AND (id < 100 OR id > 900)
+        GenericScanQualifier nameEquals = new GenericScanQualifier();
+        nameEquals.setQualifier(1, new SQLVarchar("name2"), Orderable.ORDER_OP_EQUALS, false, false, false);
+        GenericScanQualifier idLess = new GenericScanQualifier();
+        idLess.setQualifier(0, new SQLInteger(100), Orderable.ORDER_OP_LESSTHAN, false, false, false);
+        GenericScanQualifier idGreater = new GenericScanQualifier();
+        idGreater.setQualifier(0, new SQLInteger(900), Orderable.ORDER_OP_LESSOREQUALS, true, false, false);
+        Qualifier[][] qualifiers = new Qualifier[][]{{nameEquals}, {idLess, idGreater}};
+
+        // project (double, id)
+        int[] baseColumnMap = new int[]{1, -1, -1, -1, 0};
+        ExecRow execRow = new ValueRow(new DataValueDescriptor[]{new SQLInteger(), new SQLDouble()});
+        ColumnarPinnedScanFunction scan = new ColumnarPinnedScanFunction(null, execRow, template, baseColumnMap,
+                ColumnarPinnedPredicate.create(qualifiers, null));
+
+        List<ColumnarPinnedBatch> batches = new ArrayList<>();
+        batches.add(build(template, rows.subList(0, 512)));
+        batches.add(build(template, rows.subList(512, rows.size())));
+        Iterator<ExecRow> results = scan.call(batches.iterator());
+
+        int count = 0;
+        for (ExecRow row : rows) {
+            int id = row.getColumn(1).getInt();
+            if (!"name2".equals(row.getColumn(2).getString()) || (id >= 100 && id <= 900))
+                continue;
+            Assert.assertTrue("Missing row " + id, results.hasNext());
+            ExecRow result = results.next();
+            Assert.assertEquals(2, result.nColumns());
+            Assert.assertEquals(row.getColumn(1), result.getColumn(1));
+            Assert.assertEquals(row.getColumn(5), result.getColumn(2));
+            count++;
+        }
+        Assert.assertFalse("Returned rows which do not qualify", results.hasNext());
+        Assert.assertTrue(count > 0);
+    }
+
+    private static ExecRow template() throws Exception {
+        return new ValueRow(new DataValueDescriptor[]{
+                new SQLInteger(),
+                new SQLVarchar(),
+                new SQLDate(),
+                new SQLDecimal(null, 10, 2),
+                new SQLDouble()});
+    }
+
+    private static List<ExecRow> rows(ExecRow template, int count, int distinctNames) throws Exception {
+        List<ExecRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ExecRow row = template.getNewNullRow();
+            row.getColumn(1).setValue(i);
+            if (i % 7 != 0)
+                row.getColumn(2).setValue("name" + (i % distinctNames));
+            row.getColumn(3).setValue(new Date(86400000L * (17000 + i)));
+            if (i % 11 != 0)
+                row.getColumn(4).setBigDecimal(new BigDecimal(i).movePointLeft(2));
+            row.getColumn(5).setValue(i / 3d);
+            rows.add(row);
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private static ColumnarPinnedBatch build(ExecRow template, List<ExecRow> rows) throws Exception {
+        ColumnarPinnedBatch.Builder builder = ColumnarPinnedBatch.newBuilder(template.schema(), rows.size());
+        for (ExecRow row : rows)
+            builder.append(row);
+        return builder.build();
+    }
+}
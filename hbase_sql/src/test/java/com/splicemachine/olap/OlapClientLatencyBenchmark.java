@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.olap;
+
+import com.google.common.net.HostAndPort;
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.SystemClock;
+import com.splicemachine.derby.iapi.sql.olap.AbstractOlapResult;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import com.splicemachine.derby.iapi.sql.olap.OlapClient;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end latency of short OLAP jobs, from submission to the client seeing the result, against an
+ * OlapServer running in the same JVM.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -cp ... OlapClientLatencyBenchmark [jobsPerDuration]
+ * </pre>
+ * The overhead is the latency less the time the job ran for. When the client only polls for the status of the job,
+ * it grows up to the tick time (1 second by default) depending on when the job finishes.
+ */
+public class OlapClientLatencyBenchmark {
+    private static final int[] JOB_MILLIS = new int[]{0, 10, 50, 200, 500, 1200};
+
+    public static void main(String... args) throws Exception {
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        Clock clock = new SystemClock();
+        final OlapServer olapServer = new OlapServer(0, clock); // any port
+        olapServer.startServer(HConfiguration.getConfiguration());
+        JobExecutor nl = new AsyncOlapNIOLayer(() ->
+                HostAndPort.fromParts(olapServer.getBoundHost(), olapServer.getBoundPort()), 10);
+        OlapClient olapClient = new TimedOlapClient(nl, 30000);
+        try {
+            // warm up
+            for (int i = 0; i < jobs; i++) {
+                olapClient.execute(new SleepingJob(0, i));
+            }
+            System.out.printf("jobs=%d%n", jobs);
+            for (int jobMillis : JOB_MILLIS) {
+                long[] overheadMillis = new long[jobs];
+                for (int i = 0; i < jobs; i++) {
+                    long start = System.nanoTime();
+                    olapClient.execute(new SleepingJob(jobMillis, i));
+                    overheadMillis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - jobMillis;
+                }
+                Arrays.sort(overheadMillis);
+                System.out.printf("job %,5d ms: overhead p50 %,5d ms, p90 %,5d ms, p99 %,5d ms, max %,5d ms%n",
+                        jobMillis, percentile(overheadMillis, 50), percentile(overheadMillis, 90),
+                        percentile(overheadMillis, 99), overheadMillis[jobs - 1]);
+            }
+        } finally {
+            olapClient.shutdown();
+            olapServer.stopServer();
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static class SleepingResult extends AbstractOlapResult {
+        public SleepingResult() {
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+    }
+
+    private static class SleepingJob extends DistributedJob {
+        int sleep;
+        int order;
+
+        public SleepingJob() {
+        }
+
+        SleepingJob(int sleep, int order) {
+            this.sleep = sleep;
+            this.order = order;
+        }
+
+        @Override
+        public Callable<Void> toCallable(final OlapStatus jobStatus, Clock clock, long clientTimeoutCheckIntervalMs) {
+            return new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    jobStatus.markRunning();
+                    Thread.sleep(sleep);
+                    jobStatus.markCompleted(new SleepingResult());
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public String getName() {
+            return "SleepingJob[" + order + "]";
+        }
+    }
+}
@@ -16,12 +16,20 @@ package com.splicemachine.olap;
 
 import com.google.common.net.HostAndPort;
 import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.concurrent.Clock;
 import com.splicemachine.concurrent.SystemClock;
 import com.splicemachine.derby.iapi.sql.olap.AbstractOlapResult;
 import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
 import com.splicemachine.derby.iapi.sql.olap.OlapClient;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.junit.AfterClass;
@@ -30,9 +38,13 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static org.junit.Assert.assertEquals;
@@ -50,6 +62,11 @@ public class OlapClientTest {
     private static OlapServer olapServer;
     private static OlapClient olapClient;
 
+    // status checks answered by the server of notifiedOfCompletionBeforeNextStatusCheck
+    private static final AtomicInteger statusChecks = new AtomicInteger();
+    private static final AtomicInteger statusChecksAtCompletion = new AtomicInteger();
+    private static volatile CountDownLatch firstStatusCheck;
+
     @BeforeClass
     public static void beforeClass() throws Exception {
         Logger.getLogger(MappedJobRegistry.class).setLevel(Level.INFO);
@@ -84,6 +101,47 @@ public class OlapClientTest {
         Assert.assertEquals(13, result.order);
     }
 
+    @Test
+    public void notifiedOfCompletionBeforeNextStatusCheck() throws Exception {
+        /*
+         * The job completes once the client has checked on it, and the server counts the status checks it answers.
+         * If the client had to poll for the result, another check would be answered between the job completing
+         * and the client returning.
+         */
+        SConfiguration config = HConfiguration.getConfiguration();
+        OlapJobRegistry registry = new MappedJobRegistry(config.getOlapClientTickTime(),
+                config.getOlapServerTickLimit(),
+                TimeUnit.MILLISECONDS);
+        statusChecks.set(0);
+        statusChecksAtCompletion.set(-1);
+        firstStatusCheck = new CountDownLatch(1);
+
+        EventLoopGroup group = new NioEventLoopGroup(2);
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(group);
+        bootstrap.channel(NioServerSocketChannel.class);
+        bootstrap.childHandler(new OlapPipelineFactory(
+                new OlapRequestHandler(config,registry,new SystemClock(),config.getOlapClientTickTime()),
+                new OlapCancelHandler(registry),
+                new CountingStatusHandler(registry)));
+        Channel serverChannel = bootstrap.bind(new InetSocketAddress(0)).sync().channel();
+        final InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+        OlapClient client = new TimedOlapClient(new AsyncOlapNIOLayer(
+                () -> HostAndPort.fromParts(address.getHostName(), address.getPort()), 10), 30000);
+        try {
+            DumbOlapResult result = client.execute(new CompleteAfterStatusCheckJob(13));
+            int checksAtReturn = statusChecks.get();
+            Assert.assertNotNull(result);
+            Assert.assertEquals(13, result.order);
+            Assert.assertEquals("Status checks answered between the job completing and the client returning",
+                    statusChecksAtCompletion.get(), checksAtReturn);
+        } finally {
+            client.shutdown();
+            serverChannel.close();
+            group.shutdownGracefully();
+        }
+    }
+
     @Test
     public void manyFastJobsTest() throws Exception {
         int sleep = 0;
@@ -408,6 +466,54 @@ public class OlapClientTest {
 
     }
 
+    private static class CompleteAfterStatusCheckJob extends DumbDistributedJob {
+
+        public CompleteAfterStatusCheckJob() {}
+
+        CompleteAfterStatusCheckJob(int order) {
+            super(0, order);
+        }
+
+        @Override
+        public Callable<Void> toCallable(final OlapStatus jobStatus,Clock clock,long clientTimeoutCheckIntervalMs){
+            return new Callable<Void>(){
+                @Override
+                public Void call() throws Exception{
+                    jobStatus.markRunning();
+                    firstStatusCheck.await();
+                    statusChecksAtCompletion.set(statusChecks.get());
+                    jobStatus.markCompleted(new DumbOlapResult(order));
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public String getName(){
+            return "CompleteAfterStatusCheckJob["+order+"]";
+        }
+
+    }
+
+    @ChannelHandler.Sharable
+    private static class CountingStatusHandler extends OlapStatusHandler {
+
+        CountingStatusHandler(OlapJobRegistry registry) {
+            super(registry);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, OlapMessage.Command cmd) throws Exception {
+            boolean statusCheck = cmd.getType() == OlapMessage.Command.Type.STATUS;
+            super.channelRead0(ctx, cmd);
+            if (statusCheck) {
+                // counted once answered, so a check which saw the job complete is counted after its completion
+                statusChecks.incrementAndGet();
+                firstStatusCheck.countDown();
+            }
+        }
+    }
+
     private static class SameNameJob extends DumbDistributedJob {
 
         public SameNameJob() {}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.orc.input;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
+import com.splicemachine.derby.stream.function.RowToLocatedRowFunction;
+import com.splicemachine.orc.predicate.SpliceORCPredicate;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.StructType;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Compares the latency of a point lookup against an ORC external table on the control side, when it is
+ * read in-process with {@link SpliceOrcFileScanner} and when it is read the way the control side used to
+ * (a {@link SpliceOrcNewInputFormat} job on a local Spark context, pulled back with {@code toLocalIterator()}).
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -cp ... OrcControlScanBenchmark [rows] [files] [lookups]
+ * </pre>
+ */
+public class OrcControlScanBenchmark{
+
+    public static void main(String...args) throws Exception{
+        int rows=args.length>0?Integer.parseInt(args[0]):1000000;
+        int numFiles=args.length>1?Integer.parseInt(args[1]):4;
+        int lookups=args.length>2?Integer.parseInt(args[2]):50;
+
+        File location=Files.createTempDirectory("orc-control-scan").toFile();
+        int rowsPerFile=rows/numFiles;
+        for(int i=0;i<numFiles;i++)
+            SpliceOrcFileScannerTest.writeOrcFile(new File(location,"part-"+i+".orc"),i*rowsPerFile,rowsPerFile);
+
+        JavaSparkContext context=new JavaSparkContext(new SparkConf().setMaster("local[*]").setAppName("OrcControlScanBenchmark"));
+        try{
+            Random random=new Random(0);
+            int[] ids=new int[lookups];
+            for(int i=0;i<lookups;i++)
+                ids[i]=random.nextInt(numFiles*rowsPerFile);
+
+            //warm up
+            for(int i=0;i<Math.min(10,lookups);i++){
+                nativeLookup(location,ids[i]);
+                sparkLookup(context,location,ids[i]);
+            }
+            long[] nativeLatency=new long[lookups];
+            long[] sparkLatency=new long[lookups];
+            for(int i=0;i<lookups;i++){
+                long s=System.nanoTime();
+                check(nativeLookup(location,ids[i]));
+                nativeLatency[i]=System.nanoTime()-s;
+                s=System.nanoTime();
+                check(sparkLookup(context,location,ids[i]));
+                sparkLatency[i]=System.nanoTime()-s;
+            }
+            System.out.printf("rows=%d, files=%d, lookups=%d%n",numFiles*rowsPerFile,numFiles,lookups);
+            System.out.printf("%8s %12s %12s %12s%n","path","p50 (ms)","p99 (ms)","mean (ms)");
+            print("native",nativeLatency);
+            print("spark",sparkLatency);
+        }finally{
+            context.stop();
+        }
+    }
+
+    private static int nativeLookup(File location,int id) throws Exception{
+        SpliceOrcFileScanner scanner=SpliceOrcFileScannerTest.scanner(location,new int[]{0,1},
+                SpliceOrcFileScannerTest.template(),qualifiers(id));
+        try{
+            return count(scanner,id);
+        }finally{
+            scanner.close();
+        }
+    }
+
+    private static int sparkLookup(JavaSparkContext context,File location,int id) throws Exception{
+        int[] baseColumnMap={0,1};
+        ExecRow template=SpliceOrcFileScannerTest.template();
+        StructType structType=template.createStructType(baseColumnMap);
+        Configuration configuration=new Configuration();
+        configuration.set(SpliceOrcNewInputFormat.SPLICE_PREDICATE,new SpliceORCPredicate(qualifiers(id),baseColumnMap,structType).serialize());
+        configuration.set(SpliceOrcNewInputFormat.SPARK_STRUCT,structType.json());
+        configuration.set(SpliceOrcNewInputFormat.SPLICE_COLUMNS,"0,1");
+        configuration.set(SpliceOrcNewInputFormat.SPLICE_PARTITIONS,"");
+        Iterator<ExecRow> rows=context.newAPIHadoopFile(location.getAbsolutePath(),
+                SpliceOrcNewInputFormat.class,NullWritable.class,Row.class,configuration)
+                .values()
+                .map(new RowToLocatedRowFunction(null,template))
+                .toLocalIterator();
+        return count(rows,id);
+    }
+
+    private static Qualifier[][] qualifiers(int id) throws Exception{
+        GenericScanQualifier equals=new GenericScanQualifier();
+        equals.setQualifier(0,0,new SQLInteger(id),Orderable.ORDER_OP_EQUALS,false,false,false);
+        return new Qualifier[][]{{equals}};
+    }
+
+    private static int count(Iterator<ExecRow> rows,int id) throws Exception{
+        //the scan only prunes, so apply the qualifier as the caller would
+        int count=0;
+        while(rows.hasNext()){
+            if(rows.next().getColumn(1).getInt()==id)
+                count++;
+        }
+        return count;
+    }
+
+    private static void check(int count){
+        if(count!=1)
+            throw new IllegalStateException("Expected exactly one row, found "+count);
+    }
+
+    private static void print(String name,long[] latencies){
+        long[] sorted=latencies.clone();
+        Arrays.sort(sorted);
+        long total=0;
+        for(long l:sorted)
+            total+=l;
+        System.out.printf("%8s %12.2f %12.2f %12.2f%n",name,
+                sorted[sorted.length/2]/1e6d,
+                sorted[Math.min(sorted.length-1,(int)(sorted.length*0.99))]/1e6d,
+                total/(double)sorted.length/1e6d);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.orc.input;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.CompressionKind;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class SpliceOrcFileScannerTest {
+    static final int ROWS_PER_ROW_GROUP = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsEveryRowOfEveryFile() throws Exception {
+        File location = folder.newFolder("table");
+        writeOrcFile(new File(location, "part-0.orc"), 0, 5000);
+        writeOrcFile(new File(location, "part-1.orc"), 5000, 5000);
+        new File(location, "_SUCCESS").createNewFile();
+
+        SpliceOrcFileScanner scanner = scanner(location, new int[]{0, 1}, template(), null);
+        BitSet seen = new BitSet();
+        int count = 0;
+        while (scanner.hasNext()) {
+            ExecRow row = scanner.next();
+            int id = row.getColumn(1).getInt();
+            Assert.assertEquals("name" + (id % 10), row.getColumn(2).getString());
+            seen.set(id);
+            count++;
+        }
+        scanner.close();
+        Assert.assertEquals(10000, count);
+        Assert.assertEquals(10000, seen.cardinality());
+        Assert.assertEquals(2, scanner.getFilesRead());
+    }
+
+    @Test
+    public void projectsColumns() throws Exception {
+        File location = folder.newFolder("table");
+        writeOrcFile(new File(location, "part-0.orc"), 0, 100);
+
+        ExecRow names = new ValueRow(new DataValueDescriptor[]{new SQLVarchar()});
+        SpliceOrcFileScanner scanner = scanner(location, new int[]{-1, 0}, names, null);
+        int count = 0;
+        while (scanner.hasNext()) {
+            ExecRow row = scanner.next();
+            Assert.assertEquals(1, row.nColumns());
+            Assert.assertEquals("name" + (count % 10), row.getColumn(1).getString());
+            count++;
+        }
+        scanner.close();
+        Assert.assertEquals(100, count);
+    }
+
+    @Test
+    public void skipsRowGroupsWhichCannotQualify() throws Exception {
+        File location = folder.newFolder("table");
+        writeOrcFile(new File(location, "part-0.orc"), 0, 10 * ROWS_PER_ROW_GROUP);
+
+        // id < 100
+        GenericScanQualifier idLess = new GenericScanQualifier();
+        idLess.setQualifier(0, 0, new SQLInteger(100), Orderable.ORDER_OP_LESSTHAN, false, false, false);
+        SpliceOrcFileScanner scanner = scanner(location, new int[]{0, 1}, template(), new Qualifier[][]{{idLess}});
+        BitSet seen = new BitSet();
+        int count = 0;
+        while (scanner.hasNext()) {
+            seen.set(scanner.next().getColumn(1).getInt());
+            count++;
+        }
+        scanner.close();
+        Assert.assertEquals("Missing qualifying rows", 100, seen.get(0, 100).cardinality());
+        Assert.assertEquals("Row groups were not pruned", ROWS_PER_ROW_GROUP, count);
+    }
+
+    static ExecRow template() {
+        return new ValueRow(new DataValueDescriptor[]{new SQLInteger(), new SQLVarchar()});
+    }
+
+    static SpliceOrcFileScanner scanner(File location, int[] baseColumnMap, ExecRow execRow, Qualifier[][] qualifiers) throws IOException {
+        return new SpliceOrcFileScanner(new Configuration(), location.getAbsolutePath(), baseColumnMap, new int[0],
+                null, qualifiers, execRow, 1d, false);
+    }
+
+    /**
+     * Writes {@code count} rows of (id int, name string), with ids starting at {@code firstId}.
+     */
+    static void writeOrcFile(File file, int firstId, int count) throws IOException {
+        List<String> names = Arrays.asList("id", "name");
+        List<ObjectInspector> inspectors = Arrays.<ObjectInspector>asList(
+                PrimitiveObjectInspectorFactory.javaIntObjectInspector,
+                PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+        Writer writer = OrcFile.createWriter(new Path(file.toURI()), OrcFile.writerOptions(new Configuration())
+                .inspector(ObjectInspectorFactory.getStandardStructObjectInspector(names, inspectors))
+                .rowIndexStride(ROWS_PER_ROW_GROUP)
+                .compress(CompressionKind.NONE));
+        try {
+            for (int id = firstId; id < firstId + count; id++)
+                writer.addRow(Arrays.<Object>asList(id, "name" + (id % 10)));
+        } finally {
+            writer.close();
+        }
+    }
+}
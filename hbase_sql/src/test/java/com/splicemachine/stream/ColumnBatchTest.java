@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.stream;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLBoolean;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDate;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.SpliceSparkKryoRegistrator;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that rows written by {@link ColumnBatchWriter} are read back unchanged by {@link ColumnBatchReader}.
+ */
+public class ColumnBatchTest {
+    private static final KryoPool kp = SpliceSparkKryoRegistrator.getInstance();
+
+    @Test
+    public void readsBackRows() throws Exception {
+        List<ExecRow> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(row(i));
+        }
+        for (boolean compress : new boolean[]{false, true}) {
+            ColumnBatchWriter writer = new ColumnBatchWriter(compress);
+            for (ExecRow row : rows) {
+                Assert.assertTrue(writer.add(row));
+            }
+            Assert.assertEquals(rows.size(), writer.size());
+            ColumnBatchReader reader = new ColumnBatchReader();
+            reader.reset(roundTrip(writer.flush()));
+            Assert.assertEquals(0, writer.size());
+            for (ExecRow row : rows) {
+                Assert.assertTrue(reader.hasNext());
+                Assert.assertEquals(row, reader.next());
+            }
+            Assert.assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void skipsAndReusesRows() throws Exception {
+        ColumnBatchWriter writer = new ColumnBatchWriter(false);
+        for (int i = 0; i < 10; i++) {
+            writer.add(row(i));
+        }
+        ColumnBatchReader reader = new ColumnBatchReader();
+        reader.reset(roundTrip(writer.flush()));
+        reader.skip();
+        reader.skip();
+        ExecRow first = reader.next();
+        Assert.assertEquals(row(2), first);
+        ExecRow second = reader.next();
+        Assert.assertEquals(row(3), second);
+        Assert.assertEquals("The previous row should still be valid", row(2), first);
+        Assert.assertSame(first, reader.next());
+
+        // the next batch has the same columns
+        writer.add(row(42));
+        reader.reset(roundTrip(writer.flush()));
+        Assert.assertEquals(row(42), reader.next());
+        reader.clear();
+        Assert.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void rejectsRowsNotFittingTheBatch() throws Exception {
+        ColumnBatchWriter writer = new ColumnBatchWriter(false);
+        Assert.assertTrue(writer.add(row(1)));
+        ExecRow other = new ValueRow(1);
+        other.setColumn(1, new SQLVarchar("a"));
+        Assert.assertFalse("Rows with other columns need a new batch", writer.add(other));
+        writer.flush();
+        Assert.assertTrue(writer.add(other));
+        writer.flush();
+
+        ExecRow udt = new ValueRow(1);
+        udt.setColumn(1, new UserType("x"));
+        Assert.assertFalse("User defined types can't be batched", writer.add(udt));
+        Assert.assertEquals(0, writer.size());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ExecRow row(int i) throws Exception {
+        ExecRow row = new ValueRow(8);
+        row.setColumn(1, new SQLInteger(i));
+        row.setColumn(2, i % 7 == 0 ? new SQLLongint() : new SQLLongint(-1000000000000L * i));
+        row.setColumn(3, new SQLDouble(i / 3d));
+        row.setColumn(4, i % 5 == 0 ? new SQLBoolean() : new SQLBoolean(i % 2 == 0));
+        // few distinct values, dictionary encoded
+        row.setColumn(5, new SQLVarchar("category " + (i % 4)));
+        // distinct values, not dictionary encoded
+        row.setColumn(6, i % 3 == 0 ? new SQLChar() : new SQLChar("value é " + i));
+        row.setColumn(7, new SQLDecimal(new BigDecimal(i).movePointLeft(2)));
+        row.setColumn(8, i % 6 == 0 ? new SQLDate() : new SQLDate(new Date(86400000L * i)));
+        return row;
+    }
+
+    private static StreamProtocol.ColumnBatch roundTrip(StreamProtocol.ColumnBatch batch) {
+        Kryo kryo = kp.get();
+        try {
+            Output output = new Output(1024, -1);
+            kryo.writeClassAndObject(output, batch);
+            return (StreamProtocol.ColumnBatch) kryo.readClassAndObject(new Input(output.toBytes()));
+        } finally {
+            kp.returnInstance(kryo);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.stream;
+
+import com.google.common.net.HostAndPort;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the throughput of streaming rows from a {@link ResultStreamer} to a {@link StreamListener} over the local
+ * loopback, one row at a time and in column batches.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -Xmx4g -cp ... StreamThroughputBenchmark [rows] [iterations] [batchSize]
+ * </pre>
+ * Each row holds an integer, a bigint, a double, a decimal, a varchar with 16 distinct values and a distinct varchar,
+ * like the result of a typical {@code INSERT ... SELECT}.
+ */
+public class StreamThroughputBenchmark {
+
+    public static void main(String... args) throws Exception {
+        int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        List<ExecRow> rows = rows(numRows);
+        StreamListenerServer server = new StreamListenerServer(0);
+        server.start();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            System.out.printf("rows=%d, iterations=%d, batchSize=%d%n", numRows, iterations, batchSize);
+            for (int i = 0; i < iterations; i++) {
+                System.out.printf("--- iteration %d%n", i);
+                run("rows", server, executor, rows, batchSize, false, false);
+                run("columnar", server, executor, rows, batchSize, true, false);
+                run("columnar+snappy", server, executor, rows, batchSize, true, true);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void run(String name, StreamListenerServer server, ExecutorService executor, final List<ExecRow> rows,
+                            int batchSize, boolean columnar, boolean compression) throws Exception {
+        int batches = 10;
+        StreamListener<ExecRow> listener = new StreamListener<>(-1, 0, batches, batchSize);
+        server.register(listener);
+        HostAndPort hostAndPort = server.getHostAndPort();
+        final ResultStreamer<ExecRow> streamer = new ResultStreamer<>(null, listener.getUuid(),
+                hostAndPort.getHostText(), hostAndPort.getPort(), 1, batches, batchSize, columnar, compression);
+
+        long start = System.nanoTime();
+        Future<?> streamed = executor.submit(() -> streamer.call(0, rows.iterator()));
+        Iterator<ExecRow> it = listener.getIterator();
+        long count = 0;
+        long checksum = 0;
+        while (it.hasNext()) {
+            checksum += it.next().getColumn(1).getInt();
+            count++;
+        }
+        streamed.get();
+        long time = System.nanoTime() - start;
+
+        System.out.printf("%-16s %,12.0f rows/s (%d rows, checksum %d)%n",
+                name, count / (time / 1e9d), count, checksum);
+    }
+
+    private static List<ExecRow> rows(int numRows) throws Exception {
+        Random random = new Random(0L);
+        List<ExecRow> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            ExecRow row = new ValueRow(6);
+            row.setColumn(1, new SQLInteger(i));
+            row.setColumn(2, new SQLLongint(random.nextLong()));
+            row.setColumn(3, new SQLDouble(random.nextDouble()));
+            row.setColumn(4, new SQLDecimal(BigDecimal.valueOf(random.nextInt(1_000_000), 2)));
+            row.setColumn(5, new SQLVarchar("status " + random.nextInt(16)));
+            row.setColumn(6, new SQLVarchar("customer #" + random.nextInt()));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
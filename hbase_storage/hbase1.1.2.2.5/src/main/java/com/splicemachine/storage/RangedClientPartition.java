@@ -259,6 +259,11 @@ public class RangedClientPartition implements Partition, Comparable<RangedClient
         return delegate.getLatest(key, previous);
     }
 
+    @Override
+    public DataResult[] getLatest(Pair<KVPair, Lock>[] dataAndLocks, BitSet rows) throws IOException {
+        return delegate.getLatest(dataAndLocks, rows);
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey, byte[] family, DataResult previous) throws IOException {
         return delegate.getLatest(rowKey, family, previous);
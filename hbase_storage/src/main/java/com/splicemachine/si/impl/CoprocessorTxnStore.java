@@ -14,6 +14,7 @@
 
 package com.splicemachine.si.impl;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.access.HConfiguration;
 import com.splicemachine.si.api.txn.TaskId;
@@ -38,6 +39,7 @@ import com.splicemachine.si.impl.txn.InheritingTxnView;
 import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.ByteSlice;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -54,6 +56,7 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 @ThreadSafe
 public class CoprocessorTxnStore implements TxnStore {
+    private static final Logger LOG=Logger.getLogger(CoprocessorTxnStore.class);
     private final TxnNetworkLayerFactory tableFactory;
     private TxnSupplier cache; //a transaction store which uses a global cache for us
     private volatile long oldTransactions;
@@ -276,6 +279,66 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    /**
+     * Looks up the transactions with one call per transaction table region (the table is split by the bucket
+     * prefix of its row keys), rather than one call per transaction. If the call for a region fails (for example
+     * because the region server predates the batched endpoint), its transactions are looked up one by one.
+     */
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        IntArrayList[] buckets=new IntArrayList[256];
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            if(txnId<oldTransactions){
+                txns[i]=getOrNull(txnId,true);
+                continue;
+            }
+            int bucket=getTransactionRowKey(txnId)[0]&0xFF;
+            if(buckets[bucket]==null)
+                buckets[bucket]=new IntArrayList();
+            buckets[bucket].add(i);
+        }
+        try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+            for(IntArrayList positions : buckets){
+                if(positions==null) continue;
+                TxnMessage.TxnsRequest.Builder request=TxnMessage.TxnsRequest.newBuilder();
+                for(int j=0;j<positions.size();j++){
+                    request.addTxnIds(txnIds[positions.get(j)]);
+                }
+                TxnMessage.TxnsResponse response;
+                try{
+                    response=table.getTxns(getTransactionRowKey(txnIds[positions.get(0)]),request.build());
+                }catch(Throwable t){
+                    LOG.warn("Unable to look up "+positions.size()+" transactions in one call, looking them up one by one",t);
+                    for(int j=0;j<positions.size();j++){
+                        int position=positions.get(j);
+                        txns[position]=getOrNull(txnIds[position],false);
+                    }
+                    continue;
+                }
+                lookups.addAndGet(positions.size());
+                int resolved=0;
+                int unresolved=0;
+                for(int j=0;j<positions.size();j++){
+                    int position=positions.get(j);
+                    long txnId=txnIds[position];
+                    if(unresolved<response.getUnresolvedTxnIdsCount() && response.getUnresolvedTxnIds(unresolved)==txnId){
+                        unresolved++;
+                        txns[position]=getOrNull(txnId,false);
+                    }else{
+                        txns[position]=decodeOrNull(txnId,response.getTxns(resolved++));
+                    }
+                }
+            }
+        }catch(IOException e){
+            throw e;
+        }catch(Throwable throwable){
+            throw new IOException(throwable);
+        }
+        return txns;
+    }
+
     public TxnView getOldTransaction(long txnId, boolean getDestinationTables) throws IOException {
         byte[] rowKey = getOldTransactionRowKey(txnId);
         TxnMessage.TxnRequest request = TxnMessage.TxnRequest.newBuilder().setTxnId(txnId).setIsOld(true).build();
@@ -491,6 +554,22 @@ public class CoprocessorTxnStore implements TxnStore {
         return encoder.build();
     }
 
+    private TxnView getOrNull(long txnId,boolean old) throws IOException{
+        try{
+            return old?getOldTransaction(txnId,false):getTransaction(txnId,false);
+        }catch(TransactionMissing missing){
+            return null;
+        }
+    }
+
+    private TxnView decodeOrNull(long txnId,TxnMessage.Txn message) throws IOException{
+        try{
+            return decode(txnId,message);
+        }catch(TransactionMissing missing){
+            return null;
+        }
+    }
+
     private static byte[] getTransactionRowKey(long txnId){
         return TxnUtils.getRowKey(txnId);
     }
@@ -16,6 +16,7 @@
 package com.splicemachine.si.impl.server;
 
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.server.CompactionContext;
 import com.splicemachine.si.impl.server.SICompactionState;
 import org.apache.hadoop.hbase.Cell;
@@ -50,6 +51,7 @@ public abstract class AbstractSICompactionScanner implements InternalScanner {
     private final Timer timer;
     private final int timeDelta;
     private final CompactionContext context;
+    private final int resolutionBatchSize;
     private boolean purgeDeletedRows;
     private AtomicReference<IOException> failure = new AtomicReference<>();
     private AtomicLong remainingTime;
@@ -65,6 +67,8 @@ public abstract class AbstractSICompactionScanner implements InternalScanner {
         this.timeDelta = (int) (60000 * resolutionShare);
         this.remainingTime = new AtomicLong(timeDelta);
         this.context = context;
+        SIDriver driver = SIDriver.driver();
+        this.resolutionBatchSize = driver == null ? 1 : Math.max(1, driver.getConfiguration().getCompactionResolutionBatchSize());
     }
 
     @Override
@@ -139,10 +143,24 @@ public abstract class AbstractSICompactionScanner implements InternalScanner {
                 boolean more = true;
                 try {
                     while (more) {
-                        List<Cell> list = new ArrayList<>();
-                        more = delegate.next(list);
-                        List<Future<TxnView>> txns = compactionState.resolve(list);
-                        queue.put(new Entry(list, txns, more));
+                        if (resolutionBatchSize <= 1) {
+                            List<Cell> list = new ArrayList<>();
+                            more = delegate.next(list);
+                            List<Future<TxnView>> txns = compactionState.resolve(list);
+                            queue.put(new Entry(list, txns, more));
+                            continue;
+                        }
+                        // read a block of rows ahead, so that their transactions are looked up together
+                        List<List<Cell>> rows = new ArrayList<>(resolutionBatchSize);
+                        do {
+                            List<Cell> list = new ArrayList<>();
+                            more = delegate.next(list);
+                            rows.add(list);
+                        } while (more && rows.size() < resolutionBatchSize);
+                        List<List<Future<TxnView>>> txns = compactionState.resolveBlock(rows);
+                        for (int i = 0; i < rows.size(); i++) {
+                            queue.put(new Entry(rows.get(i), txns.get(i), more || i < rows.size() - 1));
+                        }
                     }
                 } catch (IOException e) {
                     LOG.error("Unexpected exception", e);
@@ -15,6 +15,7 @@
 package com.splicemachine.si.impl.server;
 
 import org.spark_project.guava.util.concurrent.Futures;
+import org.spark_project.guava.util.concurrent.SettableFuture;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.readresolve.RollForward;
@@ -23,6 +24,7 @@ import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.TxnUtils;
 import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
@@ -36,7 +38,9 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
@@ -190,6 +194,34 @@ public class SICompactionState {
 
 
     public List<Future<TxnView>> resolve(List<Cell> list) throws IOException {
+        return resolve(list, null);
+    }
+
+    /**
+     * Resolve the transactions of a block of rows at once.
+     * <p/>
+     * The distinct transaction ids of the block which are neither cached nor already being resolved are looked up
+     * together, with one {@link TxnSupplier#getTransactions(long[])} call per transaction table region made by a
+     * task of the executor, so the caller can go on reading the next block while they are resolved.
+     *
+     * @return for each row, the transactions of its cells as {@link #resolve(List)} returns them
+     */
+    public List<List<Future<TxnView>>> resolveBlock(List<List<Cell>> rows) throws IOException {
+        Map<Long, SettableFuture<TxnView>> pending = new LinkedHashMap<>();
+        List<List<Future<TxnView>>> result = new ArrayList<>(rows.size());
+        for (List<Cell> row : rows) {
+            result.add(resolve(row, pending));
+        }
+        if (!pending.isEmpty())
+            schedule(pending);
+        return result;
+    }
+
+    /**
+     * @param pending if not null, the transactions which must be looked up are added to it instead of being
+     *                scheduled one by one
+     */
+    private List<Future<TxnView>> resolve(List<Cell> list, Map<Long, SettableFuture<TxnView>> pending) throws IOException {
         context.rowRead();
         List<Future<TxnView>> result = new ArrayList<>(list.size());
         for (Cell element : list) {
@@ -218,6 +250,17 @@ public class SICompactionState {
                             LOG.debug("Cached " + tentative);
                         result.add(Futures.immediateFuture(tentative));
                         context.recordResolutionCached();
+                    } else if (pending != null) {
+                        Future<TxnView> future = futuresCache.get(timestamp);
+                        if (future == null) {
+                            SettableFuture<TxnView> settable = SettableFuture.create();
+                            future = futuresCache.putIfAbsent(timestamp, settable);
+                            if (future == null) {
+                                future = settable;
+                                pending.put(timestamp, settable);
+                            }
+                        }
+                        result.add(future);
                     } else {
                         Future<TxnView> future;
                         try {
@@ -229,25 +272,10 @@ public class SICompactionState {
                                     TxnView txn;
                                     try {
                                         txn = transactionStore.getTransaction(txnId);
-
-                                        if (LOG.isTraceEnabled())
-                                            LOG.trace("Txn " + txn);
-                                        while (txn.getState() == Txn.State.COMMITTED && txn.getParentTxnView() != Txn.ROOT_TRANSACTION) {
-                                            txn = txn.getParentTxnView();
-
-                                            if (LOG.isTraceEnabled())
-                                                LOG.trace("Parent " + txn);
-                                        }
                                     } catch (TransactionMissing ex) {
                                         txn = null;
                                     }
-                                    if (txn == null) {
-                                        LOG.warn("We couldn't resolve transaction " + timestamp +". This is only acceptable during a Restore operation");
-                                        return null;
-                                    }
-                                    if (LOG.isDebugEnabled())
-                                        LOG.debug("Returning, parent " + txn.getParentTxnView());
-                                    return txn;
+                                    return committedAncestor(txnId, txn);
                                 });
                             });
                             context.recordResolutionScheduled();
@@ -262,8 +290,104 @@ public class SICompactionState {
         return result;
     }
 
+    /**
+     * Look up the pending transactions with one batched call per transaction table region, completing their
+     * futures when it returns. The calls for different regions are made by different tasks of the executor, so
+     * they run in parallel.
+     */
+    private void schedule(Map<Long, SettableFuture<TxnView>> pending) {
+        Map<Integer, Map<Long, SettableFuture<TxnView>>> buckets = new LinkedHashMap<>();
+        for (Map.Entry<Long, SettableFuture<TxnView>> entry : pending.entrySet()) {
+            int bucket = TxnUtils.getRowKey(entry.getKey())[0] & 0xFF;
+            Map<Long, SettableFuture<TxnView>> bucketTxns = buckets.get(bucket);
+            if (bucketTxns == null) {
+                bucketTxns = new LinkedHashMap<>();
+                buckets.put(bucket, bucketTxns);
+            }
+            bucketTxns.put(entry.getKey(), entry.getValue());
+        }
+        for (Map<Long, SettableFuture<TxnView>> bucketTxns : buckets.values()) {
+            scheduleBucket(bucketTxns);
+        }
+    }
+
+    private void scheduleBucket(Map<Long, SettableFuture<TxnView>> pending) {
+        final long[] txnIds = new long[pending.size()];
+        final List<SettableFuture<TxnView>> futures = new ArrayList<>(pending.size());
+        int i = 0;
+        for (Map.Entry<Long, SettableFuture<TxnView>> entry : pending.entrySet()) {
+            txnIds[i++] = entry.getKey();
+            futures.add(entry.getValue());
+        }
+        context.recordRPC();
+        try {
+            executorService.submit(() -> {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Resolving " + txnIds.length + " transactions");
+                TxnView[] txns;
+                try {
+                    txns = transactionStore.getTransactions(txnIds);
+                } catch (Throwable t) {
+                    LOG.warn("Batched lookup of " + txnIds.length + " transactions failed, looking them up one by one", t);
+                    resolveOneByOne(txnIds, futures);
+                    return;
+                }
+                for (int j = 0; j < txnIds.length; j++) {
+                    futures.get(j).set(committedAncestor(txnIds[j], txns[j]));
+                }
+            });
+            for (int j = 0; j < txnIds.length; j++)
+                context.recordResolutionScheduled();
+        } catch (RejectedExecutionException ex) {
+            for (int j = 0; j < txnIds.length; j++) {
+                context.recordResolutionRejected();
+                futuresCache.remove(txnIds[j]);
+                futures.get(j).set(null);
+            }
+        }
+    }
+
+    /**
+     * Look up each transaction on its own, so that a failure only fails the lookup of that transaction.
+     */
+    private void resolveOneByOne(long[] txnIds, List<SettableFuture<TxnView>> futures) {
+        for (int j = 0; j < txnIds.length; j++) {
+            TxnView txn;
+            try {
+                txn = transactionStore.getTransaction(txnIds[j]);
+            } catch (TransactionMissing ex) {
+                txn = null;
+            } catch (Throwable t) {
+                futures.get(j).setException(t);
+                continue;
+            }
+            futures.get(j).set(committedAncestor(txnIds[j], txn));
+        }
+    }
+
     /** Remove entry from futures cache after it is already available in the transactional cache*/
     public void remove(long txnId) {
         futuresCache.remove(txnId);
     }
+
+    /**
+     * @return the transaction which {@code txn} committed through, or {@code null} if it couldn't be found
+     */
+    private TxnView committedAncestor(long txnId, TxnView txn) {
+        if (txn == null) {
+            LOG.warn("We couldn't resolve transaction " + txnId +". This is only acceptable during a Restore operation");
+            return null;
+        }
+        if (LOG.isTraceEnabled())
+            LOG.trace("Txn " + txn);
+        while (txn.getState() == Txn.State.COMMITTED && txn.getParentTxnView() != Txn.ROOT_TRANSACTION) {
+            txn = txn.getParentTxnView();
+
+            if (LOG.isTraceEnabled())
+                LOG.trace("Parent " + txn);
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Returning, parent " + txn.getParentTxnView());
+        return txn;
+    }
 }
@@ -18,6 +18,7 @@ import org.apache.hadoop.hbase.exceptions.ConnectionClosingException;
 import org.spark_project.guava.base.Function;
 import com.splicemachine.si.impl.HRegionTooBusy;
 
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.DroppedSnapshotException;
 import org.spark_project.guava.collect.Iterators;
 import com.splicemachine.kvpair.KVPair;
@@ -27,6 +28,7 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.HNotServingRegion;
 import com.splicemachine.si.impl.HWrongRegion;
 import com.splicemachine.storage.util.MeasuredListScanner;
+import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.Pair;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.client.*;
@@ -195,6 +197,75 @@ public class RegionPartition implements Partition{
         }
     }
 
+    /**
+     * Reads the rows in key order through a single region scanner, so that each row only seeks forward from the
+     * previous one rather than re-seeking the memstore and every store file as a separate Get would.
+     */
+    @Override
+    public DataResult[] getLatest(final Pair<KVPair, Lock>[] dataAndLocks,BitSet rows) throws IOException{
+        DataResult[] results=new DataResult[dataAndLocks.length];
+        Integer[] order=new Integer[rows.cardinality()];
+        int n=0;
+        for(int i=rows.nextSetBit(0);i>=0;i=rows.nextSetBit(i+1)){
+            if(dataAndLocks[i]!=null)
+                order[n++]=i;
+        }
+        if(n==0) return results;
+        if(n==1){
+            results[order[0]]=getLatest(dataAndLocks[order[0]].getFirst().getRowKey(),null);
+            return results;
+        }
+        Arrays.sort(order,0,n,new Comparator<Integer>(){
+            @Override
+            public int compare(Integer o1,Integer o2){
+                return dataAndLocks[o1].getFirst().compareTo(dataAndLocks[o2].getFirst());
+            }
+        });
+
+        ByteSlice lastKey=dataAndLocks[order[n-1]].getFirst().rowKeySlice();
+        byte[] stop=new byte[lastKey.length()+1];
+        System.arraycopy(lastKey.array(),lastKey.offset(),stop,0,lastKey.length());
+        Scan scan=new Scan(dataAndLocks[order[0]].getFirst().getRowKey(),stop);
+        scan.setMaxVersions(1);
+
+        Result empty=Result.create(Collections.<Cell>emptyList());
+        List<Cell> cells=new ArrayList<>();
+        try(RegionScanner scanner=region.getScanner(scan)){
+            /*
+             * The row the scanner is positioned on. Keys sorting before it are not present, and are answered
+             * without touching the scanner at all.
+             */
+            Result current=null;
+            Cell currentRow=null;
+            boolean exhausted=false;
+            for(int k=0;k<n;k++){
+                ByteSlice key=dataAndLocks[order[k]].getFirst().rowKeySlice();
+                int cmp=currentRow==null?1:key.compareTo(currentRow.getRowArray(),currentRow.getRowOffset(),currentRow.getRowLength());
+                if(cmp>0 && !exhausted){
+                    if(currentRow!=null)
+                        scanner.reseek(rowKey(key));
+                    cells.clear();
+                    scanner.next(cells);
+                    if(cells.isEmpty()){
+                        exhausted=true;
+                        current=null;
+                        currentRow=null;
+                    }else{
+                        current=Result.create(cells);
+                        currentRow=cells.get(0);
+                        cmp=key.compareTo(currentRow.getRowArray(),currentRow.getRowOffset(),currentRow.getRowLength());
+                    }
+                }
+                results[order[k]]=new HResult(cmp==0?current:empty);
+            }
+            return results;
+        }catch(NotServingRegionException | ConnectionClosingException | AssertionError | NullPointerException nsre){
+            throw new HNotServingRegion(nsre.getMessage());
+        }catch(WrongRegionException wre){
+            throw new HWrongRegion(wre.getMessage());
+        }
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g=new Get(rowKey);
@@ -489,4 +560,13 @@ public class RegionPartition implements Partition{
                 "region=" + region +
                 '}';
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static byte[] rowKey(ByteSlice key){
+        byte[] array=key.array();
+        if(key.offset()==0 && key.length()==array.length)
+            return array;
+        return key.getByteCopy();
+    }
 }
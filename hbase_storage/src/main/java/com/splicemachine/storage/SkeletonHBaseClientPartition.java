@@ -15,16 +15,19 @@
 package com.splicemachine.storage;
 
 import com.google.protobuf.Service;
+import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.metrics.MetricFactory;
 import com.splicemachine.metrics.Metrics;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.storage.util.MeasuredResultScanner;
+import com.splicemachine.utils.Pair;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -89,6 +92,16 @@ public abstract class SkeletonHBaseClientPartition implements Partition{
         return previous;
     }
 
+    @Override
+    public DataResult[] getLatest(Pair<KVPair, Lock>[] dataAndLocks,BitSet rows) throws IOException{
+        DataResult[] results=new DataResult[dataAndLocks.length];
+        for(int i=rows.nextSetBit(0);i>=0;i=rows.nextSetBit(i+1)){
+            if(dataAndLocks[i]!=null)
+                results[i]=getLatest(dataAndLocks[i].getFirst().getRowKey(),null);
+        }
+        return results;
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g = new Get(rowKey);
@@ -177,6 +177,11 @@ public class TxnPartition implements Partition{
         return basePartition.getLatest(key,previous);
     }
 
+    @Override
+    public DataResult[] getLatest(Pair<KVPair, Lock>[] dataAndLocks,BitSet rows) throws IOException{
+        return basePartition.getLatest(dataAndLocks,rows);
+    }
+
     @Override
     public Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException{
         return basePartition.getRowLock(key,keyOff,keyLen);
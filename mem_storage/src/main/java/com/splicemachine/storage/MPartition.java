@@ -290,6 +290,16 @@ public class MPartition implements Partition{
         return new MResult(results);
     }
 
+    @Override
+    public DataResult[] getLatest(Pair<KVPair, Lock>[] dataAndLocks,BitSet rows) throws IOException{
+        DataResult[] results=new DataResult[dataAndLocks.length];
+        for(int i=rows.nextSetBit(0);i>=0;i=rows.nextSetBit(i+1)){
+            if(dataAndLocks[i]!=null)
+                results[i]=getLatest(dataAndLocks[i].getFirst().getRowKey(),null);
+        }
+        return results;
+    }
+
     @Override
     public Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException{
         final ByteBuffer wrap=ByteBuffer.wrap(key,keyOff,keyLen);
@@ -14,6 +14,7 @@
 
 package com.splicemachine.pipeline.api;
 
+import com.splicemachine.pipeline.callbuffer.FlushPolicy;
 import com.splicemachine.pipeline.client.BulkWrites;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 
@@ -33,6 +34,11 @@ public interface Writer {
 
     void stopWrites();
 
+    /**
+     * @return the policy which buffers writing through this writer should use to decide when to flush
+     */
+    FlushPolicy getFlushPolicy();
+
     void registerJMX(MBeanServer mbs) throws MalformedObjectNameException,NotCompliantMBeanException,InstanceAlreadyExistsException,MBeanRegistrationException;
 
 }
@@ -80,4 +80,18 @@ public interface WriterStatus {
     double getAvgFlushedEntriesPerRegion();
 
     double getAvgFlushedSizePerRegion();
+
+    /**
+     * @return the number of times the flush policy flushed a region because it reached its batch size
+     */
+    long getSizeTriggeredFlushes();
+
+    /**
+     * @return the number of times the flush policy flushed a region because its rows had waited long enough
+     */
+    long getLingerTriggeredFlushes();
+
+    long getBatchSizeIncreases();
+
+    long getBatchSizeDecreases();
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.callbuffer;
+
+import com.splicemachine.pipeline.client.ActionStatusReporter;
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FlushPolicy} which tunes the batch size and linger time of each region from how its earlier
+ * writes went.
+ * <p>
+ * Each region starts out with the buffer's maximum heap size as its batch size (i.e. it behaves like the
+ * static policy until it has seen a write come back). After that, the batch size follows an
+ * additive-increase/multiplicative-decrease scheme:
+ * <ul>
+ *     <li>If the server turns a write away as too busy, the batch size is halved.</li>
+ *     <li>If a write takes longer than the target latency, the batch size shrinks by a quarter.</li>
+ *     <li>If a write which was at least half of the batch size takes less than half of the target
+ *     latency, the batch size grows by a sixteenth of the maximum.</li>
+ * </ul>
+ * Rows are also not held back for longer than the region's (smoothed) write latency, up to the target
+ * latency: once a row has waited a full round trip, waiting for more rows costs more than sending it.
+ * Since buffers only consult their policy as rows are added, this limits how long a row waits while rows
+ * keep arriving, not how long it may wait when they stop.
+ * <p>
+ * Every decision is counted in the writer's {@link ActionStatusReporter}, and so shows up in the writer's
+ * JMX status.
+ */
+public class AdaptiveFlushPolicy implements FlushPolicy{
+    private static final long MIN_BATCH_SIZE = 32*1024;
+    private static final int MAX_TRACKED_REGIONS = 10000;
+    private static final double LATENCY_WEIGHT = 0.2d;
+
+    private final Cache<String,RegionState> regions;
+    private final BufferConfiguration bufferConfiguration;
+    private final long targetLatencyMs;
+    private final ActionStatusReporter statusReporter;
+
+    public AdaptiveFlushPolicy(BufferConfiguration bufferConfiguration,long targetLatencyMs,ActionStatusReporter statusReporter){
+        this.bufferConfiguration = bufferConfiguration;
+        this.targetLatencyMs = targetLatencyMs;
+        this.statusReporter = statusReporter;
+        this.regions = CacheBuilder.newBuilder()
+                .maximumSize(MAX_TRACKED_REGIONS)
+                .expireAfterAccess(10,TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Override
+    public boolean shouldFlush(String regionName,long bufferedBytes,int bufferedEntries,long bufferedMillis){
+        RegionState state = regions.getIfPresent(regionName);
+        if(state==null) return false; //we haven't learned anything about this region yet
+        if(bufferedBytes>=state.batchSize){
+            statusReporter.sizeTriggeredFlushes.incrementAndGet();
+            return true;
+        }
+        if(bufferedMillis>=state.lingerMs){
+            statusReporter.lingerTriggeredFlushes.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void flushCompleted(String regionName,long latencyMs,long bytes,boolean tooBusy){
+        long maxBatchSize = Math.max(MIN_BATCH_SIZE,bufferConfiguration.getMaxHeapSize());
+        RegionState state = regions.getIfPresent(regionName);
+        if(state==null){
+            RegionState newState = new RegionState(maxBatchSize,latencyMs,lingerMs(latencyMs));
+            state = regions.asMap().putIfAbsent(regionName,newState);
+            if(state==null) state = newState;
+        }
+        synchronized(state){
+            if(tooBusy){
+                state.batchSize = Math.max(MIN_BATCH_SIZE,state.batchSize/2);
+                statusReporter.batchSizeDecreases.incrementAndGet();
+                return;
+            }
+            state.latencyMs+=LATENCY_WEIGHT*(latencyMs-state.latencyMs);
+            state.lingerMs = lingerMs(state.latencyMs);
+            if(latencyMs>targetLatencyMs && state.batchSize>MIN_BATCH_SIZE){
+                state.batchSize = Math.max(MIN_BATCH_SIZE,state.batchSize-state.batchSize/4);
+                statusReporter.batchSizeDecreases.incrementAndGet();
+            }else if(2*latencyMs<=targetLatencyMs && 2*bytes>=state.batchSize && state.batchSize<maxBatchSize){
+                state.batchSize = Math.min(maxBatchSize,state.batchSize+maxBatchSize/16);
+                statusReporter.batchSizeIncreases.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the batch size currently used for the region, or -1 if nothing is known about it yet.
+     */
+    public long getBatchSize(String regionName){
+        RegionState state = regions.getIfPresent(regionName);
+        return state==null?-1:state.batchSize;
+    }
+
+    /**
+     * @return the linger time currently used for the region, or -1 if nothing is known about it yet.
+     */
+    public long getLingerMs(String regionName){
+        RegionState state = regions.getIfPresent(regionName);
+        return state==null?-1:state.lingerMs;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private long lingerMs(double latencyMs){
+        return Math.max(1L,Math.min(targetLatencyMs,(long)latencyMs));
+    }
+
+    private static class RegionState{
+        private volatile long batchSize;
+        private volatile long lingerMs;
+        private double latencyMs;
+
+        RegionState(long batchSize,long latencyMs,long lingerMs){
+            this.batchSize = batchSize;
+            this.latencyMs = latencyMs;
+            this.lingerMs = lingerMs;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.callbuffer;
+
+/**
+ * Decides, per region, when a {@link PipingCallBuffer} should flush the rows it has buffered for that region,
+ * and learns from how earlier flushes went.
+ * <p>
+ * The limits of the {@link BufferConfiguration} still bound the buffer as a whole, so a policy can only make a
+ * region flush sooner than it otherwise would. Implementations are shared by every buffer of a writer, and so
+ * must be thread-safe.
+ */
+public interface FlushPolicy{
+
+    /**
+     * Flushes only when the {@link BufferConfiguration} limits are reached.
+     */
+    FlushPolicy STATIC = new FlushPolicy(){
+        @Override
+        public boolean shouldFlush(String regionName,long bufferedBytes,int bufferedEntries,long bufferedMillis){
+            return false;
+        }
+
+        @Override
+        public void flushCompleted(String regionName,long latencyMs,long bytes,boolean tooBusy){ }
+    };
+
+    /**
+     * @param regionName the encoded name of the region
+     * @param bufferedBytes the size of the rows currently buffered for the region
+     * @param bufferedEntries the number of rows currently buffered for the region
+     * @param bufferedMillis how long the oldest of those rows has been waiting
+     * @return true if the region should be flushed now
+     */
+    boolean shouldFlush(String regionName,long bufferedBytes,int bufferedEntries,long bufferedMillis);
+
+    /**
+     * Called for each region of a write, once the write has come back.
+     *
+     * @param regionName the encoded name of the region
+     * @param latencyMs how long the write took
+     * @param bytes the size of the rows which were written to the region
+     * @param tooBusy true if the server turned the write away because it was too busy
+     */
+    void flushCompleted(String regionName,long latencyMs,long bytes,boolean tooBusy);
+}
@@ -36,6 +36,7 @@ public class PartitionBuffer{
     private boolean skipIndexWrites;
     private boolean skipConflictDetection;
     private boolean skipWAL;
+    private long firstAddTime;
 
     public PartitionBuffer(Partition partition, PreFlushHook preFlushHook, boolean skipIndexWrites, boolean skipConflictDetection, boolean skipWAL) {
         this.partition=partition;
@@ -47,6 +48,8 @@ public class PartitionBuffer{
     }
 
     public void add(KVPair element) throws Exception {
+        if(buffer.isEmpty())
+            firstAddTime = System.currentTimeMillis();
         buffer.add(element);
         heapSize += element.getSize();
     }
@@ -75,6 +78,13 @@ public class PartitionBuffer{
         return buffer.size();
     }
 
+    /**
+     * @return how long (in milliseconds) the oldest entry in the buffer has been waiting, or 0 if it is empty.
+     */
+    public long getBufferedMillis() {
+        return buffer.isEmpty()?0:System.currentTimeMillis()-firstAddTime;
+    }
+
     public BulkWrite getBulkWrite() throws Exception {
         return new BulkWrite(heapSize, preFlushHook.transform(buffer), partition.getName(), skipIndexWrites, skipConflictDetection, skipWAL);
     }
@@ -38,7 +38,8 @@ import java.util.*;
  * the write belongs to.  These "pre-mapped pipes" are incorporated into ???
  *
  * This implementation obeys any per-region bounds set in the passed in
- * {@link BufferConfiguration} entity.
+ * {@link BufferConfiguration} entity. Within those bounds, the writer's {@link FlushPolicy} may
+ * choose to flush a region (along with the rest of its server's buffer) sooner.
  *
  * This class is <em>not</em> Thread-safe. Its use should be restricted to a
  * single thread. If that is not possible, then external synchronization is
@@ -74,6 +75,7 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
     private long currentHeapSize;
     private long currentKVPairSize;
     private final BufferConfiguration bufferConfiguration;
+    private final FlushPolicy flushPolicy;
     private final PreFlushHook preFlushHook;
     private boolean record = true;
     private final Partition table;
@@ -96,6 +98,7 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
         this.startKeyToRegionCBMap = new TreeMap<>(ByteComparisons.comparator());
         this.serverNameToRegionServerCBMap = new TreeMap<>();
         this.bufferConfiguration = bufferConfiguration;
+        this.flushPolicy = writer!=null? writer.getFlushPolicy(): FlushPolicy.STATIC;
         this.preFlushHook = preFlushHook;
         MetricFactory metricFactory = writeConfiguration!=null? writeConfiguration.getMetricFactory(): Metrics.noOpMetricFactory();
         writeStats = new MergingWriteStats(metricFactory);
@@ -128,6 +131,9 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
         if(writer!=null && (currentHeapSize>=bufferConfiguration.getMaxHeapSize()
                 || currentKVPairSize >= bufferConfiguration.getMaxEntries())) {
             flushLargestBuffer();
+        }else if(writer!=null && flushPolicy!=FlushPolicy.STATIC
+                && flushPolicy.shouldFlush(regionCB.partition().getName(),regionCB.getHeapSize(),regionCB.getBufferSize(),regionCB.getBufferedMillis())){
+            flushServerBuffer(serverNameToRegionServerCBMap.get(entry.getValue().getSecond()));
         }
     }
 
@@ -141,10 +147,15 @@ public class PipingCallBuffer implements RecordingCallBuffer<KVPair>, Rebuildabl
             }
         }
         assert bufferToFlush!=null;
-        currentHeapSize-=maxSize;
+        flushServerBuffer(bufferToFlush);
+    }
+
+    private void flushServerBuffer(ServerCallBuffer bufferToFlush) throws Exception {
+        assert bufferToFlush!=null;
+        currentHeapSize-=bufferToFlush.getHeapSize();
         currentKVPairSize-=bufferToFlush.getKVPairSize();
         if (LOG.isDebugEnabled())
-            SpliceLogUtils.debug(LOG, "flushLargestBuffer {table=%s, size=%d, rows=%d}",table.getTableName(),bufferToFlush.getHeapSize(),bufferToFlush.getKVPairSize());
+            SpliceLogUtils.debug(LOG, "flushServerBuffer {table=%s, size=%d, rows=%d}",table.getTableName(),bufferToFlush.getHeapSize(),bufferToFlush.getKVPairSize());
         bufferToFlush.flushBuffer();
         totalFlushes++;
     }
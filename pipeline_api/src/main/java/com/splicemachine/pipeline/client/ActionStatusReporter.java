@@ -42,6 +42,12 @@ public class ActionStatusReporter{
     public final AtomicLong maxFlushRegions = new AtomicLong(0l);
     public final AtomicLong minFlushRegions = new AtomicLong(0l);
 
+    /*decisions made by the FlushPolicy*/
+    public final AtomicLong sizeTriggeredFlushes = new AtomicLong(0l);
+    public final AtomicLong lingerTriggeredFlushes = new AtomicLong(0l);
+    public final AtomicLong batchSizeIncreases = new AtomicLong(0l);
+    public final AtomicLong batchSizeDecreases = new AtomicLong(0l);
+
     public void reset(){
         totalFlushesSubmitted.set(0);
         failedBufferFlushes.set(0);
@@ -67,6 +73,11 @@ public class ActionStatusReporter{
         totalFlushRegions.set(0);
         maxFlushRegions.set(0);
         minFlushRegions.set(0);
+
+        sizeTriggeredFlushes.set(0);
+        lingerTriggeredFlushes.set(0);
+        batchSizeIncreases.set(0);
+        batchSizeDecreases.set(0);
     }
 
     public void complete(long timeTakenMs) {
@@ -24,6 +24,7 @@ import com.splicemachine.metrics.MetricFactory;
 import com.splicemachine.metrics.Metrics;
 import com.splicemachine.metrics.Timer;
 import com.splicemachine.pipeline.api.*;
+import com.splicemachine.pipeline.callbuffer.FlushPolicy;
 import com.splicemachine.pipeline.callbuffer.PipingCallBuffer;
 import com.splicemachine.pipeline.utils.PipelineUtils;
 import com.splicemachine.pipeline.config.WriteConfiguration;
@@ -76,10 +77,10 @@ public class BulkWriteAction implements Callable<WriteStats>{
     private final Counter partialFailureCounter;
     private final Counter regionTooBusy;
     private final PartitionFactory partitionFactory;
+    private final FlushPolicy flushPolicy;
     private PipingCallBuffer retryPipingCallBuffer=null; // retryCallBuffer
 
 
-    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
     public BulkWriteAction(byte[] tableName,
                            BulkWrites writes,
                            WriteConfiguration writeConfiguration,
@@ -88,7 +89,24 @@ public class BulkWriteAction implements Callable<WriteStats>{
                            PipelineExceptionFactory pipelineExceptionFactory,
                            PartitionFactory partitionFactory,
                            Clock clock){
+        this(tableName,writes,writeConfiguration,statusReporter,writerFactory,pipelineExceptionFactory,partitionFactory,clock,FlushPolicy.STATIC);
+    }
+
+    /**
+     * @param flushPolicy the policy to tell how each write went
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public BulkWriteAction(byte[] tableName,
+                           BulkWrites writes,
+                           WriteConfiguration writeConfiguration,
+                           ActionStatusReporter statusReporter,
+                           BulkWriterFactory writerFactory,
+                           PipelineExceptionFactory pipelineExceptionFactory,
+                           PartitionFactory partitionFactory,
+                           Clock clock,
+                           FlushPolicy flushPolicy){
         assert writes!=null:"writes passed into BWA are null";
+        this.flushPolicy=flushPolicy;
         this.tableName=tableName;
         this.bulkWrites=writes;
         this.writeConfiguration=writeConfiguration;
@@ -251,16 +269,19 @@ public class BulkWriteAction implements Callable<WriteStats>{
 
         //used to indicate that the exception was thrown inside the try{} block explicitly, and should just be re-thrown
         boolean thrown = false;
+        long writeStart=System.currentTimeMillis();
         try{
             BulkWriter writer=writerFactory.newWriter(tableName);
             writeTimer.startTiming();
             BulkWritesResult bulkWritesResult=writer.write(nextWrite,ctx.refreshCache);
             writeTimer.stopTiming();
+            long writeLatency=System.currentTimeMillis()-writeStart;
             Iterator<BulkWrite> bws=nextWrite.getBulkWrites().iterator();
             Collection<BulkWriteResult> results=bulkWritesResult.getBulkWriteResults();
             for(BulkWriteResult bulkWriteResult : results){
                 WriteResponse globalResponse=writeConfiguration.processGlobalResult(bulkWriteResult);
                 BulkWrite currentBulkWrite=bws.next();
+                reportFlush(currentBulkWrite,bulkWriteResult,writeLatency);
                 switch(globalResponse){
                     case SUCCESS:
                         writtenCounter.add(currentBulkWrite.getSize());
@@ -366,6 +387,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
                     SpliceLogUtils.debug(RETRY_LOG,"Retrying write after receiving RegionTooBusyException: id=%d",id);
 
                 regionTooBusy.increment();
+                long writeLatency=System.currentTimeMillis()-writeStart;
+                for(BulkWrite bw : nextWrite.getBulkWrites())
+                    flushPolicy.flushCompleted(bw.getEncodedStringName(),writeLatency,bw.getBufferSize(),true);
                 ctx.sleep = true;
                 ctx.directRetry();
                 return;
@@ -441,6 +465,13 @@ public class BulkWriteAction implements Callable<WriteStats>{
         }
     }
 
+    private void reportFlush(BulkWrite bulkWrite,BulkWriteResult result,long latencyMs){
+        WriteResult globalResult=result.getGlobalResult();
+        boolean tooBusy=globalResult!=null &&
+                (globalResult.getCode()==Code.PIPELINE_TOO_BUSY || globalResult.getCode()==Code.REGION_TOO_BUSY);
+        flushPolicy.flushCompleted(bulkWrite.getEncodedStringName(),latencyMs,bulkWrite.getBufferSize(),tooBusy);
+    }
+
     private boolean shouldWrite(BulkWrites nextWrite){
         if(LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"[%d] next bulkWrites %s",id,nextWrite);
@@ -20,6 +20,7 @@ import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.CachedByteSlice;
 import org.spark_project.guava.collect.Iterators;
 
 import javax.annotation.Nonnull;
@@ -34,6 +35,17 @@ import java.util.*;
 public class PipelineEncoding {
 
     public static byte[] encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites){
+        ExpandingEncoder buffer = new ExpandingEncoder(bulkWrites.getBufferHeapSize()+64);
+        encode(operationFactory,bulkWrites,buffer);
+        return buffer.getBuffer();
+    }
+
+    /**
+     * Encode {@code bulkWrites} into {@code buffer}, rather than into a newly allocated array. This
+     * allows callers which only need the encoded bytes transiently (e.g. to compress them) to re-use
+     * the same buffer across requests.
+     */
+    public static void encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites,ExpandingEncoder buffer){
         /*
          * The encoding for a BulkWrites is as follows:
          * Txn (1-N bytes)
@@ -56,8 +68,6 @@ public class PipelineEncoding {
         if (token == null)
             token = new byte[0];
 
-        int heapSize = bulkWrites.getBufferHeapSize();
-        ExpandingEncoder buffer = new ExpandingEncoder(heapSize+txnBytes.length+token.length);
         buffer.rawEncode(txnBytes);
         buffer.rawEncode(token);
 
@@ -82,15 +92,16 @@ public class PipelineEncoding {
                 buffer.rawEncode(kvPair.valueSlice());
             }
         }
-        return buffer.getBuffer();
     }
 
 
     public static BulkWrites decode(TxnOperationFactory operationFactory,byte[] data){
         ExpandedDecoder decoder = new ExpandedDecoder(data);
-        byte[] txnBytes = decoder.rawBytes();
+        //decode the txn in place, rather than copying its bytes out first
+        ByteSlice txnSlice = new ByteSlice();
+        decoder.sliceNext(txnSlice);
         byte[] token = decoder.rawBytes();
-        TxnView txn = operationFactory.decode(txnBytes,0,txnBytes.length);
+        TxnView txn = operationFactory.decode(txnSlice.array(),txnSlice.offset(),txnSlice.length());
         int bwSize = decoder.decodeInt();
         List<String> stringNames = new ArrayList<>(bwSize);
         for(int i=0;i<bwSize;i++) {
@@ -170,14 +181,18 @@ public class PipelineEncoding {
                 byte elementFlags = flags[index++];
                 int size = decoder.decodeInt();
                 Collection<KVPair> kvPairs = new ArrayList<>(size);
-                KVPair template = new KVPair();
-                ByteSlice rowKeySlice = template.rowKeySlice();
-                ByteSlice valueSlice = template.valueSlice();
                 for(int i=0;i<size;i++){
-                    template.setType(KVPair.Type.decode(decoder.rawByte()));
-                    decoder.sliceNext(rowKeySlice);
-                    decoder.sliceNext(valueSlice);
-                    kvPairs.add(template.shallowClone());
+                    /*
+                     * The KVPairs are slices over the received buffer, so no bytes are copied here. We slice
+                     * directly into the slices the KVPair will hold, rather than into a template
+                     * which then has to be cloned.
+                     */
+                    KVPair.Type type = KVPair.Type.decode(decoder.rawByte());
+                    ByteSlice rowKey = new CachedByteSlice();
+                    ByteSlice value = new CachedByteSlice();
+                    decoder.sliceNext(rowKey);
+                    decoder.sliceNext(value);
+                    kvPairs.add(new KVPair(rowKey,value,type));
                 }
 
 
@@ -32,7 +32,9 @@ import com.splicemachine.metrics.Metrics;
 import com.splicemachine.pipeline.api.BulkWriterFactory;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.Writer;
+import com.splicemachine.pipeline.callbuffer.AdaptiveFlushPolicy;
 import com.splicemachine.pipeline.callbuffer.BufferConfiguration;
+import com.splicemachine.pipeline.callbuffer.FlushPolicy;
 import com.splicemachine.pipeline.callbuffer.PipingCallBuffer;
 import com.splicemachine.pipeline.callbuffer.PreFlushHook;
 import com.splicemachine.pipeline.callbuffer.RecordingCallBuffer;
@@ -70,17 +72,24 @@ public class WriteCoordinator {
         assert config != null;
         MonitoredThreadPool writerPool = MonitoredThreadPool.create(config);
         int maxEntries = config.getMaxBufferEntries();//SpliceConstants.maxBufferEntries;
-        Writer writer = new AsyncBucketingWriter(writerPool,
-                writerFactory,
-                exceptionFactory,
-                partitionFactory,clock);
-        Writer syncWriter = new SynchronousBucketingWriter(writerFactory,exceptionFactory,partitionFactory,clock);
         long maxBufferHeapSize = config.getMaxBufferHeapSize();
         int numRetries = config.getMaxRetries();
         long pause = config.getClientPause();
         int maxFlushesPerRegion = config.getWriteMaxFlushesPerRegion();
         Monitor monitor = new Monitor(maxBufferHeapSize, maxEntries, numRetries, pause, maxFlushesPerRegion);
 
+        ActionStatusReporter statusReporter = new ActionStatusReporter();
+        FlushPolicy flushPolicy = PipelineConfiguration.ADAPTIVE_FLUSH_POLICY.equalsIgnoreCase(config.getWriteFlushPolicy())
+                ? new AdaptiveFlushPolicy(monitor, config.getWriteFlushTargetLatency(), statusReporter)
+                : FlushPolicy.STATIC;
+        Writer writer = new AsyncBucketingWriter(writerPool,
+                writerFactory,
+                exceptionFactory,
+                partitionFactory,clock,
+                statusReporter,
+                flushPolicy);
+        Writer syncWriter = new SynchronousBucketingWriter(writerFactory,exceptionFactory,partitionFactory,clock);
+
         return new WriteCoordinator(writer, syncWriter, monitor,partitionFactory,exceptionFactory,writerPool);
     }
 
@@ -34,6 +34,8 @@ public interface ContextFactoryLoader extends AutoCloseable{
 
     WriteFactoryGroup getDDLFactories();
 
+    WriteFactoryGroup getStatisticsFactories();
+
     Set<ConstraintFactory> getConstraintFactories();
 
     void ddlChange(DDLMessage.DDLChange ddlChange);
@@ -72,6 +72,9 @@ class LocalWriteContextFactory<TableInfo> implements WriteContextFactory<Transac
 
     private volatile WriteFactoryGroup ddlFactories;
 
+    /* These create WriteHandlers that maintain the incremental statistics of the htable (a base table) */
+    private volatile WriteFactoryGroup statisticsFactories;
+
     /* Holds all of the WriteFactor instances related to foreign keys */
     private WriteFactoryGroup fkGroup;
 
@@ -223,6 +226,8 @@ class LocalWriteContextFactory<TableInfo> implements WriteContextFactory<Transac
 
             ddlFactories.addFactories(context,true,expectedWrites);
 
+            statisticsFactories.addFactories(context,false,expectedWrites);
+
             // FK - child intercept (of inserts/updates)
             fkGroup.addFactories(context,false,expectedWrites);
         }
@@ -253,6 +258,7 @@ class LocalWriteContextFactory<TableInfo> implements WriteContextFactory<Transac
 
             indexFactories = factoryLoader.getIndexFactories();
             ddlFactories = factoryLoader.getDDLFactories();
+            statisticsFactories = factoryLoader.getStatisticsFactories();
             fkGroup = factoryLoader.getForeignKeyFactories();
             constraintFactories = factoryLoader.getConstraintFactories();
             state.set(State.RUNNING);
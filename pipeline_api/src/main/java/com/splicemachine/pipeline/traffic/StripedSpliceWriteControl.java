@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link SpliceWriteControl} which spreads its permits over a number of independent stripes, so that
+ * concurrent writers do not all contend on the same memory location.
+ * <p>
+ * Each limit is divided evenly between the stripes. A writer first tries the stripe which belongs to its
+ * thread, and only moves on to the other stripes when that one is out of permits; a write is rejected only
+ * once every stripe is full, which means that the write threads are bounded exactly as they are by
+ * {@link AtomicSpliceWriteControl}. The write counts are bounded within one write per stripe of the
+ * configured limit.
+ * <p>
+ * The threads and write count of a stripe are packed into a single long ({@code threads*2^32+count}),
+ * so acquiring a permit is a single CAS, and releasing one is a single atomic add which never retries and
+ * allocates nothing. A permit may be released to a different stripe than the one it was taken from: a
+ * stripe's counters only ever grow when it is below its share of the limits, so the total across all
+ * stripes still honors the limits, and capacity is never lost because the stripes with released permits
+ * are found by the next writer which scans past its own stripe.
+ */
+public class StripedSpliceWriteControl implements SpliceWriteControl{
+    private static final Logger LOG = Logger.getLogger(StripedSpliceWriteControl.class);
+    /*
+     * Number of longs between two stripes, so that each stripe sits on its own cache line (and the
+     * adjacent line, which some processors prefetch as a pair).
+     */
+    private static final int PADDING = 16;
+    private static final int DEPENDENT = 0;
+    private static final int INDEPENDENT = 1;
+
+    private final int numStripes;
+    private final int stripeMask;
+    private final AtomicLongArray stripes;
+
+    private volatile int maxDependentWriteThreads;
+    private volatile int maxIndependentWriteThreads;
+    private volatile int maxDependentWriteCount;
+    private volatile int maxIndependentWriteCount;
+
+    public StripedSpliceWriteControl(int maxDependentWriteThreads,
+                                     int maxIndependentWriteThreads,int maxDependentWriteCount,int maxIndependentWriteCount) {
+        this(maxDependentWriteThreads,maxIndependentWriteThreads,maxDependentWriteCount,maxIndependentWriteCount,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedSpliceWriteControl(int maxDependentWriteThreads,
+                                     int maxIndependentWriteThreads,int maxDependentWriteCount,int maxIndependentWriteCount,
+                                     int concurrencyLevel) {
+        assert (maxDependentWriteThreads >= 0 &&
+                maxIndependentWriteThreads >= 0 &&
+                maxDependentWriteCount >= 0 &&
+                maxIndependentWriteCount >= 0);
+        assert concurrencyLevel > 0 : "Concurrency level must be positive";
+        this.maxIndependentWriteThreads = maxIndependentWriteThreads;
+        this.maxDependentWriteThreads = maxDependentWriteThreads;
+        this.maxDependentWriteCount = maxDependentWriteCount;
+        this.maxIndependentWriteCount = maxIndependentWriteCount;
+        int s = 1;
+        while (s < concurrencyLevel)
+            s <<= 1;
+        this.numStripes = s;
+        this.stripeMask = s - 1;
+        this.stripes = new AtomicLongArray(2 * s * PADDING);
+    }
+
+    @Override
+    public Status performDependentWrite(int writes) {
+        if (acquire(DEPENDENT, writes, maxDependentWriteThreads, maxDependentWriteCount))
+            return Status.DEPENDENT;
+        if (LOG.isTraceEnabled()) {
+            WriteStatus state = getWriteStatus();
+            LOG.trace(String.format(
+                    "Rejected dependent write: dependentWriteThreads=%d, maxDependentWriteThreads=%d, dependentWriteCount=%d, maxDependentWriteCount=%d, requestedWriteCount=%d",
+                    state.dependentWriteThreads, maxDependentWriteThreads, state.dependentWriteCount, maxDependentWriteCount, writes));
+        }
+        return Status.REJECTED;
+    }
+
+    @Override
+    public boolean finishDependentWrite(int writes) {
+        release(DEPENDENT, writes);
+        return true;
+    }
+
+    @Override
+    public Status performIndependentWrite(int writes) {
+        if (acquire(INDEPENDENT, writes, maxIndependentWriteThreads, maxIndependentWriteCount))
+            return Status.INDEPENDENT;
+        if (LOG.isTraceEnabled()) {
+            WriteStatus state = getWriteStatus();
+            LOG.trace(String.format(
+                    "Rejected independent write, now attempting to steal from dependent: independentWriteThreads=%d, maxIndependentWriteThreads=%d, independentWriteCount=%d, maxIndependentWriteCount=%d, requestedWriteCount=%d",
+                    state.independentWriteThreads, maxIndependentWriteThreads, state.independentWriteCount, maxIndependentWriteCount, writes));
+        }
+        return performDependentWrite(writes); // Attempt to steal
+    }
+
+    @Override
+    public boolean finishIndependentWrite(int writes) {
+        release(INDEPENDENT, writes);
+        return true;
+    }
+
+    /**
+     * @return the sum of all the stripes. This is not an atomic snapshot, so while writes are in progress it
+     * is only an approximation of the current state.
+     */
+    @Override
+    public WriteStatus getWriteStatus() {
+        long dependentThreads = 0, dependentCount = 0, independentThreads = 0, independentCount = 0;
+        for (int i = 0; i < numStripes; i++) {
+            long d = stripes.get(index(i, DEPENDENT));
+            long ind = stripes.get(index(i, INDEPENDENT));
+            dependentThreads += threads(d);
+            dependentCount += count(d);
+            independentThreads += threads(ind);
+            independentCount += count(ind);
+        }
+        return new WriteStatus(clamp(dependentThreads), clamp(dependentCount),
+                clamp(independentCount), clamp(independentThreads));
+    }
+
+    @Override
+    public int maxDependendentWriteThreads(){
+        return maxDependentWriteThreads;
+    }
+
+    @Override
+    public int maxIndependentWriteThreads(){
+        return maxIndependentWriteThreads;
+    }
+
+    @Override
+    public int maxDependentWriteCount(){
+        return maxDependentWriteCount;
+    }
+
+    @Override
+    public int maxIndependentWriteCount(){
+        return maxIndependentWriteCount;
+    }
+
+    @Override
+    public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
+        this.maxIndependentWriteThreads = newMaxIndependentWriteThreads;
+    }
+
+    @Override
+    public void setMaxDependentWriteThreads(int newMaxDependentWriteThreads){
+        this.maxDependentWriteThreads = newMaxDependentWriteThreads;
+    }
+
+    @Override
+    public void setMaxIndependentWriteCount(int newMaxIndependentWriteCount){
+        this.maxIndependentWriteCount = newMaxIndependentWriteCount;
+    }
+
+    @Override
+    public void setMaxDependentWriteCount(int newMaxDependentWriteCount){
+        this.maxDependentWriteCount = newMaxDependentWriteCount;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean acquire(int type, int writes, int maxThreads, int maxCount) {
+        /*
+         * The single-counter implementations admit a write as long as the current value is not
+         * over the limit, so there are maxThreads+1 thread permits (and likewise for the count).
+         */
+        long threadCapacity = (long) maxThreads + 1;
+        long countCapacity = (long) maxCount + 1;
+        long delta = (1L << 32) + writes;
+        int home = homeStripe();
+        for (int i = 0; i < numStripes; i++) {
+            int stripe = (home + i) & stripeMask;
+            long threadShare = share(threadCapacity, stripe);
+            long countShare = share(countCapacity, stripe);
+            int idx = index(stripe, type);
+            while (true) {
+                long current = stripes.get(idx);
+                if (threads(current) >= threadShare || count(current) >= countShare)
+                    break; // this stripe is full, try the next one
+                if (stripes.compareAndSet(idx, current, current + delta))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private void release(int type, int writes) {
+        stripes.getAndAdd(index(homeStripe(), type), -((1L << 32) + writes));
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & stripeMask;
+    }
+
+    private long share(long capacity, int stripe) {
+        return capacity / numStripes + (stripe < capacity % numStripes ? 1 : 0);
+    }
+
+    private static int index(int stripe, int type) {
+        return (2 * stripe + type) * PADDING;
+    }
+
+    private static int count(long packed) {
+        return (int) packed;
+    }
+
+    private static long threads(long packed) {
+        return (packed - count(packed)) >> 32;
+    }
+
+    private static int clamp(long value) {
+        if (value < 0) return 0;
+        return value > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+}
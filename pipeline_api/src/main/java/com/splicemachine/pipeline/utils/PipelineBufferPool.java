@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of byte buffers used to encode write requests, so that encoding a request does not have to
+ * allocate (and then trim, and then compress into) a fresh array every time.
+ * <p>
+ * A buffer which is taken from the pool is owned by the caller until it is handed back with
+ * {@link #release(byte[])}. If the pool is empty, a new buffer is allocated. The pool is bounded by the
+ * total number of bytes it holds rather than by the number of buffers: if keeping the returned buffer would
+ * take the pool over {@code maxPooledBytes}, or the buffer has grown larger than {@code maxBufferSize},
+ * it is left for the GC.
+ */
+public class PipelineBufferPool{
+    private static final int MIN_BUFFER_SIZE = 1024;
+
+    private final Queue<byte[]> buffers;
+    private final AtomicInteger pooled = new AtomicInteger(0);
+    private final AtomicLong pooledBytes = new AtomicLong(0L);
+    private final long maxPooledBytes;
+    private final int maxBufferSize;
+
+    public PipelineBufferPool(long maxPooledBytes,int maxBufferSize){
+        this.maxPooledBytes = maxPooledBytes;
+        this.maxBufferSize = maxBufferSize;
+        this.buffers = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * @param minSize the number of bytes the caller expects to need
+     * @return a buffer of at least {@code minSize} bytes (and never empty)
+     */
+    public byte[] get(int minSize){
+        byte[] next = buffers.poll();
+        if(next!=null){
+            pooled.decrementAndGet();
+            pooledBytes.addAndGet(-next.length);
+            if(next.length>=minSize)
+                return next;
+            /*
+             * The pooled buffer is too small, so drop it; the larger buffer we allocate instead
+             * will replace it in the pool when it is released.
+             */
+        }
+        return new byte[Math.max(minSize,MIN_BUFFER_SIZE)];
+    }
+
+    public void release(byte[] buffer){
+        if(buffer==null || buffer.length>maxBufferSize) return;
+        long bytes;
+        do{
+            bytes = pooledBytes.get();
+            if(bytes+buffer.length>maxPooledBytes) return;
+        }while(!pooledBytes.compareAndSet(bytes,bytes+buffer.length));
+        pooled.incrementAndGet();
+        buffers.offer(buffer);
+    }
+
+    /**
+     * @return the number of buffers in the pool
+     */
+    public int size(){
+        return pooled.get();
+    }
+
+    /**
+     * @return the total size of the buffers in the pool
+     */
+    public long bytes(){
+        return pooledBytes.get();
+    }
+}
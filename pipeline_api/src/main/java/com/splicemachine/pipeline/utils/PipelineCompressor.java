@@ -14,6 +14,8 @@
 
 package com.splicemachine.pipeline.utils;
 
+import com.splicemachine.encoding.ExpandingEncoder;
+
 import java.io.IOException;
 
 /**
@@ -24,5 +26,11 @@ public interface PipelineCompressor{
 
    byte[] compress(Object o) throws IOException;
 
+   /**
+    * Compress {@code o} into {@code buffer} rather than into a newly allocated array, so that callers
+    * which only need the bytes transiently can re-use their buffers.
+    */
+   void compress(Object o, ExpandingEncoder buffer) throws IOException;
+
    <T> T decompress(byte[] bytes, Class<T> clazz) throws IOException;
 }
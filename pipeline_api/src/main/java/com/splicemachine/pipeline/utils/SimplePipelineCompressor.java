@@ -17,12 +17,14 @@ package com.splicemachine.pipeline.utils;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.encoding.ExpandingEncoder;
 import com.splicemachine.pipeline.client.BulkWrites;
 import com.splicemachine.pipeline.client.PipelineEncoding;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.utils.kryo.KryoPool;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * @author Scott Fines
@@ -31,17 +33,38 @@ import java.io.IOException;
 public class SimplePipelineCompressor implements PipelineCompressor{
     private final TxnOperationFactory txnOperationFactory;
     private final KryoPool kp;
+    private final PipelineBufferPool bufferPool;
 
     public SimplePipelineCompressor(KryoPool kp,TxnOperationFactory txnOperationFactory){
+        this(kp,txnOperationFactory,null);
+    }
+
+    /**
+     * @param bufferPool the pool to encode BulkWrites into, or {@code null} to allocate a new buffer for each
+     */
+    public SimplePipelineCompressor(KryoPool kp,TxnOperationFactory txnOperationFactory,PipelineBufferPool bufferPool){
         this.txnOperationFactory = txnOperationFactory;
         this.kp = kp;
+        this.bufferPool = bufferPool;
     }
 
     @Override
     public byte[] compress(Object o) throws IOException{
         if(o instanceof BulkWrites){
             BulkWrites bw = (BulkWrites)o;
-            return PipelineEncoding.encode(txnOperationFactory,bw);
+            if(bufferPool==null)
+                return PipelineEncoding.encode(txnOperationFactory,bw);
+            /*
+             * Encode into a pooled buffer, so that the only array allocated is the exactly-sized
+             * one we return
+             */
+            ExpandingEncoder buffer = new ExpandingEncoder(bufferPool.get(bw.getBufferHeapSize()+64));
+            try{
+                PipelineEncoding.encode(txnOperationFactory,bw,buffer);
+                return Arrays.copyOf(buffer.getRawBuffer(),buffer.getLength());
+            }finally{
+                bufferPool.release(buffer.getRawBuffer());
+            }
         }else {
             Output out = new Output(128,-1);
             Kryo kryo = kp.get();
@@ -55,6 +78,16 @@ public class SimplePipelineCompressor implements PipelineCompressor{
         }
     }
 
+    @Override
+    public void compress(Object o,ExpandingEncoder buffer) throws IOException{
+        if(o instanceof BulkWrites)
+            PipelineEncoding.encode(txnOperationFactory,(BulkWrites)o,buffer);
+        else{
+            byte[] bytes = compress(o);
+            buffer.write(bytes,0,bytes.length);
+        }
+    }
+
     @Override
     public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
         if(clazz.isAssignableFrom(BulkWrites.class))
@@ -30,6 +30,7 @@ import com.splicemachine.pipeline.api.BulkWriterFactory;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.WriteStats;
 import com.splicemachine.pipeline.api.Writer;
+import com.splicemachine.pipeline.callbuffer.FlushPolicy;
 import com.splicemachine.pipeline.client.ActionStatusReporter;
 import com.splicemachine.pipeline.client.BulkWriteAction;
 import com.splicemachine.pipeline.client.BulkWrites;
@@ -51,19 +52,35 @@ public class AsyncBucketingWriter implements Writer {
     private final BulkWriterFactory writerFactory;
     private final PartitionFactory partitionFactory;
     private final Clock clock;
+    private final FlushPolicy flushPolicy;
 
     public AsyncBucketingWriter(MonitoredThreadPool writerPool,
                                 BulkWriterFactory writerFactory,
                                 PipelineExceptionFactory exceptionFactory,
                                 PartitionFactory partitionFactory,
                                 Clock clock) {
+        this(writerPool,writerFactory,exceptionFactory,partitionFactory,clock,new ActionStatusReporter(),FlushPolicy.STATIC);
+    }
+
+    /**
+     * @param statusReporter the reporter to record status into; {@code flushPolicy} should record its decisions here as well,
+     *                       so that they show up in this writer's JMX status
+     */
+    public AsyncBucketingWriter(MonitoredThreadPool writerPool,
+                                BulkWriterFactory writerFactory,
+                                PipelineExceptionFactory exceptionFactory,
+                                PartitionFactory partitionFactory,
+                                Clock clock,
+                                ActionStatusReporter statusReporter,
+                                FlushPolicy flushPolicy) {
         this.writerPool = writerPool;
-        this.statusMonitor = new ActionStatusReporter();
+        this.statusMonitor = statusReporter;
         this.monitor = new ActionStatusMonitor(statusMonitor);
         this.exceptionFactory = exceptionFactory;
         this.writerFactory = writerFactory;
         this.partitionFactory = partitionFactory;
         this.clock = clock;
+        this.flushPolicy = flushPolicy;
     }
 
     @Override
@@ -77,7 +94,8 @@ public class AsyncBucketingWriter implements Writer {
                 writerFactory,
                 exceptionFactory,
                 partitionFactory,
-                clock);
+                clock,
+                flushPolicy);
         statusMonitor.totalFlushesSubmitted.incrementAndGet();
         return writerPool.submit(action);
     }
@@ -87,6 +105,11 @@ public class AsyncBucketingWriter implements Writer {
         writerPool.shutdown();
     }
 
+    @Override
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
     @Override
     public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException {
         mbs.registerMBean(monitor, new ObjectName(PipelineConfiguration.WRITER_STATUS_OBJECT_LOCATION));
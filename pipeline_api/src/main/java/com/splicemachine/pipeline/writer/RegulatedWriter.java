@@ -14,6 +14,7 @@
 
 package com.splicemachine.pipeline.writer;
 
+import com.splicemachine.pipeline.callbuffer.FlushPolicy;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.api.WriteStats;
 import com.splicemachine.pipeline.api.Writer;
@@ -49,6 +50,11 @@ public class RegulatedWriter implements Writer {
         throw new UnsupportedOperationException("Stop underlying writer instance instead");
     }
 
+    @Override
+    public FlushPolicy getFlushPolicy() {
+        return delegate.getFlushPolicy();
+    }
+
     @Override
     public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException {
         throw new UnsupportedOperationException("register underlying writer instance instead");
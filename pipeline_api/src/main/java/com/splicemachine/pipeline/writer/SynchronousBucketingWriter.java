@@ -20,6 +20,7 @@ import com.splicemachine.pipeline.api.BulkWriterFactory;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.WriteStats;
 import com.splicemachine.pipeline.api.Writer;
+import com.splicemachine.pipeline.callbuffer.FlushPolicy;
 import com.splicemachine.pipeline.client.ActionStatusReporter;
 import com.splicemachine.pipeline.client.BulkWriteAction;
 import com.splicemachine.pipeline.client.BulkWrites;
@@ -89,6 +90,11 @@ public class SynchronousBucketingWriter implements Writer{
         //no-op
     }
 
+    @Override
+    public FlushPolicy getFlushPolicy(){
+        return FlushPolicy.STATIC;
+    }
+
     @Override
     public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
         ObjectName monitorName=new ObjectName("com.splicemachine.writer.synchronous:type=WriterStatus");
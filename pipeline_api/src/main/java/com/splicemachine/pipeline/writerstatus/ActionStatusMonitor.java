@@ -47,6 +47,10 @@ public class ActionStatusMonitor implements WriterStatus {
     @Override public long getTotalFlushTime() { return statusMonitor.totalFlushTime.get(); }
     @Override public long getMaxRegionsPerFlush() { return statusMonitor.maxFlushRegions.get(); }
     @Override public long getMinRegionsPerFlush() { return statusMonitor.minFlushRegions.get(); }
+    @Override public long getSizeTriggeredFlushes() { return statusMonitor.sizeTriggeredFlushes.get(); }
+    @Override public long getLingerTriggeredFlushes() { return statusMonitor.lingerTriggeredFlushes.get(); }
+    @Override public long getBatchSizeIncreases() { return statusMonitor.batchSizeIncreases.get(); }
+    @Override public long getBatchSizeDecreases() { return statusMonitor.batchSizeDecreases.get(); }
 
     @Override
     public long getAvgRegionsPerFlush() {
@@ -32,6 +32,7 @@ public class ManualContextFactoryLoader implements ContextFactoryLoader{
     private final WriteFactoryGroup indices = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
     private final WriteFactoryGroup fk = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
     private final WriteFactoryGroup ddl = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
+    private final WriteFactoryGroup statistics = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
 
     @Override
     public void load(TxnView txn) throws IOException, InterruptedException{
@@ -53,6 +54,11 @@ public class ManualContextFactoryLoader implements ContextFactoryLoader{
         return ddl;
     }
 
+    @Override
+    public WriteFactoryGroup getStatisticsFactories(){
+        return statistics;
+    }
+
     @Override
     public Set<ConstraintFactory> getConstraintFactories(){
         return constraints;
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.callbuffer;
+
+import com.splicemachine.pipeline.client.ActionStatusReporter;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ArchitectureIndependent.class)
+public class AdaptiveFlushPolicyTest {
+    private static final long MAX_HEAP_SIZE = 1024*1024;
+    private static final long TARGET_LATENCY = 100;
+
+    private final ActionStatusReporter reporter = new ActionStatusReporter();
+    private final AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(new FixedBufferConfiguration(),TARGET_LATENCY,reporter);
+
+    @Test
+    public void unknownRegionIsNeverFlushedEarly() {
+        assertFalse(policy.shouldFlush("region",MAX_HEAP_SIZE-1,100000,1000000));
+        assertEquals(-1,policy.getBatchSize("region"));
+        assertEquals(0,reporter.sizeTriggeredFlushes.get()+reporter.lingerTriggeredFlushes.get());
+    }
+
+    @Test
+    public void tooBusyHalvesBatchSize() {
+        policy.flushCompleted("region",10,MAX_HEAP_SIZE,false);
+        long before = policy.getBatchSize("region");
+        policy.flushCompleted("region",10,MAX_HEAP_SIZE,true);
+        assertEquals(before/2,policy.getBatchSize("region"));
+        assertEquals(1,reporter.batchSizeDecreases.get());
+
+        assertTrue(policy.shouldFlush("region",before/2,10,0));
+        assertEquals(1,reporter.sizeTriggeredFlushes.get());
+    }
+
+    @Test
+    public void slowWritesShrinkBatchSizeDownToMinimum() {
+        policy.flushCompleted("region",2*TARGET_LATENCY,MAX_HEAP_SIZE,false);
+        assertEquals(MAX_HEAP_SIZE-MAX_HEAP_SIZE/4,policy.getBatchSize("region"));
+        for(int i=0;i<100;i++)
+            policy.flushCompleted("region",2*TARGET_LATENCY,MAX_HEAP_SIZE,false);
+        assertEquals(32*1024,policy.getBatchSize("region"));
+        assertFalse(policy.shouldFlush("region",32*1024-1,10,0));
+    }
+
+    @Test
+    public void fastFullWritesGrowBatchSizeUpToMaximum() {
+        policy.flushCompleted("region",10,MAX_HEAP_SIZE,true);
+        long batchSize = policy.getBatchSize("region");
+        policy.flushCompleted("region",10,batchSize/4,false);
+        assertEquals("A small write should not grow the batch",batchSize,policy.getBatchSize("region"));
+
+        policy.flushCompleted("region",10,batchSize,false);
+        assertEquals(batchSize+MAX_HEAP_SIZE/16,policy.getBatchSize("region"));
+        for(int i=0;i<100;i++)
+            policy.flushCompleted("region",10,MAX_HEAP_SIZE,false);
+        assertEquals(MAX_HEAP_SIZE,policy.getBatchSize("region"));
+        assertEquals(8,reporter.batchSizeIncreases.get());
+    }
+
+    @Test
+    public void lingerFollowsLatencyUpToTarget() {
+        policy.flushCompleted("fast",20,1024,false);
+        assertEquals(20,policy.getLingerMs("fast"));
+        assertFalse(policy.shouldFlush("fast",1024,1,19));
+        assertTrue(policy.shouldFlush("fast",1024,1,20));
+        assertEquals(1,reporter.lingerTriggeredFlushes.get());
+
+        policy.flushCompleted("slow",10*TARGET_LATENCY,1024,false);
+        assertEquals(TARGET_LATENCY,policy.getLingerMs("slow"));
+
+        policy.flushCompleted("instant",0,1024,false);
+        assertEquals(1,policy.getLingerMs("instant"));
+    }
+
+    @Test
+    public void resetClearsFlushPolicyCounters() {
+        policy.flushCompleted("region",10,MAX_HEAP_SIZE,true);
+        policy.shouldFlush("region",MAX_HEAP_SIZE,1,0);
+        reporter.reset();
+        assertEquals(0,reporter.batchSizeDecreases.get());
+        assertEquals(0,reporter.sizeTriggeredFlushes.get());
+    }
+
+    private static class FixedBufferConfiguration implements BufferConfiguration {
+        @Override public long getMaxHeapSize() { return MAX_HEAP_SIZE; }
+        @Override public int getMaxEntries() { return 1000; }
+        @Override public int getMaxFlushesPerRegion() { return 5; }
+        @Override public void writeRejected() { }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.utils.PipelineBufferPool;
+import com.splicemachine.pipeline.utils.PipelineCompressor;
+import com.splicemachine.pipeline.utils.SimplePipelineCompressor;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.utils.kryo.KryoPool;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rows per second and the bytes allocated per row when encoding {@link BulkWrites} into
+ * a new array for each request, and when encoding them into pooled buffers; each encoded request is
+ * also decoded and its rows iterated, as the server would.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -cp ... PipelineEncodingBenchmark [rowsPerRequest] [valueSize] [seconds]
+ * </pre>
+ * Allocation is measured with {@code com.sun.management.ThreadMXBean}, so this must be run on a JVM
+ * which supports it.
+ */
+public class PipelineEncodingBenchmark{
+
+    public static void main(String...args) throws Exception{
+        int rows=args.length>0?Integer.parseInt(args[0]):10000;
+        int valueSize=args.length>1?Integer.parseInt(args[1]):100;
+        int seconds=args.length>2?Integer.parseInt(args[2]):5;
+
+        TxnOperationFactory operationFactory=new SimpleTxnOperationFactory(null,null);
+        TxnView txn=new ActiveWriteTxn(1l,1l,Txn.ROOT_TRANSACTION,true,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+        BulkWrites bulkWrites=generate(txn,rows,valueSize);
+
+        String[] names={"new array","pooled"};
+        PipelineCompressor[] compressors={
+                new SimplePipelineCompressor(new KryoPool(1),operationFactory),
+                new SimplePipelineCompressor(new KryoPool(1),operationFactory,new PipelineBufferPool(Long.MAX_VALUE,Integer.MAX_VALUE))
+        };
+        System.out.printf("rows/request=%d, valueSize=%d, seconds=%d%n",rows,valueSize,seconds);
+        System.out.printf("%12s %16s %16s%n","encoding","rows/s","bytes/row");
+        for(int i=0;i<compressors.length;i++){
+            //warm up
+            run(compressors[i],bulkWrites,1);
+            double[] result=run(compressors[i],bulkWrites,seconds);
+            System.out.printf("%12s %,16.0f %,16.1f%n",names[i],result[0],result[1]);
+        }
+    }
+
+    private static double[] run(PipelineCompressor compressor,BulkWrites bulkWrites,int seconds) throws Exception{
+        com.sun.management.ThreadMXBean threadMXBean=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId=Thread.currentThread().getId();
+        long deadline=System.nanoTime()+TimeUnit.SECONDS.toNanos(seconds);
+        long rows=0;
+        long checksum=0;
+        long startBytes=threadMXBean.getThreadAllocatedBytes(threadId);
+        long start=System.nanoTime();
+        while(System.nanoTime()<deadline){
+            byte[] encoded=compressor.compress(bulkWrites);
+            BulkWrites decoded=compressor.decompress(encoded,BulkWrites.class);
+            for(BulkWrite bw:decoded.getBulkWrites()){
+                for(KVPair kvPair:bw.getMutations()){
+                    checksum+=kvPair.rowKeySlice().length();
+                    rows++;
+                }
+            }
+        }
+        long elapsed=System.nanoTime()-start;
+        long allocated=threadMXBean.getThreadAllocatedBytes(threadId)-startBytes;
+        if(checksum==0)
+            System.out.println("No rows were decoded!");
+        return new double[]{rows/(elapsed/1e9d),allocated/(double)rows};
+    }
+
+    private static BulkWrites generate(TxnView txn,int rows,int valueSize){
+        Random random=new Random(0L);
+        Collection<KVPair> kvPairs=new ArrayList<>(rows);
+        for(int i=0;i<rows;i++){
+            byte[] key=new byte[16];
+            random.nextBytes(key);
+            byte[] value=new byte[valueSize];
+            random.nextBytes(value);
+            kvPairs.add(new KVPair(key,value));
+        }
+        List<BulkWrite> bws=new ArrayList<>(1);
+        bws.add(new BulkWrite(kvPairs,"region"));
+        return new BulkWrites(bws,txn);
+    }
+}
@@ -1,83 +1,174 @@
-//package com.splicemachine.pipeline.client;
-//
-//import com.splicemachine.kvpair.KVPair;
-//import com.splicemachine.primitives.Bytes;
-//import com.splicemachine.si.api.txn.TxnView;
-//import com.splicemachine.si.impl.txn.ActiveWriteTxn;
-//import org.junit.Assert;
-//import org.junit.Test;
-//
-//import java.util.ArrayList;
-//import java.util.Arrays;
-//import java.util.Collection;
-//import java.util.Iterator;
-//
-//TODO -sf- move this to hbase_pipeline
-//public class PipelineEncodingTest {
-//
-//    @Test
-//    public void testCanEncodeAndDecodeASingleBulkWrite() throws Exception {
-//        TxnView txnView = new ActiveWriteTxn(1l,1l);
-//
-//        Collection<BulkWrite> bws = generateBulkWrites(1);
-//        BulkWrites toEncode = new BulkWrites(bws,txnView);
-//
-//        byte[] bytes = PipelineEncoding.encode(toEncode);
-//        BulkWrites decoded = PipelineEncoding.decode(bytes);
-//        assertMatches("Incorrect BulkWrites",toEncode,decoded);
-//    }
-//
-//    @Test
-//    public void testCanEncodeAndDecodeMultipleBulkWrites() throws Exception {
-//        TxnView txnView = new ActiveWriteTxn(1l,1l);
-//
-//        Collection<BulkWrite> bws = generateBulkWrites(10);
-//        BulkWrites toEncode = new BulkWrites(bws,txnView);
-//
-//        byte[] bytes = PipelineEncoding.encode(toEncode);
-//        BulkWrites decoded = PipelineEncoding.decode(bytes);
-//        assertMatches("Incorrect BulkWrites",toEncode,decoded);
-//    }
-//
-//    private void assertMatches(String errorMsgPrefix, BulkWrites correct, BulkWrites actual) {
-//        Assert.assertEquals(errorMsgPrefix+": transaction ids don't match!",correct.getTxn().getTxnId(),actual.getTxn().getTxnId());
-//        Assert.assertEquals(errorMsgPrefix+": transaction write permission doesn't match!",correct.getTxn().allowsWrites(),actual.getTxn().allowsWrites());
-//        Collection<BulkWrite> correctBws = correct.getBulkWrites();
-//        Collection<BulkWrite> actualBws = actual.getBulkWrites();
-//        Assert.assertEquals(errorMsgPrefix+": bulk write size does not match!",correctBws.size(),actualBws.size());
-//        Iterator<BulkWrite> correctIter = correctBws.iterator();
-//        Iterator<BulkWrite> actualIter = actualBws.iterator();
-//        int pos =0;
-//        while(correctIter.hasNext()){
-//            BulkWrite cbw = correctIter.next();
-//            BulkWrite abw = actualIter.next();
-//            Assert.assertEquals(errorMsgPrefix+": Incorrect encodedStringName at pos "+ pos,cbw.getEncodedStringName(),abw.getEncodedStringName());
-//
-//            Collection<KVPair> cKvs = cbw.getMutations();
-//            Collection<KVPair> aKvs = abw.getMutations();
-//            Assert.assertEquals(errorMsgPrefix+": Incorrect kvPair size at pos "+ pos,cKvs.size(),aKvs.size());
-//            Iterator<KVPair> cKvIter = cKvs.iterator();
-//            Iterator<KVPair> aKvIter = aKvs.iterator();
-//            while(cKvIter.hasNext()){
-//                KVPair cKv = cKvIter.next();
-//                KVPair aKv = aKvIter.next();
-//                Assert.assertEquals(errorMsgPrefix+": KVPair row not correct",cKv.rowKeySlice(),aKv.rowKeySlice());
-//                Assert.assertEquals(errorMsgPrefix+": KVPair value not correct",cKv.valueSlice(),aKv.valueSlice());
-//                Assert.assertEquals(errorMsgPrefix+": KVPair type not correct",cKv.getType(),aKv.getType());
-//            }
-//        }
-//    }
-//
-//    private Collection<BulkWrite> generateBulkWrites(int size) {
-//        Collection<BulkWrite> bws = new ArrayList<>(size);
-//        for(int i=0;i<size;i++){
-//            Collection<KVPair> kvPairs = new ArrayList<>(Arrays.asList(
-//                new KVPair(Bytes.toBytes(i), Bytes.toBytes(i + 2),KVPair.Type.INSERT),
-//                new KVPair(Bytes.toBytes(i+1), Bytes.toBytes(Integer.toString(2*i)),KVPair.Type.DELETE),
-//                    new KVPair(Bytes.toBytes(i+2), Bytes.toBytes(i/.2f),KVPair.Type.UPDATE)
-//            ));
-//            bws.add(new BulkWrite(kvPairs,Integer.toString(i)));
-//        }
-//        return bws;
-//    }
-//}
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.encoding.ExpandingEncoder;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.utils.PipelineBufferPool;
+import com.splicemachine.pipeline.utils.SimplePipelineCompressor;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+@Category(ArchitectureIndependent.class)
+public class PipelineEncodingTest {
+    private static final TxnOperationFactory operationFactory = new SimpleTxnOperationFactory(null,null);
+    private static final TxnView txn = new ActiveWriteTxn(1l,1l,Txn.ROOT_TRANSACTION,true,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+
+    @Test
+    public void testCanEncodeAndDecodeASingleBulkWrite() throws Exception {
+        BulkWrites toEncode = new BulkWrites(generateBulkWrites(1),txn);
+
+        byte[] bytes = PipelineEncoding.encode(operationFactory,toEncode);
+        BulkWrites decoded = PipelineEncoding.decode(operationFactory,bytes);
+        assertMatches("Incorrect BulkWrites",toEncode,decoded);
+    }
+
+    @Test
+    public void testCanEncodeAndDecodeMultipleBulkWrites() throws Exception {
+        BulkWrites toEncode = new BulkWrites(generateBulkWrites(10),txn);
+
+        byte[] bytes = PipelineEncoding.encode(operationFactory,toEncode);
+        BulkWrites decoded = PipelineEncoding.decode(operationFactory,bytes);
+        assertMatches("Incorrect BulkWrites",toEncode,decoded);
+    }
+
+    @Test
+    public void testEncodingIntoReusedBufferMatchesEncodingIntoNewArray() throws Exception {
+        BulkWrites first = new BulkWrites(generateBulkWrites(10),txn);
+        BulkWrites second = new BulkWrites(generateBulkWrites(3),txn);
+
+        // encode the larger one first, so that the second encoding must ignore its leftover bytes
+        ExpandingEncoder buffer = new ExpandingEncoder(new byte[16]);
+        PipelineEncoding.encode(operationFactory,first,buffer);
+        Assert.assertArrayEquals(PipelineEncoding.encode(operationFactory,first),
+                Arrays.copyOf(buffer.getRawBuffer(),buffer.getLength()));
+
+        byte[] reused = buffer.getRawBuffer();
+        buffer = new ExpandingEncoder(reused);
+        PipelineEncoding.encode(operationFactory,second,buffer);
+        Assert.assertSame("Buffer should not have grown",reused,buffer.getRawBuffer());
+        byte[] expected = PipelineEncoding.encode(operationFactory,second);
+        Assert.assertArrayEquals(expected,Arrays.copyOf(buffer.getRawBuffer(),buffer.getLength()));
+    }
+
+    @Test
+    public void testPooledCompressorReusesBuffers() throws Exception {
+        PipelineBufferPool pool = new PipelineBufferPool(4<<20,1<<20);
+        SimplePipelineCompressor compressor = new SimplePipelineCompressor(new KryoPool(1),operationFactory,pool);
+        BulkWrites toEncode = new BulkWrites(generateBulkWrites(10),txn);
+
+        byte[] bytes = compressor.compress(toEncode);
+        Assert.assertArrayEquals(PipelineEncoding.encode(operationFactory,toEncode),bytes);
+        Assert.assertEquals("Buffer was not returned to the pool",1,pool.size());
+        compressor.compress(toEncode);
+        Assert.assertEquals("Buffer was not reused",1,pool.size());
+
+        assertMatches("Incorrect BulkWrites",toEncode,compressor.decompress(bytes,BulkWrites.class));
+    }
+
+    @Test
+    public void testDecodedKVPairsDoNotCopyTheBuffer() throws Exception {
+        byte[] bytes = PipelineEncoding.encode(operationFactory,new BulkWrites(generateBulkWrites(2),txn));
+        BulkWrites decoded = PipelineEncoding.decode(operationFactory,bytes);
+        for(BulkWrite bw:decoded.getBulkWrites()){
+            for(KVPair kvPair:bw.getMutations()){
+                Assert.assertSame(bytes,kvPair.rowKeySlice().array());
+                Assert.assertSame(bytes,kvPair.valueSlice().array());
+            }
+        }
+    }
+
+    @Test
+    public void testBufferPoolDoesNotKeepTooManyOrTooLargeBuffers() throws Exception {
+        PipelineBufferPool pool = new PipelineBufferPool(4096,2048);
+        byte[] a = pool.get(1500);
+        byte[] b = pool.get(1500);
+        byte[] c = pool.get(1500);
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        Assert.assertEquals("Pool kept more bytes than allowed",2,pool.size());
+        Assert.assertEquals(3000,pool.bytes());
+        pool.get(10);
+        pool.release(new byte[4096]);
+        Assert.assertEquals("Pool kept a buffer which was too large",1,pool.size());
+        pool.release(new byte[1024]);
+        Assert.assertEquals(2,pool.size());
+        Assert.assertEquals(2524,pool.bytes());
+
+        Assert.assertTrue("Returned a buffer which was too small",pool.get(2048).length>=2048);
+        Assert.assertEquals(1,pool.size());
+        Assert.assertEquals(1024,pool.bytes());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void assertMatches(String errorMsgPrefix, BulkWrites correct, BulkWrites actual) {
+        Assert.assertEquals(errorMsgPrefix+": transaction ids don't match!",correct.getTxn().getTxnId(),actual.getTxn().getTxnId());
+        Assert.assertEquals(errorMsgPrefix+": transaction write permission doesn't match!",correct.getTxn().allowsWrites(),actual.getTxn().allowsWrites());
+        Collection<BulkWrite> correctBws = correct.getBulkWrites();
+        Collection<BulkWrite> actualBws = actual.getBulkWrites();
+        Assert.assertEquals(errorMsgPrefix+": bulk write size does not match!",correctBws.size(),actualBws.size());
+        Iterator<BulkWrite> correctIter = correctBws.iterator();
+        Iterator<BulkWrite> actualIter = actualBws.iterator();
+        int pos =0;
+        while(correctIter.hasNext()){
+            BulkWrite cbw = correctIter.next();
+            BulkWrite abw = actualIter.next();
+            Assert.assertEquals(errorMsgPrefix+": Incorrect encodedStringName at pos "+ pos,cbw.getEncodedStringName(),abw.getEncodedStringName());
+
+            Collection<KVPair> cKvs = cbw.getMutations();
+            Collection<KVPair> aKvs = abw.getMutations();
+            Assert.assertEquals(errorMsgPrefix+": Incorrect kvPair size at pos "+ pos,cKvs.size(),aKvs.size());
+            Iterator<KVPair> cKvIter = cKvs.iterator();
+            Iterator<KVPair> aKvIter = aKvs.iterator();
+            while(cKvIter.hasNext()){
+                KVPair cKv = cKvIter.next();
+                KVPair aKv = aKvIter.next();
+                Assert.assertEquals(errorMsgPrefix+": KVPair row not correct",cKv.rowKeySlice(),aKv.rowKeySlice());
+                Assert.assertEquals(errorMsgPrefix+": KVPair value not correct",cKv.valueSlice(),aKv.valueSlice());
+                Assert.assertEquals(errorMsgPrefix+": KVPair type not correct",cKv.getType(),aKv.getType());
+            }
+            pos++;
+        }
+    }
+
+    private Collection<BulkWrite> generateBulkWrites(int size) {
+        Collection<BulkWrite> bws = new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            Collection<KVPair> kvPairs = new ArrayList<>(Arrays.asList(
+                new KVPair(Bytes.toBytes(i), Bytes.toBytes(i + 2),KVPair.Type.INSERT),
+                new KVPair(Bytes.toBytes(i+1), Bytes.toBytes(Integer.toString(2*i)),KVPair.Type.DELETE),
+                new KVPair(Bytes.toBytes(i+2), Bytes.toBytes(i/.2f),KVPair.Type.UPDATE)
+            ));
+            bws.add(new BulkWrite(kvPairs,Integer.toString(i)));
+        }
+        return bws;
+    }
+}
@@ -18,7 +18,15 @@ import com.splicemachine.si.testenv.ArchitectureIndependent;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @Category(ArchitectureIndependent.class)
 public class SpliceWriteControlTest {
@@ -37,4 +45,80 @@ public class SpliceWriteControlTest {
         assertEquals("{ dependentWriteThreads=0, independentWriteThreads=1, dependentWriteCount=0, independentWriteCount=25 }", writeControl.getWriteStatus().toString());
     }
 
+    @Test
+    public void stripedPerformIndependentWrite() {
+        SpliceWriteControl writeControl = new StripedSpliceWriteControl(3, 3, 200, 200, 8);
+
+        writeControl.performIndependentWrite(25);
+        assertEquals("{ dependentWriteThreads=0, independentWriteThreads=1, dependentWriteCount=0, independentWriteCount=25 }", writeControl.getWriteStatus().toString());
+
+        writeControl.performIndependentWrite(25);
+        assertEquals("{ dependentWriteThreads=0, independentWriteThreads=2, dependentWriteCount=0, independentWriteCount=50 }", writeControl.getWriteStatus().toString());
+
+        writeControl.finishIndependentWrite(25);
+        assertEquals("{ dependentWriteThreads=0, independentWriteThreads=1, dependentWriteCount=0, independentWriteCount=25 }", writeControl.getWriteStatus().toString());
+    }
+
+    @Test
+    public void stripedLimitsThreadsLikeAtomic() {
+        for (int stripes : new int[]{1, 2, 8, 64}) {
+            SpliceWriteControl atomic = new AtomicSpliceWriteControl(3, 2, 1000, 1000);
+            SpliceWriteControl striped = new StripedSpliceWriteControl(3, 2, 1000, 1000, stripes);
+            for (int i = 0; i < 10; i++) {
+                assertEquals("Stripes: " + stripes + ", write " + i,
+                        atomic.performIndependentWrite(1), striped.performIndependentWrite(1));
+            }
+            assertEquals(atomic.getWriteStatus(), striped.getWriteStatus());
+
+            // releasing a permit makes room for exactly one more write
+            atomic.finishDependentWrite(1);
+            striped.finishDependentWrite(1);
+            assertEquals(SpliceWriteControl.Status.DEPENDENT, striped.performDependentWrite(1));
+            assertEquals(SpliceWriteControl.Status.REJECTED, striped.performDependentWrite(1));
+        }
+    }
+
+    @Test
+    public void stripedCountsBalanceUnderConcurrency() throws Exception {
+        final int maxThreads = 16;
+        final SpliceWriteControl writeControl = new StripedSpliceWriteControl(maxThreads, maxThreads, Integer.MAX_VALUE, Integer.MAX_VALUE, 4);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 64; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 10000; i++) {
+                        if (writeControl.performDependentWrite(3) == SpliceWriteControl.Status.REJECTED)
+                            continue;
+                        int n = inFlight.incrementAndGet();
+                        if (n > maxThreads + 1)
+                            failure.compareAndSet(null, "Too many writes in flight: " + n);
+                        inFlight.decrementAndGet();
+                        writeControl.finishDependentWrite(3);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertNull(failure.get());
+        assertEquals(new WriteStatus(0, 0, 0, 0), writeControl.getWriteStatus());
+        // every permit was returned, so the full capacity is still available
+        for (int i = 0; i <= maxThreads; i++)
+            assertTrue(writeControl.performDependentWrite(1) == SpliceWriteControl.Status.DEPENDENT);
+        assertEquals(SpliceWriteControl.Status.REJECTED, writeControl.performDependentWrite(1));
+    }
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many write permits per second the {@link SpliceWriteControl} implementations can hand out
+ * (and take back) as the number of writer threads grows.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -cp ... WriteControlBenchmark [maxThreads] [seconds]
+ * </pre>
+ * The limits are set high enough that no write is ever rejected, so only the cost of the permit
+ * accounting itself is measured.
+ */
+public class WriteControlBenchmark{
+
+    private interface Factory{
+        SpliceWriteControl newControl();
+    }
+
+    public static void main(String...args) throws Exception{
+        int maxThreads=args.length>0?Integer.parseInt(args[0]):2*Runtime.getRuntime().availableProcessors();
+        int seconds=args.length>1?Integer.parseInt(args[1]):5;
+        final int limit=Integer.MAX_VALUE-1;
+
+        String[] names={"synchronous","atomic","striped"};
+        Factory[] factories={
+                new Factory(){ @Override public SpliceWriteControl newControl(){ return new SynchronousWriteControl(limit,limit,limit,limit); } },
+                new Factory(){ @Override public SpliceWriteControl newControl(){ return new AtomicSpliceWriteControl(limit,limit,limit,limit); } },
+                new Factory(){ @Override public SpliceWriteControl newControl(){ return new StripedSpliceWriteControl(limit,limit,limit,limit); } }
+        };
+
+        System.out.printf("processors=%d, seconds=%d%n",Runtime.getRuntime().availableProcessors(),seconds);
+        System.out.printf("%8s",  "threads");
+        for(String name:names)
+            System.out.printf(" %16s",name);
+        System.out.println(" (permits/s)");
+        for(int threads=1;threads<=maxThreads;threads<<=1){
+            System.out.printf("%8d",threads);
+            for(Factory factory:factories)
+                System.out.printf(" %,16.0f",run(factory.newControl(),threads,seconds));
+            System.out.println();
+        }
+    }
+
+    private static double run(final SpliceWriteControl control,int threads,int seconds) throws Exception{
+        //warm up
+        measure(control,threads,1);
+        return measure(control,threads,seconds);
+    }
+
+    private static double measure(final SpliceWriteControl control,int threads,int seconds) throws Exception{
+        final long deadline=System.nanoTime()+TimeUnit.SECONDS.toNanos(seconds);
+        final CountDownLatch start=new CountDownLatch(1);
+        final long[] counts=new long[threads];
+        List<Thread> workers=new ArrayList<>(threads);
+        for(int i=0;i<threads;i++){
+            final int index=i;
+            Thread t=new Thread(new Runnable(){
+                @Override
+                public void run(){
+                    try{
+                        start.await();
+                    }catch(InterruptedException e){
+                        return;
+                    }
+                    long n=0;
+                    while((n&1023)!=0 || System.nanoTime()<deadline){
+                        if((n&1)==0){
+                            if(control.performDependentWrite(10)!=SpliceWriteControl.Status.REJECTED)
+                                control.finishDependentWrite(10);
+                        }else{
+                            SpliceWriteControl.Status status=control.performIndependentWrite(10);
+                            if(status==SpliceWriteControl.Status.INDEPENDENT)
+                                control.finishIndependentWrite(10);
+                            else if(status==SpliceWriteControl.Status.DEPENDENT)
+                                control.finishDependentWrite(10);
+                        }
+                        n++;
+                    }
+                    counts[index]=n;
+                }
+            },"write-control-bench-"+i);
+            workers.add(t);
+            t.start();
+        }
+        long s=System.nanoTime();
+        start.countDown();
+        for(Thread t:workers)
+            t.join();
+        long elapsed=System.nanoTime()-s;
+        long total=0;
+        for(long c:counts)
+            total+=c;
+        return total/(elapsed/1e9d);
+    }
+}
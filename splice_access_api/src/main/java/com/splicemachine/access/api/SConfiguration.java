@@ -157,6 +157,10 @@ public interface SConfiguration {
 
     int getSparkResultStreamingBatchSize();
 
+    boolean getSparkResultStreamingColumnar();
+
+    boolean getSparkResultStreamingCompression();
+
     double getBulkImportSampleFraction();
 
     String getAuthorizationScheme();
@@ -184,6 +188,8 @@ public interface SConfiguration {
 
     int getTimestampServerBindPort();
 
+    boolean getTimestampBatchRequests();
+
     int getTransactionKeepAliveThreads();
 
     int getTransactionLockStripes();
@@ -273,6 +279,8 @@ public interface SConfiguration {
 
     int getNestedLoopJoinBatchSize();
 
+    boolean getNestedLoopJoinBatchedLookup();
+
     // StatsConfiguration
     double getFallbackNullFraction();
 
@@ -341,4 +349,30 @@ public interface SConfiguration {
     String getOlapLog4jConfig();
 
     int getMaxCheckTableErrors();
+
+    long getControlSideMemoryBudget();
+
+    String getControlSideSpillDirectory();
+
+    int getSharedActiveTxnCacheSize();
+
+    long getSharedActiveTxnCacheMaxAge();
+
+    long getPipelineBufferPoolBytes();
+
+    int getPipelineBufferPoolMaxBufferSize();
+
+    String getWriteFlushPolicy();
+
+    long getWriteFlushTargetLatency();
+
+    boolean getControlSideNativeOrcReader();
+
+    int getControlSideScanBatchSize();
+
+    int getCompactionResolutionBatchSize();
+
+    boolean getIncrementalStatisticsEnabled();
+
+    long getIncrementalStatisticsFlushInterval();
 }
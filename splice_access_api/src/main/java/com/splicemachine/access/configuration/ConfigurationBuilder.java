@@ -28,10 +28,14 @@ public class ConfigurationBuilder {
     public int activeTransactionCacheSize;
     public int completedTxnCacheSize;
     public int completedTxnConcurrency;
+    public int sharedActiveTxnCacheSize;
+    public long sharedActiveTxnCacheMaxAge;
+    public int compactionResolutionBatchSize;
     public int readResolverQueueSize;
     public int readResolverThreads;
     public int timestampClientWaitTime;
     public int timestampServerBindPort;
+    public boolean timestampBatchRequests;
     public int transactionKeepAliveThreads;
     public int transactionLockStripes;
     public long transactionKeepAliveInterval;
@@ -85,6 +89,8 @@ public class ConfigurationBuilder {
     public long fallbackRegionRowCount;
     public long fallbackRemoteLatencyRatio;
     public long partitionCacheExpiration;
+    public boolean incrementalStatisticsEnabled;
+    public long incrementalStatisticsFlushInterval;
 
     // StorageConfiguration
     public int splitBlockSize;
@@ -146,7 +152,12 @@ public class ConfigurationBuilder {
     public String upgradeForcedFrom;
     public String storageFactoryHome;
     public int nestedLoopJoinBatchSize;
+    public boolean nestedLoopJoinBatchedLookup;
     public int maxCheckTableErrors;
+    public long controlSideMemoryBudget;
+    public String controlSideSpillDirectory;
+    public boolean controlSideNativeOrcReader;
+    public int controlSideScanBatchSize;
 
     // PipelineConfiguration
     public int coreWriterThreads;
@@ -158,6 +169,10 @@ public class ConfigurationBuilder {
     public int maxRetries;
     public int maxWriterThreads;
     public int pipelineKryoPoolSize;
+    public long pipelineBufferPoolBytes;
+    public int pipelineBufferPoolMaxBufferSize;
+    public String writeFlushPolicy;
+    public long writeFlushTargetLatency;
     public int writeMaxFlushesPerRegion;
     public long clientPause;
     public long maxBufferHeapSize;
@@ -166,6 +181,8 @@ public class ConfigurationBuilder {
     public String sparkIoCompressionCodec;
     public int sparkResultStreamingBatchSize;
     public int sparkResultStreamingBatches;
+    public boolean sparkResultStreamingColumnar;
+    public boolean sparkResultStreamingCompression;
     public int compactionReservedSlots;
     public int reservedSlotsTimeout;
     public int olapCompactionMaximumWait;
@@ -38,6 +38,14 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String SPARK_RESULT_STREAMING_BATCH_SIZE = "spark.result.streaming.batch.size";
     public static final int DEFAULT_SPARK_RESULT_STREAMING_BATCH_SIZE = 1024;
 
+    // Stream results as batches of columns rather than one row at a time
+    public static final String SPARK_RESULT_STREAMING_COLUMNAR = "spark.result.streaming.columnar";
+    public static final boolean DEFAULT_SPARK_RESULT_STREAMING_COLUMNAR = false;
+
+    // Snappy compress the batches of columns
+    public static final String SPARK_RESULT_STREAMING_COMPRESSION = "spark.result.streaming.compression";
+    public static final boolean DEFAULT_SPARK_RESULT_STREAMING_COMPRESSION = false;
+
     public static final String SPARK_COMPACTION_RESERVED_SLOTS = "spark.compaction.reserved.slots";
     public static final int DEFAULT_SPARK_COMPACTION_RESERVED_SLOTS = 1;
 
@@ -165,6 +173,46 @@ public class PipelineConfiguration implements ConfigurationDefault {
     private static final int DEFAULT_REGION_TOLOAD_PER_TASK = 10;
 
 
+    /**
+     * The total number of bytes held by the buffers kept for encoding write requests, so that they can be
+     * reused rather than allocated afresh for every request.
+     *
+     * Defaults to 4MB
+     */
+    public static final String PIPELINE_BUFFER_POOL_BYTES = "splice.writer.bufferPoolBytes";
+    private static final long DEFAULT_PIPELINE_BUFFER_POOL_BYTES = 4*1024*1024;
+
+    /**
+     * The size of the largest buffer kept for encoding write requests. Larger buffers, used by unusually
+     * large requests, are left for the GC.
+     *
+     * Defaults to 256KB
+     */
+    public static final String PIPELINE_BUFFER_POOL_MAX_BUFFER_SIZE = "splice.writer.bufferPoolMaxBufferSize";
+    private static final int DEFAULT_PIPELINE_BUFFER_POOL_MAX_BUFFER_SIZE = 256*1024;
+
+    /**
+     * The policy which decides when to flush the rows buffered for a region. "static" flushes only once
+     * splice.client.write.buffer or splice.client.write.buffer.maxentries is reached; "adaptive" also tunes the
+     * batch size and linger time of each region from the latency of its earlier writes, and from the
+     * server turning writes away as too busy.
+     *
+     * Defaults to static
+     */
+    public static final String WRITE_FLUSH_POLICY = "splice.client.write.flushPolicy";
+    public static final String STATIC_FLUSH_POLICY = "static";
+    public static final String ADAPTIVE_FLUSH_POLICY = "adaptive";
+    private static final String DEFAULT_WRITE_FLUSH_POLICY = STATIC_FLUSH_POLICY;
+
+    /**
+     * The write latency (in milliseconds) the adaptive flush policy aims for. Regions whose writes take
+     * longer get smaller batches; regions whose writes take less than half of it get larger ones.
+     *
+     * Defaults to 100
+     */
+    public static final String WRITE_FLUSH_TARGET_LATENCY = "splice.client.write.flushTargetLatency";
+    private static final long DEFAULT_WRITE_FLUSH_TARGET_LATENCY = 100;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.maxIndependentWriteThreads = configurationSource.getInt(MAX_INDEPENDENT_WRITE_THREADS, DEFAULT_MAX_INDEPENDENT_WRITE_THREADS);
@@ -187,11 +235,17 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.sparkIoCompressionCodec = configurationSource.getString(SPARK_IO_COMPRESSION_CODEC, DEFAULT_SPARK_IO_COMPRESSION_CODEC);
         builder.sparkResultStreamingBatches = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCHES, DEFAULT_SPARK_RESULT_STREAMING_BATCHES);
         builder.sparkResultStreamingBatchSize = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCH_SIZE, DEFAULT_SPARK_RESULT_STREAMING_BATCH_SIZE);
+        builder.sparkResultStreamingColumnar = configurationSource.getBoolean(SPARK_RESULT_STREAMING_COLUMNAR, DEFAULT_SPARK_RESULT_STREAMING_COLUMNAR);
+        builder.sparkResultStreamingCompression = configurationSource.getBoolean(SPARK_RESULT_STREAMING_COMPRESSION, DEFAULT_SPARK_RESULT_STREAMING_COMPRESSION);
         builder.compactionReservedSlots = configurationSource.getInt(SPARK_COMPACTION_RESERVED_SLOTS, DEFAULT_SPARK_COMPACTION_RESERVED_SLOTS);
 
         builder.reservedSlotsTimeout = configurationSource.getInt(SPARK_RESERVED_SLOTS_TIMEOUT, DEFAULT_SPARK_RESERVED_SLOTS_TIMEOUT);
         builder.bulkImportSampleFraction = configurationSource.getDouble(BULK_IMPORT_SAMPLE_FRACTION, DEFAULT_BULK_IMPORT_SAMPLE_FRACTION);
         builder.bulkImportTasksPerRegion = configurationSource.getInt(BULK_IMPORT_TASKS_PER_REGION, DEFAULT_BULK_IMPORT_TASKS_PER_REGION);
         builder.regionToLoadPerTask = configurationSource.getInt(REGION_TOLOAD_PER_TASK, DEFAULT_REGION_TOLOAD_PER_TASK);
+        builder.pipelineBufferPoolBytes = configurationSource.getLong(PIPELINE_BUFFER_POOL_BYTES, DEFAULT_PIPELINE_BUFFER_POOL_BYTES);
+        builder.pipelineBufferPoolMaxBufferSize = configurationSource.getInt(PIPELINE_BUFFER_POOL_MAX_BUFFER_SIZE, DEFAULT_PIPELINE_BUFFER_POOL_MAX_BUFFER_SIZE);
+        builder.writeFlushPolicy = configurationSource.getString(WRITE_FLUSH_POLICY, DEFAULT_WRITE_FLUSH_POLICY);
+        builder.writeFlushTargetLatency = configurationSource.getLong(WRITE_FLUSH_TARGET_LATENCY, DEFAULT_WRITE_FLUSH_TARGET_LATENCY);
     }
 }
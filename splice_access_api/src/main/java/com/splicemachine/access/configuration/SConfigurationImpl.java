@@ -107,6 +107,10 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int maxRetries;
     private final  int maxWriterThreads;
     private final  int pipelineKryoPoolSize;
+    private final  long pipelineBufferPoolBytes;
+    private final  int pipelineBufferPoolMaxBufferSize;
+    private final  String writeFlushPolicy;
+    private final  long writeFlushTargetLatency;
     private final  int writeMaxFlushesPerRegion;
     private final  long clientPause;
     private final  long maxBufferHeapSize;
@@ -115,6 +119,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  String sparkIoCompressionCodec;
     private final int sparkResultStreamingBatches;
     private final int sparkResultStreamingBatchSize;
+    private final boolean sparkResultStreamingColumnar;
+    private final boolean sparkResultStreamingCompression;
     private final int compactionReservedSlots;
     private final int olapCompactionMaximumWait;
     private final int olapCompactionMaximumConcurrent;
@@ -148,10 +154,14 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int activeTransactionCacheSize;
     private final  int completedTxnCacheSize;
     private final  int completedTxnConcurrency;
+    private final int sharedActiveTxnCacheSize;
+    private final long sharedActiveTxnCacheMaxAge;
+    private final int compactionResolutionBatchSize;
     private final  int readResolverQueueSize;
     private final  int readResolverThreads;
     private final  int timestampClientWaitTime;
     private final  int timestampServerBindPort;
+    private final  boolean timestampBatchRequests;
     private final  int transactionKeepAliveThreads;
     private final  int transactionLockStripes;
     private final  long transactionKeepAliveInterval;
@@ -185,8 +195,13 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  String upgradeForcedFrom;
     private final String storageFactoryHome;
     private final int nestedLoopJoinBatchSize;
+    private final boolean nestedLoopJoinBatchedLookup;
     private final long controlExecutionRowLimit;
     private final int maxCheckTableErrors;
+    private final long controlSideMemoryBudget;
+    private final String controlSideSpillDirectory;
+    private final boolean controlSideNativeOrcReader;
+    private final int controlSideScanBatchSize;
 
     // StatsConfiguration
     private final  double fallbackNullFraction;
@@ -201,6 +216,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long fallbackRegionRowCount;
     private final  long fallbackRemoteLatencyRatio;
     private final  long partitionCacheExpiration;
+    private final  boolean incrementalStatisticsEnabled;
+    private final  long incrementalStatisticsFlushInterval;
 
     // StorageConfiguration
     private final  int splitBlockSize;
@@ -473,6 +490,16 @@ public final class SConfigurationImpl implements SConfiguration {
         return sparkResultStreamingBatchSize;
     }
 
+    @Override
+    public boolean getSparkResultStreamingColumnar() {
+        return sparkResultStreamingColumnar;
+    }
+
+    @Override
+    public boolean getSparkResultStreamingCompression() {
+        return sparkResultStreamingCompression;
+    }
+
     // SIConfigurations
     @Override
     public int getActiveTransactionCacheSize() {
@@ -565,6 +592,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return timestampServerBindPort;
     }
     @Override
+    public boolean getTimestampBatchRequests() {
+        return timestampBatchRequests;
+    }
+    @Override
     public int getTransactionKeepAliveThreads() {
         return transactionKeepAliveThreads;
     }
@@ -683,6 +714,10 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getNestedLoopJoinBatchSize() {
         return nestedLoopJoinBatchSize;
     }
+    @Override
+    public boolean getNestedLoopJoinBatchedLookup() {
+        return nestedLoopJoinBatchedLookup;
+    }
 
     // StatsConfiguration
     @Override
@@ -734,6 +769,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return partitionCacheExpiration;
     }
     @Override
+    public boolean getIncrementalStatisticsEnabled() {
+        return incrementalStatisticsEnabled;
+    }
+    @Override
+    public long getIncrementalStatisticsFlushInterval() {
+        return incrementalStatisticsFlushInterval;
+    }
+    @Override
     public String getStorageFactoryHome() { return storageFactoryHome;}
 
     // StorageConfiguration
@@ -773,6 +816,7 @@ public final class SConfigurationImpl implements SConfiguration {
         readResolverThreads = builder.readResolverThreads;
         timestampClientWaitTime = builder.timestampClientWaitTime;
         timestampServerBindPort = builder.timestampServerBindPort;
+        timestampBatchRequests = builder.timestampBatchRequests;
         transactionKeepAliveThreads = builder.transactionKeepAliveThreads;
         transactionLockStripes = builder.transactionLockStripes;
         transactionKeepAliveInterval = builder.transactionKeepAliveInterval;
@@ -814,6 +858,8 @@ public final class SConfigurationImpl implements SConfiguration {
         fallbackRegionRowCount = builder.fallbackRegionRowCount;
         fallbackRemoteLatencyRatio = builder.fallbackRemoteLatencyRatio;
         partitionCacheExpiration = builder.partitionCacheExpiration;
+        incrementalStatisticsEnabled = builder.incrementalStatisticsEnabled;
+        incrementalStatisticsFlushInterval = builder.incrementalStatisticsFlushInterval;
         splitBlockSize = builder.splitBlockSize;
         regionMaxFileSize = builder.regionMaxFileSize;
         tableSplitSleepInterval = builder.tableSplitSleepInterval;
@@ -887,6 +933,8 @@ public final class SConfigurationImpl implements SConfiguration {
         olapShufflePartitions = builder.olapShufflePartitions;
         sparkResultStreamingBatches = builder.sparkResultStreamingBatches;
         sparkResultStreamingBatchSize = builder.sparkResultStreamingBatchSize;
+        sparkResultStreamingColumnar = builder.sparkResultStreamingColumnar;
+        sparkResultStreamingCompression = builder.sparkResultStreamingCompression;
         compactionReservedSlots = builder.compactionReservedSlots;
         olapCompactionMaximumWait = builder.olapCompactionMaximumWait;
         olapCompactionMaximumConcurrent = builder.olapCompactionMaximumConcurrent;
@@ -899,12 +947,24 @@ public final class SConfigurationImpl implements SConfiguration {
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
         nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
+        nestedLoopJoinBatchedLookup = builder.nestedLoopJoinBatchedLookup;
         controlExecutionRowLimit = builder.controlExecutionRowLimit;
         bulkImportSampleFraction = builder.bulkImportSampleFraction;
         bulkImportTasksPerRegion = builder.bulkImportTasksPerRegion;
         regionToLoadPerTask = builder.regionToLoadPerTask;
         ignoreMissingTxns = builder.ignoreMissingTxns;
         maxCheckTableErrors = builder.maxCheckTableErrors;
+        controlSideMemoryBudget = builder.controlSideMemoryBudget;
+        controlSideSpillDirectory = builder.controlSideSpillDirectory;
+        sharedActiveTxnCacheSize = builder.sharedActiveTxnCacheSize;
+        sharedActiveTxnCacheMaxAge = builder.sharedActiveTxnCacheMaxAge;
+        pipelineBufferPoolBytes = builder.pipelineBufferPoolBytes;
+        pipelineBufferPoolMaxBufferSize = builder.pipelineBufferPoolMaxBufferSize;
+        writeFlushPolicy = builder.writeFlushPolicy;
+        writeFlushTargetLatency = builder.writeFlushTargetLatency;
+        controlSideNativeOrcReader = builder.controlSideNativeOrcReader;
+        controlSideScanBatchSize = builder.controlSideScanBatchSize;
+        compactionResolutionBatchSize = builder.compactionResolutionBatchSize;
     }
 
     private static final Logger LOG = Logger.getLogger("splice.config");
@@ -1002,4 +1062,59 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getMaxCheckTableErrors() {
         return maxCheckTableErrors;
     }
+
+    @Override
+    public long getControlSideMemoryBudget() {
+        return controlSideMemoryBudget;
+    }
+
+    @Override
+    public String getControlSideSpillDirectory() {
+        return controlSideSpillDirectory;
+    }
+
+    @Override
+    public int getSharedActiveTxnCacheSize() {
+        return sharedActiveTxnCacheSize;
+    }
+
+    @Override
+    public long getSharedActiveTxnCacheMaxAge() {
+        return sharedActiveTxnCacheMaxAge;
+    }
+
+    @Override
+    public long getPipelineBufferPoolBytes() {
+        return pipelineBufferPoolBytes;
+    }
+
+    @Override
+    public int getPipelineBufferPoolMaxBufferSize() {
+        return pipelineBufferPoolMaxBufferSize;
+    }
+
+    @Override
+    public String getWriteFlushPolicy() {
+        return writeFlushPolicy;
+    }
+
+    @Override
+    public long getWriteFlushTargetLatency() {
+        return writeFlushTargetLatency;
+    }
+
+    @Override
+    public boolean getControlSideNativeOrcReader() {
+        return controlSideNativeOrcReader;
+    }
+
+    @Override
+    public int getControlSideScanBatchSize() {
+        return controlSideScanBatchSize;
+    }
+
+    @Override
+    public int getCompactionResolutionBatchSize() {
+        return compactionResolutionBatchSize;
+    }
 }
@@ -114,6 +114,14 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String TIMESTAMP_SERVER_BIND_PORT = "splice.timestamp_server.port";
     private static final int DEFAULT_TIMESTAMP_SERVER_BIND_PORT = 60012;
 
+    /**
+     * Whether timestamp clients coalesce concurrent requests into batches. Batch requests use different
+     * frames than single requests, so the timestamp server and every region server must use the same value.
+     * Defaults to false
+     */
+    public static final String TIMESTAMP_BATCH_REQUESTS = "splice.timestamp_server.batchRequests";
+    private static final boolean DEFAULT_TIMESTAMP_BATCH_REQUESTS = false;
+
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
@@ -141,6 +149,34 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String RESOLUTION_ON_FLUSHES = "splice.txn.resolution.flushes";
     public static final boolean DEFAULT_RESOLUTION_ON_FLUSHES = true;
 
+    /**
+     * The maximum number of active transactions which are held in the cache shared by
+     * all transactional scans on a server.
+     * Defaults to 16384
+     */
+    public static final String SHARED_ACTIVE_TXN_CACHE_SIZE = "splice.txn.sharedActiveCache.size";
+    private static final int DEFAULT_SHARED_ACTIVE_TXN_CACHE_SIZE = 1<<14;
+
+    /**
+     * The maximum time (in milliseconds) for which the shared cache will return an active transaction
+     * without checking its state again. Transactions which are committed or rolled back on this server
+     * are removed immediately; this bounds how long a transaction which completes elsewhere can appear active.
+     * Defaults to 1000 (1 second)
+     */
+    public static final String SHARED_ACTIVE_TXN_CACHE_MAX_AGE = "splice.txn.sharedActiveCache.maxAgeMs";
+    private static final long DEFAULT_SHARED_ACTIVE_TXN_CACHE_MAX_AGE = 1000L;
+
+    /**
+     * The number of rows read ahead by a compaction whose transactions are resolved together. The distinct
+     * transaction ids of those rows which are not cached are fetched with a single batched lookup, overlapped with
+     * the compaction of the previous rows. Set it to 1 to resolve the transactions of each row on its own.
+     * Batched lookups use a transaction endpoint call which older region servers don't have, so only raise it
+     * once every region server has been upgraded.
+     * Defaults to 1
+     */
+    public static final String COMPACTION_RESOLUTION_BATCH_SIZE = "splice.txn.resolution.batchSize";
+    private static final int DEFAULT_COMPACTION_RESOLUTION_BATCH_SIZE = 1;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -151,6 +187,7 @@ public class SIConfigurations implements ConfigurationDefault {
 //        builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, DEFAULT_READ_RESOLVER_QUEUE_SIZE);
         builder.timestampClientWaitTime  = configurationSource.getInt(TIMESTAMP_CLIENT_WAIT_TIME, DEFAULT_TIMESTAMP_CLIENT_WAIT_TIME);
         builder.timestampServerBindPort  = configurationSource.getInt(TIMESTAMP_SERVER_BIND_PORT, DEFAULT_TIMESTAMP_SERVER_BIND_PORT);
+        builder.timestampBatchRequests  = configurationSource.getBoolean(TIMESTAMP_BATCH_REQUESTS, DEFAULT_TIMESTAMP_BATCH_REQUESTS);
         builder.activeTransactionCacheSize  = configurationSource.getInt(ACTIVE_TRANSACTION_CACHE_SIZE, DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE);
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
@@ -174,5 +211,8 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.olapCompactionResolutionBufferSize = configurationSource.getInt(COMPACTION_RESOLUTION_BUFFER_SIZE, DEFAULT_COMPACTION_RESOLUTION_BUFFER_SIZE);
         builder.olapCompactionBlocking = configurationSource.getBoolean(COMPACTION_BLOCKING, DEFAULT_COMPACTION_BLOCKING);
         builder.resolutionOnFlushes = configurationSource.getBoolean(RESOLUTION_ON_FLUSHES, DEFAULT_RESOLUTION_ON_FLUSHES);
+        builder.sharedActiveTxnCacheSize = configurationSource.getInt(SHARED_ACTIVE_TXN_CACHE_SIZE, DEFAULT_SHARED_ACTIVE_TXN_CACHE_SIZE);
+        builder.sharedActiveTxnCacheMaxAge = configurationSource.getLong(SHARED_ACTIVE_TXN_CACHE_MAX_AGE, DEFAULT_SHARED_ACTIVE_TXN_CACHE_MAX_AGE);
+        builder.compactionResolutionBatchSize = configurationSource.getInt(COMPACTION_RESOLUTION_BATCH_SIZE, DEFAULT_COMPACTION_RESOLUTION_BATCH_SIZE);
     }
 }
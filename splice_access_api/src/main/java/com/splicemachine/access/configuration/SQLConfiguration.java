@@ -222,12 +222,58 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String NESTEDLOOPJOIN_BATCH_SIZE = "splice.nestedLoopJoin.batchSize";
     private static final int DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE = 10;
 
+    /**
+     * If true, nested loop joins whose inner side reads a single row of a table by its primary key look up the
+     * rows for a batch of {@link #NESTEDLOOPJOIN_BATCH_SIZE} outer rows with one multi-get, rather than opening
+     * a scan of the inner table for each outer row.
+     * Defaults to false
+     */
+    public static final String NESTEDLOOPJOIN_BATCHED_LOOKUP = "splice.nestedLoopJoin.batchedLookup";
+    private static final boolean DEFAULT_NESTEDLOOPJOIN_BATCHED_LOOKUP = false;
+
     public static final String CONTROL_EXECUTION_ROWS_LIMIT = "splice.controlExecution.rowsLimit";
     private static final int DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT = 1000000;
 
     public static final String MAX_CHECK_TABLE_ERRORS="splice.max.checktable.error";
     private static final int DEFAULT_MAX_CHECK_TABLE_ERRORS = 1000;
 
+    /**
+     * The amount of memory (in bytes) that a single control-side sort or aggregation may
+     * use to hold rows, before it begins spilling them to local disk.
+     *
+     * Defaults to 64 MB
+     */
+    public static final String CONTROL_SIDE_MEMORY_BUDGET = "splice.dataset.control.memoryBudget";
+    private static final long DEFAULT_CONTROL_SIDE_MEMORY_BUDGET = 64L*1024*1024;
+
+    /**
+     * The local directory in which control-side sorts and aggregations write their spill files.
+     *
+     * Defaults to the value of java.io.tmpdir
+     */
+    public static final String CONTROL_SIDE_SPILL_DIRECTORY = "splice.dataset.control.spillDirectory";
+    private static final String DEFAULT_CONTROL_SIDE_SPILL_DIRECTORY = System.getProperty("java.io.tmpdir");
+
+    /**
+     * Whether control-side scans of ORC external tables read the files in-process with the native ORC
+     * reader, instead of running a Spark job and pulling back its results.
+     *
+     * Defaults to true
+     */
+    public static final String CONTROL_SIDE_NATIVE_ORC_READER = "splice.dataset.control.nativeOrcReader";
+    private static final boolean DEFAULT_CONTROL_SIDE_NATIVE_ORC_READER = true;
+
+    /**
+     * The number of rows which control-side table scans with qualifiers decode at a time into column batches.
+     * The qualifiers are evaluated over the whole batch, and only the rows which qualify are returned.
+     * The operations above the scan still consume the qualifying rows one at a time.
+     * Set it to 0 to decode and qualify the rows one at a time.
+     *
+     * Defaults to 0
+     */
+    public static final String CONTROL_SIDE_SCAN_BATCH_SIZE = "splice.dataset.control.scanBatchSize";
+    private static final int DEFAULT_CONTROL_SIDE_SCAN_BATCH_SIZE = 0;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -243,6 +289,7 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.partitionserverJmxPassword = configurationSource.getString(PARTITIONSERVER_JMX_PASSWORD, DEFAULT_PARTITIONSERVER_JMX_PASSWORD);
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
         builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
+        builder.nestedLoopJoinBatchedLookup = configurationSource.getBoolean(NESTEDLOOPJOIN_BATCHED_LOOKUP, DEFAULT_NESTEDLOOPJOIN_BATCHED_LOOKUP);
         builder.controlExecutionRowLimit = configurationSource.getLong(CONTROL_EXECUTION_ROWS_LIMIT, DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT);
 
         // Where to place jar files...
@@ -273,5 +320,9 @@ public class SQLConfiguration implements ConfigurationDefault {
 
         builder.networkBindAddress = configurationSource.getString(NETWORK_BIND_ADDRESS, DEFAULT_NETWORK_BIND_ADDRESS);
         builder.maxCheckTableErrors = configurationSource.getInt(MAX_CHECK_TABLE_ERRORS, DEFAULT_MAX_CHECK_TABLE_ERRORS);
+        builder.controlSideMemoryBudget = configurationSource.getLong(CONTROL_SIDE_MEMORY_BUDGET, DEFAULT_CONTROL_SIDE_MEMORY_BUDGET);
+        builder.controlSideSpillDirectory = configurationSource.getString(CONTROL_SIDE_SPILL_DIRECTORY, DEFAULT_CONTROL_SIDE_SPILL_DIRECTORY);
+        builder.controlSideNativeOrcReader = configurationSource.getBoolean(CONTROL_SIDE_NATIVE_ORC_READER, DEFAULT_CONTROL_SIDE_NATIVE_ORC_READER);
+        builder.controlSideScanBatchSize = configurationSource.getInt(CONTROL_SIDE_SCAN_BATCH_SIZE, DEFAULT_CONTROL_SIDE_SCAN_BATCH_SIZE);
     }
 }
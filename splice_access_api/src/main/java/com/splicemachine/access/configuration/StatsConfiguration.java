@@ -124,6 +124,28 @@ public class StatsConfiguration implements ConfigurationDefault {
     public static final String FALLBACK_ROW_WIDTH="splice.statistics.fallbackMinimumRowWidth";
     public static final int DEFAULT_FALLBACK_ROW_WIDTH=170;
 
+    /**
+     * When enabled, the write pipeline keeps per-region sketches of the rows inserted into each base table by
+     * committed transactions, and merges them into the collected statistics so that they stay fresh between
+     * collections. Updates, upserts and deletes are not reflected until the table is collected again.
+     *
+     * Each flush of a region server invalidates the cached statistics of the tables it wrote on every server,
+     * so this is off unless asked for.
+     *
+     * Defaults to false
+     */
+    public static final String INCREMENTAL_STATISTICS_ENABLED="splice.statistics.incremental.enabled";
+    public static final boolean DEFAULT_INCREMENTAL_STATISTICS_ENABLED=false;
+
+    /**
+     * How often (in milliseconds) the incremental sketches of the transactions which committed are written to
+     * sys.systablestats and sys.syscolumnstats, in a single transaction and a single statistics change.
+     *
+     * Defaults to 10 minutes
+     */
+    public static final String INCREMENTAL_STATISTICS_FLUSH_INTERVAL="splice.statistics.incremental.flushInterval";
+    public static final long DEFAULT_INCREMENTAL_STATISTICS_FLUSH_INTERVAL=10*60*1000;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -139,6 +161,8 @@ public class StatsConfiguration implements ConfigurationDefault {
         builder.fallbackLocalLatency = configurationSource.getLong(FALLBACK_LOCAL_LATENCY, DEFAULT_FALLBACK_LOCAL_LATENCY);
         builder.fallbackRemoteLatencyRatio = configurationSource.getLong(FALLBACK_REMOTE_LATENCY_RATIO, DEFAULT_FALLBACK_REMOTE_LATENCY_RATIO);
         builder.partitionCacheExpiration = configurationSource.getLong(PARTITION_CACHE_EXPIRATION, DEFAULT_PARTITION_CACHE_EXPIRATION);
+        builder.incrementalStatisticsEnabled = configurationSource.getBoolean(INCREMENTAL_STATISTICS_ENABLED, DEFAULT_INCREMENTAL_STATISTICS_ENABLED);
+        builder.incrementalStatisticsFlushInterval = configurationSource.getLong(INCREMENTAL_STATISTICS_FLUSH_INTERVAL, DEFAULT_INCREMENTAL_STATISTICS_FLUSH_INTERVAL);
 //        builder.partitionCacheSize = configurationSource.getLong(PARTITION_CACHE_SIZE, DEFAULT_PARTITION_CACHE_SIZE);
         builder.fallbackRegionRowCount = configurationSource.getLong(FALLBACK_REGION_ROW_COUNT, DEFAULT_FALLBACK_REGION_COUNT);
 
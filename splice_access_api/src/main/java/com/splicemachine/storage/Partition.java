@@ -105,6 +105,21 @@ public interface Partition extends AutoCloseable{
      */
     DataResult getLatest(byte[] key,DataResult previous) throws IOException;
 
+    /**
+     * Get the latest single value for all data types of many rows of a write batch at once, with the same
+     * semantics as {@link #getLatest(byte[], DataResult)}.
+     * <p>
+     *     Implementations are free to sort the rows and read them all in a single forward pass, so unlike
+     *     {@link #getLatest(byte[], DataResult)} each returned result is a distinct object.
+     * </p>
+     * @param dataAndLocks the write batch. {@code null} entries are never read.
+     * @param rows the positions in {@code dataAndLocks} of the rows to read
+     * @return the latest value of each read row, at its position in {@code dataAndLocks}. Positions which were
+     * not read hold {@code null}, and rows which are not present hold an empty result.
+     * @throws IOException if something goes wrong
+     */
+    DataResult[] getLatest(Pair<KVPair, Lock>[] dataAndLocks,BitSet rows) throws IOException;
+
     Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException;
 
     DataResultScanner openResultScanner(DataScan scan,MetricFactory metricFactory) throws IOException;
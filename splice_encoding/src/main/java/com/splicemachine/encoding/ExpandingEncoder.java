@@ -45,6 +45,21 @@ public class ExpandingEncoder {
         this(10,resizeFactor);
     }
 
+    /**
+     * Encode into {@code buffer}, starting at the beginning. This allows callers to re-use buffers across
+     * encodings; since the buffer is replaced when it has to grow, callers must use {@link #getRawBuffer()}
+     * to recover it once they are done.
+     *
+     * @param buffer the buffer to encode into. Must not be empty.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public ExpandingEncoder(byte[] buffer){
+        assert buffer.length>0: "Cannot expand an empty buffer!";
+        this.buffer = buffer;
+        this.resizeFactor = 1.5f;
+        this.currentOffset = 0;
+    }
+
     public ExpandingEncoder encode(byte value){
         ensureCapacity(Encoding.encodedLength(value));
         currentOffset+=Encoding.encode(value,buffer,currentOffset);
@@ -100,6 +115,32 @@ public class ExpandingEncoder {
         return rawEncode(byteSlice.array(),byteSlice.offset(),byteSlice.length());
     }
 
+    /**
+     * Copy the bytes as they are, <em>without</em> a length prefix.
+     */
+    public ExpandingEncoder write(byte[] value, int offset, int length){
+        ensureCapacity(length);
+        System.arraycopy(value,offset,buffer,currentOffset,length);
+        currentOffset+=length;
+        return this;
+    }
+
+    /**
+     * @return the number of bytes which have been encoded so far.
+     */
+    public int getLength(){
+        return currentOffset;
+    }
+
+    /**
+     * @return the underlying buffer, of which only the first {@link #getLength()} bytes are valid. Unlike
+     * {@link #getBuffer()}, this never copies.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP",justification = "Intentional")
+    public byte[] getRawBuffer(){
+        return buffer;
+    }
+
     @SuppressFBWarnings(value = "EI_EXPOSE_REP",justification = "Intentional")
     public byte[] getBuffer(){
         if(currentOffset<buffer.length){
@@ -30,6 +30,7 @@ import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
 import com.splicemachine.derby.impl.sql.execute.pin.DistributedIsCachedJob;
 import com.splicemachine.derby.impl.sql.execute.pin.DistributedPopulatePinJob;
 import com.splicemachine.derby.impl.sql.execute.pin.GetIsCachedResult;
+import com.splicemachine.derby.impl.sql.execute.pin.PopulatePinResult;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
@@ -168,7 +169,12 @@ public class CreatePinConstantOperation implements ConstantAction, ScopeNamed {
         String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
         String jobGroup = userId + " <" +parentTxn.getTxnId() +">";
         try {
-            EngineDriver.driver().getOlapClient().execute(new DistributedPopulatePinJob(builder, scope, jobGroup, prefix, conglomerate.getContainerid()));
+            PopulatePinResult result = EngineDriver.driver().getOlapClient().execute(new DistributedPopulatePinJob(builder, scope, jobGroup, prefix, conglomerate.getContainerid()));
+            if (result.getSizeInBytes() >= 0) {
+                SpliceLogUtils.info(LOG, "Pinned table %s.%s uses %d bytes of memory", schemaName, tableName, result.getSizeInBytes());
+                activation.addWarning(StandardException.newWarning(SQLState.LANG_TABLE_PINNED,
+                        schemaName+"."+tableName, Long.toString(result.getSizeInBytes())));
+            }
         } catch (Exception e) {
             throw StandardException.plainWrapException(e);
         }
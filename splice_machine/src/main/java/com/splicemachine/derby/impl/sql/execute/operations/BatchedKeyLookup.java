@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.sql.execute.ExecIndexRow;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.utils.Scans;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.KeyDecoder;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.NoOpKeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.SkippingKeyDecoder;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.Attributable;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataResult;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.storage.util.MapAttributes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the row of a {@link TableScanOperation} which looks up a single row by its whole primary key, for many
+ * keys at once.
+ *
+ * This is for the inner side of nested loop joins, where the key depends on the current outer row: rather than
+ * opening a scan for each outer row, the keys of a batch of outer rows are computed with {@link #lookupKey()} and
+ * their rows read with a single {@link Partition#batchGet}, in the same way that {@link IndexRowReader} reads the
+ * base rows of an index scan.
+ */
+public class BatchedKeyLookup{
+    private final TableScanOperation scan;
+    private final TxnView txn;
+    private final long conglomId;
+    private final String tableVersion;
+    private final ExecRow template;
+    private final byte[] predicateFilterBytes;
+    private final int[] keyColumnEncodingOrder;
+    private final int[] keyColumnTypes;
+    private final boolean[] keyColumnSortOrder;
+    private final int[] keyDecodingMap;
+    private final FormatableBitSet accessedKeyColumns;
+    private final int[] rowDecodingMap;
+
+    private BatchedKeyLookup(TableScanOperation scan) throws StandardException{
+        ScanInformation<ExecRow> scanInformation=scan.scanInformation;
+        this.scan=scan;
+        this.txn=scan.getCurrentTransaction();
+        this.conglomId=scanInformation.getConglomerateId();
+        this.tableVersion=scan.tableVersion;
+        this.template=scan.currentTemplate;
+        this.keyColumnEncodingOrder=scanInformation.getColumnOrdering();
+        this.predicateFilterBytes=Scans.getEntryPredicateFilter(null,
+                scanInformation.getAccessedColumns(),keyColumnEncodingOrder).toBytes();
+        this.keyColumnTypes=scan.getKeyFormatIds();
+        this.keyColumnSortOrder=scanInformation.getConglomerate().getAscDescInfo();
+        this.keyDecodingMap=scan.getKeyDecodingMap();
+        this.accessedKeyColumns=scanInformation.getAccessedPkColumns();
+        this.rowDecodingMap=scan.getRowDecodingMap();
+    }
+
+    /**
+     * Make a lookup for the inner side of a nested loop join, if it reads a single row of a table by its primary
+     * key, with no other restriction. The current row of the outer side must be set, as the key is computed from it.
+     *
+     * @param operation the inner side of the join
+     * @return the lookup, or {@code null} if the inner side has to be scanned
+     * @throws StandardException
+     */
+    public static BatchedKeyLookup create(SpliceOperation operation) throws StandardException{
+        if(operation.getClass()!=TableScanOperation.class)
+            return null;
+        TableScanOperation scan=(TableScanOperation)operation;
+        ScanInformation<ExecRow> scanInformation=scan.scanInformation;
+        int[] keyColumns=scanInformation.getColumnOrdering();
+        if(keyColumns==null || keyColumns.length==0 // no primary key
+                || scan.indexName!=null
+                || scan.storedAs!=null
+                || scan.defaultRow!=null
+                || !scanInformation.getSameStartStopPosition()
+                || scanInformation.getScanQualifiers()!=null)
+            return null;
+        ExecIndexRow startPosition=scanInformation.getStartPosition();
+        if(startPosition==null || startPosition.nColumns()!=keyColumns.length)
+            return null; // a scan of the rows with a prefix of the key
+        return new BatchedKeyLookup(scan);
+    }
+
+    /**
+     * @return the key of the row the scan would read given the current row of the outer side
+     * @throws StandardException
+     */
+    public byte[] lookupKey() throws StandardException{
+        return scan.getNonSIScan().getStartKey();
+    }
+
+    /**
+     * Read the rows with the given keys. Unlike {@link #lookupKey()} this doesn't use the state of the operation,
+     * so it may be called from any thread.
+     *
+     * @param keys the keys to read
+     * @return the row of each key, in the order of the keys, or {@code null} where there is no row with the key
+     * @throws StandardException
+     */
+    public List<ExecRow> lookup(List<byte[]> keys) throws StandardException{
+        Attributable attributes=new MapAttributes();
+        attributes.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL,predicateFilterBytes);
+        SIDriver driver=SIDriver.driver();
+        driver.getOperationFactory().encodeForReads(attributes,txn,false);
+
+        DescriptorSerializer[] serializers=VersionedSerializers.forVersion(tableVersion,false).getSerializers(template);
+        List<ExecRow> rows=new ArrayList<>(keys.size());
+        try(Partition table=driver.getTableFactory().getTable(Long.toString(conglomId));
+            KeyDecoder keyDecoder=new KeyDecoder(newKeyDecoder(serializers),0);
+            KeyHashDecoder rowDecoder=new EntryDataDecoder(rowDecodingMap,null,serializers)){
+            Iterator<DataResult> results=table.batchGet(attributes,keys);
+            for(byte[] key : keys){
+                if(!results.hasNext())
+                    throw new IllegalStateException("Programmer error: incompatible iterator sizes!");
+                DataResult result=results.next();
+                if(result==null || result.size()<=0){
+                    rows.add(null);
+                    continue;
+                }
+                ExecRow row=template.getNewNullRow();
+                for(DataCell kv : result){
+                    keyDecoder.decode(kv.keyArray(),kv.keyOffset(),kv.keyLength(),row);
+                    rowDecoder.set(kv.valueArray(),kv.valueOffset(),kv.valueLength());
+                    rowDecoder.decode(row);
+                }
+                row.setKey(key);
+                rows.add(row);
+            }
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }
+        return rows;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private KeyHashDecoder newKeyDecoder(DescriptorSerializer[] serializers){
+        if(accessedKeyColumns==null || accessedKeyColumns.getNumBitsSet()<=0)
+            return NoOpKeyHashDecoder.INSTANCE;
+        return SkippingKeyDecoder.decoder(VersionedSerializers.typesForVersion(tableVersion),
+                serializers,
+                keyColumnEncodingOrder,
+                keyColumnTypes,
+                keyColumnSortOrder,
+                keyDecodingMap,
+                accessedKeyColumns);
+    }
+}
@@ -47,7 +47,7 @@ public class BroadcastJoinCache{
     }
 
     public BroadcastJoinCache(){
-       this(ByteBufferMapTableLoader.INSTANCE);
+       this(CompactJoinTableLoader.INSTANCE);
     }
 
     public BroadcastJoinCache(JoinTableLoader tableLoader){
@@ -64,11 +64,31 @@ public class BroadcastJoinCache{
                          int[] rightHashKeys,
                          int[] leftHashKeys,
                          ExecRow leftTemplateRow) throws IOException, StandardException{
+        ReferenceCountingFactory joinTable=getFactory(operationId,loader,rightHashKeys,leftHashKeys,leftTemplateRow);
+        joinTable.refCount.incrementAndGet();
+        return joinTable;
+    }
+
+    /**
+     * Loads the table of an operation ahead of its first use, without holding a reference to it. The table is
+     * evicted as usual once it has been used and closed, or if it is not used before it expires.
+     */
+    public void preload(Long operationId,
+                        Callable<Stream<ExecRow>> loader,
+                        int[] rightHashKeys,
+                        int[] leftHashKeys,
+                        ExecRow leftTemplateRow) throws IOException, StandardException{
+        getFactory(operationId,loader,rightHashKeys,leftHashKeys,leftTemplateRow);
+    }
+
+    private ReferenceCountingFactory getFactory(Long operationId,
+                                                Callable<Stream<ExecRow>> loader,
+                                                int[] rightHashKeys,
+                                                int[] leftHashKeys,
+                                                ExecRow leftTemplateRow) throws IOException, StandardException{
         try{
             Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
-            ReferenceCountingFactory joinTable=cache.get(operationId,callable);
-            joinTable.refCount.incrementAndGet();
-            return joinTable;
+            return cache.get(operationId,callable);
         }catch(Exception e){
             Throwable c = e.getCause();
             if(c instanceof StandardException)
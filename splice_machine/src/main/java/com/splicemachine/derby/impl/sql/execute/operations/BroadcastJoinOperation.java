@@ -18,7 +18,9 @@ import com.splicemachine.EngineDriver;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.client.SpliceClient;
 import com.splicemachine.derby.iapi.sql.execute.*;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.RuntimeJoinFilter;
 import com.splicemachine.derby.stream.function.*;
+import com.splicemachine.derby.stream.function.broadcast.AbstractBroadcastJoinFlatMapFunction;
 import com.splicemachine.derby.stream.function.broadcast.BroadcastJoinFlatMapFunction;
 import com.splicemachine.derby.stream.function.broadcast.CogroupBroadcastJoinFunction;
 import com.splicemachine.derby.stream.function.broadcast.SubtractByKeyBroadcastJoinFunction;
@@ -183,13 +185,6 @@ public class BroadcastJoinOperation extends JoinOperation{
             throw new IllegalStateException("Operation is not open");
 
         OperationContext operationContext = dsp.createOperationContext(this);
-        DataSet<ExecRow> leftDataSet = leftResultSet.getDataSet(dsp);
-
-//        operationContext.pushScope();
-        leftDataSet = leftDataSet.map(new CountJoinedLeftFunction(operationContext));
-        if (LOG.isDebugEnabled())
-            SpliceLogUtils.debug(LOG, "getDataSet Performing BroadcastJoin type=%s, antiJoin=%s, hasRestriction=%s",
-                isOuterJoin ? "outer" : "inner", notExistsRightSide, restriction != null);
 
         SConfiguration configuration= EngineDriver.driver().getConfiguration();
 
@@ -217,6 +212,16 @@ public class BroadcastJoinOperation extends JoinOperation{
         if (rightFromSSQ || leftHashKeys.length == 0)
             useDataset = false;
 
+        if (dsp.getType().equals(DataSetProcessor.Type.CONTROL) && !isOuterJoin && !notExistsRightSide && !rightFromSSQ)
+            pushJoinFilter(operationContext);
+        DataSet<ExecRow> leftDataSet = leftResultSet.getDataSet(dsp);
+
+//        operationContext.pushScope();
+        leftDataSet = leftDataSet.map(new CountJoinedLeftFunction(operationContext));
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG, "getDataSet Performing BroadcastJoin type=%s, antiJoin=%s, hasRestriction=%s",
+                isOuterJoin ? "outer" : "inner", notExistsRightSide, restriction != null);
+
         DataSet<ExecRow> result;
         if (useDataset && dsp.getType().equals(DataSetProcessor.Type.SPARK) &&
                 (restriction ==null || (!isOuterJoin && !notExistsRightSide))) {
@@ -277,6 +282,49 @@ public class BroadcastJoinOperation extends JoinOperation{
         return result;
     }
 
+    /**
+     * Loads the right side of an inner join ahead of the left side, and pushes a filter over its join keys into
+     * the scan which feeds the left side, so that the left rows which cannot find a match are dropped by the scan.
+     *
+     * Only the scans whose rows reach the join through projections of plain columns can be filtered. The right side
+     * is loaded synchronously here rather than when the first left row arrives, and the join then reuses it from
+     * the broadcast cache.
+     */
+    private void pushJoinFilter(OperationContext operationContext) throws StandardException {
+        if (leftHashKeys.length == 0)
+            return;
+        // follow the left hash keys down to the columns of the scan
+        int[] columns = leftHashKeys.clone();
+        SpliceOperation op = leftResultSet;
+        while (op instanceof ProjectRestrictOperation) {
+            int[] projectMapping = ((ProjectRestrictOperation) op).projectMapping;
+            if (projectMapping == null)
+                return;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] >= 0)
+                    columns[i] = columns[i] < projectMapping.length ? projectMapping[columns[i]] - 1 : -1;
+            }
+            op = op.getLeftOperation();
+        }
+        if (!(op instanceof TableScanOperation))
+            return;
+        TableScanOperation scan = (TableScanOperation) op;
+        scan.setRuntimeJoinFilter(null);
+        boolean anyColumn = false;
+        for (int column : columns)
+            anyColumn |= column >= 0;
+        if (!anyColumn)
+            return;
+        try {
+            RuntimeJoinFilter filter = AbstractBroadcastJoinFlatMapFunction.preloadJoinTable(this, operationContext, columns);
+            scan.setRuntimeJoinFilter(filter);
+            if (LOG.isDebugEnabled() && filter != null)
+                SpliceLogUtils.debug(LOG, "pushed a filter on %d join keys into %s", filter.numColumns(), scan);
+        } catch (IOException e) {
+            throw StandardException.plainWrapException(e);
+        }
+    }
+
     public String getPrettyExplainPlan() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.getPrettyExplainPlan());
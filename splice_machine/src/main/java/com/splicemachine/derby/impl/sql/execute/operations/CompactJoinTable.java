@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.collections.hashtable.PagedByteHashTable;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.utils.IntArrays;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * JoinTable over a {@link PagedByteHashTable} built by the {@link CompactJoinTableLoader}.
+ *
+ * The underlying table is shared (read-only) between all JoinTables created by the same Factory,
+ * but the encoders and decoders are not thread safe, so each JoinTable has its own.
+ */
+class CompactJoinTable implements JoinTable{
+    private final PagedByteHashTable table;
+    private final ExecRow innerTemplate;
+    private final KeyEncoder outerKeyEncoder;
+    private final KeyHashDecoder rowDecoder;
+
+    CompactJoinTable(PagedByteHashTable table,ExecRow innerTemplate,int[] outerHashkeys,ExecRow outerTemplateRow){
+        this.table=table;
+        this.innerTemplate=innerTemplate;
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(false).getSerializers(outerTemplateRow);
+        this.outerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                BareKeyHash.encoder(outerHashkeys,null,serializers),NoOpPostfix.INSTANCE);
+        if(innerTemplate!=null){
+            DescriptorSerializer[] rowSerializers=VersionedSerializers.latestVersion(true).getSerializers(innerTemplate);
+            this.rowDecoder=new EntryDataDecoder(IntArrays.count(innerTemplate.nColumns()),null,rowSerializers);
+        }else
+            this.rowDecoder=null; //the inner side was empty, so there is nothing to decode
+    }
+
+    @Override
+    public Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException{
+        if(table.size()<=0)
+            return Collections.emptyIterator();
+        byte[] outerKey=outerKeyEncoder.getKey(outer);
+        assert outerKey!=null: "Programmer error: outer row does not have row key";
+        PagedByteHashTable.ValueCursor cursor=table.newCursor();
+        if(!table.get(outerKey,0,outerKey.length,cursor))
+            return Collections.emptyIterator();
+        return new DecodingIterator(cursor);
+    }
+
+    @Override
+    public void close(){
+        try{
+            outerKeyEncoder.close();
+            if(rowDecoder!=null)
+                rowDecoder.close();
+        }catch(IOException ignored){
+            //encoders don't hold external resources, so there's nothing to do here
+        }
+    }
+
+    /**
+     * @return the number of bytes used to hold the inner side of the join
+     */
+    long getMemoryUsage(){
+        return table.getMemoryUsage();
+    }
+
+    private class DecodingIterator implements Iterator<ExecRow>{
+        private final PagedByteHashTable.ValueCursor cursor;
+
+        DecodingIterator(PagedByteHashTable.ValueCursor cursor){
+            this.cursor=cursor;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return cursor.hasNext();
+        }
+
+        @Override
+        public ExecRow next(){
+            if(!cursor.hasNext())
+                throw new NoSuchElementException();
+            cursor.next();
+            /*
+             * Callers are allowed to hold on to the rows which we return (e.g. in a Tuple2), so
+             * we must decode into a fresh row each time instead of re-using a single template
+             */
+            ExecRow row=innerTemplate.getNewNullRow();
+            rowDecoder.set(cursor.array(),cursor.offset(),cursor.length());
+            try{
+                rowDecoder.decode(row);
+            }catch(StandardException se){
+                throw new RuntimeException(se);
+            }
+            return row;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException("Join tables are read-only");
+        }
+    }
+
+    static class Factory implements JoinTable.Factory{
+        private final PagedByteHashTable table;
+        private final ExecRow innerTemplate;
+        private final int[] outerHashKeys;
+        private final ExecRow outerTemplateRow;
+
+        Factory(PagedByteHashTable table,ExecRow innerTemplate,int[] outerHashKeys,ExecRow outerTemplateRow){
+            this.table=table;
+            this.innerTemplate=innerTemplate;
+            this.outerHashKeys=outerHashKeys;
+            this.outerTemplateRow=outerTemplateRow;
+        }
+
+        @Override
+        public JoinTable newTable(){
+            return new CompactJoinTable(table,innerTemplate,outerHashKeys,outerTemplateRow);
+        }
+
+        /**
+         * @return the exact number of bytes held by the table's pages and slot arrays.
+         */
+        long getMemoryUsage(){
+            return table.getMemoryUsage();
+        }
+    }
+}
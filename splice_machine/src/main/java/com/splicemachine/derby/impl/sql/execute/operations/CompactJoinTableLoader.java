@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.collections.hashtable.PagedByteHashTable;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.utils.IntArrays;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A JoinTableLoader which keeps the inner side of the join in encoded form, inside of a
+ * {@link PagedByteHashTable}, rather than as a map of cloned ExecRows.
+ *
+ * Each inner row costs only its encoded size plus a small fixed header, and the whole table
+ * is held in a handful of large arrays, so building a table of several million rows does not
+ * create millions of long-lived objects for the garbage collector to trace. Rows are decoded
+ * lazily, when an outer row actually probes for them.
+ */
+@ThreadSafe
+class CompactJoinTableLoader implements BroadcastJoinCache.JoinTableLoader{
+    private static final Logger LOG=Logger.getLogger(CompactJoinTableLoader.class);
+    public static BroadcastJoinCache.JoinTableLoader INSTANCE = new CompactJoinTableLoader();
+
+    private CompactJoinTableLoader(){} //singleton class
+
+    @Override
+    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys,ExecRow outerTemplateRow) throws Exception{
+        PagedByteHashTable table=new PagedByteHashTable();
+
+        ExecRow innerTemplate=null;
+        KeyEncoder innerKeyEncoder=null;
+        DataHash<ExecRow> rowEncoder=null;
+
+        try(Stream<ExecRow> innerRows=streamLoader.call()){
+            ExecRow right;
+            while((right=innerRows.next())!=null){
+                if(innerTemplate==null){
+                    innerTemplate=right.getNewNullRow();
+                    DescriptorSerializer[] keySerializers=VersionedSerializers.latestVersion(false).getSerializers(right);
+                    innerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                            BareKeyHash.encoder(innerHashKeys,null,keySerializers),NoOpPostfix.INSTANCE);
+                    DescriptorSerializer[] rowSerializers=VersionedSerializers.latestVersion(true).getSerializers(right);
+                    rowEncoder=new EntryDataHash(IntArrays.count(right.nColumns()),null,rowSerializers);
+                }
+
+                byte[] key=innerKeyEncoder.getKey(right);
+                rowEncoder.setRow(right);
+                table.put(key,rowEncoder.encode());
+            }
+        }catch(Exception e){
+            throw getException(e);
+        }finally{
+            if(innerKeyEncoder!=null)
+                innerKeyEncoder.close();
+            if(rowEncoder!=null)
+                rowEncoder.close();
+        }
+
+        if(LOG.isDebugEnabled())
+            LOG.debug(String.format("Loaded broadcast join table: %d rows, %d distinct keys, %d bytes",
+                    table.valueCount(),table.size(),table.getMemoryUsage()));
+        return new CompactJoinTable.Factory(table,innerTemplate,outerHashKeys,outerTemplateRow);
+    }
+
+    private Exception getException(Throwable parent) {
+        if (parent.getCause() instanceof Exception)
+            return (Exception)parent.getCause();
+        if (parent instanceof Exception)
+            return (Exception)parent;
+        return new ExecutionException(parent);
+    }
+}
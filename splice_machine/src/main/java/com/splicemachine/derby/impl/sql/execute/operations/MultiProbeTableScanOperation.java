@@ -227,6 +227,7 @@ public class MultiProbeTableScanOperation extends TableScanOperation  {
             List<ScanSetBuilder<ExecRow>> datasets = new ArrayList<>(scans.size());
             for (DataScan scan : scans) {
                 deSiify(scan);
+                addRuntimeJoinFilter(scan);
                 ScanSetBuilder<ExecRow> ssb = dsp.<MultiProbeTableScanOperation, ExecRow>newScanSet(this, tableName)
                         .tableDisplayName(tableDisplayName)
                         .activation(this.getActivation())
@@ -25,11 +25,13 @@ import com.splicemachine.db.impl.sql.compile.ActivationClassBuilder;
 import com.splicemachine.db.impl.sql.compile.FromTable;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.RuntimeJoinFilter;
 import com.splicemachine.derby.stream.function.SetCurrentLocatedRowAndRowKeyFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -55,6 +57,7 @@ public class TableScanOperation extends ScanOperation{
     protected int[] baseColumnMap;
     protected static final String NAME=TableScanOperation.class.getSimpleName().replaceAll("Operation","");
     protected byte[] tableNameBytes;
+    protected RuntimeJoinFilter runtimeJoinFilter;
 
     /**
      *
@@ -339,11 +342,13 @@ public class TableScanOperation extends ScanOperation{
     public DataSet<ExecRow> getTableScannerBuilder(DataSetProcessor dsp) throws StandardException{
         TxnView txn=getCurrentTransaction();
         operationContext = dsp.createOperationContext(this);
+        DataScan scan=getNonSIScan();
+        addRuntimeJoinFilter(scan);
         return dsp.<TableScanOperation,ExecRow>newScanSet(this,tableName)
                 .tableDisplayName(tableDisplayName)
                 .activation(activation)
                 .transaction(txn)
-                .scan(getNonSIScan())
+                .scan(scan)
                 .template(currentTemplate)
                 .tableVersion(tableVersion)
                 .indexName(indexName)
@@ -365,4 +370,24 @@ public class TableScanOperation extends ScanOperation{
                 .defaultRow(defaultRow,scanInformation.getDefaultValueMap())
                 .buildDataSet(this).map(new SetCurrentLocatedRowAndRowKeyFunction<>(operationContext));
     }
+
+    /**
+     *
+     * Filter the rows of this scan against the join keys of the inner side of the join which consumes it.
+     *
+     * @param runtimeJoinFilter the filter, or {@code null} to scan without one
+     */
+    public void setRuntimeJoinFilter(RuntimeJoinFilter runtimeJoinFilter){
+        this.runtimeJoinFilter=runtimeJoinFilter;
+    }
+
+    protected void addRuntimeJoinFilter(DataScan scan) throws StandardException{
+        if(runtimeJoinFilter==null)
+            return;
+        try{
+            scan.addAttribute(RuntimeJoinFilter.ATTRIBUTE,runtimeJoinFilter.toBytes());
+        }catch(IOException e){
+            throw StandardException.plainWrapException(e);
+        }
+    }
 }
\ No newline at end of file
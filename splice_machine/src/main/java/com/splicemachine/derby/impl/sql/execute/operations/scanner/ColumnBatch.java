@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.encoding.Encoding;
+
+import java.util.Arrays;
+
+/**
+ * A batch of rows read by a {@link SITableScanner}, stored column by column.
+ * <p>
+ * Integral columns are decoded straight into a {@code long[]} and floating point columns into a {@code double[]},
+ * so that they can be qualified without going through a DataValueDescriptor. All other columns are kept in their
+ * encoded form, and are only decoded when a row is loaded or when a qualifier reads them. Values which do not come
+ * from the packed row (primary key columns, default values) are copied from the row decoded by the scanner.
+ * <p>
+ * The batch also holds a selection vector, which lists the rows that are still qualified, in order.
+ * <p>
+ * Once the batch has been allocated, reading rows into it does not allocate, unless a column has to be copied
+ * from the scanner's row as a DataValueDescriptor.
+ */
+public class ColumnBatch{
+    private static final byte NULL=0;
+    private static final byte PRIMITIVE=1;
+    private static final byte ENCODED=2;
+    private static final byte VALUE=3;
+
+    private static final byte OTHER=0;
+    private static final byte LONG=1;
+    private static final byte DOUBLE=2;
+    private static final byte FLOAT=3;
+
+    private final int capacity;
+    private final byte[] types;
+    private final boolean[] used;
+    private final byte[][] states;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final DataValueDescriptor[][] values;
+    private final byte[][] encoded;
+    private final int[][] offsets;
+    private final int[][] lengths;
+    private final int[] encodedLength;
+    private final int[] committedLength;
+    private final DescriptorSerializer[] serializers;
+    private final byte[][] keys;
+    private final int[] selection;
+    private int selected;
+    private int size;
+
+    public ColumnBatch(ExecRow template,int capacity){
+        assert capacity>0:"Capacity must be positive";
+        DataValueDescriptor[] row=template.getRowArray();
+        int numColumns=row.length;
+        this.capacity=capacity;
+        this.types=new byte[numColumns];
+        this.used=new boolean[numColumns];
+        this.states=new byte[numColumns][];
+        this.longs=new long[numColumns][];
+        this.doubles=new double[numColumns][];
+        this.values=new DataValueDescriptor[numColumns][];
+        this.encoded=new byte[numColumns][];
+        this.offsets=new int[numColumns][];
+        this.lengths=new int[numColumns][];
+        this.encodedLength=new int[numColumns];
+        this.committedLength=new int[numColumns];
+        this.serializers=new DescriptorSerializer[numColumns];
+        this.keys=new byte[capacity][];
+        this.selection=new int[capacity];
+        for(int c=0;c<numColumns;c++){
+            if(row[c]==null)
+                continue;
+            used[c]=true;
+            types[c]=typeOf(row[c]);
+            states[c]=new byte[capacity];
+            switch(types[c]){
+                case LONG:
+                    longs[c]=new long[capacity];
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    doubles[c]=new double[capacity];
+                    break;
+                default:
+                    values[c]=new DataValueDescriptor[capacity];
+                    offsets[c]=new int[capacity];
+                    lengths[c]=new int[capacity];
+            }
+        }
+    }
+
+    public int capacity(){
+        return capacity;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isFull(){
+        return size==capacity;
+    }
+
+    public int numColumns(){
+        return types.length;
+    }
+
+    /**
+     * Empties the batch, so it can be filled again.
+     */
+    public void clear(){
+        size=0;
+        selected=0;
+        Arrays.fill(encodedLength,0);
+        Arrays.fill(committedLength,0);
+        Arrays.fill(keys,null);
+        for(DataValueDescriptor[] v : values){
+            if(v!=null)
+                Arrays.fill(v,null);
+        }
+        startRow();
+    }
+
+    /**
+     * Discards whatever has been written to the next row of the batch, so that it can be written from scratch.
+     */
+    public void startRow(){
+        if(size==capacity)
+            return;
+        for(int c=0;c<types.length;c++){
+            if(!used[c])
+                continue;
+            states[c][size]=NULL;
+            encodedLength[c]=committedLength[c];
+        }
+    }
+
+    /**
+     * Writes an encoded (unsorted) field of the packed row into the next row of the batch.
+     */
+    public void put(int column,DescriptorSerializer serializer,byte[] data,int offset,int length){
+        int row=size;
+        switch(types[column]){
+            case LONG:
+                if(serializer.isScalarType()){
+                    longs[column][row]=Encoding.decodeLong(data,offset,false);
+                    states[column][row]=PRIMITIVE;
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if(serializer.isDoubleType()){
+                    doubles[column][row]=Encoding.decodeDouble(data,offset,false);
+                    states[column][row]=PRIMITIVE;
+                    return;
+                }
+                break;
+            case FLOAT:
+                if(serializer.isFloatType()){
+                    doubles[column][row]=Encoding.decodeFloat(data,offset,false);
+                    states[column][row]=PRIMITIVE;
+                    return;
+                }
+                break;
+            default:
+        }
+        if(offsets[column]==null){
+            // a numeric column with an unexpected encoding, fall back to keeping the bytes
+            offsets[column]=new int[capacity];
+            lengths[column]=new int[capacity];
+            values[column]=new DataValueDescriptor[capacity];
+        }
+        int start=encodedLength[column];
+        byte[] buffer=encoded[column];
+        if(buffer==null || buffer.length<start+length){
+            int newSize=Math.max(start+length,buffer==null?length*capacity:buffer.length*2);
+            buffer=buffer==null?new byte[newSize]:Arrays.copyOf(buffer,newSize);
+            encoded[column]=buffer;
+        }
+        System.arraycopy(data,offset,buffer,start,length);
+        offsets[column][row]=start;
+        lengths[column][row]=length;
+        encodedLength[column]=start+length;
+        serializers[column]=serializer;
+        states[column][row]=ENCODED;
+    }
+
+    /**
+     * @return true if {@code column} has been written to the next row of the batch
+     */
+    public boolean isWritten(int column){
+        return used[column] && size<capacity && states[column][size]!=NULL;
+    }
+
+    /**
+     * Completes the next row of the batch. Columns which were not written with
+     * {@link #put(int, DescriptorSerializer, byte[], int, int)} are copied from {@code row}.
+     */
+    public void finishRow(ExecRow row,byte[] key) throws StandardException{
+        assert size<capacity:"Batch is full";
+        DataValueDescriptor[] dvds=row.getRowArray();
+        for(int c=0;c<types.length;c++){
+            if(!used[c] || states[c][size]!=NULL)
+                continue;
+            DataValueDescriptor dvd=dvds[c];
+            if(dvd==null || dvd.isNull())
+                continue;
+            switch(types[c]){
+                case LONG:
+                    longs[c][size]=dvd.getLong();
+                    states[c][size]=PRIMITIVE;
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    doubles[c][size]=dvd.getDouble();
+                    states[c][size]=PRIMITIVE;
+                    break;
+                default:
+                    values[c][size]=dvd.cloneValue(false);
+                    states[c][size]=VALUE;
+            }
+        }
+        for(int c=0;c<types.length;c++)
+            committedLength[c]=encodedLength[c];
+        keys[size]=key;
+        size++;
+        startRow();
+    }
+
+    public boolean isNull(int column,int row){
+        return states[column][row]==NULL;
+    }
+
+    /**
+     * @return true if the value of {@code column} is held in {@link #getLong(int, int)}
+     */
+    public boolean isLong(int column,int row){
+        return types[column]==LONG && states[column][row]==PRIMITIVE;
+    }
+
+    /**
+     * @return true if the value of {@code column} is held in {@link #getDouble(int, int)}
+     */
+    public boolean isDouble(int column,int row){
+        return (types[column]==DOUBLE || types[column]==FLOAT) && states[column][row]==PRIMITIVE;
+    }
+
+    public boolean isLongColumn(int column){
+        return types[column]==LONG;
+    }
+
+    public boolean isDoubleColumn(int column){
+        return types[column]==DOUBLE;
+    }
+
+    public boolean isFloatColumn(int column){
+        return types[column]==FLOAT;
+    }
+
+    public long getLong(int column,int row){
+        return longs[column][row];
+    }
+
+    public double getDouble(int column,int row){
+        return doubles[column][row];
+    }
+
+    /**
+     * Sets {@code dvd} to the value of a column.
+     */
+    public void read(int column,int row,DataValueDescriptor dvd) throws StandardException{
+        switch(states[column][row]){
+            case NULL:
+                dvd.setToNull();
+                return;
+            case PRIMITIVE:
+                switch(types[column]){
+                    case LONG:
+                        dvd.setValue(longs[column][row]);
+                        return;
+                    case FLOAT:
+                        dvd.setValue((float)doubles[column][row]);
+                        return;
+                    default:
+                        dvd.setValue(doubles[column][row]);
+                        return;
+                }
+            case ENCODED:
+                serializers[column].decodeDirect(dvd,encoded[column],offsets[column][row],lengths[column][row],false);
+                return;
+            default:
+                dvd.setValue(values[column][row]);
+        }
+    }
+
+    /**
+     * Loads a row of the batch into {@code target}, which must have the same shape as the scanner's template.
+     */
+    public void load(int row,ExecRow target) throws StandardException{
+        DataValueDescriptor[] dvds=target.getRowArray();
+        for(int c=0;c<types.length;c++){
+            if(used[c])
+                read(c,row,dvds[c]);
+        }
+        target.setKey(keys[row]);
+    }
+
+    public byte[] getKey(int row){
+        return keys[row];
+    }
+
+    /**
+     * @return the positions of the qualified rows, of which the first {@link #selectedCount()} are valid
+     */
+    public int[] selection(){
+        return selection;
+    }
+
+    public int selectedCount(){
+        return selected;
+    }
+
+    public void setSelectedCount(int selected){
+        assert selected>=0 && selected<=size:"Invalid selection size";
+        this.selected=selected;
+    }
+
+    /**
+     * Selects every row of the batch.
+     */
+    public void selectAll(){
+        for(int i=0;i<size;i++)
+            selection[i]=i;
+        selected=size;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static byte typeOf(DataValueDescriptor dvd){
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return LONG;
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return DOUBLE;
+            case StoredFormatIds.SQL_REAL_ID:
+                return FLOAT;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.derby.utils.Scans;
+
+/**
+ * Evaluates scan qualifiers over a {@link ColumnBatch}, narrowing its selection vector to the rows which qualify.
+ * <p>
+ * The result is the same as applying {@link Scans#qualifyRecordFromRow(Object[], Qualifier[][], int[], DataValueDescriptor)}
+ * to each row, but each qualifier is applied to the whole batch in turn. When a qualifier compares an integral or
+ * floating point column with a constant of the same kind, the comparison is made directly on the primitive values
+ * of the batch; otherwise the column is decoded into a scratch DataValueDescriptor and compared as usual.
+ */
+public class ColumnBatchQualifiers{
+    private static final byte FAIL=0;
+    private static final byte PASS=1;
+    private static final byte REJECT=2;
+
+    private static final int DESCRIPTOR=0;
+    private static final int LONG=1;
+    private static final int DOUBLE=2;
+
+    private final Qualifier[][] qualifiers;
+    private final int[] baseColumnMap;
+    private final DataValueDescriptor probeValue;
+    private final DataValueDescriptor[] scratch;
+    private byte[] results;
+    private boolean[] matched;
+    private int[] candidates;
+
+    public ColumnBatchQualifiers(Qualifier[][] qualifiers,int[] baseColumnMap,DataValueDescriptor probeValue,ExecRow template){
+        assert qualifiers!=null:"qualifier[][] passed in is null";
+        this.qualifiers=qualifiers;
+        this.baseColumnMap=baseColumnMap;
+        this.probeValue=probeValue;
+        DataValueDescriptor[] row=template.getRowArray();
+        this.scratch=new DataValueDescriptor[row.length];
+        for(int i=0;i<row.length;i++){
+            if(row[i]!=null)
+                scratch[i]=row[i].getNewNull();
+        }
+    }
+
+    /**
+     * Removes the rows which do not qualify from the selection vector of {@code batch}, keeping the others in order.
+     *
+     * @return the number of rows which are still selected
+     */
+    public int qualify(ColumnBatch batch) throws StandardException{
+        int capacity=batch.capacity();
+        if(results==null || results.length<capacity){
+            results=new byte[capacity];
+            matched=new boolean[capacity];
+            candidates=new int[capacity];
+        }
+        int[] selection=batch.selection();
+        int selected=batch.selectedCount();
+        // every qualifier of the first group must hold
+        for(int i=0;i<qualifiers[0].length && selected>0;i++){
+            apply(batch,qualifiers[0][i],probeValue==null || i!=0?null:probeValue,selection,selected);
+            int n=0;
+            for(int k=0;k<selected;k++){
+                int row=selection[k];
+                if(results[row]==PASS)
+                    selection[n++]=row;
+            }
+            selected=n;
+        }
+        // then at least one qualifier of each of the other groups
+        for(int g=1;g<qualifiers.length && selected>0;g++){
+            for(int k=0;k<selected;k++)
+                matched[selection[k]]=false;
+            System.arraycopy(selection,0,candidates,0,selected);
+            int remaining=selected;
+            for(int m=0;m<qualifiers[g].length && remaining>0;m++){
+                apply(batch,qualifiers[g][m],null,candidates,remaining);
+                int n=0;
+                for(int k=0;k<remaining;k++){
+                    int row=candidates[k];
+                    byte result=results[row];
+                    if(result==PASS)
+                        matched[row]=true;
+                    else if(result==FAIL)
+                        candidates[n++]=row;
+                }
+                remaining=n;
+            }
+            int n=0;
+            for(int k=0;k<selected;k++){
+                int row=selection[k];
+                if(matched[row])
+                    selection[n++]=row;
+            }
+            selected=n;
+        }
+        batch.setSelectedCount(selected);
+        return selected;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * Evaluates {@code q} for the first {@code count} rows of {@code rows}, storing the outcome of each row in
+     * {@link #results}. A row is rejected (rather than failed) when the qualifier is filtered out by a null, in which
+     * case it does not qualify whatever the other qualifiers of its group say.
+     */
+    private void apply(ColumnBatch batch,Qualifier q,DataValueDescriptor probe,int[] rows,int count) throws StandardException{
+        int column=baseColumnMap!=null?baseColumnMap[q.getStoragePosition()]:q.getStoragePosition();
+        int operator=q.getOperator();
+        boolean negate=q.negateCompareResult();
+        boolean variant=q.getVariantType()==Qualifier.VARIANT;
+        DataValueDescriptor orderable=null;
+        int kind=DESCRIPTOR;
+        long longValue=0L;
+        double doubleValue=0d;
+        if(!variant){
+            q.clearOrderableCache();
+            orderable=probe!=null?probe:q.getOrderable();
+            if(Scans.filterNull(operator,null,orderable,q.getVariantType())){
+                for(int k=0;k<count;k++)
+                    results[rows[k]]=REJECT;
+                return;
+            }
+            kind=primitiveKind(batch,column,orderable);
+            if(kind==LONG)
+                longValue=orderable.getLong();
+            else if(kind==DOUBLE)
+                doubleValue=orderable.getDouble();
+        }
+        DataValueDescriptor columnValue=scratch[column];
+        for(int k=0;k<count;k++){
+            int row=rows[k];
+            boolean result;
+            if(kind==LONG && batch.isLong(column,row)){
+                result=compare(operator,Long.compare(batch.getLong(column,row),longValue));
+            }else if(kind==DOUBLE && batch.isDouble(column,row)){
+                result=compare(operator,compare(batch.getDouble(column,row),doubleValue));
+            }else{
+                DataValueDescriptor o=orderable;
+                if(variant){
+                    q.clearOrderableCache();
+                    o=probe!=null?probe:q.getOrderable();
+                }
+                batch.read(column,row,columnValue);
+                if(Scans.filterNull(operator,columnValue,o,q.getVariantType())){
+                    results[row]=REJECT;
+                    continue;
+                }
+                result=columnValue.compare(operator,o,q.getOrderedNulls(),q.getUnknownRV());
+            }
+            results[row]=result!=negate?PASS:FAIL;
+        }
+    }
+
+    /**
+     * @return how {@code column} can be compared with {@code orderable}: as longs, as doubles, or only with
+     * DataValueDescriptors
+     */
+    private static int primitiveKind(ColumnBatch batch,int column,DataValueDescriptor orderable){
+        if(orderable==null || orderable.isNull())
+            return DESCRIPTOR;
+        switch(orderable.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                if(batch.isLongColumn(column))
+                    return LONG;
+                return batch.isDoubleColumn(column)?DOUBLE:DESCRIPTOR;
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return batch.isDoubleColumn(column)?DOUBLE:DESCRIPTOR;
+            case StoredFormatIds.SQL_REAL_ID:
+                return batch.isFloatColumn(column)?DOUBLE:DESCRIPTOR;
+            default:
+                return DESCRIPTOR;
+        }
+    }
+
+    private static int compare(double value,double other){
+        if(value==other) return 0;
+        return value<other?-1:1;
+    }
+
+    private static boolean compare(int operator,int result){
+        switch(operator){
+            case Orderable.ORDER_OP_LESSTHAN:
+                return result<0;
+            case Orderable.ORDER_OP_EQUALS:
+                return result==0;
+            case Orderable.ORDER_OP_LESSOREQUALS:
+                return result<=0;
+            case Orderable.ORDER_OP_GREATERTHAN:
+                return result>0;
+            case Orderable.ORDER_OP_GREATEROREQUALS:
+                return result>=0;
+            default:
+                throw new IllegalArgumentException("Invalid operator "+operator);
+        }
+    }
+}
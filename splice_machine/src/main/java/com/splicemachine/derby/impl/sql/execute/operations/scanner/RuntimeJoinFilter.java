@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.hash.Hash64;
+import com.splicemachine.hash.HashFunctions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A Bloom filter over the join keys of the inner side of a join, which the scan of the outer side uses to drop
+ * the rows which cannot find a match before they reach the join.
+ * <p>
+ * There is one filter per join key column, each over the values of that column encoded the same way the join
+ * tables encode their keys, so a row whose key would match an inner row always passes. Null keys never pass,
+ * so the filter may only be applied to the outer side of an inner join.
+ */
+public class RuntimeJoinFilter{
+    /** the scan attribute holding the serialized filter */
+    public static final String ATTRIBUTE="RJF";
+    /** the inner sides above this many rows are not filtered on, since their filter would be too large */
+    public static final int MAX_KEYS=1<<20;
+    private static final int BITS_PER_KEY=10;
+    private static final int NUM_HASHES=7;
+    private static final Hash64 HASH=HashFunctions.murmur2_64(0x2f19a0b1);
+
+    /* the positions (indexed from 0) of the join key columns in the rows of the scan */
+    private final int[] columns;
+    private final long[][] bits;
+    private DescriptorSerializer[] serializers;
+    private MultiFieldEncoder encoder;
+
+    private RuntimeJoinFilter(int[] columns,long[][] bits){
+        this.columns=columns;
+        this.bits=bits;
+    }
+
+    public int numColumns(){
+        return columns.length;
+    }
+
+    /**
+     * @return the position (indexed from 0) in the rows of the scan of the {@code i}th filtered column
+     */
+    public int getColumn(int i){
+        return columns[i];
+    }
+
+    /**
+     * @return false if no inner row has {@code value} as the key of the {@code i}th filtered column
+     */
+    public boolean mayContain(int i,DataValueDescriptor value) throws StandardException{
+        if(value==null || value.isNull())
+            return false;
+        if(serializers==null){
+            serializers=new DescriptorSerializer[columns.length];
+            encoder=MultiFieldEncoder.create(1);
+        }
+        if(serializers[i]==null)
+            serializers[i]=VersionedSerializers.latestVersion(false).getSerializer(value);
+        encoder.reset();
+        serializers[i].encode(encoder,value,false);
+        byte[] key=encoder.build();
+        return mayContain(bits[i],HASH.hash(key,0,key.length));
+    }
+
+    /**
+     * Removes the rows whose {@code i}th filtered column has no match from the selection vector of {@code batch}.
+     *
+     * @param scratch a value of the type of the column, to read it into
+     */
+    public void qualify(ColumnBatch batch,int i,DataValueDescriptor scratch) throws StandardException{
+        int column=columns[i];
+        int[] selection=batch.selection();
+        int selected=batch.selectedCount();
+        int n=0;
+        for(int k=0;k<selected;k++){
+            int row=selection[k];
+            if(batch.isNull(column,row))
+                continue;
+            batch.read(column,row,scratch);
+            if(mayContain(i,scratch))
+                selection[n++]=row;
+        }
+        batch.setSelectedCount(n);
+    }
+
+    public byte[] toBytes() throws IOException{
+        ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+        try(DataOutputStream out=new DataOutputStream(bytes)){
+            out.writeInt(columns.length);
+            for(int i=0;i<columns.length;i++){
+                out.writeInt(columns[i]);
+                out.writeInt(bits[i].length);
+                for(long word : bits[i])
+                    out.writeLong(word);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static RuntimeJoinFilter fromBytes(byte[] data) throws IOException{
+        if(data==null || data.length==0)
+            return null;
+        try(DataInputStream in=new DataInputStream(new ByteArrayInputStream(data))){
+            int[] columns=new int[in.readInt()];
+            long[][] bits=new long[columns.length][];
+            for(int i=0;i<columns.length;i++){
+                columns[i]=in.readInt();
+                bits[i]=new long[in.readInt()];
+                for(int w=0;w<bits[i].length;w++)
+                    bits[i][w]=in.readLong();
+            }
+            return new RuntimeJoinFilter(columns,bits);
+        }
+    }
+
+    /**
+     * Collects the join keys of the inner rows while the join table is loaded.
+     */
+    public static class Builder{
+        private final int[] keyColumns;
+        private final LongArrayList[] hashes;
+        private DescriptorSerializer[] serializers;
+        private MultiFieldEncoder encoder;
+        private boolean loaded;
+        private boolean overflow;
+
+        /**
+         * @param keyColumns the positions (indexed from 0) of the join keys in the inner rows
+         */
+        public Builder(int[] keyColumns){
+            this.keyColumns=keyColumns;
+            this.hashes=new LongArrayList[keyColumns.length];
+            for(int i=0;i<hashes.length;i++)
+                hashes[i]=new LongArrayList();
+        }
+
+        /**
+         * Marks the start of the load of the inner rows. A builder which never saw the load start has not seen all of
+         * the inner rows, and does not build a filter.
+         */
+        public void loadStarted(){
+            loaded=true;
+            overflow=false;
+            for(LongArrayList h : hashes)
+                h.clear();
+        }
+
+        public void add(ExecRow innerRow) throws StandardException{
+            if(overflow)
+                return;
+            if(hashes[0].size()>=MAX_KEYS){
+                overflow=true;
+                for(LongArrayList h : hashes)
+                    h.release();
+                return;
+            }
+            if(serializers==null){
+                serializers=VersionedSerializers.latestVersion(false).getSerializers(innerRow);
+                encoder=MultiFieldEncoder.create(1);
+            }
+            for(int i=0;i<keyColumns.length;i++){
+                encoder.reset();
+                serializers[keyColumns[i]].encode(encoder,innerRow.getColumn(keyColumns[i]+1),false);
+                byte[] key=encoder.build();
+                hashes[i].add(HASH.hash(key,0,key.length));
+            }
+        }
+
+        /**
+         * @param outerColumns the position (indexed from 0) in the rows of the scan of each join key, or -1 if the
+         *                     key is not read from the scan
+         * @return the filter over the keys which are read from the scan, or {@code null} if there are none, or if the
+         * inner rows were not all seen
+         */
+        public RuntimeJoinFilter build(int[] outerColumns){
+            if(!loaded || overflow)
+                return null;
+            int numColumns=0;
+            for(int c : outerColumns){
+                if(c>=0)
+                    numColumns++;
+            }
+            if(numColumns==0)
+                return null;
+            int[] columns=new int[numColumns];
+            long[][] bits=new long[numColumns][];
+            int n=0;
+            for(int i=0;i<outerColumns.length;i++){
+                if(outerColumns[i]<0)
+                    continue;
+                LongArrayList h=hashes[i];
+                long[] filter=new long[Math.max(1,(h.size()*BITS_PER_KEY+63)>>>6)];
+                for(int k=0;k<h.size();k++)
+                    add(filter,h.get(k));
+                columns[n]=outerColumns[i];
+                bits[n]=filter;
+                n++;
+            }
+            return new RuntimeJoinFilter(columns,bits);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void add(long[] filter,long hash){
+        int h1=(int)hash;
+        int h2=(int)(hash>>>32);
+        long numBits=(long)filter.length<<6;
+        for(int i=0;i<NUM_HASHES;i++){
+            long bit=((h1+i*h2)&0x7fffffffL)%numBits;
+            filter[(int)(bit>>>6)]|=1L<<bit;
+        }
+    }
+
+    private static boolean mayContain(long[] filter,long hash){
+        int h1=(int)hash;
+        int h2=(int)(hash>>>32);
+        long numBits=(long)filter.length<<6;
+        for(int i=0;i<NUM_HASHES;i++){
+            long bit=((h1+i*h2)&0x7fffffffL)%numBits;
+            if((filter[(int)(bit>>>6)]&(1L<<bit))==0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -90,6 +90,10 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private DataValueDescriptor optionalProbeValue;
     private ExecRow defaultRow;
     private FormatableBitSet defaultValueMap;
+    private ColumnBatch batch;
+    private RuntimeJoinFilter joinFilter;
+    private boolean[] joinKeyInRowKey;
+    private DataValueDescriptor[] joinKeyScratch;
 
     protected SITableScanner(DataScanner scanner,
                              final TransactionalRegion region,
@@ -133,6 +137,15 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
             this.filterFactory = filterFactory;
         this.defaultRow = defaultRow;
         this.defaultValueMap = defaultValueMap;
+        if (scan != null) {
+            try {
+                this.joinFilter = RuntimeJoinFilter.fromBytes(scan.getAttribute(RuntimeJoinFilter.ATTRIBUTE));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            if (joinFilter != null)
+                this.joinKeyInRowKey = joinKeysInRowKey(joinFilter, keyDecodingMap, accessedPks);
+        }
     }
 
     protected SITableScanner(DataScanner scanner,
@@ -203,7 +216,8 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
             }else{
                 DataCell currentKeyValue = keyValues.get(0);
                 if(template.nColumns()>0){
-                    if(!filterRowKey(currentKeyValue)||!filterRow(filter,keyValues)){
+                    if(!filterRowKey(currentKeyValue)||!filterJoinKeys(true)
+                            ||!filterRow(filter,keyValues)||!filterJoinKeys(false)){
                         //filter the row first, then filter the row key
                         filterCounter.increment();
                         continue;
@@ -232,6 +246,68 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         }while(true); //TODO -sf- this doesn't seem quite right
     }
 
+    /**
+     * Switches this scanner to batch mode, in which rows are read with {@link #nextBatch()} instead of
+     * {@link #next()}. This must be called before the first row is read.
+     *
+     * @return the batch which {@link #nextBatch()} fills, or {@code null} if this scanner cannot read batches
+     */
+    public ColumnBatch newBatch(int capacity) {
+        if(siFilter!=null)
+            throw new IllegalStateException("Cannot switch to batch mode once rows have been read");
+        if(indexName!=null || template.nColumns()<=0)
+            return null; //the row location or the count are read from the template
+        batch = new ColumnBatch(template,capacity);
+        return batch;
+    }
+
+    /**
+     * Reads the next rows of the scan into the batch returned by {@link #newBatch(int)}, selecting all of them.
+     *
+     * @return the number of rows read, which is 0 once the scan is exhausted
+     */
+    public int nextBatch() throws StandardException, IOException {
+        assert batch!=null:"Scanner is not in batch mode";
+        SIFilter filter = getSIFilter();
+        batch.clear();
+        while(!batch.isFull()){
+            template.resetRowArray();
+            batch.startRow();
+            List<DataCell> keyValues=regionScanner.next(-1);
+            if(keyValues.size()<=0){
+                currentRowLocation = null;
+                break;
+            }
+            DataCell currentKeyValue = keyValues.get(0);
+            if(!filterRowKey(currentKeyValue)||!filterJoinKeys(true)||!filterRow(filter,keyValues)){
+                filterCounter.increment();
+                continue;
+            }
+            //fill the unpopulated non-null columns with default values
+            if (defaultRow != null && defaultValueMap != null) {
+                for (int i=defaultValueMap.anySetBit(); i>=0; i=defaultValueMap.anySetBit(i)) {
+                    if (!batch.isWritten(i) && template.getColumn(i+1).isNull())
+                        template.setColumn(i+1, defaultRow.getColumn(i+1).cloneValue(false));
+                }
+            }
+            measureOutputSize(keyValues);
+            setRowLocation(currentKeyValue);
+            batch.finishRow(template,currentRowLocation.getBytes());
+        }
+        batch.selectAll();
+        if(joinFilter!=null)
+            filterJoinKeys(batch);
+        return batch.size();
+    }
+
+    /**
+     * Loads a row of the current batch into the template.
+     */
+    public ExecRow loadRow(int row) throws StandardException {
+        batch.load(row,template);
+        return template;
+    }
+
     public long getBytesOutput(){
         return outputBytesCounter.getTotal();
     }
@@ -378,7 +454,10 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         if(siFilter==null) {
             boolean isCountStar = scan.getAttribute(SIConstants.SI_COUNT_STAR)!=null;
             predicateFilter= buildInitialPredicateFilter();
-            accumulator = ExecRowAccumulator.newAccumulator(predicateFilter, false, template, rowDecodingMap, tableVersion);
+            if(batch!=null)
+                accumulator = ExecRowAccumulator.newBatchAccumulator(predicateFilter, template, rowDecodingMap, tableVersion, batch);
+            else
+                accumulator = ExecRowAccumulator.newAccumulator(predicateFilter, false, template, rowDecodingMap, tableVersion);
             siFilter = filterFactory.newFilter(predicateFilter,getRowEntryDecoder(),accumulator,isCountStar);
         }
         return siFilter;
@@ -469,6 +548,53 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         return predicateFilter.match(primaryKeyIndex, keyDecoderProvider, keyAccumulator);
     }
 
+    /**
+     * Checks the join keys pushed down by a join, either those read from the row key, right after it is decoded and
+     * before the row itself is resolved, or those read from the row.
+     *
+     * @return false if the row cannot find a match in the join
+     */
+    private boolean filterJoinKeys(boolean rowKey) throws StandardException {
+        if(joinFilter==null) return true;
+        for(int i=0;i<joinFilter.numColumns();i++){
+            if(joinKeyInRowKey[i]==rowKey && !joinFilter.mayContain(i,template.getColumn(joinFilter.getColumn(i)+1)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Deselects the rows of the batch whose join keys read from the row cannot find a match in the join.
+     */
+    private void filterJoinKeys(ColumnBatch batch) throws StandardException {
+        if(joinKeyScratch==null)
+            joinKeyScratch = new DataValueDescriptor[joinFilter.numColumns()];
+        for(int i=0;i<joinFilter.numColumns() && batch.selectedCount()>0;i++){
+            if(joinKeyInRowKey[i])
+                continue;
+            if(joinKeyScratch[i]==null)
+                joinKeyScratch[i] = template.getColumn(joinFilter.getColumn(i)+1).getNewNull();
+            int selected = batch.selectedCount();
+            joinFilter.qualify(batch,i,joinKeyScratch[i]);
+            filterCounter.add(selected-batch.selectedCount());
+        }
+    }
+
+    private static boolean[] joinKeysInRowKey(RuntimeJoinFilter joinFilter,int[] keyDecodingMap,FormatableBitSet accessedPks) {
+        boolean[] inRowKey = new boolean[joinFilter.numColumns()];
+        if(keyDecodingMap==null || accessedPks==null)
+            return inRowKey;
+        for(int i=0;i<inRowKey.length;i++){
+            for(int pos=accessedPks.anySetBit();pos>=0;pos=accessedPks.anySetBit(pos)){
+                if(pos<keyDecodingMap.length && keyDecodingMap[pos]==joinFilter.getColumn(i)){
+                    inRowKey[i] = true;
+                    break;
+                }
+            }
+        }
+        return inRowKey;
+    }
+
     private class KeyIndex implements Indexed{
         private final int[] allPkColumns;
         private final int[] keyColumnTypes;
@@ -21,12 +21,16 @@ import com.splicemachine.db.iapi.sql.execute.WindowFunction;
 import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.NumberDataValue;
+import com.splicemachine.db.iapi.types.SQLLongint;
 
 /**
  *
  * Created by jyuan on 7/31/14.
  */
-public class AvgAggregator extends SpliceGenericWindowFunction {
+public class AvgAggregator extends SlidingWindowFunction {
+    // the sum of the non-null values of the frame, and their number
+    private NumberDataValue sum;
+    private long count;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -41,45 +45,44 @@ public class AvgAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvds[0].cloneValue(false));
+    protected void onAdd(DataValueDescriptor[] dvds) throws StandardException {
+        NumberDataValue input = (NumberDataValue)dvds[0];
+        if (input == null || input.isNull()) {
+            return;
+        }
+        if (sum == null) {
+            sum = (NumberDataValue) input.cloneValue(false);
         } else {
-            NumberDataValue input = (NumberDataValue)dvds[0];
-            if (input != null && ! input.isNull()) {
-                NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-                nv.plus(input, nv, nv);
-                chunk.setResult(nv);
-            }
+            sum.plus(sum, input, sum);
         }
+        count++;
     }
 
     @Override
-    protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
         NumberDataValue input = (NumberDataValue)dvds[0];
-        if (input != null && ! input.isNull()) {
-            NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-            nv.minus(nv, input, nv);
-            chunk.setResult(nv);
+        if (input == null || input.isNull()) {
+            return;
+        }
+        if (--count == 0) {
+            sum = null;
+        } else {
+            sum.minus(sum, input, sum);
         }
     }
 
+    @Override
+    protected void clear() {
+        sum = null;
+        count = 0;
+    }
+
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        long count = first.last - first.first;
-        NumberDataValue result = (NumberDataValue)first.getResult().cloneValue(false);
-        long r = result.getLong();
-        for (int i = 1; i < chunks.size(); ++i) {
-            WindowChunk chunk = chunks.get(i);
-            NumberDataValue dvd = (NumberDataValue)chunk.getResult();
-            r += dvd.getLong();
-            count += chunk.last - chunk.first;
+        if (count == 0) {
+            return nullResult();
         }
-        result.setValue((r*1.0)/count);
-        return result;
+        NumberDataValue result = (NumberDataValue) sum.cloneValue(false);
+        return result.divide(sum, new SQLLongint(count), result);
     }
 
     public WindowFunction newWindowFunction() {
@@ -26,7 +26,7 @@ import com.splicemachine.db.iapi.types.SQLLongint;
  *
  * Created by jyuan on 7/31/14.
  */
-public class CountAggregator extends SpliceGenericWindowFunction {
+public class CountAggregator extends SlidingWindowFunction {
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -41,33 +41,20 @@ public class CountAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    protected void calculateOnAdd(SpliceGenericWindowFunction.WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            SQLLongint r = new SQLLongint(1);
-            chunk.setResult(r);
-        } else {
-            long count = result.getLong();
-            result.setValue(count+1);
-            chunk.setResult(result);
-        }
+    protected void onAdd(DataValueDescriptor[] dvds) throws StandardException {
+        // every row of the frame is counted
     }
 
     @Override
-    protected void calculateOnRemove(SpliceGenericWindowFunction.WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        long count = result.getLong();
-        result.setValue(count-1);
-        chunk.setResult(result);
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
+    }
+
+    @Override
+    protected void clear() {
     }
 
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        long count = 0;
-        for (WindowChunk chunk : chunks) {
-            count += chunk.getResult().getLong();
-        }
-        return new SQLLongint(count);
+        return new SQLLongint(frameSize());
     }
 
     public WindowFunction newWindowFunction() {
@@ -17,6 +17,7 @@ package com.splicemachine.derby.impl.sql.execute.operations.window.function;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Arrays;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableHashtable;
@@ -29,8 +30,16 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
  *
  * Created by jyuan on 7/22/14.
  */
-public class MaxMinAggregator extends SpliceGenericWindowFunction {
+public class MaxMinAggregator extends SlidingWindowFunction {
     private boolean isMax;
+    /*
+     * The non-null values of the frame are split between two stacks: values enter the frame on the back stack,
+     * and leave it from the front stack, which is refilled from the back stack when it runs out. Each stack
+     * entry holds the max/min of itself and the entries below it, so the max/min of the frame is that of the
+     * tops of the two stacks.
+     */
+    private AggregateStack front;
+    private AggregateStack back;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -46,64 +55,91 @@ public class MaxMinAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvd) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvd[0]);
+    protected void onAdd(DataValueDescriptor[] dvds) throws StandardException {
+        DataValueDescriptor value = dvds[0];
+        if (value != null && !value.isNull()) {
+            back.push(value);
         }
-        else if(isMax && dvd[0].compare(result) > 0) {
-            chunk.setResult(dvd[0]);
+    }
+
+    @Override
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
+        DataValueDescriptor value = dvds[0];
+        if (value == null || value.isNull()) {
+            return;
         }
-        else if (!isMax && dvd[0].compare(result) < 0) {
-            chunk.setResult(dvd[0]);
+        if (front.isEmpty()) {
+            // reverse the back stack onto the front one, so that its oldest value is on top
+            while (!back.isEmpty()) {
+                front.push(back.pop());
+            }
         }
+        front.pop();
     }
 
     @Override
-    protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        if (dvds[0].compare(result) == 0) {
-            recalculate(chunk);
+    protected void clear() {
+        if (front == null) {
+            front = new AggregateStack();
+            back = new AggregateStack();
+        } else {
+            front.clear();
+            back.clear();
         }
     }
 
-    private void recalculate(WindowChunk chunk) throws StandardException{
-        DataValueDescriptor result = chunk.get(chunk.first)[0];
-
-        for (int i = chunk.first+1; i < chunk.last; ++i) {
-            DataValueDescriptor dvd = chunk.get(i)[0];
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
+    public DataValueDescriptor getResult() throws StandardException {
+        if (front.isEmpty() && back.isEmpty()) {
+            return nullResult();
+        }
+        if (front.isEmpty()) {
+            return back.aggregate();
         }
-        chunk.setResult(result);
+        if (back.isEmpty()) {
+            return front.aggregate();
+        }
+        return better(front.aggregate(), back.aggregate());
     }
 
-    public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        DataValueDescriptor result = first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            DataValueDescriptor dvd = chunks.get(i).getResult();
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
+    private DataValueDescriptor better(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        int comp = left.compare(right);
+        return (isMax ? comp >= 0 : comp <= 0) ? left : right;
+    }
+
+    private class AggregateStack {
+        private DataValueDescriptor[] values = new DataValueDescriptor[16];
+        private DataValueDescriptor[] aggregates = new DataValueDescriptor[16];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        DataValueDescriptor aggregate() {
+            return aggregates[size - 1];
+        }
+
+        void push(DataValueDescriptor value) throws StandardException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+                aggregates = Arrays.copyOf(aggregates, size << 1);
             }
+            values[size] = value;
+            aggregates[size] = size == 0 ? value : better(aggregates[size - 1], value);
+            size++;
+        }
+
+        DataValueDescriptor pop() {
+            DataValueDescriptor value = values[--size];
+            values[size] = aggregates[size] = null;
+            return value;
+        }
+
+        void clear() {
+            Arrays.fill(values, 0, size, null);
+            Arrays.fill(aggregates, 0, size, null);
+            size = 0;
         }
-        return result;
     }
 
     @Override
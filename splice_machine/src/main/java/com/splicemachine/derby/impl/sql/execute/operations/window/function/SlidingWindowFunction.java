@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.window.function;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+import java.util.ArrayDeque;
+
+/**
+ * Base class for the aggregates which are maintained incrementally as the window frame slides, rather than
+ * computed from chunks of the frame.
+ *
+ * The values of the frame are kept in the order they entered it, and the aggregate is updated with each value as
+ * it enters and leaves the frame, so that adding a row, removing a row and reading the result each take amortized
+ * constant time whatever the size of the frame.
+ */
+public abstract class SlidingWindowFunction extends SpliceGenericWindowFunction {
+    // not initialized here: reset() is called by the super constructor, and would be overwritten
+    private ArrayDeque<DataValueDescriptor[]> frame;
+
+    @Override
+    protected void add(DataValueDescriptor[] addends) throws StandardException {
+        frame.addLast(addends);
+        onAdd(addends);
+    }
+
+    @Override
+    public DataValueDescriptor[] remove() throws StandardException {
+        DataValueDescriptor[] dvds = frame.pollFirst();
+        if (dvds != null) {
+            onRemove(dvds);
+        }
+        return dvds;
+    }
+
+    @Override
+    public void reset() {
+        if (frame == null) {
+            frame = new ArrayDeque<>();
+        } else {
+            frame.clear();
+        }
+        clear();
+    }
+
+    /**
+     * @return the number of rows in the frame
+     */
+    protected int frameSize() {
+        return frame.size();
+    }
+
+    /**
+     * Update the aggregate with a value entering the frame.
+     */
+    protected abstract void onAdd(DataValueDescriptor[] dvds) throws StandardException;
+
+    /**
+     * Update the aggregate with the oldest value of the frame, which is leaving it.
+     */
+    protected abstract void onRemove(DataValueDescriptor[] dvds) throws StandardException;
+
+    /**
+     * Reset the aggregate to that of an empty frame. Called from the super constructor, before the fields of the
+     * subclass are initialized.
+     */
+    protected abstract void clear();
+
+    /**
+     * @return the result of an empty frame, or of a frame of null values
+     */
+    protected DataValueDescriptor nullResult() {
+        if (resultType == null) {
+            return null;
+        }
+        DataValueDescriptor result = resultType.cloneValue(false);
+        result.setToNull();
+        return result;
+    }
+
+    @Override
+    protected final void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
+        // values are not chunked
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected final void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
+        // values are not chunked
+        throw new UnsupportedOperationException();
+    }
+}
@@ -26,7 +26,10 @@ import com.splicemachine.db.iapi.types.NumberDataValue;
  *
  * Created by jyuan on 7/31/14.
  */
-public class SumAggregator extends SpliceGenericWindowFunction {
+public class SumAggregator extends SlidingWindowFunction {
+    // the sum of the non-null values of the frame, and their number
+    private NumberDataValue sum;
+    private long count;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -41,41 +44,41 @@ public class SumAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvds[0].cloneValue(false));
+    protected void onAdd(DataValueDescriptor[] dvds) throws StandardException {
+        NumberDataValue input = (NumberDataValue)dvds[0];
+        if (input == null || input.isNull()) {
+            return;
+        }
+        if (sum == null) {
+            sum = (NumberDataValue) input.cloneValue(false);
         } else {
-            NumberDataValue input = (NumberDataValue)dvds[0];
-            if (input != null && ! input.isNull()) {
-                NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-                nv.plus(input, nv, nv);
-                chunk.setResult(nv);
-            }
+            sum.plus(sum, input, sum);
         }
+        count++;
     }
 
     @Override
-    protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
         NumberDataValue input = (NumberDataValue)dvds[0];
-        if (input != null && ! input.isNull()) {
-            NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-            nv.minus(nv, input, nv);
-            chunk.setResult(nv);
+        if (input == null || input.isNull()) {
+            return;
+        }
+        if (--count == 0) {
+            sum = null;
+        } else {
+            sum.minus(sum, input, sum);
         }
     }
 
+    @Override
+    protected void clear() {
+        sum = null;
+        count = 0;
+    }
+
     @Override
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        NumberDataValue result = (NumberDataValue)first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            NumberDataValue dvd = (NumberDataValue)chunks.get(i).getResult();
-            result.plus(result, dvd, result);
-        }
-        return result;
+        return count == 0 ? nullResult() : sum;
     }
 
     @Override
@@ -17,7 +17,6 @@ package com.splicemachine.derby.impl.sql.execute.pin;
 import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
-import com.splicemachine.derby.iapi.sql.olap.SuccessfulOlapResult;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
 import java.util.concurrent.Callable;
@@ -50,8 +49,8 @@ public class PopulatePinJob implements Callable<Void> {
         dsp.setJobGroup(request.jobGroup, "");
         String scope = request.scope;
         DataSet<ExecRow> dataSet = request.scanSetBuilder.buildDataSet(request.prefix);
-        dataSet.pin(request.scanSetBuilder.getTemplate(),conglomID);
-        jobStatus.markCompleted(new SuccessfulOlapResult());
+        long sizeInBytes = dataSet.pin(request.scanSetBuilder.getTemplate(),conglomID);
+        jobStatus.markCompleted(new PopulatePinResult(sizeInBytes));
         return null;
     }
 }
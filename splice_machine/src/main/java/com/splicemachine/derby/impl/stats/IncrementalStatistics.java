@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnStatisticsDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.PartitionStatisticsDescriptor;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.stats.ColumnStatisticsImpl;
+import com.splicemachine.db.iapi.stats.ColumnStatisticsMerge;
+import com.splicemachine.db.iapi.stats.ItemStatistics;
+import com.splicemachine.db.impl.sql.catalog.SYSTABLESTATISTICSRowFactory;
+import com.splicemachine.db.impl.sql.execute.StatisticsRow;
+import com.splicemachine.derby.utils.StatisticsAdmin;
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of the rows a single transaction inserted into a single region, kept until that transaction commits.
+ *
+ * The write pipeline records one instance per region and writing transaction (see {@link IncrementalStatisticsStore}),
+ * which writes the statistics of the committed transactions to the dictionary and discards those of the rolled back
+ * ones. They are stored in sys.systablestats and sys.syscolumnstats as a partition of their own, with statsType
+ * {@link SYSTABLESTATISTICSRowFactory#INCREMENTAL_STATS}, and merged into the collected statistics of the
+ * region when the statistics are read (see {@link #mergeIncremental(List)}). Collecting the statistics of the
+ * table again drops them.
+ *
+ * Most transactions only write a few rows, so the rows are kept as they are until there are enough of them
+ * to be worth a set of sketches of their own.
+ */
+public class IncrementalStatistics{
+    private static final String PARTITION_SUFFIX = "#incremental";
+    private static final int MAX_BUFFERED_ROWS = 256;
+
+    /* keyed by identity, the dictionary hands out the same list until its statistics cache is invalidated */
+    private static final Cache<List<PartitionStatisticsDescriptor>, List<PartitionStatisticsDescriptor>> mergedCache =
+            CacheBuilder.newBuilder().weakKeys().maximumSize(1024).build();
+
+    private final long conglomId;
+    private final String regionName;
+    private final int[] columnIds;
+    private final ExecRow template;
+    private List<ExecRow> bufferedRows=new ArrayList<>();
+    private StatisticsRow statisticsRow;
+    private long rowCount;
+    private long totalRowWidth;
+    private boolean closed;
+
+    /**
+     * @param conglomId the conglomerate of the base table
+     * @param regionName the region the rows are inserted into
+     * @param columnIds the (1-based) column positions of the columns of {@code template}
+     * @param template the collected columns of the table
+     */
+    public IncrementalStatistics(long conglomId,String regionName,int[] columnIds,ExecRow template){
+        this.conglomId=conglomId;
+        this.regionName=regionName;
+        this.columnIds=columnIds;
+        this.template=template;
+    }
+
+    /**
+     * Updates the statistics with an inserted row.
+     *
+     * @param row the values of the collected columns, which may be reused by the caller
+     * @return false if the statistics were already handed to the dictionary, in which case the row
+     * must be recorded in the current statistics of the region instead.
+     */
+    public synchronized boolean update(ExecRow row) throws StandardException{
+        if(closed)
+            return false;
+        // the sketches keep the values they are given, so they must not change afterwards
+        ExecRow copy=row.getClone();
+        totalRowWidth+=copy.getRowSize();
+        rowCount++;
+        if(statisticsRow!=null)
+            statisticsRow.setExecRow(copy);
+        else{
+            bufferedRows.add(copy);
+            if(bufferedRows.size()>=MAX_BUFFERED_ROWS){
+                statisticsRow=new StatisticsRow(template.getNewNullRow());
+                for(ExecRow buffered : bufferedRows)
+                    statisticsRow.setExecRow(buffered);
+                bufferedRows=null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting updates, so that the statistics can be written to the dictionary or discarded.
+     *
+     * @return the number of rows recorded
+     */
+    synchronized long close(){
+        closed=true;
+        return rowCount;
+    }
+
+    public long getConglomId(){
+        return conglomId;
+    }
+
+    public String getPartitionId(){
+        return incrementalPartitionId(regionName);
+    }
+
+    /**
+     * Builds the sys.systablestats and sys.syscolumnstats rows for the statistics of a region, folding in the
+     * incremental statistics previously written for the same region.
+     *
+     * @param increments the closed statistics of the committed transactions which wrote to the region
+     * @param previous the stored incremental statistics of the region, or {@code null} if there are none
+     * @return the column statistics rows, followed by the table statistics row
+     */
+    static List<ExecRow> toRows(List<IncrementalStatistics> increments,PartitionStatisticsDescriptor previous) throws StandardException{
+        IncrementalStatistics first=increments.get(0);
+        long mergedRowCount=0;
+        long mergedSize=0;
+        if(previous!=null){
+            mergedRowCount+=previous.getRowCount();
+            mergedSize+=previous.getPartitionSize();
+        }
+        List<ItemStatistics[]> sketches=new ArrayList<>(increments.size());
+        StatisticsRow buffered=null;
+        for(IncrementalStatistics stats : increments){
+            mergedRowCount+=stats.rowCount;
+            mergedSize+=stats.totalRowWidth;
+            if(stats.statisticsRow!=null)
+                sketches.add(stats.statisticsRow.getItemStatistics());
+            else{
+                if(buffered==null)
+                    buffered=new StatisticsRow(first.template.getNewNullRow());
+                for(ExecRow row : stats.bufferedRows)
+                    buffered.setExecRow(row);
+            }
+        }
+        if(buffered!=null)
+            sketches.add(buffered.getItemStatistics());
+
+        Map<Integer, ItemStatistics> previousColumns=columnStatistics(previous);
+        List<ExecRow> rows=new ArrayList<>(first.columnIds.length+1);
+        String partitionId=first.getPartitionId();
+        for(int i=0;i<first.columnIds.length;i++){
+            ItemStatistics stats=previousColumns.get(first.columnIds[i]);
+            for(ItemStatistics[] columns : sketches)
+                stats=stats==null?columns[i]:merge(stats,columns[i]);
+            rows.add(StatisticsAdmin.generateRowFromStats(first.conglomId,partitionId,first.columnIds[i],stats));
+        }
+        int meanRowWidth=mergedRowCount==0?0:(int)(mergedSize/mergedRowCount);
+        rows.add(StatisticsAdmin.generateRowFromStats(first.conglomId,partitionId,mergedRowCount,mergedSize,meanRowWidth,1L,
+                SYSTABLESTATISTICSRowFactory.INCREMENTAL_STATS,0.0d));
+        return rows;
+    }
+
+    public static String incrementalPartitionId(String partitionId){
+        return partitionId+PARTITION_SUFFIX;
+    }
+
+    public static boolean isIncremental(PartitionStatisticsDescriptor descriptor){
+        return descriptor.getStatsType()==SYSTABLESTATISTICSRowFactory.INCREMENTAL_STATS;
+    }
+
+    /**
+     * Merges the incremental statistics of each region into the collected statistics of that region.
+     *
+     * Merged statistics (a single "-All-" partition) absorb the incremental statistics of every region.
+     * Incremental statistics are dropped when there are no collected statistics to merge them into (including
+     * regions split off since the collection, which are estimated like any other region missing from the
+     * collected statistics), and when the collected statistics are sampled, since the sketches cannot be scaled
+     * to the sample.
+     *
+     * @param partitionStatistics the partition statistics of a conglomerate, as read from the dictionary
+     * @return the collected partition statistics, with the incremental statistics merged in
+     */
+    public static List<PartitionStatisticsDescriptor> mergeIncremental(List<PartitionStatisticsDescriptor> partitionStatistics) throws StandardException{
+        List<PartitionStatisticsDescriptor> merged=mergedCache.getIfPresent(partitionStatistics);
+        if(merged!=null)
+            return merged;
+
+        Map<String, List<PartitionStatisticsDescriptor>> incremental=new HashMap<>();
+        List<PartitionStatisticsDescriptor> collected=new ArrayList<>(partitionStatistics.size());
+        for(PartitionStatisticsDescriptor desc : partitionStatistics){
+            if(isIncremental(desc)){
+                String regionName=desc.getPartitionId().substring(0,desc.getPartitionId().length()-PARTITION_SUFFIX.length());
+                List<PartitionStatisticsDescriptor> forRegion=incremental.get(regionName);
+                if(forRegion==null){
+                    forRegion=new ArrayList<>(1);
+                    incremental.put(regionName,forRegion);
+                }
+                forRegion.add(desc);
+            }else
+                collected.add(desc);
+        }
+        if(incremental.isEmpty())
+            return partitionStatistics;
+
+        merged=new ArrayList<>(collected.size());
+        if(!collected.isEmpty()){
+            int statsType=collected.get(0).getStatsType();
+            if(statsType==SYSTABLESTATISTICSRowFactory.REGULAR_MERGED_STATS){
+                List<PartitionStatisticsDescriptor> all=new ArrayList<>();
+                for(List<PartitionStatisticsDescriptor> forRegion : incremental.values())
+                    all.addAll(forRegion);
+                merged.add(merge(collected.get(0),all));
+                merged.addAll(collected.subList(1,collected.size()));
+            }else if(statsType==SYSTABLESTATISTICSRowFactory.REGULAR_NONMERGED_STATS){
+                for(PartitionStatisticsDescriptor desc : collected){
+                    List<PartitionStatisticsDescriptor> forRegion=incremental.get(desc.getPartitionId());
+                    merged.add(forRegion==null?desc:merge(desc,forRegion));
+                }
+            }else
+                merged.addAll(collected);
+        }
+        mergedCache.put(partitionStatistics,merged);
+        return merged;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static PartitionStatisticsDescriptor merge(PartitionStatisticsDescriptor base,
+                                                       List<PartitionStatisticsDescriptor> increments) throws StandardException{
+        long rowCount=base.getRowCount();
+        long partitionSize=base.getPartitionSize();
+        Map<Integer, List<ItemStatistics>> incrementColumns=new HashMap<>();
+        for(PartitionStatisticsDescriptor increment : increments){
+            rowCount+=increment.getRowCount();
+            partitionSize+=increment.getPartitionSize();
+            for(Map.Entry<Integer, ItemStatistics> column : columnStatistics(increment).entrySet()){
+                List<ItemStatistics> forColumn=incrementColumns.get(column.getKey());
+                if(forColumn==null){
+                    forColumn=new ArrayList<>(increments.size());
+                    incrementColumns.put(column.getKey(),forColumn);
+                }
+                forColumn.add(column.getValue());
+            }
+        }
+
+        List<ColumnStatisticsDescriptor> columns=new ArrayList<>();
+        if(base.getColumnStatsDescriptors()!=null){
+            for(ColumnStatisticsDescriptor column : base.getColumnStatsDescriptors()){
+                ItemStatistics stats=column.getStats();
+                List<ItemStatistics> forColumn=incrementColumns.get(column.getColumnId());
+                if(forColumn!=null){
+                    for(ItemStatistics increment : forColumn)
+                        stats=merge(stats,increment);
+                }
+                columns.add(new ColumnStatisticsDescriptor(base.getConglomerateId(),base.getPartitionId(),column.getColumnId(),stats));
+            }
+        }
+
+        int meanRowWidth=rowCount==0?base.getMeanRowWidth():(int)(partitionSize/rowCount);
+        PartitionStatisticsDescriptor merged=new PartitionStatisticsDescriptor(base.getConglomerateId(),
+                base.getPartitionId(),
+                base.getTimestamp(),
+                base.isStale(),
+                base.isInProgress(),
+                rowCount,
+                partitionSize,
+                meanRowWidth,
+                base.getNumberOfPartitions(),
+                base.getStatsType(),
+                base.getSampleFraction());
+        merged.setColumnStatsDescriptors(columns);
+        return merged;
+    }
+
+    private static ItemStatistics merge(ItemStatistics stats,ItemStatistics other) throws StandardException{
+        if(other==null)
+            return stats;
+        if(!(stats instanceof ColumnStatisticsImpl) || !(other instanceof ColumnStatisticsImpl))
+            return stats;
+        ColumnStatisticsMerge merge=ColumnStatisticsMerge.instance();
+        merge.accumulate((ColumnStatisticsImpl)stats);
+        merge.accumulate((ColumnStatisticsImpl)other);
+        return merge.terminate();
+    }
+
+    private static Map<Integer, ItemStatistics> columnStatistics(PartitionStatisticsDescriptor desc){
+        Map<Integer, ItemStatistics> columns=new HashMap<>();
+        if(desc!=null && desc.getColumnStatsDescriptors()!=null){
+            for(ColumnStatisticsDescriptor column : desc.getColumnStatsDescriptors())
+                columns.put(column.getColumnId(),column.getStats());
+        }
+        return columns;
+    }
+}
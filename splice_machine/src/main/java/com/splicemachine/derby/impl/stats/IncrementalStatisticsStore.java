@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.concurrent.MoreExecutors;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.context.ContextManager;
+import com.splicemachine.db.iapi.services.context.ContextService;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.PartitionStatisticsDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.impl.sql.catalog.SYSTABLESTATISTICSRowFactory;
+import com.splicemachine.derby.ddl.DDLUtils;
+import com.splicemachine.derby.jdbc.SpliceTransactionResourceImpl;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.protobuf.ProtoUtil;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.utils.Pair;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link IncrementalStatistics} of the regions served by this server, and periodically
+ * writes them to the dictionary.
+ *
+ * The statistics are kept per writing transaction, and each flush looks up the state of those transactions:
+ * the statistics of the committed ones are handed off to the dictionary, those of the rolled back ones are
+ * discarded, and those of the active ones are kept for a later flush. Writers that raced with the hand off find
+ * the statistics closed and record their rows in new ones instead. The statistics of all the regions are written
+ * in a single transaction, and published to the other servers with a single statistics change for the tables
+ * written.
+ */
+public class IncrementalStatisticsStore{
+    private static final Logger LOG=Logger.getLogger(IncrementalStatisticsStore.class);
+    private static final IncrementalStatisticsStore INSTANCE=new IncrementalStatisticsStore();
+
+    /* keyed by the id of the writing transaction, then by conglomerate and region */
+    private final ConcurrentMap<Long, ConcurrentMap<Pair<Long, String>, IncrementalStatistics>> statistics=new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService flusher;
+
+    private IncrementalStatisticsStore(){ }
+
+    public static IncrementalStatisticsStore store(){
+        return INSTANCE;
+    }
+
+    /**
+     * @return the open statistics of the rows {@code txnId} wrote to the region, created if necessary
+     */
+    public IncrementalStatistics getStatistics(long txnId,long conglomId,String regionName,int[] columnIds,ExecRow template){
+        ConcurrentMap<Pair<Long, String>, IncrementalStatistics> forTxn=statistics.get(txnId);
+        if(forTxn==null){
+            ensureFlusher();
+            ConcurrentMap<Pair<Long, String>, IncrementalStatistics> newForTxn=new ConcurrentHashMap<>();
+            forTxn=statistics.putIfAbsent(txnId,newForTxn);
+            if(forTxn==null)
+                forTxn=newForTxn;
+        }
+        Pair<Long, String> key=Pair.newPair(conglomId,regionName);
+        IncrementalStatistics stats=forTxn.get(key);
+        if(stats==null){
+            IncrementalStatistics newStats=new IncrementalStatistics(conglomId,regionName,columnIds,template);
+            stats=forTxn.putIfAbsent(key,newStats);
+            if(stats==null)
+                stats=newStats;
+        }
+        return stats;
+    }
+
+    /**
+     * Writes the statistics recorded so far by committed transactions to sys.systablestats and sys.syscolumnstats,
+     * and discards those recorded by rolled back transactions.
+     */
+    public void flush(){
+        TxnSupplier txnSupplier=SIDriver.driver().getTxnSupplier();
+        Map<Long, List<IncrementalStatistics>> byConglomerate=new HashMap<>();
+        Iterator<Map.Entry<Long, ConcurrentMap<Pair<Long, String>, IncrementalStatistics>>> it=statistics.entrySet().iterator();
+        while(it.hasNext()){
+            Map.Entry<Long, ConcurrentMap<Pair<Long, String>, IncrementalStatistics>> entry=it.next();
+            Txn.State state;
+            try{
+                TxnView txn=txnSupplier.getTransaction(entry.getKey());
+                state=txn==null?Txn.State.ROLLEDBACK:txn.getEffectiveState();
+            }catch(IOException e){
+                SpliceLogUtils.warn(LOG,"Unable to look up transaction %d, keeping its incremental statistics: %s",entry.getKey(),e.getMessage());
+                continue;
+            }
+            if(!state.isFinal())
+                continue;
+            it.remove();
+            for(IncrementalStatistics stats : entry.getValue().values()){
+                if(stats.close()<=0 || state!=Txn.State.COMMITTED)
+                    continue;
+                List<IncrementalStatistics> forConglomerate=byConglomerate.get(stats.getConglomId());
+                if(forConglomerate==null){
+                    forConglomerate=new ArrayList<>();
+                    byConglomerate.put(stats.getConglomId(),forConglomerate);
+                }
+                forConglomerate.add(stats);
+            }
+        }
+        if(byConglomerate.isEmpty())
+            return;
+        try{
+            flush(byConglomerate);
+        }catch(Exception e){
+            SpliceLogUtils.warn(LOG,"Unable to write incremental statistics for %d conglomerates: %s",byConglomerate.size(),e.getMessage());
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void ensureFlusher(){
+        if(flusher!=null)
+            return;
+        synchronized(this){
+            if(flusher!=null)
+                return;
+            long interval=EngineDriver.driver().getConfiguration().getIncrementalStatisticsFlushInterval();
+            ScheduledExecutorService executor=MoreExecutors.namedSingleThreadScheduledExecutor("incremental-statistics-%d");
+            executor.scheduleWithFixedDelay(new Runnable(){
+                @Override
+                public void run(){
+                    flush();
+                }
+            },interval,interval,TimeUnit.MILLISECONDS);
+            flusher=executor;
+        }
+    }
+
+    private void flush(Map<Long, List<IncrementalStatistics>> byConglomerate) throws Exception{
+        ContextManager currentCm=ContextService.getFactory().getCurrentContextManager();
+        long firstConglomId=byConglomerate.keySet().iterator().next();
+        Txn txn=SIDriver.driver().lifecycleManager().beginTransaction(Bytes.toBytes(Long.toString(firstConglomId)));
+        SpliceTransactionResourceImpl transactionResource=new SpliceTransactionResourceImpl();
+        boolean prepared=false;
+        boolean committed=false;
+        String changeId=null;
+        try{
+            prepared=transactionResource.marshallTransaction(txn);
+            LanguageConnectionContext lcc=transactionResource.getLcc();
+            DataDictionary dd=lcc.getDataDictionary();
+            TransactionController tc=lcc.getTransactionExecute();
+
+            List<TableDescriptor> written=new ArrayList<>(byConglomerate.size());
+            for(Map.Entry<Long, List<IncrementalStatistics>> entry : byConglomerate.entrySet()){
+                TableDescriptor td=write(entry.getKey(),entry.getValue(),dd,tc);
+                if(td!=null)
+                    written.add(td);
+            }
+            if(!written.isEmpty())
+                changeId=DDLUtils.notifyMetadataChange(ProtoUtil.alterStats(txn.getTxnId(),written));
+            txn.commit();
+            committed=true;
+        }finally{
+            if(prepared)
+                transactionResource.close();
+            if(!committed)
+                txn.rollback();
+            if(changeId!=null)
+                DDLUtils.finishMetadataChange(changeId);
+            if(currentCm!=null)
+                ContextService.getFactory().setCurrentContextManager(currentCm);
+        }
+    }
+
+    /**
+     * @return the table whose statistics were written, or {@code null} if there was nothing to merge them into
+     */
+    private TableDescriptor write(long conglomId,List<IncrementalStatistics> regionStatistics,DataDictionary dd,TransactionController tc) throws StandardException{
+        ConglomerateDescriptor cd=dd.getConglomerateDescriptor(conglomId);
+        TableDescriptor td=cd==null?null:dd.getTableDescriptor(cd.getTableID());
+        if(td==null)
+            return null; // the table has been dropped
+
+        Map<String, PartitionStatisticsDescriptor> previous=new HashMap<>();
+        boolean collected=false;
+        for(PartitionStatisticsDescriptor desc : dd.getPartitionStatistics(conglomId,tc)){
+            if(IncrementalStatistics.isIncremental(desc))
+                previous.put(desc.getPartitionId(),desc);
+            else if(desc.getStatsType()!=SYSTABLESTATISTICSRowFactory.SAMPLE_NONMERGED_STATS
+                    && desc.getStatsType()!=SYSTABLESTATISTICSRowFactory.SAMPLE_MERGED_STATS)
+                collected=true;
+        }
+        if(!collected)
+            return null; // nothing to merge into, the next collection will see these rows anyway
+
+        Map<String, List<IncrementalStatistics>> byRegion=new HashMap<>();
+        for(IncrementalStatistics stats : regionStatistics){
+            List<IncrementalStatistics> forRegion=byRegion.get(stats.getPartitionId());
+            if(forRegion==null){
+                forRegion=new ArrayList<>();
+                byRegion.put(stats.getPartitionId(),forRegion);
+            }
+            forRegion.add(stats);
+        }
+        for(Map.Entry<String, List<IncrementalStatistics>> entry : byRegion.entrySet()){
+            PartitionStatisticsDescriptor prior=previous.get(entry.getKey());
+            if(prior!=null)
+                dd.deletePartitionStatistics(conglomId,entry.getKey(),tc);
+            List<ExecRow> rows=IncrementalStatistics.toRows(entry.getValue(),prior);
+            for(int i=0;i<rows.size()-1;i++)
+                dd.addColumnStatistics(rows.get(i),tc);
+            dd.addTableStatistics(rows.get(rows.size()-1),tc);
+        }
+        return td;
+    }
+}
@@ -104,6 +104,8 @@ public class StoreCostControllerImpl implements StoreCostController {
         }
         byte[] table = Bytes.toBytes(tableId);
 
+        // fold the statistics of rows written since the last collection into the collected ones
+        partitionStatistics = IncrementalStatistics.mergeIncremental(partitionStatistics);
         isSampleStats = false;
         sampleFraction = 0.0d;
         if (!partitionStatistics.isEmpty()) {
@@ -18,6 +18,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
 import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
 import com.splicemachine.si.constants.SIConstants;
@@ -65,30 +66,8 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
                                                     FormatableBitSet cols,
                                                     String tableVersion){
         DataValueDescriptor[] dvds = row.getRowArray();
-        BitSet fieldsToCollect = new BitSet(dvds.length);
-        boolean hasColumns = false;
-        if(cols!=null){
-            for(int i=cols.anySetBit();i>=0;i=cols.anySetBit(i)){
-                hasColumns = true;
-                fieldsToCollect.set(i);
-            }
-        }else if(columnMap!=null){
-            for(int i=0;i<columnMap.length;i++){
-                int pos = columnMap[i];
-                if(pos<0) continue;
-                hasColumns=true;
-                if(dvds[pos]!=null)
-                    fieldsToCollect.set(i);
-            }
-        }else{
-            for(int i=0;i<dvds.length;i++){
-                if(dvds[i]!=null){
-                    hasColumns = true;
-                    fieldsToCollect.set(i);
-                }
-            }
-        }
-        if(!hasColumns) return NOOP_ACCUMULATOR;
+        BitSet fieldsToCollect = fieldsToCollect(dvds,columnMap,cols);
+        if(fieldsToCollect==null) return NOOP_ACCUMULATOR;
 
         DescriptorSerializer[] serializers = VersionedSerializers.forVersion(tableVersion,false).getSerializers(row);
         if(columnSortOrder!=null)
@@ -97,6 +76,23 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
             return new ExecRowAccumulator(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers);
     }
 
+    /**
+     * Creates an accumulator which writes the fields of each row into the next row of {@code batch}, instead
+     * of decoding them into {@code row}. Fields are never sorted, so this cannot be used for key columns.
+     */
+    public static ExecRowAccumulator newBatchAccumulator(EntryPredicateFilter predicateFilter,
+                                                         ExecRow row,
+                                                         int[] columnMap,
+                                                         String tableVersion,
+                                                         ColumnBatch batch){
+        DataValueDescriptor[] dvds = row.getRowArray();
+        BitSet fieldsToCollect = fieldsToCollect(dvds,columnMap,null);
+        if(fieldsToCollect==null) return NOOP_ACCUMULATOR;
+
+        DescriptorSerializer[] serializers = VersionedSerializers.forVersion(tableVersion,false).getSerializers(row);
+        return new Batched(predicateFilter,fieldsToCollect,dvds,columnMap,serializers,batch);
+    }
+
     public static ExecRowAccumulator newAccumulator(EntryPredicateFilter predicateFilter,
                                                     boolean returnIndex,
                                                     ExecRow row,
@@ -167,6 +163,58 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
         }
     }
 
+    /**
+     * @return the fields of the packed row to collect, or {@code null} if no column is read
+     */
+    private static BitSet fieldsToCollect(DataValueDescriptor[] dvds,int[] columnMap,FormatableBitSet cols){
+        BitSet fieldsToCollect = new BitSet(dvds.length);
+        boolean hasColumns = false;
+        if(cols!=null){
+            for(int i=cols.anySetBit();i>=0;i=cols.anySetBit(i)){
+                hasColumns = true;
+                fieldsToCollect.set(i);
+            }
+        }else if(columnMap!=null){
+            for(int i=0;i<columnMap.length;i++){
+                int pos = columnMap[i];
+                if(pos<0) continue;
+                hasColumns=true;
+                if(dvds[pos]!=null)
+                    fieldsToCollect.set(i);
+            }
+        }else{
+            for(int i=0;i<dvds.length;i++){
+                if(dvds[i]!=null){
+                    hasColumns = true;
+                    fieldsToCollect.set(i);
+                }
+            }
+        }
+        return hasColumns?fieldsToCollect:null;
+    }
+
+    private static class Batched extends ExecRowAccumulator{
+
+        private final ColumnBatch batch;
+
+        private Batched(EntryPredicateFilter predicateFilter,
+                        BitSet fieldsToCollect,
+                        DataValueDescriptor[] dvds,
+                        int[] columnMap,
+                        DescriptorSerializer[] serializers,
+                        ColumnBatch batch) {
+            super(predicateFilter, false, fieldsToCollect, dvds, columnMap, serializers);
+            this.batch = batch;
+        }
+
+        @Override
+        protected void decode(int position, byte[] data, int offset, int length) {
+            int colPos=columnMap[position];
+            batch.put(colPos, serializers[colPos], data, offset, length);
+            columnLengths[colPos] = length;
+        }
+    }
+
     private static class Ordered extends ExecRowAccumulator{
 
         private final boolean[] columnSortOrder;
@@ -134,6 +134,7 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
             ObjectName execServ = new ObjectName("com.splicemachine.derby.lifecycle:type=ExecutorService");
             mbs.registerMBean(logging,on);
             mbs.registerMBean(SIDriver.driver().getRejectingExecutorService(),execServ);
+            SIDriver.driver().getSharedTxnCache().registerJMX(mbs);
             db.getDataDictionary().getDataDictionaryCache().registerJMX(mbs);
 
 
@@ -524,7 +524,7 @@ public class ControlDataSet<V> implements DataSet<V> {
      * @param conglomId
      */
     @Override
-    public void pin(ExecRow template, long conglomId) {
+    public long pin(ExecRow template, long conglomId) {
         throw new UnsupportedOperationException("Pin Not Supported in Control Mode");
     }
 
@@ -50,6 +50,9 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         long rowsWritten;
         long rowsRetried;
         long tooBusy;
+        long spillCount;
+        long spilledBytes;
+        long peakMemoryUsage;
         long rowsJoinedLeft;
         long rowsJoinedRight;
         long rowsProduced;
@@ -179,6 +182,18 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         tooBusy+=w;
     }
 
+    @Override
+    public void recordSpill(long bytes) {
+        spillCount++;
+        spilledBytes+=bytes;
+    }
+
+    @Override
+    public void recordMemoryUsage(long bytes) {
+        if (bytes > peakMemoryUsage)
+            peakMemoryUsage = bytes;
+    }
+
     @Override
     public void recordWrite() {
         rowsWritten++;
@@ -279,6 +294,21 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         return tooBusy;
     }
 
+    @Override
+    public long getSpillCount() {
+        return spillCount;
+    }
+
+    @Override
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    @Override
+    public long getPeakMemoryUsage() {
+        return peakMemoryUsage;
+    }
+
     @Override
     public void pushScope(String displayName) {
         // no op
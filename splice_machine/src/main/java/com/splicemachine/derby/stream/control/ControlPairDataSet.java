@@ -92,21 +92,14 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
         final Iterator<Tuple2<K,V>> limitIterator = limit(checkCancellation(source,function2), function2.operationContext);
         return new ControlPairDataSet(new Iterator<Tuple2<K,V>>(){
-            private Iterator<Map.Entry<K,V>> set;
+            private Iterator<Tuple2<K,V>> set;
             @Override
             public boolean hasNext() {
                 if (set == null) {
                     try {
-                        HashMap<K, V> map = Maps.newHashMap();
-                        while (limitIterator.hasNext()) {
-                            Tuple2<K, V> t = limitIterator.next();
-                            if (map.containsKey(t._1())) {
-                                function2.call( map.get(t._1()),t._2());
-                            } else {
-                                map.put((K)((ExecRow)t._1).getClone(), function2.call(null,t._2()));
-                            }
-                        }
-                        set = map.entrySet().iterator();
+                        // partitions to disk if the aggregates exceed the configured memory budget
+                        SpillableHashAggregator<K, V, V> aggregator = SpillableHashAggregator.reducer(function2, function2.operationContext);
+                        set = aggregator.aggregate(limitIterator);
                     } catch (Exception e) {
                         throw new RuntimeException(e);
                     }
@@ -116,8 +109,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
             @Override
             public Tuple2<K,V> next() {
-                Map.Entry<K,V> entry = set.next();
-                return Tuple2.apply(entry.getKey(),entry.getValue());
+                return set.next();
             }
 
             @Override
@@ -145,17 +137,15 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     @Override
     public PairDataSet<K, V> sortByKey(final Comparator<K> comparator, OperationContext operationContext) {
         /*
-         * -sf- this is done a bit goofily, so that we can support multiple versions of guava.
-         *
-         * This is essentially copying out FluentIterable.from(source).toSortedList(comparator) logic
-         * directly into the method, so that we can support the same code line from 12.0.1 on.
+         * Sort eagerly, like the in-memory sort did; the sorter writes sorted runs to disk
+         * if the input doesn't fit within the configured memory budget.
          */
-        return new ControlPairDataSet<>(Ordering.from(new Comparator<Tuple2<K, V>>() {
-            @Override
-            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
-                return comparator.compare(o1._1(), o2._1());
-            }
-        }).immutableSortedCopy(() -> limit(ControlUtils.checkCancellation(source,operationContext), operationContext)).iterator());
+        ExternalSorter<K, V> sorter = new ExternalSorter<>(comparator, operationContext);
+        try {
+            return new ControlPairDataSet<>(sorter.sort(limit(ControlUtils.checkCancellation(source, operationContext), operationContext)));
+        } catch (StandardException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -172,15 +162,12 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, Iterable<V>> groupByKey(OperationContext context) {
-        Multimap<K,V> newMap = multimapFromIterator(limit(ControlUtils.checkCancellation(source,context), context));
-        return new ControlPairDataSet<>(FluentIterable.from(newMap.asMap().entrySet()).transform(new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
-            @Nullable
-            @Override
-            public Tuple2<K, Iterable<V>> apply(@Nullable Map.Entry<K, Collection<V>> e) {
-                assert e!=null: "E cannot be null";
-                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
-            }
-        }).iterator());
+        SpillableHashAggregator<K, V, Iterable<V>> aggregator = SpillableHashAggregator.grouper(context);
+        try {
+            return new ControlPairDataSet<>(aggregator.aggregate(limit(ControlUtils.checkCancellation(source, context), context)));
+        } catch (StandardException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -14,14 +14,20 @@
 
 package com.splicemachine.derby.stream.control;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.sql.conn.ControlExecutionLimiter;
 import com.splicemachine.db.iapi.sql.conn.StatementContext;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.stream.function.AbstractSpliceFunction;
 import com.splicemachine.derby.stream.iapi.OperationContext;
+import org.apache.log4j.Logger;
 import org.spark_project.guava.base.Function;
 import org.spark_project.guava.collect.*;
 import scala.Tuple2;
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -32,6 +38,8 @@ import java.util.concurrent.CancellationException;
  * Created by dgomezferro on 7/31/15.
  */
 public class ControlUtils {
+    private static final Logger LOG = Logger.getLogger(ControlUtils.class);
+
     public static <K, V> Iterator<Tuple2<K, V>> entryToTuple(Collection<Map.Entry<K, V>> collection) {
         return Iterators.transform(collection.iterator(),new Function<Map.Entry<K, V>, Tuple2<K, V>>() {
 
@@ -103,4 +111,44 @@ public class ControlUtils {
         });
     }
 
+    /**
+     * @return the rough number of heap bytes held by the column values of {@code row}
+     */
+    public static long estimateMemoryUsage(ExecRow row) {
+        long size = 0L;
+        DataValueDescriptor[] dvds = row.getRowArray();
+        if (dvds == null) return size;
+        for (DataValueDescriptor dvd : dvds) {
+            if (dvd != null)
+                size += dvd.estimateMemoryUsage();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of bytes a control-side operation may buffer before it spills to disk
+     */
+    public static long memoryBudget() {
+        EngineDriver driver = EngineDriver.driver();
+        if (driver == null) return Long.MAX_VALUE; // no configuration, so don't spill
+        return driver.getConfiguration().getControlSideMemoryBudget();
+    }
+
+    /**
+     * @return the directory in which control-side operations of this process write their spill files
+     */
+    public static File spillDirectory() {
+        EngineDriver driver = EngineDriver.driver();
+        File root;
+        if (driver == null)
+            root = new File(System.getProperty("java.io.tmpdir"));
+        else
+            root = new File(driver.getConfiguration().getControlSideSpillDirectory());
+        try {
+            return SpillDirectories.forProcess(root);
+        } catch (IOException e) {
+            LOG.warn("Unable to create a spill directory of this process in " + root + ", spilling to it directly", e);
+            return root;
+        }
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.pipeline.Exceptions;
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A bounded-memory sort of (key,value) pairs for the control-side data sets.
+ *
+ * Pairs are buffered on the heap until their estimated size exceeds the memory budget. The buffer is then
+ * sorted and written to a {@link SpillFile} as a sorted run. Once the input is exhausted, the runs (and
+ * whatever remains in the buffer) are merged with a k-way merge. When the input fits in memory, no files
+ * are written and this behaves exactly like an in-memory sort.
+ *
+ * The sort is stable: rows with equal keys are returned in the order in which they were read.
+ *
+ * Spilling is only possible when both keys and values are {@link ExecRow}s, since that is what we know
+ * how to encode; other pairs are always sorted in memory.
+ */
+public class ExternalSorter<K,V>{
+    private static final Logger LOG=Logger.getLogger(ExternalSorter.class);
+    /*
+     * Rough heap cost of a buffered pair, excluding the column values themselves (the Tuple2, the two
+     * ExecRows and their column arrays).
+     */
+    private static final int PAIR_OVERHEAD=96;
+
+    private final Comparator<Tuple2<K,V>> comparator;
+    private final long memoryBudget;
+    private final File spillDirectory;
+    private final OperationContext<?> operationContext;
+
+    private long spillCount;
+    private long spilledBytes;
+
+    public ExternalSorter(Comparator<K> keyComparator,OperationContext<?> operationContext){
+        this(keyComparator,ControlUtils.memoryBudget(),ControlUtils.spillDirectory(),operationContext);
+    }
+
+    public ExternalSorter(final Comparator<K> keyComparator,long memoryBudget,File spillDirectory,OperationContext<?> operationContext){
+        this.comparator=new Comparator<Tuple2<K,V>>(){
+            @Override
+            public int compare(Tuple2<K,V> o1,Tuple2<K,V> o2){
+                return keyComparator.compare(o1._1(),o2._1());
+            }
+        };
+        this.memoryBudget=memoryBudget;
+        this.spillDirectory=spillDirectory;
+        this.operationContext=operationContext;
+    }
+
+    /**
+     * Sort all of the pairs in {@code source}.
+     *
+     * @return an iterator over the sorted pairs. Any spill files are removed once the iterator is exhausted.
+     */
+    public Iterator<Tuple2<K,V>> sort(Iterator<Tuple2<K,V>> source) throws StandardException{
+        List<Tuple2<K,V>> buffer=new ArrayList<>();
+        List<SpillFile> runs=new ArrayList<>();
+        long bufferSize=0L;
+        boolean spillable=true;
+        try{
+            while(source.hasNext()){
+                Tuple2<K,V> next=source.next();
+                buffer.add(next);
+                if(!spillable) continue;
+                if(!(next._1() instanceof ExecRow) || !(next._2() instanceof ExecRow)){
+                    spillable=false;
+                    continue;
+                }
+                bufferSize+=PAIR_OVERHEAD+ControlUtils.estimateMemoryUsage((ExecRow)next._1())+ControlUtils.estimateMemoryUsage((ExecRow)next._2());
+                if(bufferSize>=memoryBudget){
+                    recordMemoryUsage(bufferSize);
+                    runs.add(spill(buffer));
+                    buffer.clear();
+                    bufferSize=0L;
+                }
+            }
+            recordMemoryUsage(bufferSize);
+            Collections.sort(buffer,comparator);
+            if(runs.isEmpty())
+                return buffer.iterator();
+            return new MergingIterator(runs,buffer);
+        }catch(IOException e){
+            for(SpillFile run:runs){
+                run.delete();
+            }
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    /**
+     * @return the number of sorted runs which have been written to disk
+     */
+    public long getSpillCount(){
+        return spillCount;
+    }
+
+    /**
+     * @return the number of bytes which have been written to disk
+     */
+    public long getSpilledBytes(){
+        return spilledBytes;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void recordMemoryUsage(long bytes){
+        if(operationContext!=null)
+            operationContext.recordMemoryUsage(bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SpillFile spill(List<Tuple2<K,V>> buffer) throws IOException, StandardException{
+        Collections.sort(buffer,comparator);
+        Tuple2<K,V> first=buffer.get(0);
+        SpillFile run=SpillFile.create(spillDirectory,"sort",((ExecRow)first._1()).getNewNullRow(),((ExecRow)first._2()).getNewNullRow());
+        try{
+            for(Tuple2<K,V> pair:buffer){
+                run.write((ExecRow)pair._1(),(ExecRow)pair._2());
+            }
+        }finally{
+            run.close();
+        }
+        spillCount++;
+        spilledBytes+=run.getBytesWritten();
+        if(operationContext!=null)
+            operationContext.recordSpill(run.getBytesWritten());
+        if(LOG.isDebugEnabled())
+            LOG.debug(String.format("Spilled sorted run of %d rows (%d bytes) to disk",run.getRowCount(),run.getBytesWritten()));
+        return run;
+    }
+
+    /**
+     * k-way merge of the spilled runs and the final, in-memory, run.
+     */
+    private class MergingIterator implements Iterator<Tuple2<K,V>>{
+        private final List<SpillFile> runs;
+        private final List<RunCursor> cursors;
+        private final PriorityQueue<RunCursor> heap;
+        private boolean closed;
+
+        MergingIterator(List<SpillFile> runs,List<Tuple2<K,V>> memoryRun) throws IOException, StandardException{
+            this.runs=runs;
+            this.cursors=new ArrayList<>(runs.size()+1);
+            this.heap=new PriorityQueue<>(runs.size()+1,new Comparator<RunCursor>(){
+                @Override
+                public int compare(RunCursor o1,RunCursor o2){
+                    int c=comparator.compare(o1.current,o2.current);
+                    if(c!=0) return c;
+                    //earlier runs hold earlier rows, so break ties by run to keep the sort stable
+                    return Integer.compare(o1.runIndex,o2.runIndex);
+                }
+            });
+            int runIndex=0;
+            try{
+                for(SpillFile run:runs){
+                    RunCursor cursor=new FileRunCursor(run.open(),runIndex++);
+                    cursors.add(cursor);
+                    if(cursor.advance())
+                        heap.add(cursor);
+                }
+                RunCursor cursor=new MemoryRunCursor(memoryRun.iterator(),runIndex);
+                cursors.add(cursor);
+                if(cursor.advance())
+                    heap.add(cursor);
+            }catch(IOException|StandardException e){
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext(){
+            if(!heap.isEmpty()) return true;
+            close();
+            return false;
+        }
+
+        @Override
+        public Tuple2<K,V> next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            RunCursor cursor=heap.poll();
+            Tuple2<K,V> next=cursor.current;
+            try{
+                if(cursor.advance())
+                    heap.add(cursor);
+            }catch(IOException|StandardException e){
+                close();
+                throw new RuntimeException(e);
+            }
+            return next;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException("Not Implemented");
+        }
+
+        private void close(){
+            if(closed) return;
+            closed=true;
+            for(RunCursor cursor:cursors){
+                try{
+                    cursor.close();
+                }catch(IOException e){
+                    LOG.warn("Unable to close sorted run",e);
+                }
+            }
+            for(SpillFile run:runs){
+                run.delete();
+            }
+        }
+    }
+
+    private abstract class RunCursor{
+        final int runIndex;
+        Tuple2<K,V> current;
+
+        RunCursor(int runIndex){
+            this.runIndex=runIndex;
+        }
+
+        abstract boolean advance() throws IOException, StandardException;
+
+        void close() throws IOException{ }
+    }
+
+    private class MemoryRunCursor extends RunCursor{
+        private final Iterator<Tuple2<K,V>> rows;
+
+        MemoryRunCursor(Iterator<Tuple2<K,V>> rows,int runIndex){
+            super(runIndex);
+            this.rows=rows;
+        }
+
+        @Override
+        boolean advance(){
+            current=rows.hasNext()?rows.next():null;
+            return current!=null;
+        }
+    }
+
+    private class FileRunCursor extends RunCursor{
+        private final SpillFile.Reader reader;
+
+        FileRunCursor(SpillFile.Reader reader,int runIndex){
+            super(runIndex);
+            this.reader=reader;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean advance() throws IOException, StandardException{
+            if(!reader.next()){
+                current=null;
+                return false;
+            }
+            current=new Tuple2<>((K)reader.key(),(V)reader.value());
+            return true;
+        }
+
+        @Override
+        void close() throws IOException{
+            reader.close();
+        }
+    }
+}
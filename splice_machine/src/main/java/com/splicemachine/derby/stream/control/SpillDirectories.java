@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The directories in which this process writes its spill files.
+ *
+ * A spill directory may be shared by several processes (it is java.io.tmpdir by default), so each process
+ * writes into a subdirectory of its own, and holds a lock on a file in it for as long as it runs. The first
+ * time a process uses a spill directory, it deletes the subdirectories whose lock is free; these were left
+ * behind by processes which died before they could remove their spill files.
+ */
+final class SpillDirectories{
+    private static final Logger LOG=Logger.getLogger(SpillDirectories.class);
+    static final String PREFIX="splice-spill-";
+    static final String LOCK_FILE=".lock";
+
+    private static final ConcurrentMap<File,File> directories=new ConcurrentHashMap<>();
+
+    private SpillDirectories(){ }
+
+    /**
+     * @param root the configured spill directory
+     * @return the subdirectory of {@code root} which belongs to this process, created (and the stale
+     * subdirectories of dead processes deleted) on first use
+     */
+    static File forProcess(File root) throws IOException{
+        File dir=directories.get(root);
+        if(dir!=null) return dir;
+        synchronized(directories){
+            dir=directories.get(root);
+            if(dir==null){
+                dir=create(root);
+                directories.put(root,dir);
+            }
+            return dir;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static File create(File root) throws IOException{
+        if(!root.exists() && !root.mkdirs() && !root.exists())
+            throw new IOException("Unable to create spill directory "+root);
+        deleteStale(root);
+        while(true){
+            File dir=Files.createTempDirectory(root.toPath(),PREFIX).toFile();
+            File lockFile=new File(dir,LOCK_FILE);
+            FileChannel channel=FileChannel.open(lockFile.toPath(),StandardOpenOption.CREATE,StandardOpenOption.WRITE);
+            if(channel.tryLock()!=null && lockFile.exists()){
+                // the channel is never closed, so the lock is held until the process exits
+                return dir;
+            }
+            /*
+             * Another process took our directory for a stale one before we could lock it, and may be
+             * deleting it, so leave it to that process and make another
+             */
+            channel.close();
+        }
+    }
+
+    private static void deleteStale(File root){
+        File[] candidates=root.listFiles();
+        if(candidates==null) return;
+        for(File dir:candidates){
+            File lockFile=new File(dir,LOCK_FILE);
+            if(!dir.isDirectory() || !dir.getName().startsWith(PREFIX) || !lockFile.exists())
+                continue;
+            try(FileChannel channel=FileChannel.open(lockFile.toPath(),StandardOpenOption.WRITE)){
+                FileLock lock;
+                try{
+                    lock=channel.tryLock();
+                }catch(OverlappingFileLockException ofle){
+                    lock=null; //held by this process
+                }
+                if(lock==null) continue; //its process is still running
+                File[] files=dir.listFiles();
+                if(files!=null){
+                    for(File f:files){
+                        //noinspection ResultOfMethodCallIgnored
+                        f.delete();
+                    }
+                }
+                //noinspection ResultOfMethodCallIgnored
+                dir.delete();
+                LOG.info("Deleted stale spill directory "+dir);
+            }catch(IOException e){
+                LOG.warn("Unable to delete stale spill directory "+dir,e);
+            }
+        }
+    }
+}
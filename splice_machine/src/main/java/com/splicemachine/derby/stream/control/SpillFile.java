@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.utils.IntArrays;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A local file holding a sequence of (key,value) row pairs, which control-side operations
+ * use to move rows out of the heap when they exceed their memory budget.
+ *
+ * Rows are written with the same entry encoding that the write pipeline uses for table rows
+ * (see {@link EntryDataHash}), so nulls are preserved and every type which can be stored in a
+ * table can be spilled. Each pair is laid out as {@code [int keyLength][key][int valueLength][value]}.
+ *
+ * A SpillFile is written once (by {@link #write(ExecRow, ExecRow)}), then read back any number of times
+ * with {@link #open()}. It is deleted with {@link #delete()}; the files of a process which dies before
+ * deleting them are removed by the next process to use the spill directory (see {@link SpillDirectories}).
+ */
+class SpillFile implements Closeable{
+    private static final int BUFFER_SIZE=64*1024;
+
+    private final File file;
+    private final ExecRow keyTemplate;
+    private final ExecRow valueTemplate;
+
+    private DataOutputStream out;
+    private DataHash<ExecRow> keyEncoder;
+    private DataHash<ExecRow> valueEncoder;
+    private long rows;
+    private long bytes;
+
+    private SpillFile(File file,ExecRow keyTemplate,ExecRow valueTemplate) throws IOException{
+        this.file=file;
+        this.keyTemplate=keyTemplate;
+        this.valueTemplate=valueTemplate;
+        this.out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),BUFFER_SIZE));
+        this.keyEncoder=encoder(keyTemplate);
+        this.valueEncoder=encoder(valueTemplate);
+    }
+
+    static SpillFile create(File directory,String prefix,ExecRow keyTemplate,ExecRow valueTemplate) throws IOException{
+        if(!directory.exists() && !directory.mkdirs() && !directory.exists())
+            throw new IOException("Unable to create spill directory "+directory);
+        File file=File.createTempFile(prefix,".spill",directory);
+        return new SpillFile(file,keyTemplate,valueTemplate);
+    }
+
+    void write(ExecRow key,ExecRow value) throws IOException, StandardException{
+        assert out!=null: "Programmer error: attempted to write to a closed spill file";
+        keyEncoder.setRow(key);
+        byte[] k=keyEncoder.encode();
+        valueEncoder.setRow(value);
+        byte[] v=valueEncoder.encode();
+        out.writeInt(k.length);
+        out.write(k);
+        out.writeInt(v.length);
+        out.write(v);
+        rows++;
+        bytes+=2*Integer.BYTES+k.length+v.length;
+    }
+
+    /**
+     * Finish writing this file, releasing the output stream.
+     */
+    @Override
+    public void close() throws IOException{
+        if(out==null) return;
+        try{
+            out.close();
+        }finally{
+            out=null;
+            keyEncoder.close();
+            valueEncoder.close();
+        }
+    }
+
+    Reader open() throws IOException{
+        close();
+        return new Reader();
+    }
+
+    void delete(){
+        try{
+            close();
+        }catch(IOException ignored){
+            //we are throwing the file away anyway
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    long getRowCount(){ return rows; }
+
+    long getBytesWritten(){ return bytes; }
+
+    /**
+     * Reads the pairs back in the order in which they were written. Every call to {@link #next()}
+     * decodes into new rows, so callers may hold on to the rows which are returned.
+     */
+    class Reader implements Closeable{
+        private final DataInputStream in;
+        private final KeyHashDecoder keyDecoder;
+        private final KeyHashDecoder valueDecoder;
+        private byte[] buffer=new byte[256];
+        private ExecRow key;
+        private ExecRow value;
+
+        private Reader() throws IOException{
+            this.in=new DataInputStream(new BufferedInputStream(new FileInputStream(file),BUFFER_SIZE));
+            this.keyDecoder=decoder(keyTemplate);
+            this.valueDecoder=decoder(valueTemplate);
+        }
+
+        /**
+         * @return true if another pair was read, false if the end of the file has been reached
+         */
+        boolean next() throws IOException, StandardException{
+            int keyLength;
+            try{
+                keyLength=in.readInt();
+            }catch(EOFException eof){
+                key=value=null;
+                return false;
+            }
+            key=read(keyLength,keyDecoder,keyTemplate);
+            value=read(in.readInt(),valueDecoder,valueTemplate);
+            return true;
+        }
+
+        ExecRow key(){ return key; }
+
+        ExecRow value(){ return value; }
+
+        @Override
+        public void close() throws IOException{
+            try{
+                in.close();
+            }finally{
+                keyDecoder.close();
+                valueDecoder.close();
+            }
+        }
+
+        private ExecRow read(int length,KeyHashDecoder decoder,ExecRow template) throws IOException, StandardException{
+            if(buffer.length<length)
+                buffer=new byte[Math.max(length,2*buffer.length)];
+            in.readFully(buffer,0,length);
+            ExecRow row=template.getNewNullRow();
+            decoder.set(buffer,0,length);
+            decoder.decode(row);
+            return row;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static DataHash<ExecRow> encoder(ExecRow template){
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(true).getSerializers(template);
+        return new EntryDataHash(IntArrays.count(template.nColumns()),null,serializers);
+    }
+
+    private static KeyHashDecoder decoder(ExecRow template){
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(true).getSerializers(template);
+        return new EntryDataDecoder(IntArrays.count(template.nColumns()),null,serializers);
+    }
+}
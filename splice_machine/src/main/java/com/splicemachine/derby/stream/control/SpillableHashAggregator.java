@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.pipeline.Exceptions;
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash aggregation of (key,value) pairs for the control-side data sets, which partitions its
+ * input to disk when it exceeds its memory budget.
+ *
+ * Aggregates are held in an open-addressing hash table (parallel arrays, so there is no per-entry
+ * object beyond the key and the aggregate itself). While the table fits in the memory budget, this is a
+ * plain in-memory hash aggregation. Once the budget is exceeded, every partial aggregate in the table is
+ * written to one of {@link #NUM_PARTITIONS} spill files (chosen by the hash of its key), the table is
+ * cleared, and aggregation continues. When the input is exhausted the partitions are aggregated one
+ * at a time, so that all the partial aggregates for a given key are combined. A partition which is itself
+ * too large is partitioned again using different hash bits, up to {@link #MAX_LEVEL} times.
+ *
+ * Two kinds of aggregation are supported:
+ * <ul>
+ *     <li>{@link #reducer(SpliceFunction2, OperationContext)}: combines all the values for a key with a
+ *     reduce function (e.g. the merge functions for {@code SpliceGenericAggregator} state). Partial results
+ *     are combined with the same function, so it must be associative.</li>
+ *     <li>{@link #grouper(OperationContext)}: collects all the values for a key.</li>
+ * </ul>
+ *
+ * Spilling is only possible when both keys and values are {@link ExecRow}s; other pairs are always
+ * aggregated in memory.
+ */
+public abstract class SpillableHashAggregator<K,V,A>{
+    private static final Logger LOG=Logger.getLogger(SpillableHashAggregator.class);
+    static final int NUM_PARTITIONS=16;
+    static final int MAX_LEVEL=3;
+    /*
+     * Rough heap cost of an entry, excluding the column values (the slot arrays, plus the key
+     * and aggregate objects themselves).
+     */
+    private static final int ENTRY_OVERHEAD=96;
+
+    private final long memoryBudget;
+    private final File spillDirectory;
+    protected final OperationContext<?> operationContext;
+
+    private long spillCount;
+    private long spilledBytes;
+    private long peakMemoryUsage;
+
+    protected SpillableHashAggregator(long memoryBudget,File spillDirectory,OperationContext<?> operationContext){
+        this.memoryBudget=memoryBudget;
+        this.spillDirectory=spillDirectory;
+        this.operationContext=operationContext;
+    }
+
+    public static <K,V> SpillableHashAggregator<K,V,V> reducer(SpliceFunction2<?,V,V,V> function,OperationContext<?> operationContext){
+        return reducer(function,ControlUtils.memoryBudget(),ControlUtils.spillDirectory(),operationContext);
+    }
+
+    public static <K,V> SpillableHashAggregator<K,V,V> reducer(SpliceFunction2<?,V,V,V> function,long memoryBudget,File spillDirectory,OperationContext<?> operationContext){
+        return new Reducer<>(function,memoryBudget,spillDirectory,operationContext);
+    }
+
+    public static <K,V> SpillableHashAggregator<K,V,Iterable<V>> grouper(OperationContext<?> operationContext){
+        return grouper(ControlUtils.memoryBudget(),ControlUtils.spillDirectory(),operationContext);
+    }
+
+    public static <K,V> SpillableHashAggregator<K,V,Iterable<V>> grouper(long memoryBudget,File spillDirectory,OperationContext<?> operationContext){
+        return new Grouper<>(memoryBudget,spillDirectory,operationContext);
+    }
+
+    /**
+     * Aggregate all of the pairs in {@code source}.
+     *
+     * @return an iterator over one (key,aggregate) pair for each distinct key, in no particular order. Spilled
+     * partitions are aggregated lazily as the iterator advances, and removed once they have been consumed.
+     */
+    public Iterator<Tuple2<K,A>> aggregate(Iterator<Tuple2<K,V>> source) throws StandardException{
+        return aggregate(source,0);
+    }
+
+    /**
+     * @return the number of partition files which have been written to disk
+     */
+    public long getSpillCount(){
+        return spillCount;
+    }
+
+    /**
+     * @return the number of bytes which have been written to disk
+     */
+    public long getSpilledBytes(){
+        return spilledBytes;
+    }
+
+    /**
+     * @return the largest estimated size of the in-memory hash table
+     */
+    public long getPeakMemoryUsage(){
+        return peakMemoryUsage;
+    }
+
+    /**
+     * Fold {@code value} into {@code aggregate}.
+     *
+     * @param aggregate the aggregate for the key so far, or {@code null} if this is the first value for the key
+     * @return the new aggregate for the key
+     */
+    protected abstract A accumulate(A aggregate,V value) throws Exception;
+
+    /**
+     * @return the values which must be written out in order to reconstruct {@code aggregate} later
+     */
+    protected abstract Iterable<V> spillValues(A aggregate);
+
+    /**
+     * @return the estimated number of heap bytes which are retained when {@code value} is accumulated
+     */
+    protected abstract long retainedSize(V value,boolean newKey);
+
+    /**
+     * @return a copy of {@code key} which is safe to retain in the table
+     */
+    protected K copyKey(K key){
+        return key;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private Iterator<Tuple2<K,A>> aggregate(Iterator<Tuple2<K,V>> source,int level) throws StandardException{
+        Table table=new Table();
+        Partitions partitions=null;
+        boolean spillable=level<MAX_LEVEL;
+        long tableSize=0L;
+        try{
+            while(source.hasNext()){
+                Tuple2<K,V> next=source.next();
+                K key=next._1();
+                V value=next._2();
+                int hash=hash(key);
+                int pos=table.find(key,hash);
+                boolean newKey=table.keys[pos]==null;
+                if(newKey){
+                    table.insert(pos,copyKey(key),hash,accumulate(null,value));
+                    tableSize+=ENTRY_OVERHEAD+sizeOf(key);
+                }else{
+                    table.values[pos]=accumulate(table.valueAt(pos),value);
+                }
+                if(!spillable) continue;
+                if(!(key instanceof ExecRow) || !(value instanceof ExecRow)){
+                    spillable=false;
+                    continue;
+                }
+                tableSize+=retainedSize(value,newKey);
+                if(tableSize>=memoryBudget){
+                    recordMemoryUsage(tableSize);
+                    if(partitions==null)
+                        partitions=new Partitions(level,(ExecRow)key,(ExecRow)value);
+                    partitions.spill(table);
+                    tableSize=0L;
+                    /*
+                     * Allocate a new table rather than clearing the old one, so that
+                     * the slot arrays shrink back down as well.
+                     */
+                    table=new Table();
+                }
+            }
+            recordMemoryUsage(tableSize);
+            if(partitions==null)
+                return table.iterator();
+            if(table.size>0)
+                partitions.spill(table);
+            return partitions.finish();
+        }catch(StandardException|RuntimeException e){
+            cleanup(partitions);
+            throw e;
+        }catch(Exception e){
+            cleanup(partitions);
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    private void cleanup(Partitions partitions){
+        if(partitions!=null)
+            partitions.delete();
+    }
+
+    private void recordMemoryUsage(long bytes){
+        if(bytes>peakMemoryUsage)
+            peakMemoryUsage=bytes;
+        if(operationContext!=null)
+            operationContext.recordMemoryUsage(bytes);
+    }
+
+    private void recordSpill(SpillFile file){
+        spillCount++;
+        spilledBytes+=file.getBytesWritten();
+        if(operationContext!=null)
+            operationContext.recordSpill(file.getBytesWritten());
+    }
+
+    private static long sizeOf(Object o){
+        return o instanceof ExecRow?ControlUtils.estimateMemoryUsage((ExecRow)o):0L;
+    }
+
+    private static int hash(Object key){
+        int h=key.hashCode();
+        //spread the bits, since the slot is taken from the low bits of the hash
+        h^=(h>>>16);
+        h*=0x85ebca6b;
+        h^=(h>>>13);
+        return h;
+    }
+
+    private static int partition(int hash,int level){
+        //each level uses a different group of bits, so that a partition can be split again
+        return (hash>>>(32-4*(level+1))) & (NUM_PARTITIONS-1);
+    }
+
+    /**
+     * Open-addressing (linear probing) hash table from keys to aggregates.
+     */
+    private final class Table{
+        private int[] hashes;
+        private Object[] keys;
+        private Object[] values;
+        private int size;
+        private int mask;
+        private int resizeThreshold;
+
+        Table(){
+            allocate(64);
+        }
+
+        /**
+         * @return the slot holding {@code key}, or the empty slot where it belongs
+         */
+        int find(Object key,int hash){
+            int pos=hash & mask;
+            while(keys[pos]!=null){
+                if(hashes[pos]==hash && keys[pos].equals(key))
+                    return pos;
+                pos=(pos+1) & mask;
+            }
+            return pos;
+        }
+
+        void insert(int pos,K key,int hash,A value){
+            hashes[pos]=hash;
+            keys[pos]=key;
+            values[pos]=value;
+            size++;
+            if(size>=resizeThreshold)
+                resize();
+        }
+
+        @SuppressWarnings("unchecked")
+        K keyAt(int pos){
+            return (K)keys[pos];
+        }
+
+        @SuppressWarnings("unchecked")
+        A valueAt(int pos){
+            return (A)values[pos];
+        }
+
+        Iterator<Tuple2<K,A>> iterator(){
+            return new Iterator<Tuple2<K,A>>(){
+                private int pos=nextSlot(0);
+
+                @Override
+                public boolean hasNext(){
+                    return pos<keys.length;
+                }
+
+                @Override
+                public Tuple2<K,A> next(){
+                    if(!hasNext()) throw new NoSuchElementException();
+                    Tuple2<K,A> next=new Tuple2<>(keyAt(pos),valueAt(pos));
+                    pos=nextSlot(pos+1);
+                    return next;
+                }
+
+                @Override
+                public void remove(){
+                    throw new UnsupportedOperationException("Not Implemented");
+                }
+            };
+        }
+
+        private int nextSlot(int from){
+            int p=from;
+            while(p<keys.length && keys[p]==null)
+                p++;
+            return p;
+        }
+
+        private void allocate(int numSlots){
+            hashes=new int[numSlots];
+            keys=new Object[numSlots];
+            values=new Object[numSlots];
+            mask=numSlots-1;
+            resizeThreshold=(int)(0.75f*numSlots);
+        }
+
+        private void resize(){
+            int[] oldHashes=hashes;
+            Object[] oldKeys=keys;
+            Object[] oldValues=values;
+            allocate(2*oldKeys.length);
+            for(int i=0;i<oldKeys.length;i++){
+                if(oldKeys[i]==null) continue;
+                int pos=oldHashes[i] & mask;
+                while(keys[pos]!=null)
+                    pos=(pos+1) & mask;
+                hashes[pos]=oldHashes[i];
+                keys[pos]=oldKeys[i];
+                values[pos]=oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * The spill files for a single level of partitioning.
+     */
+    private final class Partitions{
+        private final int level;
+        private final ExecRow keyTemplate;
+        private final ExecRow valueTemplate;
+        private final SpillFile[] files=new SpillFile[NUM_PARTITIONS];
+
+        Partitions(int level,ExecRow keyTemplate,ExecRow valueTemplate) throws StandardException{
+            this.level=level;
+            this.keyTemplate=keyTemplate.getNewNullRow();
+            this.valueTemplate=valueTemplate.getNewNullRow();
+        }
+
+        void spill(Table table) throws IOException, StandardException{
+            for(int i=0;i<table.keys.length;i++){
+                if(table.keys[i]==null) continue;
+                int p=partition(table.hashes[i],level);
+                if(files[p]==null)
+                    files[p]=SpillFile.create(spillDirectory,"aggregate",keyTemplate,valueTemplate);
+                ExecRow key=(ExecRow)table.keys[i];
+                for(V value:spillValues(table.valueAt(i))){
+                    files[p].write(key,(ExecRow)value);
+                }
+            }
+            if(LOG.isDebugEnabled())
+                LOG.debug(String.format("Spilled %d aggregates to disk at level %d",table.size,level));
+        }
+
+        Iterator<Tuple2<K,A>> finish() throws IOException{
+            List<SpillFile> written=new ArrayList<>(NUM_PARTITIONS);
+            for(SpillFile file:files){
+                if(file==null) continue;
+                file.close();
+                recordSpill(file);
+                written.add(file);
+            }
+            return new PartitionIterator(written,level+1);
+        }
+
+        void delete(){
+            for(SpillFile file:files){
+                if(file!=null)
+                    file.delete();
+            }
+        }
+    }
+
+    /**
+     * Aggregates each spilled partition in turn.
+     */
+    private final class PartitionIterator implements Iterator<Tuple2<K,A>>{
+        private final List<SpillFile> partitions;
+        private final int level;
+        private int next;
+        private Iterator<Tuple2<K,A>> current=Collections.emptyIterator();
+
+        PartitionIterator(List<SpillFile> partitions,int level){
+            this.partitions=partitions;
+            this.level=level;
+        }
+
+        @Override
+        public boolean hasNext(){
+            while(!current.hasNext()){
+                if(next>0)
+                    partitions.get(next-1).delete();
+                if(next>=partitions.size())
+                    return false;
+                current=aggregatePartition(partitions.get(next++));
+            }
+            return true;
+        }
+
+        @Override
+        public Tuple2<K,A> next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException("Not Implemented");
+        }
+
+        private Iterator<Tuple2<K,A>> aggregatePartition(SpillFile partition){
+            try(SpillFile.Reader reader=partition.open()){
+                return aggregate(new SpillIterator(reader),level);
+            }catch(IOException|StandardException e){
+                for(SpillFile file:partitions.subList(next-1,partitions.size())){
+                    file.delete();
+                }
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Feeds the contents of a spill file back in as (key,value) pairs.
+     */
+    private final class SpillIterator implements Iterator<Tuple2<K,V>>{
+        private final SpillFile.Reader reader;
+        private Tuple2<K,V> next;
+
+        SpillIterator(SpillFile.Reader reader){
+            this.reader=reader;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext(){
+            if(next!=null) return true;
+            try{
+                if(!reader.next()) return false;
+            }catch(IOException|StandardException e){
+                throw new RuntimeException(e);
+            }
+            next=new Tuple2<>((K)reader.key(),(V)reader.value());
+            return true;
+        }
+
+        @Override
+        public Tuple2<K,V> next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            Tuple2<K,V> n=next;
+            next=null;
+            return n;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException("Not Implemented");
+        }
+    }
+
+    private static final class Reducer<K,V> extends SpillableHashAggregator<K,V,V>{
+        private final SpliceFunction2<?,V,V,V> function;
+
+        Reducer(SpliceFunction2<?,V,V,V> function,long memoryBudget,File spillDirectory,OperationContext<?> operationContext){
+            super(memoryBudget,spillDirectory,operationContext);
+            this.function=function;
+        }
+
+        @Override
+        protected V accumulate(V aggregate,V value) throws Exception{
+            return function.call(aggregate,value);
+        }
+
+        @Override
+        protected Iterable<V> spillValues(V aggregate){
+            return Collections.singletonList(aggregate);
+        }
+
+        @Override
+        protected long retainedSize(V value,boolean newKey){
+            //merging into an existing aggregate does not retain the value
+            return newKey?sizeOf(value):0L;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected K copyKey(K key){
+            //the source may reuse its key rows
+            return key instanceof ExecRow?(K)((ExecRow)key).getClone():key;
+        }
+    }
+
+    private static final class Grouper<K,V> extends SpillableHashAggregator<K,V,Iterable<V>>{
+
+        Grouper(long memoryBudget,File spillDirectory,OperationContext<?> operationContext){
+            super(memoryBudget,spillDirectory,operationContext);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Iterable<V> accumulate(Iterable<V> aggregate,V value){
+            List<V> values=aggregate==null?new ArrayList<V>(2):(List<V>)aggregate;
+            values.add(value);
+            return values;
+        }
+
+        @Override
+        protected Iterable<V> spillValues(Iterable<V> aggregate){
+            return aggregate;
+        }
+
+        @Override
+        protected long retainedSize(V value,boolean newKey){
+            return Long.BYTES+sizeOf(value);
+        }
+    }
+}
@@ -127,10 +127,69 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
 
     @SuppressFBWarnings(value = "REC_CATCH_EXCEPTION",justification = "Intentional")
     public ExecRow call(List<String> values,BooleanList quotedColumns) throws Exception {
+        if (calendar == null)
+            calendar = new GregorianCalendar();
         return getRow(values, quotedColumns, operationContext, execRow, calendar, timeFormat,
                 dateTimeFormat, timestampFormat);
     }
 
+    /**
+     * Same as {@link #call(List, BooleanList)}, for a line tokenized by a {@link CSVLineParser}. Integer and decimal
+     * columns are parsed straight from the parser, without going through a String.
+     */
+    @SuppressFBWarnings(value = "REC_CATCH_EXCEPTION",justification = "Intentional")
+    public ExecRow call(CSVLineParser parser) throws Exception {
+        int columnID = 0;
+        String columnValue = null;
+        boolean columnnumbermistmatch = false;
+
+        if (operationContext != null)
+            operationContext.recordRead();
+        if (calendar == null)
+            calendar = new GregorianCalendar();
+
+        try {
+            ExecRow returnRow = execRow.getClone();
+            if (parser.size() < returnRow.nColumns()) {
+                columnnumbermistmatch = true;
+                throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, returnRow.nColumns(), parser.size());
+            }
+
+            DataTypeDescriptor[] dataTypeDescriptors = getResultColumnTypes(operationContext);
+            boolean convertTimestamps = convertTimestamps(operationContext);
+
+            for (int i = 1; i <= returnRow.nColumns(); i++) {
+                DataValueDescriptor dvd = returnRow.getColumn(i);
+                columnID = i;
+                columnValue = null;
+                if (parser.isNull(i - 1)) {
+                    dvd.setToNull();
+                    continue;
+                }
+                if (setNumericColumn(dvd, parser, i - 1))
+                    continue;
+
+                String value = parser.getString(i - 1);
+                columnValue = value;
+                setColumn(dvd, value, calendar, timeFormat, dateTimeFormat, timestampFormat, convertTimestamps,
+                        dataTypeDescriptors == null ? null : dataTypeDescriptors[i-1]);
+            }
+            return returnRow;
+        } catch (Exception e) {
+            if (operationContext != null && operationContext.isPermissive()) {
+                List<String> values = parser.getValues();
+                String extendedMessage;
+                if (columnnumbermistmatch)
+                    extendedMessage = " row Data: " + values;
+                else
+                    extendedMessage = " [Columns in Table: " + execRow.nColumns() + "] [Columns in File: " + parser.size() + "] [Bad Column ID: " + columnID + "] "+ "[Bad Column Value: " + columnValue + "]" + " row Data: " + values;
+                operationContext.recordBadRecord(e.getLocalizedMessage() + extendedMessage, e);
+                return null;
+            }
+            throw e; // Not Permissive of errors
+        }
+    }
+
 
     public static ExecRow getRow(List<String> values,BooleanList quotedColumns,
                                  OperationContext operationContext, ExecRow execRow,
@@ -145,6 +204,8 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
 
         if (operationContext != null)
             operationContext.recordRead();
+        if (calendar == null)
+            calendar = new GregorianCalendar();
 
         try {
             ExecRow returnRow = execRow.getClone();
@@ -157,74 +218,21 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
                 throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, returnRow.nColumns(), values.size());
             }
 
-            DataTypeDescriptor[] dataTypeDescriptors = null;
-            if (operationContext != null && operationContext.getOperation() instanceof VTIOperation) {
-                VTIOperation op = (VTIOperation) operationContext.getOperation();
-                dataTypeDescriptors = op.getResultColumnTypes();
-
-                if (op.isConvertTimestampsEnabled() &&
-                    op.getActivation().getResultSet() != null &&
-                    op.getActivation().getResultSet() instanceof InsertOperation) {
-
-                    InsertOperation insOp = (InsertOperation)op.getActivation().getResultSet();
-                    String tableVersion = insOp.getTableVersion();
-                    if (tableVersion.equals("2.0"))
-                        convertTimestamps = true;
-                }
-            }
+            DataTypeDescriptor[] dataTypeDescriptors = getResultColumnTypes(operationContext);
+            convertTimestamps = convertTimestamps(operationContext);
 
             numofColumnsinTable = returnRow.nColumns();
             numofColumnsinFile = values.size();
             for (int i = 1; i <= returnRow.nColumns(); i++) {
                 DataValueDescriptor dvd = returnRow.getColumn(i);
                 columnID = i;
-                int type = dvd.getTypeFormatId();
 
                 String value = values.get(i - 1);
                 if (shouldBeNull(value,quotedColumns.valueAt(i-1)))
                     value = null;
                 columnValue = value;
-                switch(type){
-                    case StoredFormatIds.SQL_TIME_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (timeFormat == null || value==null){
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        }else
-                            dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
-                        break;
-                    case StoredFormatIds.SQL_DATE_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (dateTimeFormat == null || value == null)
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        else
-                            dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
-                        break;
-                    case StoredFormatIds.SQL_TIMESTAMP_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (timestampFormat == null || value==null)
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        else {
-                            Timestamp ts = SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat);
-                            if (convertTimestamps)
-                                ts = SQLTimestamp.convertTimeStamp(ts);
-                            dvd.setValue(ts, calendar);
-                        }
-                        break;
-                    case StoredFormatIds.SQL_CHAR_ID:
-                    case StoredFormatIds.SQL_VARCHAR_ID:
-                    case StoredFormatIds.SQL_CLOB_ID:
-                        dvd.setValue(value);
-                        //normalize the char type
-                        if(dataTypeDescriptors != null && !dvd.isNull()){
-                            dvd.normalize(dataTypeDescriptors[i-1], dvd);
-                        }
-                        break;
-                    default:
-                        dvd.setValue(value);
-                }
+                setColumn(dvd, value, calendar, timeFormat, dateTimeFormat, timestampFormat, convertTimestamps,
+                        dataTypeDescriptors == null ? null : dataTypeDescriptors[i-1]);
             }
             return returnRow;
         } catch (Exception e) {
@@ -254,6 +262,114 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    private static void setColumn(DataValueDescriptor dvd, String value, Calendar calendar, String timeFormat,
+                                  String dateTimeFormat, String timestampFormat, boolean convertTimestamps,
+                                  DataTypeDescriptor dataTypeDescriptor) throws StandardException {
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TIME_ID:
+                if (timeFormat == null || value==null){
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                }else
+                    dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
+                break;
+            case StoredFormatIds.SQL_DATE_ID:
+                if (dateTimeFormat == null || value == null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else
+                    dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
+                break;
+            case StoredFormatIds.SQL_TIMESTAMP_ID:
+                if (timestampFormat == null || value==null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else {
+                    Timestamp ts = SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat);
+                    if (convertTimestamps)
+                        ts = SQLTimestamp.convertTimeStamp(ts);
+                    dvd.setValue(ts, calendar);
+                }
+                break;
+            case StoredFormatIds.SQL_CHAR_ID:
+            case StoredFormatIds.SQL_VARCHAR_ID:
+            case StoredFormatIds.SQL_CLOB_ID:
+                dvd.setValue(value);
+                //normalize the char type
+                if(dataTypeDescriptor != null && !dvd.isNull()){
+                    dvd.normalize(dataTypeDescriptor, dvd);
+                }
+                break;
+            default:
+                dvd.setValue(value);
+        }
+    }
+
+    /**
+     * Sets an integer or decimal column straight from the parser.
+     *
+     * @return false if the column is of another type, or does not hold a plain number within the range of the
+     * type, in which case it is left to the String conversion of the type to convert it or raise the error.
+     */
+    private static boolean setNumericColumn(DataValueDescriptor dvd, CSVLineParser parser, int column) throws StandardException {
+        long min;
+        long max;
+        switch (dvd.getTypeFormatId()) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+                min = Byte.MIN_VALUE;
+                max = Byte.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_SMALLINT_ID:
+                min = Short.MIN_VALUE;
+                max = Short.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_INTEGER_ID:
+                min = Integer.MIN_VALUE;
+                max = Integer.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_LONGINT_ID:
+                min = Long.MIN_VALUE;
+                max = Long.MAX_VALUE;
+                break;
+            case StoredFormatIds.SQL_DECIMAL_ID:
+                try {
+                    dvd.setBigDecimal(parser.getBigDecimal(column));
+                    return true;
+                } catch (NumberFormatException nfe) {
+                    return false;
+                }
+            default:
+                return false;
+        }
+        long value;
+        try {
+            value = parser.getLong(column);
+        } catch (NumberFormatException nfe) {
+            return false;
+        }
+        if (value < min || value > max)
+            return false;
+        dvd.setValue(value);
+        return true;
+    }
+
+    private static DataTypeDescriptor[] getResultColumnTypes(OperationContext operationContext) {
+        if (operationContext != null && operationContext.getOperation() instanceof VTIOperation)
+            return ((VTIOperation) operationContext.getOperation()).getResultColumnTypes();
+        return null;
+    }
+
+    private static boolean convertTimestamps(OperationContext operationContext) {
+        if (operationContext == null || !(operationContext.getOperation() instanceof VTIOperation))
+            return false;
+        VTIOperation op = (VTIOperation) operationContext.getOperation();
+        if (op.isConvertTimestampsEnabled() &&
+            op.getActivation().getResultSet() != null &&
+            op.getActivation().getResultSet() instanceof InsertOperation) {
+
+            InsertOperation insOp = (InsertOperation)op.getActivation().getResultSet();
+            return insOp.getTableVersion().equals("2.0");
+        }
+        return false;
+    }
+
     @SuppressWarnings("SimplifiableIfStatement") //the logic is clearer this way, without a performance penalty
     private static boolean shouldBeNull(String value,boolean wasQuoted){
         if(value==null) return true;
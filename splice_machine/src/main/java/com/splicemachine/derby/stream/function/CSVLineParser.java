@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import org.supercsv.exception.SuperCsvException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokenizes single-line CSV records in place, for imports of files with one line records.
+ *
+ * The columns of a line are unquoted into one character buffer which is reused from line to line, and are only
+ * turned into Strings when asked for, so that numeric columns can be parsed straight from the buffer. Quoting
+ * follows {@link QuoteTrackingTokenizer} with surrounding spaces kept: a quote character starts and ends a quoted
+ * section, two quote characters in a quoted section are an escaped quote, and empty columns are null. An unquoted
+ * column reading {@code null} in any case is null too.
+ */
+public class CSVLineParser {
+    private final char quoteChar;
+    private final char delimiterChar;
+    private final int maxLinesPerRow;
+
+    private char[] line = new char[256];
+    /* the unquoted columns, one after the other. Column i is values[offsets[i]..offsets[i+1]) */
+    private char[] values = new char[256];
+    private int[] offsets = new int[17];
+    private boolean[] quoted = new boolean[16];
+    private int size;
+
+    public CSVLineParser(char quoteChar, char delimiterChar, int maxLinesPerRow) {
+        this.quoteChar = quoteChar;
+        this.delimiterChar = delimiterChar;
+        this.maxLinesPerRow = maxLinesPerRow;
+    }
+
+    /**
+     * Tokenizes a line, replacing the columns of the previous one.
+     *
+     * @return false if the line is empty, in which case it has no columns
+     * @throws SuperCsvException if a quoted column is not closed on the line
+     */
+    public boolean parse(String s) {
+        size = 0;
+        int length = s.length();
+        if (length == 0)
+            return false;
+        if (line.length < length) {
+            line = new char[Math.max(length, line.length << 1)];
+            values = new char[line.length];
+        }
+        s.getChars(0, length, line, 0);
+
+        int position = 0;
+        boolean inQuotes = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < length; i++) {
+            char c = line[i];
+            if (inQuotes) {
+                if (c != quoteChar) {
+                    values[position++] = c;
+                } else if (i + 1 < length && line[i + 1] == quoteChar) {
+                    // an escaped quote
+                    values[position++] = c;
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == delimiterChar) {
+                endColumn(position, wasQuoted);
+                wasQuoted = false;
+            } else if (c == quoteChar) {
+                inQuotes = wasQuoted = true;
+            } else {
+                values[position++] = c;
+            }
+        }
+        if (inQuotes) {
+            if (maxLinesPerRow == 1)
+                throw new SuperCsvException("unexpected end of line while reading quoted column");
+            throw new SuperCsvException(String.format("partial record found [%s\n] while reading quoted column",
+                    new String(values, offsets[size], position - offsets[size])));
+        }
+        endColumn(position, wasQuoted);
+        return true;
+    }
+
+    /**
+     * @return the number of columns of the line
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isQuoted(int i) {
+        return quoted[i];
+    }
+
+    /**
+     * @return true if the column is empty, or is an unquoted {@code null}
+     */
+    public boolean isNull(int i) {
+        int start = offsets[i];
+        int length = offsets[i + 1] - start;
+        if (length == 0)
+            return true;
+        if (quoted[i] || length != 4)
+            return false;
+        return (values[start] == 'n' || values[start] == 'N')
+                && (values[start + 1] == 'u' || values[start + 1] == 'U')
+                && (values[start + 2] == 'l' || values[start + 2] == 'L')
+                && (values[start + 3] == 'l' || values[start + 3] == 'L');
+    }
+
+    /**
+     * @return the column, or {@code null} if it is null
+     */
+    public String getString(int i) {
+        if (isNull(i))
+            return null;
+        return new String(values, offsets[i], offsets[i + 1] - offsets[i]);
+    }
+
+    /**
+     * Parses a column holding an integer of at most 18 digits, with an optional sign and surrounding white space.
+     *
+     * @throws NumberFormatException if the column holds anything else
+     */
+    public long getLong(int i) {
+        int start = offsets[i];
+        int end = offsets[i + 1];
+        while (start < end && values[start] <= ' ')
+            start++;
+        while (end > start && values[end - 1] <= ' ')
+            end--;
+        boolean negative = false;
+        if (start < end && (values[start] == '-' || values[start] == '+')) {
+            negative = values[start] == '-';
+            start++;
+        }
+        if (start == end || end - start > 18)
+            throw new NumberFormatException();
+        long value = 0;
+        for (int p = start; p < end; p++) {
+            int digit = values[p] - '0';
+            if (digit < 0 || digit > 9)
+                throw new NumberFormatException();
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a column holding a decimal number, with surrounding white space.
+     *
+     * @throws NumberFormatException if the column holds anything else
+     */
+    public BigDecimal getBigDecimal(int i) {
+        int start = offsets[i];
+        int end = offsets[i + 1];
+        while (start < end && values[start] <= ' ')
+            start++;
+        while (end > start && values[end - 1] <= ' ')
+            end--;
+        return new BigDecimal(values, start, end - start);
+    }
+
+    /**
+     * @return the columns of the line as Strings, empty columns being {@code null}
+     */
+    public List<String> getValues() {
+        List<String> columns = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int length = offsets[i + 1] - offsets[i];
+            columns.add(length == 0 ? null : new String(values, offsets[i], length));
+        }
+        return columns;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void endColumn(int position, boolean wasQuoted) {
+        if (size == quoted.length) {
+            quoted = Arrays.copyOf(quoted, size << 1);
+            offsets = Arrays.copyOf(offsets, (size << 1) + 1);
+        }
+        quoted[size] = wasQuoted;
+        offsets[++size] = position;
+    }
+}
@@ -17,19 +17,16 @@ package com.splicemachine.derby.stream.function;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.stream.iapi.OperationContext;
-import com.splicemachine.derby.stream.utils.BooleanList;
 import org.apache.commons.collections.iterators.SingletonIterator;
 
 import javax.annotation.concurrent.NotThreadSafe;
-import java.io.*;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  *
- * Function for parsing CSV files that are splittable by Hadoop.  The tokenizer swaps in and out
- * the line to be tokenized.
+ * Function for parsing CSV files that are splittable by Hadoop.  Each line is tokenized in place by
+ * a {@link CSVLineParser}, which is reused from line to line.
  *
  * Special attention should be paid to permissive execution of the OperationContext.  This occurs
  * during imports so that failures are <i>handled</i>.
@@ -38,8 +35,7 @@ import java.util.List;
  */
 @NotThreadSafe
 public class FileFunction extends AbstractFileFunction<String> {
-    boolean initialized = false;
-    MutableCSVTokenizer tokenizer;
+    CSVLineParser parser;
     public FileFunction() {
         super();
     }
@@ -62,17 +58,14 @@ public class FileFunction extends AbstractFileFunction<String> {
     public Iterator<ExecRow> call(final String s) throws Exception {
         if (operationContext.isFailed())
             return Collections.<ExecRow>emptyList().iterator();
-        if (!initialized) {
-            Reader reader = new StringReader(s);
+        if (parser == null) {
             checkPreference();
-            tokenizer= new MutableCSVTokenizer(reader,preference);
-            initialized = true;
+            parser = new CSVLineParser((char) preference.getQuoteChar(), (char) preference.getDelimiterChar(),
+                    preference.getMaxLinesPerRow());
         }
         try {
-            tokenizer.setLine(s);
-            List<String> read=tokenizer.read();
-            BooleanList quotedColumns=tokenizer.getQuotedColumns();
-            ExecRow lr =  call(read,quotedColumns);
+            parser.parse(s);
+            ExecRow lr = call(parser);
             return lr==null?Collections.<ExecRow>emptyList().iterator():new SingletonIterator(lr);
         } catch (Exception e) {
             if (operationContext.isPermissive()) {
@@ -24,6 +24,8 @@ import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.db.shared.common.reference.SQLState;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.BatchedKeyLookup;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
 import com.splicemachine.derby.stream.iapi.IterableJoinFunction;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iterator.GetNLJoinIterator;
@@ -34,8 +36,11 @@ import org.apache.log4j.Logger;
 import org.apache.spark.TaskContext;
 import org.apache.spark.TaskKilledException;
 import org.apache.spark.util.TaskCompletionListener;
+import org.spark_project.guava.collect.Iterators;
+import org.spark_project.guava.collect.PeekingIterator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.*;
@@ -70,6 +75,14 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
     protected List<Future<Pair<OperationContext, Iterator<ExecRow>>>> futures;
     protected ArrayList<OperationContext> allContexts;
     protected TaskContext taskContext;
+    /*
+     * Set if the inner side is looked up by primary key, in which case the rows of the inner side are read for
+     * batchSize outer rows at a time, rather than scanned for each outer row
+     */
+    protected BatchedKeyLookup keyLookup;
+    protected OperationContext lookupContext;
+    protected List<Future<List<Pair<ExecRow, ExecRow>>>> lookupFutures;
+    protected Iterator<Pair<ExecRow, ExecRow>> lookupResults;
 
     protected ExecutorService executorService;
 
@@ -92,17 +105,49 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
         nLeftRows = 0;
         leftSideIterator = from;
         executorService = SIDriver.driver().getExecutorService();
+        allContexts = new ArrayList<>(batchSize + 1);
 
+        if (configuration.getNestedLoopJoinBatchedLookup() && initKeyLookup())
+            return;
         initOperationContexts();
         loadBatch();
     }
 
+    /**
+     * Set up the lookup of the inner side by primary key, if it is one.
+     *
+     * @return false if the inner side has to be scanned for each outer row
+     */
+    private boolean initKeyLookup() throws StandardException {
+        if (!leftSideIterator.hasNext())
+            return false;
+        PeekingIterator<ExecRow> peekingIterator = Iterators.peekingIterator(leftSideIterator);
+        leftSideIterator = peekingIterator;
+        try {
+            lookupContext = operationContext.getClone();
+        }
+        catch (Exception e) {
+            throw Exceptions.parseException(e);
+        }
+        allContexts.add(lookupContext);
+        // the key depends on the outer row
+        JoinOperation op = (JoinOperation) lookupContext.getOperation();
+        op.getLeftOperation().setCurrentRow(peekingIterator.peek().getClone());
+        keyLookup = BatchedKeyLookup.create(op.getRightOperation());
+        if (keyLookup == null)
+            return false;
+        lookupFutures = new ArrayList<>(2);
+        // look up the next batch while this one is joined
+        submitLookup();
+        submitLookup();
+        return true;
+    }
+
 
 
     private void initOperationContexts() throws StandardException {
         try {
             operationContextList = new ArrayList<>(batchSize);
-            allContexts = new ArrayList(batchSize);
             for (int i = 0; i < batchSize; ++i) {
                 OperationContext clone = operationContext.getClone();
                 operationContextList.add(clone);
@@ -130,6 +175,11 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
                 future.cancel(true);
             }
         }
+        if (lookupFutures != null) {
+            for (Future<List<Pair<ExecRow, ExecRow>>> future : lookupFutures) {
+                future.cancel(true);
+            }
+        }
         if (se != null)
             Exceptions.throwAsRuntime(se);
     }
@@ -170,6 +220,8 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
     public boolean hasNext() {
 
         try {
+            if (keyLookup != null)
+                return hasNextLookedUp();
             if (rightSideNLJIterator == null)
                 return false;
             while (true) {
@@ -190,23 +242,7 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
 
                     if (nLeftRows > 0) {
                         // If there are pending tasks, wait to get an iterator to righ side
-                        Future<Pair<OperationContext, Iterator<ExecRow>>> future = futures.remove(0);
-                        if (taskContext != null && taskContext.isInterrupted()) {
-                            LOG.warn("Task killed, raising exception!");
-                            throw new TaskKilledException();
-                        }
-                        Pair<OperationContext, Iterator<ExecRow>> result;
-                        while (true) {
-                            try {
-                                result = future.get(1, TimeUnit.SECONDS);
-                                break;
-                            } catch (TimeoutException e) {
-                                if (taskContext != null && taskContext.isInterrupted()) {
-                                    LOG.warn("Task killed, raising exception!");
-                                    throw new TaskKilledException();
-                                }
-                            }
-                        }
+                        Pair<OperationContext, Iterator<ExecRow>> result = waitFor(futures.remove(0));
                         nLeftRows--;
                         currentOperationContext = result.getFirst();
                         rightSideNLJIterator = result.getSecond();
@@ -288,6 +324,14 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
 
     @Override
     public ExecRow getRightRow() {
+        if (keyLookup != null) {
+            ExecRow row = rightSideNLJIterator.next();
+            SpliceOperation to = operationContext.getOperation().getRightOperation();
+            to.setCurrentRow(row);
+            if (row.getKey() != null)
+                to.setCurrentRowLocation(new HBaseRowLocation(row.getKey()));
+            return row;
+        }
         ExecRow row = rightSideNLJIterator.next();
         SpliceOperation from = currentOperationContext.getOperation().getRightOperation();
         SpliceOperation to = operationContext.getOperation().getRightOperation();
@@ -295,6 +339,91 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
         return row;
     }
 
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean hasNextLookedUp() throws Exception {
+        while (rightSideNLJIterator == null || !rightSideNLJIterator.hasNext()) {
+            if (lookupResults == null || !lookupResults.hasNext()) {
+                if (lookupFutures.isEmpty())
+                    return false;
+                lookupResults = waitFor(lookupFutures.remove(0)).iterator();
+                submitLookup();
+            }
+            // there is at most one inner row for each outer row, so semi joins and scalar subqueries need no checks
+            Pair<ExecRow, ExecRow> match = lookupResults.next();
+            leftRow = match.getFirst();
+            leftRowLocation = new HBaseRowLocation(leftRow.getKey());
+            operationContext.getOperation().getLeftOperation().setCurrentRow(getLeftLocatedRow());
+            operationContext.getOperation().getLeftOperation().setCurrentRowLocation(getLeftRowLocation());
+            rightSideNLJIterator = joinedRows(match.getSecond());
+        }
+        return true;
+    }
+
+    /**
+     * Compute the keys of the next batch of outer rows, and submit the lookup of their inner rows.
+     */
+    private void submitLookup() throws StandardException {
+        final List<ExecRow> outerRows = new ArrayList<>(batchSize);
+        final List<byte[]> keys = new ArrayList<>(batchSize);
+        JoinOperation op = (JoinOperation) lookupContext.getOperation();
+        while (outerRows.size() < batchSize && leftSideIterator.hasNext()) {
+            ExecRow outerRow = leftSideIterator.next().getClone();
+            op.getLeftOperation().setCurrentRow(outerRow);
+            outerRows.add(outerRow);
+            keys.add(keyLookup.lookupKey());
+        }
+        if (outerRows.isEmpty())
+            return;
+        lookupFutures.add(executorService.submit(() -> {
+            List<ExecRow> innerRows = keyLookup.lookup(keys);
+            List<Pair<ExecRow, ExecRow>> matches = new ArrayList<>(outerRows.size());
+            for (int i = 0; i < outerRows.size(); ++i) {
+                matches.add(new Pair<>(outerRows.get(i), innerRows.get(i)));
+            }
+            return matches;
+        }));
+    }
+
+    /**
+     * @param innerRow the inner row matching the current outer row, or {@code null} if there is none
+     * @return the inner rows to join to the current outer row, which depend on the type of join as in
+     * the {@link GetNLJoinIterator} implementations
+     */
+    private Iterator<ExecRow> joinedRows(ExecRow innerRow) throws StandardException {
+        switch (joinType) {
+            case LEFT_OUTER:
+                if (innerRow == null)
+                    innerRow = ((JoinOperation) operationContext.getOperation()).getEmptyRow();
+                return Collections.singletonList(innerRow).iterator();
+            case ANTI:
+                if (innerRow != null)
+                    return Collections.<ExecRow>emptyList().iterator();
+                return Collections.singletonList(((JoinOperation) operationContext.getOperation()).getEmptyRow()).iterator();
+            default:
+                if (innerRow == null)
+                    return Collections.<ExecRow>emptyList().iterator();
+                return Collections.singletonList(innerRow).iterator();
+        }
+    }
+
+    private <T> T waitFor(Future<T> future) throws Exception {
+        if (taskContext != null && taskContext.isInterrupted()) {
+            LOG.warn("Task killed, raising exception!");
+            throw new TaskKilledException();
+        }
+        while (true) {
+            try {
+                return future.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (taskContext != null && taskContext.isInterrupted()) {
+                    LOG.warn("Task killed, raising exception!");
+                    throw new TaskKilledException();
+                }
+            }
+        }
+    }
+
     private void setRightSideCurrentLocatedRow(SpliceOperation from, SpliceOperation to) {
         try {
             try {
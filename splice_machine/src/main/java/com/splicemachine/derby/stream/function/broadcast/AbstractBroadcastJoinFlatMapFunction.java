@@ -25,6 +25,7 @@ import com.splicemachine.derby.impl.sql.JoinTable;
 import com.splicemachine.derby.impl.sql.execute.operations.BroadcastJoinCache;
 import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.MultiProbeTableScanOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.RuntimeJoinFilter;
 import com.splicemachine.derby.stream.function.InnerJoinNullFilterFunction;
 import com.splicemachine.derby.stream.function.SpliceFlatMapFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
@@ -37,6 +38,7 @@ import org.spark_project.guava.base.Function;
 import org.spark_project.guava.collect.FluentIterable;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -98,41 +100,74 @@ public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends Spli
         init = true;
         joinTable = SIDriver.driver().getExecutorService().submit(() -> {
             operation = getOperation();
-            ControlExecutionLimiter limiter = operation.getActivation().getLanguageConnectionContext().getControlExecutionLimiter();
-            Callable<Stream<ExecRow>> rhsLoader = () -> {
-                DataSetProcessorFactory dataSetProcessorFactory=EngineDriver.driver().processorFactory();
-                SpliceOperation rightOperation = operation.getRightOperation();
-                final DataSetProcessor dsp =
-                        (rightOperation instanceof MultiProbeTableScanOperation &&
-                         rightOperation.getEstimatedRowCount() <
-                         operation.getActivation().getLanguageConnectionContext().
-                                                   getOptimizerFactory().getDetermineSparkRowThreshold()) ?
-                       dataSetProcessorFactory.localProcessor(getActivation(), rightOperation) :
-                       dataSetProcessorFactory.bulkProcessor(getActivation(), rightOperation);
-
-                return Streams.wrap(FluentIterable.from(() -> {
-                    try{
-                        operation.reset();
-                        DataSet<ExecRow> rightDataSet = operation.getRightOperation().getDataSet(dsp);
-                        if (operation.getRightHashKeys().length != 0)
-                            rightDataSet = rightDataSet.filter(new InnerJoinNullFilterFunction(operationContext,operation.getRightHashKeys()));
-                        return rightDataSet.toLocalIterator();
-                    }catch(StandardException e){
-                        throw new RuntimeException(e);
-                    }
-                }).transform(new Function<ExecRow, ExecRow>() {
-                    @Nullable
-                    @Override
-                    public ExecRow apply(@Nullable ExecRow locatedRow) {
-                        assert locatedRow!=null;
-                        limiter.addAccumulatedRows(1);
-                        operationContext.recordJoinedRight();
-                        return locatedRow;
-                    }
-                }));
-            };
+            Callable<Stream<ExecRow>> rhsLoader = rhsLoader(operation, operationContext, null);
             ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
             return broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
         });
     }
+
+    /**
+     * Loads the inner table of a join before the scan of its outer side is opened, so that a filter over the
+     * join keys of the inner rows can be pushed into that scan. The flat map functions of the join then find
+     * the table already loaded.
+     *
+     * @param outerColumns the position of each left hash key in the rows of the outer scan, or -1
+     * @return the filter over the keys read by the outer scan, or {@code null} if there is none
+     */
+    public static RuntimeJoinFilter preloadJoinTable(JoinOperation operation,
+                                                     OperationContext operationContext,
+                                                     int[] outerColumns) throws IOException, StandardException {
+        RuntimeJoinFilter.Builder filterBuilder = new RuntimeJoinFilter.Builder(operation.getRightHashKeys());
+        ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
+        broadcastJoinCache.preload(operation.getSequenceId(), rhsLoader(operation, operationContext, filterBuilder),
+                operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate);
+        return filterBuilder.build(outerColumns);
+    }
+
+    private static Callable<Stream<ExecRow>> rhsLoader(JoinOperation operation,
+                                                       OperationContext operationContext,
+                                                       RuntimeJoinFilter.Builder filterBuilder) {
+        ControlExecutionLimiter limiter = operation.getActivation().getLanguageConnectionContext().getControlExecutionLimiter();
+        return () -> {
+            if (filterBuilder != null)
+                filterBuilder.loadStarted();
+            DataSetProcessorFactory dataSetProcessorFactory=EngineDriver.driver().processorFactory();
+            SpliceOperation rightOperation = operation.getRightOperation();
+            final DataSetProcessor dsp =
+                    (rightOperation instanceof MultiProbeTableScanOperation &&
+                     rightOperation.getEstimatedRowCount() <
+                     operation.getActivation().getLanguageConnectionContext().
+                                               getOptimizerFactory().getDetermineSparkRowThreshold()) ?
+                   dataSetProcessorFactory.localProcessor(operationContext.getActivation(), rightOperation) :
+                   dataSetProcessorFactory.bulkProcessor(operationContext.getActivation(), rightOperation);
+
+            return Streams.wrap(FluentIterable.from(() -> {
+                try{
+                    operation.reset();
+                    DataSet<ExecRow> rightDataSet = operation.getRightOperation().getDataSet(dsp);
+                    if (operation.getRightHashKeys().length != 0)
+                        rightDataSet = rightDataSet.filter(new InnerJoinNullFilterFunction(operationContext,operation.getRightHashKeys()));
+                    return rightDataSet.toLocalIterator();
+                }catch(StandardException e){
+                    throw new RuntimeException(e);
+                }
+            }).transform(new Function<ExecRow, ExecRow>() {
+                @Nullable
+                @Override
+                public ExecRow apply(@Nullable ExecRow locatedRow) {
+                    assert locatedRow!=null;
+                    limiter.addAccumulatedRows(1);
+                    operationContext.recordJoinedRight();
+                    if (filterBuilder != null) {
+                        try {
+                            filterBuilder.add(locatedRow);
+                        } catch (StandardException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return locatedRow;
+                }
+            }));
+        };
+    }
 }
@@ -323,8 +323,9 @@ public interface DataSet<V> extends //Iterable<V>,
      *
      * @param template
      * @param conglomId
+     * @return the approximate number of bytes of memory used by the pinned table, or -1 if unknown
      */
-    void pin(ExecRow template, long conglomId) throws StandardException;
+    long pin(ExecRow template, long conglomId) throws StandardException;
 
 
     DataSet<V> sampleWithoutReplacement(final double fraction);
@@ -40,6 +40,21 @@ public interface OperationContext<Op extends SpliceOperation> extends Externaliz
     long getRetryAttempts();
     long getRegionTooBusyExceptions();
 
+    /**
+     * Record that {@code bytes} bytes of intermediate data were written to local disk because
+     * they did not fit within the operation's memory budget.
+     */
+    void recordSpill(long bytes);
+    long getSpillCount();
+    long getSpilledBytes();
+
+    /**
+     * Record the number of bytes which the operation currently holds on the heap; only the
+     * largest value is kept.
+     */
+    void recordMemoryUsage(long bytes);
+    long getPeakMemoryUsage();
+
     BadRecordsRecorder getBadRecordsRecorder();
 
     boolean isPermissive();
@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.stream.iterator;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.conn.ControlExecutionLimiter;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
@@ -21,6 +22,8 @@ import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatchQualifiers;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.function.IteratorUtils;
@@ -48,6 +51,9 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
     protected int[] baseColumnMap;
     protected boolean rowIdKey; // HACK Row ID Qualifiers point to the projection above them ?  TODO JL
     protected HBaseRowLocation hBaseRowLocation;
+    private ColumnBatch batch;
+    private ColumnBatchQualifiers batchQualifiers;
+    private int batchPosition;
 
     public TableScannerIterator(TableScannerBuilder siTableBuilder, SpliceOperation operation) throws StandardException {
         this.siTableBuilder = siTableBuilder;
@@ -75,6 +81,7 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
                 initialized = true;
                 tableScanner = siTableBuilder.build();
                 tableScanner.open();
+                initBatch();
                 if (operation!= null) {
                     operation.registerCloseable(new Closeable() {
                         @Override
@@ -89,6 +96,8 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
                     });
                 }
             }
+            if (batch != null)
+                return nextFromBatch();
             while (true) {
                 execRow = tableScanner.next();
                 if (execRow == null) {
@@ -108,6 +117,42 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
         }
     }
 
+    /**
+     * If a scan batch size is configured, qualified scans decode their rows a batch at a time, and evaluate the
+     * qualifiers over the whole batch.
+     */
+    private void initBatch() {
+        batch = null;
+        if (qualifiers == null || rowIdKey)
+            return;
+        EngineDriver driver = EngineDriver.driver();
+        int batchSize = driver == null ? 0 : driver.getConfiguration().getControlSideScanBatchSize();
+        if (batchSize <= 0)
+            return;
+        batch = tableScanner.newBatch(batchSize);
+        if (batch != null) {
+            batchQualifiers = new ColumnBatchQualifiers(qualifiers, baseColumnMap,
+                    siTableBuilder.getOptionalProbeValue(), siTableBuilder.getTemplate());
+            batchPosition = 0;
+        }
+    }
+
+    private boolean nextFromBatch() throws StandardException, IOException {
+        while (batchPosition >= batch.selectedCount()) {
+            if (tableScanner.nextBatch() == 0) {
+                tableScanner.close();
+                initialized = false;
+                hasNext = false;
+                return hasNext;
+            }
+            batchQualifiers.qualify(batch);
+            batchPosition = 0;
+        }
+        execRow = tableScanner.loadRow(batch.selection()[batchPosition++]);
+        hasNext = true;
+        return hasNext;
+    }
+
     @Override
     public ExecRow next() {
         slotted = false;
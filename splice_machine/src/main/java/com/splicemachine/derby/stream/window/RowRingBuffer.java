@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.window;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+
+/**
+ * The rows held by a frame buffer, in the order they were read.
+ *
+ * Rows are added at the end and removed from the front as the frame slides, both in constant time, and can be
+ * read by their position from the front. The buffer grows as needed, and keeps its capacity when cleared.
+ */
+public class RowRingBuffer {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private ExecRow[] rows;
+    private int head;
+    private int size;
+
+    public RowRingBuffer() {
+        this.rows = new ExecRow[DEFAULT_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public ExecRow get(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        return rows[(head + i) & (rows.length - 1)];
+    }
+
+    public void add(ExecRow row) {
+        if (size == rows.length)
+            grow();
+        rows[(head + size) & (rows.length - 1)] = row;
+        size++;
+    }
+
+    public ExecRow removeFirst() {
+        if (size == 0)
+            throw new IndexOutOfBoundsException("Buffer is empty");
+        ExecRow row = rows[head];
+        rows[head] = null;
+        head = (head + 1) & (rows.length - 1);
+        size--;
+        return row;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            rows[(head + i) & (rows.length - 1)] = null;
+        }
+        head = size = 0;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void grow() {
+        // the capacity is kept a power of two, so that positions wrap with a mask
+        ExecRow[] newRows = new ExecRow[rows.length << 1];
+        for (int i = 0; i < size; i++) {
+            newRows[i] = rows[(head + i) & (rows.length - 1)];
+        }
+        rows = newRows;
+        head = 0;
+    }
+}
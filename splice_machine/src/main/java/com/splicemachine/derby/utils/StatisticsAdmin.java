@@ -494,7 +494,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
                                                      TableDescriptor table,
                                                      TxnView txn) throws StandardException{
 
-        List<ColumnDescriptor> colsToCollect = getCollectedColumns(conn, table);
+        List<ColumnDescriptor> colsToCollect = getCollectedColumns(conn.getLanguageConnection(), table);
         ExecRow row = new ValueRow(colsToCollect.size());
   //      int[] execRowFormatIds = new int[colsToCollect.size()];
         BitSet accessedColumns = new BitSet(table.getMaxStorageColumnID());
@@ -644,12 +644,12 @@ public class StatisticsAdmin extends BaseAdminProcedures {
         }
     };
 
-    private static List<ColumnDescriptor> getCollectedColumns(EmbedConnection conn, TableDescriptor td) throws StandardException {
+    public static List<ColumnDescriptor> getCollectedColumns(LanguageConnectionContext lcc, TableDescriptor td) throws StandardException {
         ColumnDescriptorList columnDescriptorList = td.getColumnDescriptorList();
         List<ColumnDescriptor> toCollect = new ArrayList<>(columnDescriptorList.size());
 
         /* check the default collect stats behavior, whether to collect stats on all columns or just index columns */
-        String collectStatsMode = PropertyUtil.getServiceProperty(conn.getLanguageConnection().getTransactionCompile(),
+        String collectStatsMode = PropertyUtil.getServiceProperty(lcc.getTransactionCompile(),
                 Property.COLLECT_INDEX_STATS_ONLY);
         boolean collectIndexStatsOnly = Boolean.valueOf(collectStatsMode);
 
@@ -14,6 +14,7 @@
 
 package com.splicemachine.pipeline;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.impl.sql.execute.RowUtil;
@@ -34,6 +35,7 @@ import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLUtils;
 import com.splicemachine.derby.ddl.DDLWatcher;
 import com.splicemachine.derby.jdbc.SpliceTransactionResourceImpl;
+import com.splicemachine.derby.utils.StatisticsAdmin;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.constraint.ConstraintContext;
 import com.splicemachine.pipeline.constraint.PrimaryKeyConstraint;
@@ -74,6 +76,7 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
     private final FKWriteFactoryHolder fkGroup;
     private final ListWriteFactoryGroup indexFactories=new ListWriteFactoryGroup();
     private final WriteFactoryGroup ddlFactories=new SetWriteFactoryGroup();
+    private final ListWriteFactoryGroup statisticsFactories=new ListWriteFactoryGroup();
     private final DDLWatcher.DDLListener ddlListener;
 
     public DerbyContextFactoryLoader(long conglomId,
@@ -174,6 +177,11 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
         return ddlFactories;
     }
 
+    @Override
+    public WriteFactoryGroup getStatisticsFactories(){
+        return statisticsFactories;
+    }
+
     @Override
     public Set<ConstraintFactory> getConstraintFactories(){
         return constraintFactories;
@@ -330,6 +338,15 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
                     indexFactories.replace(indexFactory);
                 }
             }
+
+            // Keep the statistics of the base table up to date with the rows inserted into it
+            if(EngineDriver.driver().getConfiguration().getIncrementalStatisticsEnabled()){
+                List<ColumnDescriptor> collectedColumns=StatisticsAdmin.getCollectedColumns(lcc,td);
+                if(!collectedColumns.isEmpty()){
+                    DDLMessage.Table table=ProtoUtil.createTable(conglomId,td,lcc);
+                    statisticsFactories.replace(StatisticsFactory.create(table,collectedColumns));
+                }
+            }
         }
 
         // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.pipeline.context.PipelineWriteContext;
+import com.splicemachine.pipeline.contextfactory.LocalWriteFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Creates WriteHandlers that record the rows inserted into a base table in its incremental statistics.
+ */
+class StatisticsFactory implements LocalWriteFactory{
+    private long conglomId;
+    private DDLMessage.Table table;
+    private int[] columnIds;
+    private int[] storagePositions;
+    private ExecRow template;
+
+    StatisticsFactory(long conglomId,DDLMessage.Table table,int[] columnIds,int[] storagePositions,ExecRow template){
+        this.conglomId=conglomId;
+        this.table=table;
+        this.columnIds=columnIds;
+        this.storagePositions=storagePositions;
+        this.template=template;
+    }
+
+    public static StatisticsFactory create(DDLMessage.Table table,List<ColumnDescriptor> collectedColumns) throws StandardException{
+        int[] columnIds=new int[collectedColumns.size()];
+        int[] storagePositions=new int[collectedColumns.size()];
+        ExecRow template=new ValueRow(collectedColumns.size());
+        for(int i=0;i<columnIds.length;i++){
+            ColumnDescriptor cd=collectedColumns.get(i);
+            columnIds[i]=cd.getPosition();
+            storagePositions[i]=cd.getStoragePosition();
+            template.setColumn(i+1,cd.getType().getNull());
+        }
+        return new StatisticsFactory(table.getConglomerate(),table,columnIds,storagePositions,template);
+    }
+
+    @Override
+    public void addTo(PipelineWriteContext ctx,boolean keepState,int expectedWrites) throws IOException{
+        ctx.addLast(new StatisticsWriteHandler(conglomId,table,columnIds,storagePositions,template.getNewNullRow(),expectedWrites));
+    }
+
+    @Override
+    public long getConglomerateId(){
+        return conglomId;
+    }
+
+    @Override
+    public boolean canReplace(LocalWriteFactory newContext){
+        return newContext instanceof StatisticsFactory;
+    }
+
+    @Override
+    public void replace(LocalWriteFactory newFactory){
+        synchronized(this){
+            StatisticsFactory other=(StatisticsFactory)newFactory;
+            this.conglomId=other.conglomId;
+            this.table=other.table;
+            this.columnIds=other.columnIds;
+            this.storagePositions=other.storagePositions;
+            this.template=other.template;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this==o) return true;
+        if(!(o instanceof StatisticsFactory)) return false;
+        return conglomId==((StatisticsFactory)o).conglomId;
+    }
+
+    @Override
+    public int hashCode(){
+        return (int)(conglomId^(conglomId>>>32));
+    }
+
+    @Override
+    public String toString(){
+        return "statisticsConglomId="+conglomId+" columns="+columnIds.length;
+    }
+}
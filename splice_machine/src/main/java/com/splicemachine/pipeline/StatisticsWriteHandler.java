@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.impl.stats.IncrementalStatistics;
+import com.splicemachine.derby.impl.stats.IncrementalStatisticsStore;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.TypeProvider;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.context.WriteContext;
+import com.splicemachine.pipeline.writehandler.WriteHandler;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the rows inserted into a base table region in the incremental statistics of that region.
+ *
+ * Mutations are passed upstream untouched; once the region has written them, the successful inserts are
+ * decoded and added to the {@link IncrementalStatistics} of the writing transaction, which only reach the
+ * dictionary if that transaction commits. Updates and upserts are not recorded: they may replace the values
+ * of an existing row, and the sketches can't forget the old ones. Failing to record statistics never fails
+ * the write.
+ */
+public class StatisticsWriteHandler implements WriteHandler{
+    private static final Logger LOG=Logger.getLogger(StatisticsWriteHandler.class);
+
+    private final long conglomId;
+    private final DDLMessage.Table table;
+    private final int[] columnIds;
+    private final ExecRow row;
+    private final List<KVPair> mutations;
+    /* maps a (0-based) storage position of the table to its position in row, or -1 if it isn't collected */
+    private final int[] rowPositions;
+
+    private TypeProvider typeProvider;
+    private DescriptorSerializer[] keySerializers;
+    private DescriptorSerializer[] valueSerializers;
+    private MultiFieldDecoder keyDecoder;
+    private EntryDecoder valueDecoder;
+
+    /**
+     * @param columnIds the (1-based) column positions of the columns of {@code row}, as recorded in the statistics
+     * @param storagePositions the (1-based) storage positions of the columns of {@code row}, as encoded in the rows
+     */
+    public StatisticsWriteHandler(long conglomId,DDLMessage.Table table,int[] columnIds,int[] storagePositions,ExecRow row,int expectedWrites){
+        this.conglomId=conglomId;
+        this.table=table;
+        this.columnIds=columnIds;
+        this.row=row;
+        this.mutations=new ArrayList<>(expectedWrites>0?expectedWrites:16);
+        int size=table.getFormatIdsCount();
+        for(int storagePosition : storagePositions)
+            size=Math.max(size,storagePosition);
+        this.rowPositions=new int[size];
+        Arrays.fill(rowPositions,-1);
+        for(int i=0;i<storagePositions.length;i++)
+            rowPositions[storagePositions[i]-1]=i;
+    }
+
+    @Override
+    public void next(KVPair mutation,WriteContext ctx){
+        if(mutation.getType()==KVPair.Type.INSERT)
+            mutations.add(mutation);
+        ctx.sendUpstream(mutation);
+    }
+
+    @Override
+    public void flush(WriteContext ctx) throws IOException{
+        if(mutations.isEmpty())
+            return;
+        try{
+            long txnId=ctx.getTxn().getTxnId();
+            String regionName=ctx.txnRegion().getRegionName();
+            IncrementalStatisticsStore store=IncrementalStatisticsStore.store();
+            IncrementalStatistics statistics=store.getStatistics(txnId,conglomId,regionName,columnIds,row);
+            for(KVPair mutation : mutations){
+                if(!ctx.canRun(mutation))
+                    continue;
+                decode(mutation);
+                while(!statistics.update(row)){
+                    // the statistics were handed off to the dictionary in the meantime
+                    statistics=store.getStatistics(txnId,conglomId,regionName,columnIds,row);
+                }
+            }
+        }catch(Exception e){
+            SpliceLogUtils.warn(LOG,"Unable to record incremental statistics for conglomerate %d: %s",conglomId,e.getMessage());
+        }finally{
+            mutations.clear();
+        }
+    }
+
+    @Override
+    public void close(WriteContext ctx) throws IOException{
+        mutations.clear();
+        if(valueDecoder!=null)
+            valueDecoder.close();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void decode(KVPair mutation) throws StandardException, IOException{
+        if(keySerializers==null){
+            typeProvider=VersionedSerializers.typesForVersion(table.getTableVersion());
+            keySerializers=VersionedSerializers.forVersion(table.getTableVersion(),false).getSerializers(row);
+            valueSerializers=VersionedSerializers.forVersion(table.getTableVersion(),true).getSerializers(row);
+            keyDecoder=MultiFieldDecoder.create();
+            valueDecoder=new EntryDecoder();
+        }
+        for(int i=1;i<=row.nColumns();i++)
+            row.getColumn(i).restoreToNull();
+
+        if(table.getColumnOrderingCount()>0){
+            keyDecoder.set(mutation.getRowKey());
+            for(int i=0;i<table.getColumnOrderingCount();i++){
+                int column=table.getColumnOrdering(i);
+                int pos=column<rowPositions.length?rowPositions[column]:-1;
+                if(pos<0)
+                    skip(keyDecoder,table.getFormatIds(column));
+                else
+                    keySerializers[pos].decode(keyDecoder,row.getColumn(pos+1),false);
+            }
+        }
+
+        valueDecoder.set(mutation.getValue());
+        BitIndex index=valueDecoder.getCurrentIndex();
+        MultiFieldDecoder fieldDecoder=valueDecoder.getEntryDecoder();
+        for(int i=index.nextSetBit(0);i>=0;i=index.nextSetBit(i+1)){
+            int pos=i<rowPositions.length?rowPositions[i]:-1;
+            if(pos<0)
+                valueDecoder.seekForward(fieldDecoder,i);
+            else
+                valueSerializers[pos].decode(fieldDecoder,row.getColumn(pos+1),false);
+        }
+    }
+
+    private void skip(MultiFieldDecoder decoder,int formatId){
+        if(typeProvider.isScalar(formatId))
+            decoder.skipLong();
+        else if(typeProvider.isDouble(formatId))
+            decoder.skipDouble();
+        else if(typeProvider.isFloat(formatId))
+            decoder.skipFloat();
+        else
+            decoder.skip();
+    }
+}
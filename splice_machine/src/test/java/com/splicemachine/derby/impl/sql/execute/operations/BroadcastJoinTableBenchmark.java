@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Micro-benchmark comparing build and probe throughput of the broadcast join tables.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -Xmx4g -cp ... BroadcastJoinTableBenchmark [innerRows] [probes] [iterations]
+ * </pre>
+ * and compare the rows/second, GC time and retained heap of the two loaders.
+ */
+public class BroadcastJoinTableBenchmark{
+    private static final int[] INNER_KEYS=new int[]{0};
+    private static final int[] OUTER_KEYS=new int[]{0};
+
+    public static void main(String...args) throws Exception{
+        int innerRows=args.length>0?Integer.parseInt(args[0]):2_000_000;
+        int probes=args.length>1?Integer.parseInt(args[1]):5_000_000;
+        int iterations=args.length>2?Integer.parseInt(args[2]):5;
+
+        System.out.printf("innerRows=%d, probes=%d, iterations=%d%n",innerRows,probes,iterations);
+        for(int i=0;i<iterations;i++){
+            System.out.printf("--- iteration %d%n",i);
+            run("ByteBufferMapTableLoader",ByteBufferMapTableLoader.INSTANCE,innerRows,probes);
+            run("CompactJoinTableLoader",CompactJoinTableLoader.INSTANCE,innerRows,probes);
+        }
+    }
+
+    private static void run(String name,BroadcastJoinCache.JoinTableLoader loader,int innerRows,int probes) throws Exception{
+        System.gc();
+        long heapBefore=usedHeap();
+        long gcBefore=gcTime();
+
+        long start=System.nanoTime();
+        JoinTable.Factory factory=loader.load(new RowSource(innerRows),INNER_KEYS,OUTER_KEYS,outerRow(new Random(0),innerRows));
+        long buildTime=System.nanoTime()-start;
+
+        System.gc();
+        long retained=usedHeap()-heapBefore;
+
+        Random random=new Random(1L);
+        long matched=0;
+        start=System.nanoTime();
+        try(JoinTable table=factory.newTable()){
+            for(int i=0;i<probes;i++){
+                Iterator<ExecRow> inner=table.fetchInner(outerRow(random,innerRows*2));
+                while(inner.hasNext()){
+                    inner.next();
+                    matched++;
+                }
+            }
+        }
+        long probeTime=System.nanoTime()-start;
+        long gc=gcTime()-gcBefore;
+
+        System.out.printf("%-25s build: %,12.0f rows/s | probe: %,12.0f probes/s (%d matches) | gc: %,6d ms | retained: %,d bytes%n",
+                name,
+                innerRows/(buildTime/1e9d),
+                probes/(probeTime/1e9d),
+                matched,
+                gc,
+                retained);
+    }
+
+    private static ExecRow outerRow(Random random,int keyRange){
+        ExecRow row=new ValueRow(1);
+        row.setColumn(1,new SQLInteger(random.nextInt(keyRange)));
+        return row;
+    }
+
+    private static long usedHeap(){
+        Runtime runtime=Runtime.getRuntime();
+        return runtime.totalMemory()-runtime.freeMemory();
+    }
+
+    private static long gcTime(){
+        long total=0;
+        for(GarbageCollectorMXBean gc:ManagementFactory.getGarbageCollectorMXBeans()){
+            total+=gc.getCollectionTime();
+        }
+        return total;
+    }
+
+    private static class RowSource implements Callable<Stream<ExecRow>>{
+        private final int numRows;
+
+        RowSource(int numRows){
+            this.numRows=numRows;
+        }
+
+        @Override
+        public Stream<ExecRow> call() throws Exception{
+            return Streams.wrap(new Iterator<ExecRow>(){
+                private final Random random=new Random(0L);
+                private int position=0;
+
+                @Override
+                public boolean hasNext(){
+                    return position<numRows;
+                }
+
+                @Override
+                public ExecRow next(){
+                    if(position>=numRows)
+                        throw new NoSuchElementException();
+                    ExecRow row=new ValueRow(3);
+                    row.setColumn(1,new SQLInteger(position));
+                    row.setColumn(2,new SQLLongint(random.nextLong()));
+                    row.setColumn(3,new SQLVarchar("value-"+position));
+                    position++;
+                    return row;
+                }
+
+                @Override
+                public void remove(){
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+    }
+}
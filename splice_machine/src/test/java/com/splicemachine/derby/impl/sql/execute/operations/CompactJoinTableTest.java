@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Checks that the {@link CompactJoinTableLoader} produces the same join results as the
+ * {@link ByteBufferMapTableLoader}.
+ */
+public class CompactJoinTableTest{
+    private static final int[] INNER_KEYS=new int[]{0};
+    private static final int[] OUTER_KEYS=new int[]{1};
+
+    @Test
+    public void matchesByteBufferMappedTable() throws Exception{
+        final List<ExecRow> innerRows=new ArrayList<>();
+        for(int i=0;i<1000;i++){
+            innerRows.add(innerRow(i%100,i%7==0?null:"inner"+i));
+        }
+        Callable<Stream<ExecRow>> loader=new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call() throws Exception{
+                return Streams.wrap(innerRows.iterator());
+            }
+        };
+        ExecRow outerTemplate=outerRow(0);
+        JoinTable expected=ByteBufferMapTableLoader.INSTANCE.load(loader,INNER_KEYS,OUTER_KEYS,outerTemplate).newTable();
+        JoinTable.Factory factory=CompactJoinTableLoader.INSTANCE.load(loader,INNER_KEYS,OUTER_KEYS,outerTemplate);
+        JoinTable actual=factory.newTable();
+        try{
+            for(int i=-5;i<105;i++){
+                ExecRow outer=outerRow(i);
+                List<String> correct=toStrings(expected.fetchInner(outer));
+                List<String> found=toStrings(actual.fetchInner(outer));
+                Assert.assertEquals("Incorrect inner rows for key "+i,correct,found);
+            }
+        }finally{
+            expected.close();
+            actual.close();
+        }
+        Assert.assertTrue("Memory usage was not reported",((CompactJoinTable.Factory)factory).getMemoryUsage()>0);
+    }
+
+    @Test
+    public void emptyInnerTableReturnsNoRows() throws Exception{
+        Callable<Stream<ExecRow>> loader=new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call() throws Exception{
+                return Streams.empty();
+            }
+        };
+        JoinTable table=CompactJoinTableLoader.INSTANCE.load(loader,INNER_KEYS,OUTER_KEYS,outerRow(0)).newTable();
+        Assert.assertFalse(table.fetchInner(outerRow(1)).hasNext());
+        table.close();
+    }
+
+    private static List<String> toStrings(Iterator<ExecRow> rows){
+        List<String> strings=new ArrayList<>();
+        while(rows.hasNext())
+            strings.add(rows.next().toString());
+        Collections.sort(strings);
+        return strings;
+    }
+
+    private static ExecRow innerRow(int key,String value){
+        ExecRow row=new ValueRow(2);
+        row.setColumn(1,new SQLInteger(key));
+        row.setColumn(2,new SQLVarchar(value));
+        return row;
+    }
+
+    private static ExecRow outerRow(int key){
+        ExecRow row=new ValueRow(2);
+        row.setColumn(1,new SQLVarchar("outer"));
+        row.setColumn(2,new SQLInteger(key));
+        return row;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.utils.Scans;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ColumnBatchTest{
+
+    @Test
+    public void rowsRoundTrip() throws Exception{
+        ExecRow template=template();
+        List<ExecRow> rows=rows(template,100);
+        ColumnBatch batch=fill(template,rows);
+
+        Assert.assertEquals(rows.size(),batch.size());
+        ExecRow actual=template.getNewNullRow();
+        for(int r=0;r<rows.size();r++){
+            batch.load(r,actual);
+            Assert.assertArrayEquals("Incorrect row "+r,rows.get(r).getRowArray(),actual.getRowArray());
+            Assert.assertArrayEquals(key(r),actual.getKey());
+        }
+    }
+
+    @Test
+    public void discardsUnfinishedRows() throws Exception{
+        ExecRow template=template();
+        List<ExecRow> rows=rows(template,2);
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(false).getSerializers(template);
+        ColumnBatch batch=new ColumnBatch(template,4);
+        batch.clear();
+        put(batch,serializers,rows.get(0));
+        batch.startRow(); // the row was filtered out
+        Assert.assertFalse(batch.isWritten(1));
+        put(batch,serializers,rows.get(1));
+        ExecRow decoded=template.getNewNullRow();
+        decoded.getColumn(1).setValue(rows.get(1).getColumn(1));
+        batch.finishRow(decoded,key(1));
+
+        Assert.assertEquals(1,batch.size());
+        ExecRow actual=template.getNewNullRow();
+        batch.load(0,actual);
+        Assert.assertArrayEquals(rows.get(1).getRowArray(),actual.getRowArray());
+    }
+
+    @Test
+    public void qualifiesLikeRowScans() throws Exception{
+        ExecRow template=template();
+        List<ExecRow> rows=rows(template,1000);
+        // id >= 100 AND (name = 'name2' OR score < 50.0 OR id > 900)
+        GenericScanQualifier idAtLeast=new GenericScanQualifier();
+        idAtLeast.setQualifier(0,new SQLInteger(100),Orderable.ORDER_OP_LESSTHAN,true,false,false);
+        GenericScanQualifier nameEquals=new GenericScanQualifier();
+        nameEquals.setQualifier(1,new SQLVarchar("name2"),Orderable.ORDER_OP_EQUALS,false,false,false);
+        GenericScanQualifier scoreLess=new GenericScanQualifier();
+        scoreLess.setQualifier(2,new SQLDouble(50d),Orderable.ORDER_OP_LESSTHAN,false,false,false);
+        GenericScanQualifier idGreater=new GenericScanQualifier();
+        idGreater.setQualifier(0,new SQLLongint(900),Orderable.ORDER_OP_GREATERTHAN,false,false,false);
+        Qualifier[][] qualifiers=new Qualifier[][]{{idAtLeast},{nameEquals,scoreLess,idGreater}};
+
+        assertQualifies(template,rows,qualifiers);
+    }
+
+    @Test
+    public void nullConstantsRejectRows() throws Exception{
+        ExecRow template=template();
+        List<ExecRow> rows=rows(template,100);
+        // score > 10.0 AND (id = NULL OR id < 50)
+        GenericScanQualifier scoreGreater=new GenericScanQualifier();
+        scoreGreater.setQualifier(2,new SQLDouble(10d),Orderable.ORDER_OP_GREATERTHAN,false,false,false);
+        GenericScanQualifier idNull=new GenericScanQualifier();
+        idNull.setQualifier(0,new SQLInteger(),Orderable.ORDER_OP_EQUALS,false,false,false);
+        GenericScanQualifier idLess=new GenericScanQualifier();
+        idLess.setQualifier(0,new SQLInteger(50),Orderable.ORDER_OP_LESSTHAN,false,false,false);
+
+        assertQualifies(template,rows,new Qualifier[][]{{scoreGreater},{idNull,idLess}});
+        assertQualifies(template,rows,new Qualifier[][]{{scoreGreater},{idLess,idNull}});
+    }
+
+    private static void assertQualifies(ExecRow template,List<ExecRow> rows,Qualifier[][] qualifiers) throws Exception{
+        ColumnBatch batch=fill(template,rows);
+        batch.selectAll();
+        new ColumnBatchQualifiers(qualifiers,null,null,template).qualify(batch);
+
+        List<Integer> expected=new ArrayList<>();
+        for(int r=0;r<rows.size();r++){
+            if(Scans.qualifyRecordFromRow(rows.get(r).getRowArray(),qualifiers,null,null))
+                expected.add(r);
+        }
+        List<Integer> actual=new ArrayList<>();
+        for(int i=0;i<batch.selectedCount();i++)
+            actual.add(batch.selection()[i]);
+        Assert.assertEquals(expected,actual);
+    }
+
+    private static ExecRow template(){
+        return new ValueRow(new DataValueDescriptor[]{
+                new SQLInteger(),
+                new SQLVarchar(),
+                new SQLDouble(),
+                new SQLReal()});
+    }
+
+    private static List<ExecRow> rows(ExecRow template,int count) throws Exception{
+        List<ExecRow> rows=new ArrayList<>(count);
+        for(int i=0;i<count;i++){
+            ExecRow row=template.getNewNullRow();
+            row.getColumn(1).setValue(i);
+            if(i%7!=0)
+                row.getColumn(2).setValue("name"+(i%5));
+            if(i%13!=0)
+                row.getColumn(3).setValue(i/3d);
+            row.getColumn(4).setValue(i/4f);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Writes the columns as the scanner does: every other row has its id copied from the decoded row,
+     * as though it were a primary key column, and the others are written encoded.
+     */
+    private static ColumnBatch fill(ExecRow template,List<ExecRow> rows) throws Exception{
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(false).getSerializers(template);
+        ColumnBatch batch=new ColumnBatch(template,rows.size());
+        batch.clear();
+        for(int r=0;r<rows.size();r++){
+            ExecRow row=rows.get(r);
+            ExecRow decoded=template.getNewNullRow();
+            put(batch,serializers,row);
+            if(r%2==0)
+                decoded.getColumn(1).setValue(row.getColumn(1));
+            else if(!row.getColumn(1).isNull())
+                put(batch,serializers,0,row.getColumn(1));
+            batch.finishRow(decoded,key(r));
+        }
+        return batch;
+    }
+
+    private static void put(ColumnBatch batch,DescriptorSerializer[] serializers,ExecRow row) throws Exception{
+        for(int c=1;c<row.nColumns();c++){
+            if(!row.getColumn(c+1).isNull())
+                put(batch,serializers,c,row.getColumn(c+1));
+        }
+    }
+
+    private static void put(ColumnBatch batch,DescriptorSerializer[] serializers,int column,DataValueDescriptor dvd) throws Exception{
+        byte[] data=serializers[column].encodeDirect(dvd,false);
+        byte[] padded=new byte[data.length+3];
+        System.arraycopy(data,0,padded,2,data.length);
+        batch.put(column,serializers[column],padded,2,data.length);
+    }
+
+    private static byte[] key(int row){
+        return new byte[]{(byte)(row>>8),(byte)row};
+    }
+}
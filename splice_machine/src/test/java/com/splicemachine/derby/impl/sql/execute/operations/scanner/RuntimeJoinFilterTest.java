@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuntimeJoinFilterTest{
+    private static final int[] INNER_KEYS=new int[]{0,1};
+
+    @Test
+    public void innerKeysAlwaysPass() throws Exception{
+        RuntimeJoinFilter filter=build(1000,new int[]{2,0});
+        Assert.assertEquals(2,filter.numColumns());
+        Assert.assertEquals(2,filter.getColumn(0));
+        Assert.assertEquals(0,filter.getColumn(1));
+        for(int i=0;i<1000;i++){
+            Assert.assertTrue("Missing key "+i,filter.mayContain(0,new SQLInteger(i*3)));
+            Assert.assertTrue("Missing key "+i,filter.mayContain(1,new SQLVarchar("k"+i)));
+        }
+    }
+
+    @Test
+    public void mostOtherKeysAreFiltered() throws Exception{
+        RuntimeJoinFilter filter=build(1000,new int[]{0,-1});
+        Assert.assertEquals(1,filter.numColumns());
+        int passed=0;
+        for(int i=0;i<10000;i++){
+            if(filter.mayContain(0,new SQLInteger(i*3+1)))
+                passed++;
+        }
+        Assert.assertTrue("Too many false positives: "+passed,passed<500);
+    }
+
+    @Test
+    public void nullsNeverPass() throws Exception{
+        RuntimeJoinFilter filter=build(10,new int[]{0,1});
+        Assert.assertFalse(filter.mayContain(0,new SQLInteger()));
+        Assert.assertFalse(filter.mayContain(1,new SQLVarchar()));
+    }
+
+    @Test
+    public void roundTrips() throws Exception{
+        RuntimeJoinFilter filter=RuntimeJoinFilter.fromBytes(build(100,new int[]{1,0}).toBytes());
+        Assert.assertEquals(1,filter.getColumn(0));
+        Assert.assertEquals(0,filter.getColumn(1));
+        for(int i=0;i<100;i++){
+            Assert.assertTrue(filter.mayContain(0,new SQLInteger(i*3)));
+            Assert.assertTrue(filter.mayContain(1,new SQLVarchar("k"+i)));
+        }
+        Assert.assertNull(RuntimeJoinFilter.fromBytes(null));
+    }
+
+    @Test
+    public void noFilterUnlessLoaded() throws Exception{
+        RuntimeJoinFilter.Builder builder=new RuntimeJoinFilter.Builder(INNER_KEYS);
+        Assert.assertNull(builder.build(new int[]{0,1}));
+        builder.loadStarted();
+        Assert.assertNull("No key is read by the scan",builder.build(new int[]{-1,-1}));
+        Assert.assertNotNull(builder.build(new int[]{0,-1}));
+    }
+
+    @Test
+    public void qualifiesBatch() throws Exception{
+        RuntimeJoinFilter filter=build(100,new int[]{0,-1});
+        ExecRow template=new ValueRow(1);
+        template.setColumn(1,new SQLInteger());
+        ColumnBatch batch=new ColumnBatch(template,300);
+        batch.clear();
+        for(int i=0;i<300;i++){
+            ExecRow row=new ValueRow(1);
+            row.setColumn(1,i%10==0?new SQLInteger():new SQLInteger(i));
+            batch.finishRow(row,new byte[]{(byte)i});
+        }
+        batch.selectAll();
+        filter.qualify(batch,0,new SQLInteger());
+        int[] selection=batch.selection();
+        int previous=-1;
+        int multiples=0;
+        for(int k=0;k<batch.selectedCount();k++){
+            int row=selection[k];
+            Assert.assertTrue("Selection is out of order",row>previous);
+            Assert.assertFalse("Null key was selected",row%10==0);
+            previous=row;
+            if(row%3==0)
+                multiples++;
+        }
+        int expected=0;
+        for(int i=0;i<300;i+=3){
+            if(i%10!=0)
+                expected++;
+        }
+        Assert.assertEquals("A matching row was filtered",expected,multiples);
+    }
+
+    private static RuntimeJoinFilter build(int rows,int[] outerColumns) throws Exception{
+        RuntimeJoinFilter.Builder builder=new RuntimeJoinFilter.Builder(INNER_KEYS);
+        builder.loadStarted();
+        for(int i=0;i<rows;i++){
+            ExecRow row=new ValueRow(2);
+            row.setColumn(1,new SQLInteger(i*3));
+            row.setColumn(2,new SQLVarchar("k"+i));
+            builder.add(row);
+        }
+        return builder.build(outerColumns);
+    }
+}
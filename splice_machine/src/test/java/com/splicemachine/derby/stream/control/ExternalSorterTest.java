@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.cache.ClassSize;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.utils.test.TestingDataType;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import scala.Tuple2;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class ExternalSorterTest{
+    private static final Comparator<ExecRow> KEY_ORDER=new Comparator<ExecRow>(){
+        @Override
+        public int compare(ExecRow o1,ExecRow o2){
+            try{
+                return o1.getColumn(1).compare(o2.getColumn(1));
+            }catch(StandardException e){
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    static{
+        ClassSize.setDummyCatalog();
+    }
+
+    private File spillDirectory;
+
+    @Before
+    public void setUp() throws Exception{
+        spillDirectory=Files.createTempDirectory("externalSorterTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        File[] files=spillDirectory.listFiles();
+        if(files!=null){
+            for(File f:files){
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        spillDirectory.delete();
+    }
+
+    @Test
+    public void sortsInMemoryWhenWithinBudget() throws Exception{
+        ControlOperationContext context=new ControlOperationContext();
+        ExternalSorter<ExecRow,ExecRow> sorter=new ExternalSorter<>(KEY_ORDER,Long.MAX_VALUE,spillDirectory,context);
+        List<Tuple2<ExecRow,ExecRow>> rows=randomRows(1000);
+
+        assertSortedAndStable(rows,sorter.sort(rows.iterator()));
+        Assert.assertEquals(0,sorter.getSpillCount());
+        Assert.assertEquals(0,context.getSpillCount());
+        Assert.assertEquals(0,spillDirectory.list().length);
+    }
+
+    @Test
+    public void spillsSortedRunsWhenOverBudget() throws Exception{
+        ControlOperationContext context=new ControlOperationContext();
+        ExternalSorter<ExecRow,ExecRow> sorter=new ExternalSorter<>(KEY_ORDER,4*1024,spillDirectory,context);
+        List<Tuple2<ExecRow,ExecRow>> rows=randomRows(5000);
+
+        Iterator<Tuple2<ExecRow,ExecRow>> sorted=sorter.sort(rows.iterator());
+        Assert.assertTrue("Did not spill",sorter.getSpillCount()>1);
+        Assert.assertEquals(sorter.getSpillCount(),context.getSpillCount());
+        Assert.assertEquals(sorter.getSpilledBytes(),context.getSpilledBytes());
+        Assert.assertTrue(context.getSpilledBytes()>0);
+
+        assertSortedAndStable(rows,sorted);
+        Assert.assertEquals("Spill files were not removed",0,spillDirectory.list().length);
+    }
+
+    @Test
+    public void spilledRowsPreserveNulls() throws Exception{
+        ExternalSorter<ExecRow,ExecRow> sorter=new ExternalSorter<>(KEY_ORDER,1,spillDirectory,null);
+        List<Tuple2<ExecRow,ExecRow>> rows=new ArrayList<>();
+        for(int i=3;i>0;i--){
+            ExecRow value=row(i,i);
+            value.getColumn(2).setToNull();
+            rows.add(new Tuple2<>(row(i),value));
+        }
+        Iterator<Tuple2<ExecRow,ExecRow>> sorted=sorter.sort(rows.iterator());
+        Assert.assertEquals(3,sorter.getSpillCount());
+        for(int i=1;i<=3;i++){
+            Tuple2<ExecRow,ExecRow> next=sorted.next();
+            Assert.assertEquals(i,next._1().getColumn(1).getInt());
+            Assert.assertEquals(i,next._2().getColumn(1).getInt());
+            Assert.assertTrue("Null was not preserved",next._2().getColumn(2).isNull());
+        }
+        Assert.assertFalse(sorted.hasNext());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void assertSortedAndStable(List<Tuple2<ExecRow,ExecRow>> input,Iterator<Tuple2<ExecRow,ExecRow>> sorted) throws StandardException{
+        int count=0;
+        int lastKey=Integer.MIN_VALUE;
+        int lastSequence=-1;
+        while(sorted.hasNext()){
+            Tuple2<ExecRow,ExecRow> next=sorted.next();
+            int key=next._1().getColumn(1).getInt();
+            int sequence=next._2().getColumn(2).getInt();
+            Assert.assertTrue("Keys out of order",key>=lastKey);
+            if(key==lastKey)
+                Assert.assertTrue("Sort was not stable",sequence>lastSequence);
+            lastKey=key;
+            lastSequence=sequence;
+            count++;
+        }
+        Assert.assertEquals("Incorrect number of rows",input.size(),count);
+    }
+
+    private static List<Tuple2<ExecRow,ExecRow>> randomRows(int numRows) throws StandardException{
+        Random random=new Random(0L);
+        List<Tuple2<ExecRow,ExecRow>> rows=new ArrayList<>(numRows);
+        for(int i=0;i<numRows;i++){
+            int key=random.nextInt(100);
+            //the second value column records the input position, so that we can check stability
+            rows.add(new Tuple2<>(row(key),row(key,i)));
+        }
+        return rows;
+    }
+
+    private static ExecRow row(int... values) throws StandardException{
+        ValueRow vr=new ValueRow(values.length);
+        for(int i=0;i<values.length;i++){
+            DataValueDescriptor dvd=TestingDataType.INTEGER.getDataValueDescriptor();
+            dvd.setValue(values[i]);
+            vr.setColumn(i+1,dvd);
+        }
+        return vr;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+
+@Category(ArchitectureIndependent.class)
+public class SpillDirectoriesTest{
+
+    @Rule
+    public TemporaryFolder temporaryFolder=new TemporaryFolder();
+
+    @Test
+    public void usesOneDirectoryPerProcess() throws Exception{
+        File root=temporaryFolder.newFolder();
+        File dir=SpillDirectories.forProcess(root);
+        Assert.assertEquals(root,dir.getParentFile());
+        Assert.assertTrue(dir.getName().startsWith(SpillDirectories.PREFIX));
+        Assert.assertEquals(dir,SpillDirectories.forProcess(root));
+    }
+
+    @Test
+    public void deletesDirectoriesOfDeadProcesses() throws Exception{
+        File root=temporaryFolder.newFolder();
+        // a directory whose lock file nobody holds, as left by a process which died
+        File stale=spillDirectory(root,"dead");
+        File unrelated=new File(root,"unrelated.spill");
+        Assert.assertTrue(unrelated.createNewFile());
+
+        File dir=SpillDirectories.forProcess(root);
+        Assert.assertFalse("Stale spill directory was not deleted",stale.exists());
+        Assert.assertTrue("Files outside of spill directories should be kept",unrelated.exists());
+        Assert.assertTrue(dir.exists());
+    }
+
+    @Test
+    public void keepsDirectoriesOfLiveProcesses() throws Exception{
+        File root=temporaryFolder.newFolder();
+        File live=spillDirectory(root,"live");
+        try(FileChannel channel=FileChannel.open(new File(live,SpillDirectories.LOCK_FILE).toPath(),StandardOpenOption.WRITE);
+            FileLock ignored=channel.lock()){
+            File dir=SpillDirectories.forProcess(root);
+            Assert.assertNotEquals(live,dir);
+            Assert.assertEquals("Spill files of a live process were deleted",2,live.list().length);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static File spillDirectory(File root,String name) throws IOException{
+        File dir=new File(root,SpillDirectories.PREFIX+name);
+        Assert.assertTrue(dir.mkdir());
+        Assert.assertTrue(new File(dir,SpillDirectories.LOCK_FILE).createNewFile());
+        Assert.assertTrue(new File(dir,"sort1234.spill").createNewFile());
+        return dir;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.cache.ClassSize;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import com.splicemachine.derby.utils.test.TestingDataType;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import scala.Tuple2;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class SpillableHashAggregatorTest{
+
+    static{
+        ClassSize.setDummyCatalog();
+    }
+
+    private File spillDirectory;
+
+    @Before
+    public void setUp() throws Exception{
+        spillDirectory=Files.createTempDirectory("hashAggregatorTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        File[] files=spillDirectory.listFiles();
+        if(files!=null){
+            for(File f:files){
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        spillDirectory.delete();
+    }
+
+    @Test
+    public void reducesInMemoryWhenWithinBudget() throws Exception{
+        ControlOperationContext context=new ControlOperationContext();
+        SpillableHashAggregator<ExecRow,ExecRow,ExecRow> aggregator=
+                SpillableHashAggregator.reducer(new SumFunction(),Long.MAX_VALUE,spillDirectory,context);
+        List<Tuple2<ExecRow,ExecRow>> rows=randomRows(10000,500);
+
+        assertSums(rows,aggregator.aggregate(rows.iterator()));
+        Assert.assertEquals(0,aggregator.getSpillCount());
+        Assert.assertEquals(0,context.getSpillCount());
+        Assert.assertTrue("Peak memory was not recorded",context.getPeakMemoryUsage()>0);
+        Assert.assertEquals(aggregator.getPeakMemoryUsage(),context.getPeakMemoryUsage());
+    }
+
+    @Test
+    public void reducesAcrossSpilledPartitions() throws Exception{
+        ControlOperationContext context=new ControlOperationContext();
+        SpillableHashAggregator<ExecRow,ExecRow,ExecRow> aggregator=
+                SpillableHashAggregator.reducer(new SumFunction(),16*1024,spillDirectory,context);
+        List<Tuple2<ExecRow,ExecRow>> rows=randomRows(20000,5000);
+
+        Iterator<Tuple2<ExecRow,ExecRow>> result=aggregator.aggregate(rows.iterator());
+        Assert.assertTrue("Did not spill",aggregator.getSpillCount()>0);
+        Assert.assertEquals(aggregator.getSpillCount(),context.getSpillCount());
+        Assert.assertEquals(aggregator.getSpilledBytes(),context.getSpilledBytes());
+        Assert.assertTrue("Peak memory exceeded the budget by too much",context.getPeakMemoryUsage()<32*1024);
+
+        assertSums(rows,result);
+        Assert.assertEquals("Spill files were not removed",0,spillDirectory.list().length);
+    }
+
+    @Test
+    public void groupsAcrossSpilledPartitions() throws Exception{
+        SpillableHashAggregator<ExecRow,ExecRow,Iterable<ExecRow>> aggregator=
+                SpillableHashAggregator.grouper(8*1024,spillDirectory,null);
+        List<Tuple2<ExecRow,ExecRow>> rows=randomRows(5000,300);
+        Map<Integer,Integer> expectedCounts=new HashMap<>();
+        for(Tuple2<ExecRow,ExecRow> row:rows){
+            int key=row._1().getColumn(1).getInt();
+            Integer c=expectedCounts.get(key);
+            expectedCounts.put(key,c==null?1:c+1);
+        }
+
+        Iterator<Tuple2<ExecRow,Iterable<ExecRow>>> result=aggregator.aggregate(rows.iterator());
+        Assert.assertTrue("Did not spill",aggregator.getSpillCount()>0);
+        Map<Integer,Integer> actualCounts=new HashMap<>();
+        while(result.hasNext()){
+            Tuple2<ExecRow,Iterable<ExecRow>> next=result.next();
+            int key=next._1().getColumn(1).getInt();
+            Assert.assertFalse("Key "+key+" was returned twice",actualCounts.containsKey(key));
+            int count=0;
+            for(ExecRow value:next._2()){
+                Assert.assertEquals("Value grouped under the wrong key",key,value.getColumn(1).getInt()%300);
+                count++;
+            }
+            actualCounts.put(key,count);
+        }
+        Assert.assertEquals(expectedCounts,actualCounts);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void assertSums(List<Tuple2<ExecRow,ExecRow>> input,Iterator<Tuple2<ExecRow,ExecRow>> result) throws StandardException{
+        Map<Integer,Long> expected=new HashMap<>();
+        for(Tuple2<ExecRow,ExecRow> row:input){
+            int key=row._1().getColumn(1).getInt();
+            Long sum=expected.get(key);
+            expected.put(key,(sum==null?0L:sum)+row._2().getColumn(1).getLong());
+        }
+        Map<Integer,Long> actual=new HashMap<>();
+        while(result.hasNext()){
+            Tuple2<ExecRow,ExecRow> next=result.next();
+            int key=next._1().getColumn(1).getInt();
+            Assert.assertNull("Key "+key+" was returned twice",actual.put(key,next._2().getColumn(1).getLong()));
+        }
+        Assert.assertEquals(expected,actual);
+    }
+
+    /*
+     * The value of each row is its input position, so a grouped value can be checked
+     * against its key (key == value % numKeys).
+     */
+    private static List<Tuple2<ExecRow,ExecRow>> randomRows(int numRows,int numKeys) throws StandardException{
+        Random random=new Random(0L);
+        List<Tuple2<ExecRow,ExecRow>> rows=new ArrayList<>(numRows);
+        for(int i=0;i<numRows;i++){
+            int value=random.nextInt(1000)*numKeys+random.nextInt(numKeys);
+            rows.add(new Tuple2<>(row(value%numKeys),longRow(value)));
+        }
+        return rows;
+    }
+
+    private static ExecRow row(int value) throws StandardException{
+        ValueRow vr=new ValueRow(1);
+        DataValueDescriptor dvd=TestingDataType.INTEGER.getDataValueDescriptor();
+        dvd.setValue(value);
+        vr.setColumn(1,dvd);
+        return vr;
+    }
+
+    private static ExecRow longRow(long value) throws StandardException{
+        ValueRow vr=new ValueRow(1);
+        DataValueDescriptor dvd=TestingDataType.BIGINT.getDataValueDescriptor();
+        dvd.setValue(value);
+        vr.setColumn(1,dvd);
+        return vr;
+    }
+
+    private static class SumFunction extends SpliceFunction2<SpliceOperation,ExecRow,ExecRow,ExecRow>{
+        @Override
+        public ExecRow call(ExecRow r1,ExecRow r2) throws Exception{
+            if(r1==null) return r2.getClone();
+            DataValueDescriptor sum=r1.getColumn(1);
+            sum.setValue(sum.getLong()+r2.getColumn(1).getLong());
+            return r1;
+        }
+    }
+}
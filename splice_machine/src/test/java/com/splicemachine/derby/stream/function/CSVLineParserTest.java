@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.stream.utils.BooleanList;
+import org.junit.Assert;
+import org.junit.Test;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that {@link CSVLineParser} tokenizes lines the same way as {@link QuoteTrackingTokenizer}.
+ */
+public class CSVLineParserTest{
+    private static final CsvPreference PREFERENCE=new CsvPreference.Builder('"',',',"\n").maxLinesPerRow(2).build();
+
+    @Test
+    public void matchesTokenizer() throws Exception{
+        String[] lines = {
+                "hello,goodbye,parseThis!,boots",
+                "\"hello\",goodbye,parseThis!,boots",
+                "a,,\"\",c,",
+                "\"with,delimiter\",\"with \"\"quotes\"\"\",plain",
+                "  spaces  , \"quoted\" ,x\"y\"z",
+                "null,NULL,\"null\",nulls",
+                ",",
+                "single"
+        };
+        CSVLineParser parser = new CSVLineParser('"',',',2);
+        for(String line : lines){
+            Assert.assertTrue(parser.parse(line));
+            List<String> columns = new ArrayList<>();
+            BooleanList quotedColumns = new BooleanList();
+            tokenize(line,columns,quotedColumns);
+            Assert.assertEquals("Did not return correct columns for "+line,columns,parser.getValues());
+            for(int i=0;i<columns.size();i++){
+                Assert.assertEquals("Did not return correct quoted column information for "+line,
+                        quotedColumns.valueAt(i),parser.isQuoted(i));
+            }
+        }
+    }
+
+    @Test
+    public void nullColumns() throws Exception{
+        CSVLineParser parser = new CSVLineParser('"',',',2);
+        Assert.assertTrue(parser.parse("null,NuLl,\"null\",,\"\",nul"));
+        Assert.assertEquals(6,parser.size());
+        Assert.assertTrue(parser.isNull(0));
+        Assert.assertTrue(parser.isNull(1));
+        Assert.assertFalse(parser.isNull(2));
+        Assert.assertEquals("null",parser.getString(2));
+        Assert.assertTrue(parser.isNull(3));
+        Assert.assertTrue(parser.isNull(4));
+        Assert.assertFalse(parser.isNull(5));
+    }
+
+    @Test
+    public void parsesNumbers() throws Exception{
+        CSVLineParser parser = new CSVLineParser('"',',',2);
+        Assert.assertTrue(parser.parse("12, -34 ,+56,\"78\",123456789012345678,1234567890123456789,1.5e3,12a, -0.25 "));
+        Assert.assertEquals(12L,parser.getLong(0));
+        Assert.assertEquals(-34L,parser.getLong(1));
+        Assert.assertEquals(56L,parser.getLong(2));
+        Assert.assertEquals(78L,parser.getLong(3));
+        Assert.assertEquals(123456789012345678L,parser.getLong(4));
+        assertNotLong(parser,5);
+        assertNotLong(parser,6);
+        assertNotLong(parser,7);
+        Assert.assertEquals(new BigDecimal("1.5e3"),parser.getBigDecimal(6));
+        Assert.assertEquals(new BigDecimal("-0.25"),parser.getBigDecimal(8));
+    }
+
+    @Test
+    public void reusesBuffersAcrossLines() throws Exception{
+        CSVLineParser parser = new CSVLineParser('|',';',2);
+        StringBuilder longLine = new StringBuilder();
+        for(int i=0;i<100;i++){
+            longLine.append(i>0?";":"").append("|column ").append(i).append('|');
+        }
+        Assert.assertTrue(parser.parse(longLine.toString()));
+        Assert.assertEquals(100,parser.size());
+        Assert.assertEquals("column 99",parser.getString(99));
+        Assert.assertTrue(parser.parse("a;b"));
+        Assert.assertEquals(2,parser.size());
+        Assert.assertEquals("b",parser.getString(1));
+        Assert.assertFalse(parser.parse(""));
+        Assert.assertEquals(0,parser.size());
+    }
+
+    @Test
+    public void unterminatedQuote() throws Exception{
+        try{
+            new CSVLineParser('"',',',2).parse("aaa,\"bbb");
+            Assert.fail("Expected an unterminated quote to fail");
+        }catch(SuperCsvException e){
+            Assert.assertTrue(e.getMessage(),e.getMessage().startsWith("partial record found [bbb"));
+        }
+        try{
+            new CSVLineParser('"',',',1).parse("aaa,\"bbb");
+            Assert.fail("Expected an unterminated quote to fail");
+        }catch(SuperCsvException e){
+            Assert.assertTrue(e.getMessage(),e.getMessage().startsWith("unexpected end of line"));
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void tokenize(String line,List<String> columns,BooleanList quotedColumns) throws IOException{
+        QuoteTrackingTokenizer qtt = new QuoteTrackingTokenizer(new StringReader(line),PREFERENCE);
+        Assert.assertTrue("Did not properly read the columns!",qtt.readColumns(columns,quotedColumns));
+    }
+
+    private static void assertNotLong(CSVLineParser parser,int column){
+        try{
+            parser.getLong(column);
+            Assert.fail("Expected column "+column+" not to parse as a long");
+        }catch(NumberFormatException expected){
+            // expected
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.window;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.window.FrameDefinition;
+import com.splicemachine.derby.impl.sql.execute.operations.window.WindowAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.WindowAggregatorImpl;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.AvgAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.MaxMinAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceGenericWindowFunction;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SumAggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro-benchmark of sliding ROWS frames ({@code n PRECEDING AND CURRENT ROW}) of increasing size over a single
+ * partition.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -Xmx4g -cp ... WindowFrameBufferBenchmark [partitionRows] [iterations]
+ * </pre>
+ * With incremental aggregation the rows/second should not depend on the frame size.
+ */
+public class WindowFrameBufferBenchmark {
+    private static final long[] FRAME_SIZES = new long[]{1, 10, 100, 1_000, 10_000, 100_000};
+    private static final String[] FUNCTIONS = new String[]{"SUM", "AVG", "MAX", "MIN"};
+
+    public static void main(String... args) throws Exception {
+        int partitionRows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<ExecRow> partition = partition(partitionRows);
+        System.out.printf("partitionRows=%d, iterations=%d%n", partitionRows, iterations);
+        for (int i = 0; i < iterations; i++) {
+            System.out.printf("--- iteration %d%n", i);
+            for (String function : FUNCTIONS) {
+                for (long frameSize : FRAME_SIZES) {
+                    run(function, frameSize, partition);
+                }
+            }
+        }
+    }
+
+    private static void run(String functionName, long frameSize, List<ExecRow> partition) throws Exception {
+        FrameDefinition frame = new FrameDefinition(FrameDefinition.FrameMode.ROWS.ordinal(),
+                FrameDefinition.Frame.PRECEDING.ordinal(), frameSize,
+                FrameDefinition.Frame.CURRENT_ROW.ordinal(), 0);
+        SpliceGenericWindowFunction function = function(functionName);
+        ExecRow templateRow = row(0);
+        templateRow.setColumn(2, new UserType(function));
+        WindowAggregator aggregator = new WindowAggregatorImpl(function, 2, new int[]{1}, 3, frame);
+
+        long start = System.nanoTime();
+        WindowFrameBuffer buffer = BaseFrameBuffer.createFrameBuffer(new WindowAggregator[]{aggregator},
+                partition.iterator(), frame, new int[]{0}, templateRow);
+        long checksum = 0;
+        while (buffer.hasNext()) {
+            checksum += buffer.next().getColumn(3).getLong();
+        }
+        long time = System.nanoTime() - start;
+
+        System.out.printf("%-4s %,8d PRECEDING: %,12.0f rows/s (checksum %d)%n",
+                functionName, frameSize, partition.size() / (time / 1e9d), checksum);
+    }
+
+    private static SpliceGenericWindowFunction function(String functionName) {
+        SpliceGenericWindowFunction function;
+        switch (functionName) {
+            case "SUM":
+                function = new SumAggregator();
+                break;
+            case "AVG":
+                function = new AvgAggregator();
+                break;
+            default:
+                function = new MaxMinAggregator();
+                break;
+        }
+        function.setup(null, functionName, null, null);
+        function.setResultType(new SQLLongint());
+        return function;
+    }
+
+    private static List<ExecRow> partition(int numRows) {
+        Random random = new Random(0L);
+        List<ExecRow> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(row(random.nextInt(1_000_000)));
+        }
+        return rows;
+    }
+
+    private static ExecRow row(long value) {
+        ExecRow row = new ValueRow(3);
+        row.setColumn(1, new SQLLongint(value));
+        row.setColumn(2, new UserType());
+        row.setColumn(3, new SQLLongint());
+        return row;
+    }
+}
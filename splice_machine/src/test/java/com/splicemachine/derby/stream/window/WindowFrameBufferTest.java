@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.window;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.window.FrameDefinition;
+import com.splicemachine.derby.impl.sql.execute.operations.window.WindowAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.WindowAggregatorImpl;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.AvgAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.CountAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.MaxMinAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceGenericWindowFunction;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SumAggregator;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the results of the sliding window aggregates over ROWS frames with those computed over each frame
+ * from scratch.
+ */
+@Category(ArchitectureIndependent.class)
+public class WindowFrameBufferTest {
+    private static final int PRECEDING = FrameDefinition.Frame.PRECEDING.ordinal();
+    private static final int CURRENT_ROW = FrameDefinition.Frame.CURRENT_ROW.ordinal();
+    private static final int FOLLOWING = FrameDefinition.Frame.FOLLOWING.ordinal();
+    private static final int UNBOUNDED_PRECEDING = FrameDefinition.Frame.UNBOUNDED_PRECEDING.ordinal();
+    private static final int UNBOUNDED_FOLLOWING = FrameDefinition.Frame.UNBOUNDED_FOLLOWING.ordinal();
+
+    @Test
+    public void testPrecedingToCurrentRow() throws Exception {
+        for (String function : new String[]{"SUM", "COUNT", "AVG", "MAX", "MIN"}) {
+            assertFrames(function, PRECEDING, 3, CURRENT_ROW, 0, 300);
+            assertFrames(function, PRECEDING, 150, CURRENT_ROW, 0, 1000);
+        }
+    }
+
+    @Test
+    public void testPrecedingToFollowing() throws Exception {
+        for (String function : new String[]{"SUM", "COUNT", "AVG", "MAX", "MIN"}) {
+            assertFrames(function, PRECEDING, 2, FOLLOWING, 2, 300);
+            assertFrames(function, PRECEDING, 120, FOLLOWING, 40, 1000);
+        }
+    }
+
+    @Test
+    public void testUnboundedFrames() throws Exception {
+        for (String function : new String[]{"SUM", "COUNT", "AVG", "MAX", "MIN"}) {
+            assertFrames(function, UNBOUNDED_PRECEDING, 0, CURRENT_ROW, 0, 300);
+            assertFrames(function, CURRENT_ROW, 0, UNBOUNDED_FOLLOWING, 0, 300);
+        }
+    }
+
+    @Test
+    public void testPartitionSmallerThanFrame() throws Exception {
+        for (String function : new String[]{"SUM", "COUNT", "AVG", "MAX", "MIN"}) {
+            assertFrames(function, PRECEDING, 10, FOLLOWING, 10, 5);
+        }
+    }
+
+    @Test
+    public void testRowRingBuffer() throws Exception {
+        RowRingBuffer buffer = new RowRingBuffer();
+        int first = 0;
+        int next = 0;
+        Random random = new Random(0L);
+        for (int i = 0; i < 10000; i++) {
+            if (buffer.isEmpty() || random.nextInt(3) > 0) {
+                buffer.add(row(next++));
+            } else {
+                assertEquals(first++, buffer.removeFirst().getColumn(1).getInt());
+            }
+            assertEquals(next - first, buffer.size());
+            assertEquals(first, buffer.get(0).getColumn(1).getInt());
+            assertEquals(next - 1, buffer.get(buffer.size() - 1).getColumn(1).getInt());
+        }
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void assertFrames(String functionName, int frameStart, long startRows, int frameEnd, long endRows,
+                              int numRows) throws Exception {
+        Random random = new Random(numRows);
+        List<Integer> values = new ArrayList<>(numRows);
+        List<ExecRow> source = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            // one value in ten is null
+            Integer value = random.nextInt(10) == 0 ? null : random.nextInt(2000) - 1000;
+            values.add(value);
+            source.add(row(value));
+        }
+
+        FrameDefinition frame = new FrameDefinition(FrameDefinition.FrameMode.ROWS.ordinal(),
+                frameStart, startRows, frameEnd, endRows);
+        SpliceGenericWindowFunction function = function(functionName);
+        ExecRow templateRow = row(null);
+        templateRow.setColumn(2, new UserType(function));
+        WindowAggregator aggregator = new WindowAggregatorImpl(function, 2, new int[]{1}, 3, frame);
+        WindowFrameBuffer buffer = BaseFrameBuffer.createFrameBuffer(new WindowAggregator[]{aggregator},
+                source.iterator(), frame, new int[]{0}, templateRow);
+
+        long lower = frame.getFrameStart().getValue();
+        long upper = frame.getFrameEnd().getValue();
+        String context = functionName + " over " + frame;
+        for (int i = 0; i < numRows; i++) {
+            assertTrue(context, buffer.hasNext());
+            DataValueDescriptor result = buffer.next().getColumn(3);
+            int from = (int) Math.max(0, lower == Long.MIN_VALUE ? 0 : i + lower);
+            int to = (int) Math.min(numRows - 1, upper == Long.MAX_VALUE ? numRows - 1 : i + upper);
+            Long expected = expected(functionName, values.subList(from, to + 1));
+            String rowContext = context + " at row " + i;
+            if (expected == null) {
+                assertTrue(rowContext, result.isNull());
+            } else {
+                assertFalse(rowContext, result.isNull());
+                assertEquals(rowContext, expected.longValue(), result.getLong());
+            }
+        }
+        assertFalse(context, buffer.hasNext());
+    }
+
+    private static Long expected(String functionName, List<Integer> frame) {
+        long count = 0;
+        long sum = 0;
+        Integer max = null;
+        Integer min = null;
+        for (Integer value : frame) {
+            if (value == null)
+                continue;
+            count++;
+            sum += value;
+            max = max == null || value > max ? value : max;
+            min = min == null || value < min ? value : min;
+        }
+        switch (functionName) {
+            case "COUNT":
+                return (long) frame.size();
+            case "SUM":
+                return count == 0 ? null : sum;
+            case "AVG":
+                return count == 0 ? null : sum / count;
+            case "MAX":
+                return max == null ? null : (long) max;
+            default:
+                return min == null ? null : (long) min;
+        }
+    }
+
+    private static SpliceGenericWindowFunction function(String functionName) {
+        SpliceGenericWindowFunction function;
+        switch (functionName) {
+            case "SUM":
+                function = new SumAggregator();
+                break;
+            case "COUNT":
+                function = new CountAggregator();
+                break;
+            case "AVG":
+                function = new AvgAggregator();
+                break;
+            default:
+                function = new MaxMinAggregator();
+                break;
+        }
+        function.setup(null, functionName, null, null);
+        function.setResultType(new SQLInteger());
+        return function;
+    }
+
+    private static ExecRow row(Integer value) {
+        ExecRow row = new ValueRow(3);
+        row.setColumn(1, value == null ? new SQLInteger() : new SQLInteger(value));
+        row.setColumn(2, new UserType());
+        row.setColumn(3, new SQLInteger());
+        return row;
+    }
+}
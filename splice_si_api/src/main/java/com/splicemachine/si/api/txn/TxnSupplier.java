@@ -42,6 +42,18 @@ public interface TxnSupplier {
 		 */
 		TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException;
 
+		/**
+		 * Get the transactions associated with each of {@code txnIds}, without their destination tables.
+		 *
+		 * Implementations which are backed by a remote store should fetch all of them with as few
+		 * network calls as possible, rather than one at a time.
+		 *
+		 * @param txnIds the transaction ids to fetch.
+		 * @return an array holding, at each position, the transaction of the id at the same position
+		 * in {@code txnIds}, or {@code null} if that transaction could not be found.
+		 */
+		TxnView[] getTransactions(long[] txnIds) throws IOException;
+
 		/**
 		 * Determines whether this Store has the transaction in its local cache
 		 * or not.
@@ -18,12 +18,15 @@ import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.si.api.filter.RowAccumulator;
 import com.splicemachine.si.api.filter.TxnFilter;
 import com.splicemachine.si.api.readresolve.ReadResolver;
+import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
+import com.splicemachine.si.impl.store.SharedActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.store.IgnoreTxnSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.TxnVisibilitySnapshot;
 import com.splicemachine.storage.CellType;
 import com.splicemachine.storage.DataCell;
 import com.splicemachine.storage.DataFilter;
@@ -41,6 +44,11 @@ import java.io.IOException;
 public class SimpleTxnFilter implements TxnFilter{
     private final TxnSupplier transactionStore;
     private final TxnView myTxn;
+    /*
+     * Array-backed copy of myTxn's ancestry, used to check visibility without walking myTxn's
+     * parent chain for every cell. Null if myTxn has visibility rules which can't be snapshotted.
+     */
+    private final TxnVisibilitySnapshot myVisibility;
     private final ReadResolver readResolver;
     //per row fields
     private final LongHashSet visitedTxnIds=new LongHashSet();
@@ -66,9 +74,13 @@ public class SimpleTxnFilter implements TxnFilter{
                            ReadResolver readResolver,
                            TxnSupplier baseSupplier){
         assert readResolver!=null;
-        this.transactionStore = new ActiveTxnCacheSupplier(baseSupplier,1024); //TODO -sf- configure
+        if(baseSupplier instanceof SharedActiveTxnCacheSupplier && myTxn.getIsolationLevel()==Txn.IsolationLevel.SNAPSHOT_ISOLATION)
+            this.transactionStore = ((SharedActiveTxnCacheSupplier)baseSupplier).forReader(myTxn.getBeginTimestamp());
+        else
+            this.transactionStore = new ActiveTxnCacheSupplier(baseSupplier,1024); //TODO -sf- configure
         this.tableName=tableName;
         this.myTxn=myTxn;
+        this.myVisibility=TxnVisibilitySnapshot.of(myTxn);
         this.readResolver=readResolver;
     }
 
@@ -213,7 +225,8 @@ public class SimpleTxnFilter implements TxnFilter{
         // If the database is restored from a backup, it may contain data that were written by a transaction which
         // is not present in SPLICE_TXN table, because SPLICE_TXN table is copied before the transaction begins.
         // However, the table written by the txn was copied
-        return toCompare != null ? myTxn.canSee(toCompare) : false;
+        if(toCompare==null) return false;
+        return myVisibility!=null ? myVisibility.canSee(toCompare) : myTxn.canSee(toCompare);
     }
 
     private TxnView fetchTransaction(long txnId) throws IOException{
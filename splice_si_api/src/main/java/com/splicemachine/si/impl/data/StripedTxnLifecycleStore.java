@@ -21,6 +21,7 @@ import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.coprocessor.TxnMessage;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.Source;
 import com.splicemachine.utils.SpliceLogUtils;
@@ -110,6 +111,7 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
             }
             long commitTs=timestampSource.nextTimestamp();
             baseStore.recordCommit(txnId,commitTs);
+            invalidateCachedTxn(txnId);
             return commitTs;
         }finally{
             unlock(lock);
@@ -132,6 +134,7 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
                     return;
                 default:
                     baseStore.recordRollback(txnId);
+                    invalidateCachedTxn(txnId);
             }
         }finally{
             unlock(lock);
@@ -156,6 +159,9 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
                     return;
                 default:
                     baseStore.recordRollbackSubtransactions(txnId, subIds);
+                    for(long subId:subIds){
+                        invalidateCachedTxn(subId);
+                    }
             }
         }finally{
             unlock(lock);
@@ -243,6 +249,16 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
         serverControl.stopOperation();
     }
 
+    private void invalidateCachedTxn(long txnId){
+        /*
+         * Scans on this server may have cached the transaction while it was active; now
+         * that it has completed, make sure they look it up again.
+         */
+        SIDriver driver=SIDriver.driver();
+        if(driver!=null)
+            driver.getSharedTxnCache().invalidate(txnId);
+    }
+
     private void acquireLock(Lock lock) throws IOException{
         //make sure that the region doesn't close while we are working on it
 
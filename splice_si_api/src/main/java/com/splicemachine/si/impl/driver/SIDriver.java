@@ -45,6 +45,7 @@ import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.si.impl.server.SITransactor;
 import com.splicemachine.si.impl.store.IgnoreTxnSupplier;
+import com.splicemachine.si.impl.store.SharedActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.SITransactionReadController;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.Partition;
@@ -91,6 +92,7 @@ public class SIDriver {
     private final OperationStatusFactory operationStatusFactory;
     private final TimestampSource timestampSource;
     private final TxnSupplier txnSupplier;
+    private final SharedActiveTxnCacheSupplier sharedTxnCache;
     private final IgnoreTxnSupplier ignoreTxnSupplier;
     private final Transactor transactor;
     private final TxnOperationFactory txnOpFactory;
@@ -123,6 +125,11 @@ public class SIDriver {
         this.partitionInfoCache = env.partitionInfoCache();
         this.snowflakeFactory = env.snowflakeFactory();
         this.ignoreTxnSupplier = env.ignoreTxnSupplier();
+        this.sharedTxnCache = new SharedActiveTxnCacheSupplier(this.txnSupplier,
+                config.getSharedActiveTxnCacheSize(),
+                config.getCompletedTxnConcurrency(),
+                config.getSharedActiveTxnCacheMaxAge(),
+                this.clock);
         //noinspection unchecked
         this.transactor = new SITransactor(
                 this.txnSupplier,
@@ -134,7 +141,7 @@ public class SIDriver {
         clientTxnLifecycleManager.setTxnStore(this.txnStore);
         clientTxnLifecycleManager.setKeepAliveScheduler(env.keepAliveScheduler());
         this.lifecycleManager =clientTxnLifecycleManager;
-        readController = new SITransactionReadController(txnSupplier);
+        readController = new SITransactionReadController(sharedTxnCache);
         readResolver = initializedReadResolver(config,env.keyedReadResolver());
         this.baseOpFactory = env.baseOperationFactory();
         this.env = env;
@@ -183,6 +190,9 @@ public class SIDriver {
     public TxnSupplier getTxnSupplier(){
         return txnSupplier;
     }
+    public SharedActiveTxnCacheSupplier getSharedTxnCache(){
+        return sharedTxnCache;
+    }
     public IgnoreTxnSupplier getIgnoreTxnSupplier(){
         return ignoreTxnSupplier;
     }
@@ -231,14 +241,14 @@ public class SIDriver {
             return new TxnRegion(basePartition,
                     getRollForward(),
                     getReadResolver(basePartition),
-                    getTxnSupplier(),
+                    getSharedTxnCache(),
                     getTransactor(),
                     getOperationFactory());
         }else{
             return new TxnRegion(basePartition,
                     NoopRollForward.INSTANCE,
                     NoOpReadResolver.INSTANCE,
-                    getTxnSupplier(),
+                    getSharedTxnCache(),
                     getTransactor(),
                     getOperationFactory());
         }
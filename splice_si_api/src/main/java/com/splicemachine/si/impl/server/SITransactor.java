@@ -241,8 +241,7 @@ public class SITransactor implements Transactor{
                                                                    MutationStatus[] finalStatus, boolean skipConflictDetection,
                                                                    boolean skipWAL) throws IOException {
         IntObjectHashMap<DataPut> finalMutationsToWrite = new IntObjectHashMap(dataAndLocks.length, 0.9f);
-        DataResult possibleConflicts = null;
-        BitSet bloomInMemoryCheck  = skipConflictDetection ? null : table.getBloomInMemoryCheck(constraintChecker!=null,dataAndLocks);
+        DataResult[] latest = skipConflictDetection ? null : getLatestForKvBatch(table,dataAndLocks,constraintChecker!=null);
         for(int i=0;i<dataAndLocks.length;i++){
             Pair<KVPair, Lock> baseDataAndLock=dataAndLocks[i];
             if(baseDataAndLock==null) continue;
@@ -260,8 +259,7 @@ public class SITransactor implements Transactor{
                  * We know that this is the case because there is no constraint checker (constraint checkers are only
                  * applied on key elements.
                  */
-                //todo -sf remove the Row key copy here
-                possibleConflicts=bloomInMemoryCheck==null||bloomInMemoryCheck.get(i)?table.getLatest(kvPair.getRowKey(),possibleConflicts):null;
+                DataResult possibleConflicts=latest[i];
                 if(possibleConflicts!=null){
                     //we need to check for write conflicts
                     try {
@@ -296,6 +294,29 @@ public class SITransactor implements Transactor{
         return finalMutationsToWrite;
     }
 
+    /**
+     * Reads the latest version of every row of the batch which needs a write conflict or constraint check and
+     * may already exist, in one pass over the table.
+     */
+    private DataResult[] getLatestForKvBatch(Partition table,
+                                             Pair<KVPair, Lock>[] dataAndLocks,
+                                             boolean hasConstraintChecker) throws IOException{
+        BitSet bloomInMemoryCheck=table.getBloomInMemoryCheck(hasConstraintChecker,dataAndLocks);
+        BitSet rows=new BitSet(dataAndLocks.length);
+        for(int i=0;i<dataAndLocks.length;i++){
+            Pair<KVPair, Lock> baseDataAndLock=dataAndLocks[i];
+            if(baseDataAndLock==null) continue;
+            /*
+             * If the table has no keys, then inserts never conflict (see checkConflictsForKvBatch), so
+             * there is nothing to read for them.
+             */
+            if(!hasConstraintChecker && KVPair.Type.INSERT.equals(baseDataAndLock.getFirst().getType())) continue;
+            if(bloomInMemoryCheck==null || bloomInMemoryCheck.get(i))
+                rows.set(i);
+        }
+        return table.getLatest(dataAndLocks,rows);
+    }
+
     private boolean applyConstraint(ConstraintChecker constraintChecker,
                                     TxnFilter constraintStateFilter,
                                     int rowPosition,
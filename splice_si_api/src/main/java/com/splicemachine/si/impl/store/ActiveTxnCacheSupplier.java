@@ -64,6 +64,32 @@ public class ActiveTxnCacheSupplier implements TxnSupplier {
         return txn;
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException {
+        TxnView[] txns = new TxnView[txnIds.length];
+        int[] missing = new int[txnIds.length];
+        int numMissing = 0;
+        for (int i = 0; i < txnIds.length; i++) {
+            txns[i] = cache.get(txnIds[i]);
+            if (txns[i] == null)
+                missing[numMissing++] = i;
+        }
+        if (numMissing == 0) return txns;
+        //fetch everything which isn't cached with a single call to the delegate
+        long[] toFetch = new long[numMissing];
+        for (int i = 0; i < numMissing; i++) {
+            toFetch[i] = txnIds[missing[i]];
+        }
+        TxnView[] fetched = delegate.getTransactions(toFetch);
+        for (int i = 0; i < numMissing; i++) {
+            TxnView txn = fetched[i];
+            txns[missing[i]] = txn;
+            if (txn != null && txn.getEffectiveState() == Txn.State.ACTIVE)
+                this.cache.put(toFetch[i], txn);
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId) {
         return cache.get(txnId) != null ? true : delegate.transactionCached(txnId);
@@ -82,6 +82,45 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
         return transaction;
     }
 
+    @Override
+    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        int[] missing=new int[txnIds.length];
+        int numMissing=0;
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            if(txnId==-1){
+                txns[i]=Txn.ROOT_TRANSACTION;
+                continue;
+            }
+            requests.incrementAndGet();
+            txns[i]=cache.get(txnId);
+            if(txns[i]!=null)
+                hits.incrementAndGet();
+            else
+                missing[numMissing++]=i;
+        }
+        if(numMissing==0) return txns;
+        //fetch everything which isn't cached with a single call to the delegate
+        long[] toFetch=new long[numMissing];
+        for(int i=0;i<numMissing;i++){
+            toFetch[i]=txnIds[missing[i]];
+        }
+        TxnView[] fetched=delegate.getTransactions(toFetch);
+        for(int i=0;i<numMissing;i++){
+            TxnView transaction=fetched[i];
+            txns[missing[i]]=transaction;
+            if(transaction==null) continue;
+            switch(transaction.getEffectiveState()){
+                case COMMITTED:
+                case ROLLEDBACK:
+                    cache.put(transaction.getTxnId(),transaction);
+            }
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId){
         return cache.get(txnId)!=null;
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+import com.splicemachine.si.api.txn.TaskId;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.jmx.TxnCacheStatus;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TxnSupplier which caches <em>active</em> transactions, intended to be shared by every transactional
+ * scan on a server (as opposed to {@link ActiveTxnCacheSupplier}, which caches for a single scan).
+ * It sits in front of the {@link CompletedTxnCacheSupplier}, which remains responsible for transactions which
+ * have committed or rolled back.
+ * <p/>
+ * The cache is split into a fixed number of stripes. Each stripe is a set-associative table of immutable
+ * entries: reads are lock-free (a volatile read of at most {@link #WAYS} slots), while writers lock only
+ * the stripe they modify. When a bucket is full, the entry which was cached earliest is evicted.
+ * <p/>
+ * An active view is only correct for as long as the transaction has not completed, and a transaction may
+ * complete on another server without this server ever hearing about it. Active views are therefore only
+ * shared with snapshot readers, through {@link #forReader(long)}:
+ * <ul>
+ *     <li>before a reader fetches a transaction, it reads the highest begin timestamp of the readers which
+ *     have used the cache. That timestamp was issued before the fetch, so a commit recorded after the fetch
+ *     has a greater commit timestamp. It is stored with the entry as its <em>lookup timestamp</em></li>
+ *     <li>an entry is only served to readers whose begin timestamp is no greater than its lookup timestamp.
+ *     Such a reader could not see a commit recorded after the lookup, so the active view gives it the same
+ *     answer as the transaction table would. Newer readers fetch the transaction again</li>
+ * </ul>
+ * This also makes it harmless for a fetch to race with {@link #invalidate(long)} and cache a view which has
+ * just become stale: that view is only served to readers which are older than the commit.
+ * <p/>
+ * Calls made directly on this supplier (rather than through a reader) neither use nor store active views.
+ * Entries are still removed as soon as this server learns that a transaction has completed, and expire after
+ * {@code maxAge} milliseconds, which bounds the memory held for transactions which are not looked up again.
+ * <p/>
+ * This class is thread-safe, and safe to be shared between many threads.
+ */
+public class SharedActiveTxnCacheSupplier implements TxnSupplier,TxnCacheStatus{
+    public static final String JMX_NAME="com.splicemachine.si.impl.store:type=SharedActiveTxnCache";
+    private static final int WAYS=4;
+
+    private final TxnSupplier delegate;
+    private final Clock clock;
+    private final long maxAgeNanos;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeShift;
+    private final int bucketMask;
+    private final Hash32 hashFunction=HashFunctions.murmur3(0);
+    /*
+     * The highest begin timestamp of the readers which have used the cache. Every value it holds was issued
+     * by the timestamp oracle before it is read, which is what makes it usable as a lookup timestamp.
+     */
+    private final AtomicLong highestReaderTimestamp=new AtomicLong(0L);
+
+    private final LongAdder hits=new LongAdder();
+    private final LongAdder misses=new LongAdder();
+    private final LongAdder evictions=new LongAdder();
+    private final LongAdder invalidations=new LongAdder();
+
+    public SharedActiveTxnCacheSupplier(TxnSupplier delegate,int maxSize,int concurrencyLevel,long maxAgeMillis,Clock clock){
+        this.delegate=delegate;
+        this.clock=clock;
+        this.maxAgeNanos=TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        int numStripes=powerOfTwo(Math.max(1,concurrencyLevel));
+        int bucketsPerStripe=powerOfTwo(Math.max(1,maxSize/(numStripes*WAYS)));
+        this.stripes=new Stripe[numStripes];
+        for(int i=0;i<numStripes;i++){
+            stripes[i]=new Stripe(bucketsPerStripe*WAYS);
+        }
+        this.stripeMask=numStripes-1;
+        this.stripeShift=Integer.numberOfTrailingZeros(numStripes);
+        this.bucketMask=bucketsPerStripe-1;
+    }
+
+    /**
+     * @param beginTimestamp the begin timestamp of a snapshot isolation reader
+     * @return a view of this cache which serves the reader the active transactions that are still
+     * active as far as its snapshot is concerned
+     */
+    public TxnSupplier forReader(long beginTimestamp){
+        highestReaderTimestamp.accumulateAndGet(beginTimestamp,Math::max);
+        return new Reader(beginTimestamp);
+    }
+
+    @Override
+    public TxnView getTransaction(long txnId) throws IOException{
+        return delegate.getTransaction(txnId);
+    }
+
+    @Override
+    public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+        return delegate.getTransaction(txnId,getDestinationTables);
+    }
+
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        return delegate.getTransactions(txnIds);
+    }
+
+    @Override
+    public boolean transactionCached(long txnId){
+        return delegate.transactionCached(txnId);
+    }
+
+    @Override
+    public void cache(TxnView toCache){
+        //we don't know when an active view was looked up, so only completed ones are cached
+        if(toCache.getState()!=Txn.State.ACTIVE){
+            //we now know that it has completed, so the active version is stale
+            invalidate(toCache.getTxnId());
+            delegate.cache(toCache);
+        }
+    }
+
+    @Override
+    public TxnView getTransactionFromCache(long txnId){
+        return delegate.getTransactionFromCache(txnId);
+    }
+
+    @Override
+    public TaskId getTaskId(long txnId) throws IOException{
+        return delegate.getTaskId(txnId);
+    }
+
+    /**
+     * Remove {@code txnId} from the cache, because it has committed or rolled back.
+     */
+    public void invalidate(long txnId){
+        int hash=hash(txnId);
+        Stripe stripe=stripes[hash & stripeMask];
+        int base=bucket(hash);
+        synchronized(stripe){
+            for(int i=base;i<base+WAYS;i++){
+                Entry e=stripe.slots.get(i);
+                if(e!=null && e.txnId==txnId){
+                    stripe.slots.set(i,null);
+                    stripe.size--;
+                    invalidations.increment();
+                    return;
+                }
+            }
+        }
+    }
+
+    public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        mbs.registerMBean(this,new ObjectName(JMX_NAME));
+    }
+
+    @Override public long getHits(){ return hits.sum(); }
+    @Override public long getMisses(){ return misses.sum(); }
+    @Override public long getEvictions(){ return evictions.sum(); }
+    @Override public long getInvalidations(){ return invalidations.sum(); }
+
+    @Override
+    public int getSize(){
+        int size=0;
+        for(Stripe stripe:stripes){
+            size+=stripe.size;
+        }
+        return size;
+    }
+
+    @Override
+    public int getCapacity(){
+        return stripes.length*stripes[0].slots.length();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private TxnView lookup(long txnId,long readerTimestamp){
+        int hash=hash(txnId);
+        AtomicReferenceArray<Entry> slots=stripes[hash & stripeMask].slots;
+        int base=bucket(hash);
+        for(int i=base;i<base+WAYS;i++){
+            Entry e=slots.get(i);
+            if(e!=null && e.txnId==txnId){
+                if(readerTimestamp>e.lookupTimestamp) return null; //the transaction may have committed since
+                return clock.nanoTime()-e.cachedAt<maxAgeNanos?e.txn:null;
+            }
+        }
+        return null;
+    }
+
+    private void put(TxnView txn,long lookupTimestamp){
+        long txnId=txn.getTxnId();
+        int hash=hash(txnId);
+        Stripe stripe=stripes[hash & stripeMask];
+        int base=bucket(hash);
+        long now=clock.nanoTime();
+        Entry entry=new Entry(txnId,txn,lookupTimestamp,now);
+        synchronized(stripe){
+            int free=-1;
+            int oldest=-1;
+            long oldestCachedAt=Long.MAX_VALUE;
+            for(int i=base;i<base+WAYS;i++){
+                Entry e=stripe.slots.get(i);
+                if(e==null){
+                    if(free<0) free=i;
+                    continue;
+                }
+                if(e.txnId==txnId){
+                    //keep whichever view can be served to more readers
+                    if(e.lookupTimestamp<=lookupTimestamp || now-e.cachedAt>=maxAgeNanos)
+                        stripe.slots.set(i,entry);
+                    return;
+                }
+                if(now-e.cachedAt>=maxAgeNanos){
+                    //expired entries are as good as empty
+                    if(free<0) free=i;
+                    continue;
+                }
+                if(e.cachedAt<oldestCachedAt){
+                    oldest=i;
+                    oldestCachedAt=e.cachedAt;
+                }
+            }
+            if(free>=0){
+                if(stripe.slots.get(free)==null)
+                    stripe.size++;
+                stripe.slots.set(free,entry);
+            }else{
+                stripe.slots.set(oldest,entry);
+                evictions.increment();
+            }
+        }
+    }
+
+    private int hash(long txnId){
+        return hashFunction.hash(txnId);
+    }
+
+    private int bucket(int hash){
+        return ((hash>>>stripeShift) & bucketMask)*WAYS;
+    }
+
+    private static int powerOfTwo(int n){
+        int p=1;
+        while(p<n)
+            p<<=1;
+        return p;
+    }
+
+    private static final class Entry{
+        private final long txnId;
+        private final TxnView txn;
+        private final long lookupTimestamp;
+        private final long cachedAt;
+
+        Entry(long txnId,TxnView txn,long lookupTimestamp,long cachedAt){
+            this.txnId=txnId;
+            this.txn=txn;
+            this.lookupTimestamp=lookupTimestamp;
+            this.cachedAt=cachedAt;
+        }
+    }
+
+    /**
+     * The cache as seen by a single snapshot isolation reader.
+     */
+    private final class Reader implements TxnSupplier{
+        private final long beginTimestamp;
+
+        Reader(long beginTimestamp){
+            this.beginTimestamp=beginTimestamp;
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId) throws IOException{
+            return getTransaction(txnId,false);
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+            TxnView txn=lookup(txnId,beginTimestamp);
+            if(txn!=null){
+                hits.increment();
+                return txn;
+            }
+            misses.increment();
+            long lookupTimestamp=highestReaderTimestamp.get();
+            txn=delegate.getTransaction(txnId,getDestinationTables);
+            if(txn==null) return null;
+
+            if(txn.getEffectiveState()==Txn.State.ACTIVE)
+                put(txn,lookupTimestamp);
+            return txn;
+        }
+
+        @Override
+        public TxnView[] getTransactions(long[] txnIds) throws IOException{
+            TxnView[] txns=new TxnView[txnIds.length];
+            int[] missing=new int[txnIds.length];
+            int numMissing=0;
+            for(int i=0;i<txnIds.length;i++){
+                txns[i]=lookup(txnIds[i],beginTimestamp);
+                if(txns[i]==null)
+                    missing[numMissing++]=i;
+            }
+            hits.add(txnIds.length-numMissing);
+            if(numMissing==0) return txns;
+            misses.add(numMissing);
+            long[] toFetch=new long[numMissing];
+            for(int i=0;i<numMissing;i++){
+                toFetch[i]=txnIds[missing[i]];
+            }
+            long lookupTimestamp=highestReaderTimestamp.get();
+            TxnView[] fetched=delegate.getTransactions(toFetch);
+            for(int i=0;i<numMissing;i++){
+                TxnView txn=fetched[i];
+                txns[missing[i]]=txn;
+                if(txn!=null && txn.getEffectiveState()==Txn.State.ACTIVE)
+                    put(txn,lookupTimestamp);
+            }
+            return txns;
+        }
+
+        @Override
+        public boolean transactionCached(long txnId){
+            return lookup(txnId,beginTimestamp)!=null || delegate.transactionCached(txnId);
+        }
+
+        @Override
+        public void cache(TxnView toCache){
+            SharedActiveTxnCacheSupplier.this.cache(toCache);
+        }
+
+        @Override
+        public TxnView getTransactionFromCache(long txnId){
+            TxnView tentative=lookup(txnId,beginTimestamp);
+            return tentative!=null?tentative:delegate.getTransactionFromCache(txnId);
+        }
+
+        @Override
+        public TaskId getTaskId(long txnId) throws IOException{
+            return delegate.getTaskId(txnId);
+        }
+    }
+
+    private static final class Stripe{
+        private final AtomicReferenceArray<Entry> slots;
+        private volatile int size;
+
+        Stripe(int numSlots){
+            this.slots=new AtomicReferenceArray<>(numSlots);
+        }
+    }
+}
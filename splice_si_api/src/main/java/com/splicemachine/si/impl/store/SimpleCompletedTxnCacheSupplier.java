@@ -58,6 +58,31 @@ public class SimpleCompletedTxnCacheSupplier implements TxnSupplier{
         }
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException {
+        TxnView[] txns = new TxnView[txnIds.length];
+        int[] missing = new int[txnIds.length];
+        int numMissing = 0;
+        for (int i = 0; i < txnIds.length; i++) {
+            txns[i] = cache.getIfPresent(txnIds[i]);
+            if (txns[i] == null)
+                missing[numMissing++] = i;
+        }
+        if (numMissing == 0) return txns;
+        long[] toFetch = new long[numMissing];
+        for (int i = 0; i < numMissing; i++) {
+            toFetch[i] = txnIds[missing[i]];
+        }
+        TxnView[] fetched = delegate.getTransactions(toFetch);
+        for (int i = 0; i < numMissing; i++) {
+            TxnView txn = fetched[i];
+            txns[missing[i]] = txn;
+            if (txn != null)
+                cache.put(toFetch[i], txn);
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId) {
         return getTransactionFromCache(txnId)!=null;
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+
+/**
+ * An immutable, array-backed copy of the parts of a reading transaction which
+ * {@link AbstractTxnView#canSee(TxnView)} looks at: the transaction ids and begin timestamps of
+ * its ancestry, its isolation level and whether it is additive.
+ * <p>
+ * None of those change over the life of a transaction, so a filter can take a snapshot once and then
+ * evaluate visibility for every cell it sees without walking the reader's parent chain, and without
+ * allocating. The semantics are exactly those of {@link AbstractTxnView#canSee(TxnView)} (and of
+ * {@link AbstractTxn#canSee(TxnView)}, which additionally hides the writes of active child transactions).
+ * <p>
+ * Only transaction types which use those implementations can be snapshotted; see {@link #of(TxnView)}.
+ */
+public final class TxnVisibilitySnapshot{
+    private static final long ROOT_TXN_ID=Txn.ROOT_TRANSACTION.getTxnId();
+
+    private final long[] ancestorIds; //masked ids; [0] is the transaction itself, the last entry is a child of ROOT
+    private final long[] beginTimestamps;
+    private final long parentTxnId;
+    private final boolean additive;
+    private final Txn.IsolationLevel isolationLevel;
+    /*
+     * Set when the transaction is a local Txn, which can create child transactions after we
+     * have taken the snapshot. Those must be checked live (see AbstractTxn#canSee).
+     */
+    private final AbstractTxn localTxn;
+
+    private TxnVisibilitySnapshot(long[] ancestorIds,
+                                  long[] beginTimestamps,
+                                  long parentTxnId,
+                                  boolean additive,
+                                  Txn.IsolationLevel isolationLevel,
+                                  AbstractTxn localTxn){
+        this.ancestorIds=ancestorIds;
+        this.beginTimestamps=beginTimestamps;
+        this.parentTxnId=parentTxnId;
+        this.additive=additive;
+        this.isolationLevel=isolationLevel;
+        this.localTxn=localTxn;
+    }
+
+    /**
+     * @return a snapshot of {@code txn}, or {@code null} if {@code txn} uses visibility semantics
+     * which cannot be captured by a snapshot (in which case callers should use {@link TxnView#canSee(TxnView)}).
+     */
+    public static TxnVisibilitySnapshot of(TxnView txn){
+        if(txn==null) return null;
+        Class<?> type=txn.getClass();
+        AbstractTxn localTxn=null;
+        if(type==ReadOnlyTxn.class || type==WritableTxn.class)
+            localTxn=(AbstractTxn)txn;
+        else if(type!=ActiveWriteTxn.class && type!=InheritingTxnView.class)
+            return null;
+
+        int depth=0;
+        for(TxnView t=txn;!isRoot(t);t=t.getParentTxnView())
+            depth++;
+        if(depth==0) return null;
+
+        long[] ids=new long[depth];
+        long[] begins=new long[depth];
+        TxnView t=txn;
+        for(int i=0;i<depth;i++){
+            ids[i]=t.getTxnId()&SIConstants.TRANSANCTION_ID_MASK;
+            begins[i]=t.getBeginTimestamp();
+            t=t.getParentTxnView();
+        }
+        TxnView parent=txn.getParentTxnView();
+        return new TxnVisibilitySnapshot(ids,begins,parent.getTxnId(),txn.isAdditive(),txn.getIsolationLevel(),localTxn);
+    }
+
+    public long getTxnId(){
+        return ancestorIds[0];
+    }
+
+    public boolean canSee(TxnView otherTxn){
+        assert otherTxn!=null: "Cannot access visibility semantics of a null transaction!";
+        if(localTxn!=null && hasActiveChild(otherTxn.getTxnId())) return false;
+
+        Txn.State otherState=otherTxn.getState();
+        if(otherState==Txn.State.ROLLEDBACK) return false; // can't see rolledback
+        if((otherTxn.getTxnId()&SIConstants.TRANSANCTION_ID_MASK)==ancestorIds[0]) return true; //you can always see your own writes
+        if(additive && parentTxnId!=ROOT_TXN_ID && otherTxn.isAdditive()){
+            //additive children of the same parent cannot see each other's writes
+            if(parentTxnId==otherTxn.getParentTxnView().getTxnId()) return false;
+        }
+
+        //find the lowest active transaction in otherTxn's chain (lat), and the one immediately below it
+        TxnView lat=otherTxn;
+        Txn.State latState=otherState;
+        TxnView below=null;
+        while(latState!=Txn.State.ACTIVE){
+            if(latState==Txn.State.ROLLEDBACK) return false; //never see rolled back transactions
+            below=lat;
+            lat=lat.getParentTxnView();
+            latState=lat.getState();
+        }
+
+        if(isAncestorOf(otherTxn)){
+            //we are an ancestor, so use READ_COMMITTED/READ_UNCOMMITTED semantics with our own begin timestamp
+            Txn.IsolationLevel level=isolationLevel;
+            if(level==Txn.IsolationLevel.SNAPSHOT_ISOLATION)
+                level=Txn.IsolationLevel.READ_COMMITTED;
+            return isolationCanSee(level,beginTimestamps[0],otherTxn);
+        }
+        boolean latIsRoot=isRoot(lat);
+        int latPosition=latIsRoot?-1:indexOf(lat.getTxnId()&SIConstants.TRANSANCTION_ID_MASK);
+        if(latPosition>0){
+            if(below==null) return true; //we are a child of lat, so we can see the reads
+            //use the begin timestamp of our ancestor which is the immediate child of lat
+            return isolationCanSee(isolationLevel,beginTimestamps[latPosition-1],below);
+        }
+        //no transactions in common, so use the begin timestamp of our top-level ancestor
+        if(latIsRoot)
+            lat=below;
+        return isolationCanSee(isolationLevel,beginTimestamps[beginTimestamps.length-1],lat);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static boolean isolationCanSee(Txn.IsolationLevel level,long beginTimestamp,TxnView otherTxn){
+        //mirrors Txn.IsolationLevel#canSee, without the virtual call
+        switch(level){
+            case READ_UNCOMMITTED:
+                return otherTxn.getState()!=Txn.State.ROLLEDBACK;
+            case READ_COMMITTED:
+                return otherTxn.getState()==Txn.State.COMMITTED;
+            default:
+                return otherTxn.getState()==Txn.State.COMMITTED && otherTxn.getCommitTimestamp()<=beginTimestamp;
+        }
+    }
+
+    private boolean isAncestorOf(TxnView otherTxn){
+        long myId=ancestorIds[0];
+        for(TxnView t=otherTxn;!isRoot(t);t=t.getParentTxnView()){
+            if((t.getTxnId()&SIConstants.TRANSANCTION_ID_MASK)==myId) return true;
+        }
+        return false;
+    }
+
+    private int indexOf(long maskedTxnId){
+        for(int i=0;i<ancestorIds.length;i++){
+            if(ancestorIds[i]==maskedTxnId) return i;
+        }
+        return -1;
+    }
+
+    private boolean hasActiveChild(long txnId){
+        // Protects against reading data written by the "self-insert transaction"
+        if(localTxn.children.isEmpty()) return false;
+        for(Txn c : localTxn.children){
+            if(c.getTxnId()==txnId && c.getState()==Txn.State.ACTIVE)
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isRoot(TxnView txn){
+        return txn==null || txn.getTxnId()==ROOT_TXN_ID;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.jmx;
+
+import javax.management.MXBean;
+
+/**
+ * Monitoring Hook for JMX, for the active transaction cache which is shared by all
+ * the transactional scans on a server.
+ */
+@MXBean
+@SuppressWarnings("unused")
+public interface TxnCacheStatus{
+
+    /**
+     * @return the total number of lookups which were answered by the cache
+     */
+    long getHits();
+
+    /**
+     * @return the total number of lookups which had to go to the underlying transaction supplier
+     */
+    long getMisses();
+
+    /**
+     * @return the total number of transactions which were pushed out of the cache to make room for others
+     */
+    long getEvictions();
+
+    /**
+     * @return the total number of transactions which were removed because they committed or rolled back
+     */
+    long getInvalidations();
+
+    /**
+     * @return the number of transactions currently held in the cache
+     */
+    int getSize();
+
+    /**
+     * @return the maximum number of transactions which the cache can hold
+     */
+    int getCapacity();
+}
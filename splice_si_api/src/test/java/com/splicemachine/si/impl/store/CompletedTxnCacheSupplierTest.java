@@ -25,6 +25,8 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.splicemachine.si.impl.TxnTestUtils.assertTxnsMatch;
@@ -159,4 +161,38 @@ public class CompletedTxnCacheSupplierTest{
         TxnView fromCache=store.getTransaction(txn.getTxnId());
         assertTxnsMatch("Transaction from store is not correct!",txn,fromCache);
     }
+
+    @Test
+    public void testBatchedLookupOnlyFetchesUncachedTransactions() throws Exception{
+        TxnLifecycleManager tc=mock(TxnLifecycleManager.class);
+        when(tc.commit(anyLong())).thenReturn(0x500l);
+        Txn first=new WritableTxn(0x100l,0x100l,null,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.ROOT_TRANSACTION,tc,false,null);
+        first.commit();
+        Txn second=new WritableTxn(0x200l,0x200l,null,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.ROOT_TRANSACTION,tc,false,null);
+        second.commit();
+
+        final List<long[]> requests=new ArrayList<>();
+        TxnStore backStore=new TestingTxnStore(new IncrementingClock(),new TestingTimestampSource(),null,Long.MAX_VALUE){
+            @Override
+            public TxnView[] getTransactions(long[] txnIds) throws IOException{
+                requests.add(txnIds.clone());
+                return super.getTransactions(txnIds);
+            }
+        };
+        backStore.recordNewTransaction(first);
+        backStore.recordNewTransaction(second);
+
+        TxnSupplier store=new CompletedTxnCacheSupplier(backStore,10,16);
+        store.getTransaction(first.getTxnId());
+
+        TxnView[] txns=store.getTransactions(new long[]{0x300l,first.getTxnId(),second.getTxnId()});
+        Assert.assertNull("Unknown transaction should not be found",txns[0]);
+        assertTxnsMatch("Incorrect cached transaction",first,txns[1]);
+        assertTxnsMatch("Incorrect fetched transaction",second,txns[2]);
+
+        Assert.assertEquals("Should make a single call to the underlying store",1,requests.size());
+        Assert.assertArrayEquals("Should only fetch the transactions which are not cached",
+                new long[]{0x300l,second.getTxnId()},requests.get(0));
+        Assert.assertTrue("Fetched transaction was not cached",store.transactionCached(second.getTxnId()));
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the server-wide cache of active transactions.
+ */
+@Category(ArchitectureIndependent.class)
+public class SharedActiveTxnCacheSupplierTest{
+
+    @Test
+    public void cachesActiveTransactions() throws Exception{
+        TxnSupplier backStore=backStore(txn(1L,Txn.State.ACTIVE));
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,1000L,new IncrementingClock());
+        TxnSupplier reader=cache.forReader(10L);
+
+        Assert.assertFalse("Cache thinks it already has the item!",reader.transactionCached(1L));
+        Assert.assertEquals(1L,reader.getTransaction(1L).getTxnId());
+        Assert.assertTrue("Cache does not think it is present!",reader.transactionCached(1L));
+        Assert.assertEquals(1L,reader.getTransaction(1L).getTxnId());
+        Assert.assertEquals(1L,cache.forReader(5L).getTransaction(1L).getTxnId());
+
+        verify(backStore,times(1)).getTransaction(1L,false);
+        Assert.assertEquals(2L,cache.getHits());
+        Assert.assertEquals(1L,cache.getMisses());
+        Assert.assertEquals(1,cache.getSize());
+    }
+
+    @Test
+    public void doesNotCacheCompletedTransactions() throws Exception{
+        TxnSupplier backStore=backStore(txn(1L,Txn.State.COMMITTED),txn(2L,Txn.State.ROLLEDBACK));
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,1000L,new IncrementingClock());
+        TxnSupplier reader=cache.forReader(10L);
+
+        reader.getTransaction(1L);
+        reader.getTransaction(2L);
+        Assert.assertEquals(0,cache.getSize());
+    }
+
+    @Test
+    public void doesNotShareActiveTransactionsWithoutAReader() throws Exception{
+        TxnSupplier backStore=backStore(txn(1L,Txn.State.ACTIVE));
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,1000L,new IncrementingClock());
+
+        cache.getTransaction(1L);
+        cache.cache(txn(1L,Txn.State.ACTIVE));
+        cache.getTransaction(1L);
+
+        verify(backStore,times(2)).getTransaction(1L,false);
+        Assert.assertEquals(0,cache.getSize());
+    }
+
+    @Test
+    public void newerReadersLookTransactionsUpAgain() throws Exception{
+        TxnSupplier backStore=backStore(txn(1L,Txn.State.ACTIVE));
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,1000L,new IncrementingClock());
+
+        cache.forReader(10L).getTransaction(1L);
+        //the transaction may have committed between timestamps 10 and 20
+        cache.forReader(20L).getTransaction(1L);
+        verify(backStore,times(2)).getTransaction(1L,false);
+
+        //but the newer lookup can be served to both readers
+        cache.forReader(10L).getTransaction(1L);
+        cache.forReader(20L).getTransaction(1L);
+        verify(backStore,times(2)).getTransaction(1L,false);
+        Assert.assertEquals(2L,cache.getHits());
+    }
+
+    @Test
+    public void staleViewIsOnlyServedToOlderReaders() throws Exception{
+        TxnView active=txn(1L,Txn.State.ACTIVE);
+        TxnView committed=txn(1L,Txn.State.COMMITTED);
+        TxnSupplier backStore=mock(TxnSupplier.class);
+        when(backStore.getTransaction(1L,false)).thenReturn(active,active,committed);
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,1000L,new IncrementingClock());
+        TxnSupplier oldReader=cache.forReader(10L);
+
+        oldReader.getTransaction(1L);
+        //the transaction commits with timestamp 15, but a lookup which started before the commit puts it back
+        cache.invalidate(1L);
+        oldReader.getTransaction(1L);
+        Assert.assertEquals(1,cache.getSize());
+
+        //a reader which began after the commit must not see the active view
+        TxnView txn=cache.forReader(20L).getTransaction(1L);
+        Assert.assertEquals(Txn.State.COMMITTED,txn.getState());
+        verify(backStore,times(3)).getTransaction(1L,false);
+    }
+
+    @Test
+    public void completedTransactionsAreInvalidated() throws Exception{
+        TxnSupplier backStore=backStore(txn(1L,Txn.State.ACTIVE),txn(2L,Txn.State.ACTIVE));
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,1000L,new IncrementingClock());
+        TxnSupplier reader=cache.forReader(10L);
+        reader.getTransaction(1L);
+        reader.getTransaction(2L);
+
+        cache.invalidate(1L);
+        Assert.assertNull("Invalidated transaction is still cached",reader.getTransactionFromCache(1L));
+
+        //learning that a transaction committed also removes it
+        reader.cache(txn(2L,Txn.State.COMMITTED));
+        Assert.assertNull("Committed transaction is still cached as active",reader.getTransactionFromCache(2L));
+
+        Assert.assertEquals(2L,cache.getInvalidations());
+        Assert.assertEquals(0,cache.getSize());
+    }
+
+    @Test
+    public void entriesExpire() throws Exception{
+        TxnSupplier backStore=backStore(txn(1L,Txn.State.ACTIVE));
+        IncrementingClock clock=new IncrementingClock();
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore,16,4,100L,clock);
+        TxnSupplier reader=cache.forReader(10L);
+
+        reader.getTransaction(1L);
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(50L));
+        reader.getTransaction(1L);
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(60L));
+        reader.getTransaction(1L);
+
+        verify(backStore,times(2)).getTransaction(1L,false);
+        Assert.assertEquals(1L,cache.getHits());
+        Assert.assertEquals(2L,cache.getMisses());
+    }
+
+    @Test
+    public void evictsOldestEntryWhenFull() throws Exception{
+        TxnView[] txns=new TxnView[5];
+        for(int i=0;i<txns.length;i++){
+            txns[i]=txn(i+1,Txn.State.ACTIVE);
+        }
+        IncrementingClock clock=new IncrementingClock();
+        //a single stripe with a single bucket
+        SharedActiveTxnCacheSupplier cache=new SharedActiveTxnCacheSupplier(backStore(txns),4,1,1000L,clock);
+        Assert.assertEquals(4,cache.getCapacity());
+        TxnSupplier reader=cache.forReader(10L);
+
+        for(TxnView txn:txns){
+            clock.increment(1L);
+            reader.getTransaction(txn.getTxnId());
+        }
+        Assert.assertEquals(1L,cache.getEvictions());
+        Assert.assertEquals(4,cache.getSize());
+        Assert.assertNull("The oldest entry was not evicted",reader.getTransactionFromCache(1L));
+        Assert.assertNotNull(reader.getTransactionFromCache(5L));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TxnView txn(long txnId,Txn.State state){
+        TxnView txn=mock(TxnView.class);
+        when(txn.getTxnId()).thenReturn(txnId);
+        when(txn.getState()).thenReturn(state);
+        when(txn.getEffectiveState()).thenReturn(state);
+        return txn;
+    }
+
+    private static TxnSupplier backStore(TxnView... txns) throws IOException{
+        TxnSupplier supplier=mock(TxnSupplier.class);
+        for(TxnView txn:txns){
+            when(supplier.getTransaction(txn.getTxnId(),false)).thenReturn(txn);
+        }
+        when(supplier.getTransactionFromCache(anyLong())).thenReturn(null);
+        return supplier;
+    }
+}
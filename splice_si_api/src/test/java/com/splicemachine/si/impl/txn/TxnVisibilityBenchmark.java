@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+
+import java.util.Random;
+
+/**
+ * Micro-benchmark comparing the number of cells per second whose visibility can be decided using
+ * {@link TxnView#canSee(TxnView)} and using a {@link TxnVisibilitySnapshot}.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -cp ... TxnVisibilityBenchmark [cells] [iterations]
+ * </pre>
+ * The reader is a child of a child of a user transaction (as for an insert..select), and the
+ * cells were written by a mix of committed, rolled back and active transactions.
+ */
+public class TxnVisibilityBenchmark{
+
+    public static void main(String...args) throws Exception{
+        int cells=args.length>0?Integer.parseInt(args[0]):10_000_000;
+        int iterations=args.length>1?Integer.parseInt(args[1]):5;
+
+        TxnView user=new InheritingTxnView(Txn.ROOT_TRANSACTION,0x100000L,0x100000L,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+        TxnView statement=new InheritingTxnView(user,0x100100L,0x100100L,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+        TxnView reader=new ActiveWriteTxn(0x100200L,0x100200L,statement,true,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+        TxnView[] writers=writers(new Random(0L),user,1024);
+
+        TxnVisibilitySnapshot snapshot=TxnVisibilitySnapshot.of(reader);
+        System.out.printf("cells=%d, iterations=%d%n",cells,iterations);
+        for(int i=0;i<iterations;i++){
+            System.out.printf("--- iteration %d%n",i);
+            long start=System.nanoTime();
+            long visible=0;
+            for(int c=0;c<cells;c++){
+                if(reader.canSee(writers[c&(writers.length-1)])) visible++;
+            }
+            report("TxnView.canSee",cells,visible,System.nanoTime()-start);
+
+            start=System.nanoTime();
+            visible=0;
+            for(int c=0;c<cells;c++){
+                if(snapshot.canSee(writers[c&(writers.length-1)])) visible++;
+            }
+            report("TxnVisibilitySnapshot",cells,visible,System.nanoTime()-start);
+        }
+    }
+
+    private static TxnView[] writers(Random random,TxnView user,int count){
+        TxnView[] writers=new TxnView[count];
+        for(int i=0;i<count;i++){
+            long txnId=(i+1)*0x100L;
+            int kind=random.nextInt(100);
+            if(kind<85) //most data has been written by committed transactions
+                writers[i]=new CommittedTxn(txnId,txnId+random.nextInt(0x200000));
+            else if(kind<90)
+                writers[i]=new RolledBackTxn(txnId);
+            else if(kind<95)
+                writers[i]=new InheritingTxnView(Txn.ROOT_TRANSACTION,txnId,txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+            else //a sibling of the reader
+                writers[i]=new InheritingTxnView(user,0x200000L+txnId,0x200000L+txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,
+                        true,true,true,true,-1L,-1L,Txn.State.COMMITTED);
+        }
+        return writers;
+    }
+
+    private static void report(String name,int cells,long visible,long elapsedNanos){
+        System.out.printf("%-22s %,14.0f cells/s (%d visible)%n",name,cells/(elapsedNanos/1e9d),visible);
+    }
+}
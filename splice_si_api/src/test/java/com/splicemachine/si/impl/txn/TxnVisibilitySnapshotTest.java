@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.UnsupportedLifecycleManager;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that visibility computed from a {@link TxnVisibilitySnapshot} matches {@link TxnView#canSee(TxnView)}.
+ */
+@Category(ArchitectureIndependent.class)
+public class TxnVisibilitySnapshotTest{
+
+    @Test
+    public void matchesCanSeeForRandomHierarchies() throws Exception{
+        Random random=new Random(0L);
+        for(int round=0;round<200;round++){
+            List<TxnView> txns=randomHierarchy(random);
+            for(TxnView reader:txns){
+                if(reader.getState()!=Txn.State.ACTIVE) continue;
+                List<TxnView> readers=new ArrayList<>();
+                readers.add(reader);
+                readers.add(new ActiveWriteTxn(reader.getTxnId(),reader.getBeginTimestamp(),reader.getParentTxnView(),reader.isAdditive(),reader.getIsolationLevel()));
+                readers.add(new ReadOnlyTxn(reader.getTxnId(),reader.getBeginTimestamp(),reader.getIsolationLevel(),reader.getParentTxnView(),
+                        UnsupportedLifecycleManager.INSTANCE,null,reader.isAdditive()));
+                for(TxnView r:readers){
+                    TxnVisibilitySnapshot snapshot=TxnVisibilitySnapshot.of(r);
+                    Assert.assertNotNull("Unable to snapshot "+r,snapshot);
+                    for(TxnView other:txns){
+                        Assert.assertEquals("Incorrect visibility of "+other+" for "+r,r.canSee(other),snapshot.canSee(other));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cannotSeeActiveChildOfLocalTransaction() throws Exception{
+        ReadOnlyTxn reader=new ReadOnlyTxn(0x100L,0x100L,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.ROOT_TRANSACTION,
+                UnsupportedLifecycleManager.INSTANCE,null,false);
+        TxnVisibilitySnapshot snapshot=TxnVisibilitySnapshot.of(reader);
+        TxnView child=new InheritingTxnView(reader,0x200L,0x200L,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+        Assert.assertTrue("Should see the writes of a child transaction",snapshot.canSee(child));
+
+        //children registered after the snapshot was taken must still be honored
+        Txn activeChild=mock(Txn.class);
+        when(activeChild.getTxnId()).thenReturn(0x200L);
+        when(activeChild.getState()).thenReturn(Txn.State.ACTIVE);
+        reader.register(activeChild);
+        Assert.assertFalse("Should not see the writes of an active child",reader.canSee(child));
+        Assert.assertFalse("Should not see the writes of an active child",snapshot.canSee(child));
+    }
+
+    @Test
+    public void unsupportedTransactionsAreNotSnapshotted() throws Exception{
+        Assert.assertNull(TxnVisibilitySnapshot.of(Txn.ROOT_TRANSACTION));
+        Assert.assertNull(TxnVisibilitySnapshot.of(mock(TxnView.class)));
+        TxnView txn=new InheritingTxnView(Txn.ROOT_TRANSACTION,0x100L,0x100L,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+        Assert.assertNull(TxnVisibilitySnapshot.of(new DDLTxnView(txn,0x200L)));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static List<TxnView> randomHierarchy(Random random){
+        List<TxnView> txns=new ArrayList<>();
+        long nextId=0x100L;
+        int numParents=1+random.nextInt(4);
+        for(int p=0;p<numParents;p++){
+            TxnView parent=randomTxn(random,Txn.ROOT_TRANSACTION,nextId,false);
+            nextId+=0x100L;
+            txns.add(parent);
+            int numChildren=random.nextInt(4);
+            for(int c=0;c<numChildren;c++){
+                boolean additive=random.nextBoolean();
+                TxnView child=randomTxn(random,parent,nextId,additive);
+                nextId+=0x100L;
+                txns.add(child);
+                if(random.nextBoolean()){
+                    txns.add(randomTxn(random,child,nextId,additive));
+                    nextId+=0x100L;
+                }
+            }
+        }
+        return txns;
+    }
+
+    private static TxnView randomTxn(Random random,TxnView parent,long txnId,boolean additive){
+        Txn.State[] states=Txn.State.values();
+        Txn.State state=states[random.nextInt(states.length)];
+        if(parent.getState()!=Txn.State.ACTIVE && state==Txn.State.ACTIVE)
+            state=Txn.State.COMMITTED; //a child cannot outlive its parent
+        Txn.IsolationLevel[] levels=new Txn.IsolationLevel[]{
+                Txn.IsolationLevel.READ_UNCOMMITTED,Txn.IsolationLevel.READ_COMMITTED,Txn.IsolationLevel.SNAPSHOT_ISOLATION};
+        long commitTs=state==Txn.State.COMMITTED?txnId+random.nextInt(0x1000):-1L;
+        return new InheritingTxnView(parent,txnId,txnId,levels[random.nextInt(levels.length)],
+                true,additive,true,true,commitTs,-1L,state);
+    }
+}
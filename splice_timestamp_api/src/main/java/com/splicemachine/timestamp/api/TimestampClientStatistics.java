@@ -27,6 +27,8 @@ import javax.management.MXBean;
 public interface TimestampClientStatistics{
 
 	long getNumberTimestampRequests();
+
+	long getNumberBatchRequests();
 	
  	double getAvgTimestampRequestDuration();
 	
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A group of concurrent {@link TimestampClient#getNextTimestamp()} callers whose requests
+ * travel to the {@link TimestampServer} as a single message. The server answers with the
+ * first timestamp of a contiguous range, and each caller takes the timestamp at its own
+ * position in that range.
+ */
+class TimestampBatch extends ClientCallback{
+    private final int maxSize;
+    private final AtomicBoolean finished=new AtomicBoolean(false);
+    private int size; //guarded by the client's batch lock
+
+    TimestampBatch(short callerId,int maxSize){
+        super(callerId);
+        this.maxSize=maxSize;
+    }
+
+    /**
+     * @return the position of the new caller in this batch
+     */
+    int join(){
+        assert size<maxSize: "Programmer error: joined a full batch";
+        return size++;
+    }
+
+    boolean isFull(){
+        return size>=maxSize;
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * @return the timestamp for the caller at {@code position}, or a negative number if the
+     * batch has not been completed successfully.
+     */
+    long getTimestamp(int position){
+        long first=getNewTimestamp();
+        if(first<0) return first;
+        return first+position*TimestampOracle.TIMESTAMP_INCREMENT;
+    }
+
+    /**
+     * @return true the first time this is called, false thereafter. Used to make sure that
+     * a batch only gives up its slot in the pipeline once, regardless of how it ended.
+     */
+    boolean markFinished(){
+        return finished.compareAndSet(false,true);
+    }
+
+    @Override
+    public String toString(){
+        return "Batch (callerId = "+getCallerId()+", size = "+size+
+                (getNewTimestamp()>-1?", first ts = "+getNewTimestamp():", ts blank")+")";
+    }
+}
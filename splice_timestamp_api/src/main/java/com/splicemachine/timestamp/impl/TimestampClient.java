@@ -35,7 +35,6 @@ import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
 import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.concurrent.CountDownLatches;
-import com.splicemachine.timestamp.api.Callback;
 import com.splicemachine.timestamp.api.TimestampClientStatistics;
 import com.splicemachine.timestamp.api.TimestampHostProvider;
 import com.splicemachine.timestamp.api.TimestampIOException;
@@ -48,6 +47,14 @@ import org.apache.log4j.Logger;
  * For the caller, the invocation of {@link #getNextTimestamp()}
  * is synchronous.
  * <p>
+ * When batch requests are enabled, concurrent callers are coalesced: once
+ * {@code maxBatchesInFlight} requests are outstanding, new callers join an open batch which is sent (as a single request
+ * for N timestamps) as soon as an outstanding request completes, or as soon as it
+ * holds {@code maxBatchSize} callers. The server answers each batch with a
+ * contiguous range of timestamps. Batch requests use different frames than the
+ * original one-timestamp requests, so they are off by default, and must be enabled
+ * on the server and on every client together.
+ * <p>
  * This class should generally not be constructed directly.
  *
  * @author Walt Koetke
@@ -60,9 +67,14 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     private static final short CLIENT_COUNTER_INIT = 100; // actual value doesn't matter
 
     /**
-     * Fixed number of bytes in the message we expect to receive back from the server.
+     * Maximum number of callers which can share a single request. Must fit in an unsigned short.
      */
-    private static final int FIXED_MSG_RECEIVED_LENGTH = 10; // 2 byte client id + 8 byte timestamp
+    static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+    /**
+     * Number of requests which may be outstanding before callers start to wait for a batch.
+     */
+    static final int DEFAULT_MAX_BATCHES_IN_FLIGHT = 2;
 
     private enum State {
         DISCONNECTED, CONNECTING, CONNECTED, SHUTDOWN
@@ -72,7 +84,14 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
      * A map representing all currently active callers to this TimestampClient
      * waiting for their response.
      */
-    private ConcurrentMap<Short, Callback> clientCallbacks = null;
+    private ConcurrentMap<Short, TimestampBatch> clientCallbacks = null;
+
+    private final Object batchLock = new Object();
+    private TimestampBatch openBatch; // guarded by batchLock
+    private int batchesInFlight; // guarded by batchLock
+    private final int maxBatchSize;
+    private final int maxBatchesInFlight;
+    private final boolean batchRequests;
 
     private final AtomicReference<State> state = new AtomicReference<>(State.DISCONNECTED);
 
@@ -97,12 +116,41 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     // for solid definitions of each metric.
     private AtomicLong numRequests = new AtomicLong(0);
     private AtomicLong totalRequestDuration = new AtomicLong(0);
+    private AtomicLong numBatches = new AtomicLong(0);
     private TimestampHostProvider timestampHostProvider;
 
 
     public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider) {
+        this(timeoutMillis,timestampHostProvider,false);
+    }
+
+    /**
+     * @param batchRequests whether to coalesce concurrent callers into batch requests. The server must
+     *                      have been started with the same setting, since the frames of a batch request
+     *                      differ from the original ones.
+     */
+    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider,boolean batchRequests) {
+        this(timeoutMillis,timestampHostProvider,batchRequests,
+                batchRequests ? DEFAULT_MAX_BATCH_SIZE : 1,
+                batchRequests ? DEFAULT_MAX_BATCHES_IN_FLIGHT : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a client which sends batch requests.
+     */
+    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider,int maxBatchSize,int maxBatchesInFlight) {
+        this(timeoutMillis,timestampHostProvider,true,maxBatchSize,maxBatchesInFlight);
+    }
+
+    private TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider,boolean batchRequests,int maxBatchSize,int maxBatchesInFlight) {
+        assert maxBatchSize > 0 && maxBatchSize <= 0xFFFF : "Batch size must fit in an unsigned short";
+        assert batchRequests || maxBatchSize == 1 : "Only batch requests can carry more than one timestamp";
+        assert maxBatchesInFlight > 0 : "At least one batch must be allowed in flight";
         this.timeoutMillis = timeoutMillis;
         this.timestampHostProvider = timestampHostProvider;
+        this.batchRequests = batchRequests;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
         clientCallbacks = new ConcurrentHashMap<>();
 
         ExecutorService workerExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("timestampClient-worker-%d").setDaemon(true).build());
@@ -118,7 +166,7 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         // bootstrap.getPipeline().addLast("executor", new ExecutionHandler(
         // 	   new OrderedMemoryAwareThreadPoolExecutor(10 /* threads */, 1024*1024, 4*1024*1024)));
 
-        bootstrap.getPipeline().addLast("decoder", new FixedLengthFrameDecoder(FIXED_MSG_RECEIVED_LENGTH));
+        bootstrap.getPipeline().addLast("decoder", new FixedLengthFrameDecoder(getResponseLength()));
         bootstrap.getPipeline().addLast("handler", this);
 
         bootstrap.setOption("tcpNoDelay", false);
@@ -219,66 +267,62 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         connectIfNeeded();
 
-        short clientCallId = (short) clientCallCounter.getAndIncrement();
-        final ClientCallback callback = new ClientCallback(clientCallId);
-        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", clientCallId);
-
-        // Add this caller (id and callback) to the map of current clients.
-        // If an entry was already present for this caller id, that is a bug,
-        // so throw an exception.
-        if (clientCallbacks.putIfAbsent(clientCallId, callback) != null) {
-            doClientErrorThrow(LOG, "Found existing client callback with caller id %s, so unable to handle new call.", null, clientCallId);
-        }
-
-        try {
-            ChannelBuffer buffer = ChannelBuffers.buffer(2);
-            buffer.writeShort(clientCallId);
-            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", callback);
-            if(channel == null) {
-                throw new TimestampIOException("Unable to connect to TimestampServer");
+        TimestampBatch batch;
+        int position;
+        boolean send;
+        synchronized (batchLock) {
+            if (openBatch == null) {
+                openBatch = new TimestampBatch((short) clientCallCounter.getAndIncrement(), maxBatchSize);
+            }
+            batch = openBatch;
+            position = batch.join();
+            // If the pipeline is full, leave the batch open so that callers which arrive while
+            // we wait for the server can share the same request. It is sent when an outstanding
+            // batch finishes (see finishBatch), or right away once it can't take any more callers.
+            send = batchesInFlight < maxBatchesInFlight || batch.isFull();
+            if (send) {
+                openBatch = null;
+                batchesInFlight++;
             }
-            ChannelFuture futureWrite = channel.write(buffer);
-            futureWrite.addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (!future.isSuccess()) {
-                        doClientErrorThrow(LOG, "Error writing message from timestamp client to server", future.getCause());
-                    } else {
-                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", callback);
-                    }
-                }
-            });
-        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
-            clientCallbacks.remove(clientCallId);
-            callback.error(e);
-            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, callback);
+        }
+        SpliceLogUtils.debug(LOG, "Client call joined %s at position %s", batch, position);
+        if (send) {
+            sendBatch(batch);
         }
 
-        // If we get here, request was successfully sent without exception.
-        // However, we might not have received response yet, so we need to
-        // wait for that now.
+        // We might not have received response yet, so we need to wait for that now.
 
         try {
-            boolean success = callback.await(timeoutMillis);
+            boolean success = batch.await(timeoutMillis);
             if (!success) {
                 // We timed out, close the channel so that the next request recreates the connection
-                channel.close();
-                
-                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, callback);
+                Channel c = channel;
+                if (c != null) {
+                    c.close();
+                }
+                // Give up the batch's slot in the pipeline, otherwise callers queued behind it would stall
+                if (clientCallbacks.remove(batch.getCallerId(), batch)) {
+                    finishBatch(batch);
+                }
+
+                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, batch);
             }
         } catch (InterruptedException e) {
-            doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, callback);
+            doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, batch);
         }
 
-        // If we get here, it should mean the client received the response with the timestamp,
-        // which we can fetch now from the callback and send it back to the caller.
+        // If we get here, it should mean the client received the response with the range of timestamps,
+        // from which we can pick out ours and send it back to the caller.
 
-        long timestamp = callback.getNewTimestamp();
+        if (batch.getException() != null) {
+            doClientErrorThrow(LOG, "Unable to fetch timestamp for client: %s", batch.getException(), batch);
+        }
+        long timestamp = batch.getTimestamp(position);
         if (timestamp < 0) {
-            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, callback);
+            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, batch);
         }
 
-        SpliceLogUtils.debug(LOG, "Client call complete: %s", callback);
+        SpliceLogUtils.debug(LOG, "Client call complete: %s, position %s", batch, position);
 
         // Since request was successful, update JMX metrics
         numRequests.incrementAndGet();
@@ -291,25 +335,29 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
         assert (buf != null);
-        ensureReadableBytes(buf, FIXED_MSG_RECEIVED_LENGTH);
+        ensureReadableBytes(buf, getResponseLength());
 
         short clientCallerId = buf.readShort();
-        ensureReadableBytes(buf, 8);
-
         long timestamp = buf.readLong();
         assert (timestamp > 0);
+        int count = batchRequests ? buf.readUnsignedShort() : 1;
         ensureReadableBytes(buf, 0);
 
-        SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s", clientCallerId, timestamp);
-        Callback cb = clientCallbacks.remove(clientCallerId);
-        if (cb == null) {
+        SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s, count = %s", clientCallerId, timestamp, count);
+        TimestampBatch batch = clientCallbacks.remove(clientCallerId);
+        if (batch == null) {
             doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
         }
 
-        // This releases the latch the original client thread is waiting for
-        // (to provide the synchronous behavior for that caller) and also
-        // provides the timestamp.
-        cb.complete(timestamp);
+        // This releases the latch the original client threads are waiting for
+        // (to provide the synchronous behavior for those callers) and also
+        // provides the timestamps.
+        if (count != batch.size()) {
+            batch.error(new TimestampIOException("Server returned " + count + " timestamps for " + batch));
+        } else {
+            batch.complete(timestamp);
+        }
+        finishBatch(batch);
 
         super.messageReceived(ctx, e);
     }
@@ -356,6 +404,11 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return numRequests.get();
     }
 
+    @Override
+    public long getNumberBatchRequests() {
+        return numBatches.get();
+    }
+
     @Override
     public double getAvgTimestampRequestDuration() {
         double a = (double) totalRequestDuration.get();
@@ -370,6 +423,77 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         }
     }
 
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * @return the number of bytes in a response frame
+     */
+    private int getResponseLength() {
+        return batchRequests ? TimestampServer.BATCH_MSG_SENT_LENGTH : TimestampServer.FIXED_MSG_SENT_LENGTH;
+    }
+
+    private void sendBatch(final TimestampBatch batch) {
+        final short clientCallId = batch.getCallerId();
+        try {
+            // If an entry was already present for this caller id, that is a bug
+            if (clientCallbacks.putIfAbsent(clientCallId, batch) != null) {
+                throw new TimestampIOException("Found existing client callback with caller id " + clientCallId + ", so unable to handle new call.");
+            }
+            ChannelBuffer buffer = ChannelBuffers.buffer(batchRequests ? TimestampServer.BATCH_MSG_RECEIVED_LENGTH : TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+            buffer.writeShort(clientCallId);
+            if (batchRequests) {
+                buffer.writeShort(batch.size());
+            }
+            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", batch);
+            Channel c = channel;
+            if (c == null) {
+                throw new TimestampIOException("Unable to connect to TimestampServer");
+            }
+            numBatches.incrementAndGet();
+            ChannelFuture futureWrite = c.write(buffer);
+            futureWrite.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (!future.isSuccess()) {
+                        SpliceLogUtils.error(LOG, "Error writing message from timestamp client to server", future.getCause());
+                        failBatch(batch, future.getCause());
+                    } else {
+                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", batch);
+                    }
+                }
+            });
+        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
+            SpliceLogUtils.error(LOG, "Exception writing message to timestamp server for client: " + batch, e);
+            failBatch(batch, e);
+        }
+    }
+
+    private void failBatch(TimestampBatch batch, Throwable t) {
+        clientCallbacks.remove(batch.getCallerId(), batch);
+        batch.error(t instanceof Exception ? (Exception) t : new TimestampIOException("Unable to request timestamps", t));
+        finishBatch(batch);
+    }
+
+    /**
+     * Free the slot held by {@code batch}, and send the open batch (if any) in its place.
+     */
+    private void finishBatch(TimestampBatch batch) {
+        if (!batch.markFinished()) return;
+        TimestampBatch next;
+        synchronized (batchLock) {
+            batchesInFlight--;
+            next = openBatch;
+            if (next != null) {
+                openBatch = null;
+                batchesInFlight++;
+            }
+        }
+        if (next != null) {
+            sendBatch(next);
+        }
+    }
+
     public static void doClientErrorThrow(Logger logger, String message, Throwable t, Object... args) throws TimestampIOException {
         if (message == null) message = "";
         TimestampIOException t1 = t != null ? new TimestampIOException(message, t) : new TimestampIOException(message);
@@ -29,7 +29,7 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 
 public class TimestampOracle implements TimestampOracleStatistics{
-	private static final long TIMESTAMP_INCREMENT = 0x100l;
+	static final long TIMESTAMP_INCREMENT = 0x100l;
 
     private static final Logger LOG = Logger.getLogger(TimestampOracle.class);
 
@@ -88,13 +88,28 @@ public class TimestampOracle implements TimestampOracleStatistics{
     }
 
 	public long getNextTimestamp() throws TimestampIOException {
-		long nextTS = _timestampCounter.addAndGet(TIMESTAMP_INCREMENT);
+		return getNextTimestamps(1);
+	}
+
+    /**
+     * Hand out a contiguous range of {@code count} timestamps. The range starts at the returned
+     * value, and consecutive timestamps in it are {@link #TIMESTAMP_INCREMENT} apart.
+     *
+     * @param count the number of timestamps to reserve, must be positive
+     * @return the first timestamp in the range
+     * @throws TimestampIOException if a new block could not be reserved
+     */
+	public long getNextTimestamps(int count) throws TimestampIOException {
+		assert count > 0 : "Cannot reserve a negative number of timestamps";
+		long lastTS = _timestampCounter.addAndGet(count * TIMESTAMP_INCREMENT);
 		long maxTS = _maxReservedTimestamp; // avoid the double volatile read
-		if (nextTS > maxTS) {
+		while (lastTS > maxTS) {
+			// a large range may need more than one block
 			reserveNextBlock(maxTS);
+			maxTS = _maxReservedTimestamp;
 		}
-		_numTimestampsCreated.incrementAndGet(); // JMX metric
-		return nextTS;
+		_numTimestampsCreated.addAndGet(count); // JMX metric
+		return lastTS - (count - 1) * TIMESTAMP_INCREMENT;
 	}
 
     private void reserveNextBlock(long priorMaxReservedTimestamp) throws TimestampIOException {
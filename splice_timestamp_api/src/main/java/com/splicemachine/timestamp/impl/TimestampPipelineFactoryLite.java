@@ -40,8 +40,9 @@ public class TimestampPipelineFactoryLite implements ChannelPipelineFactory {
     public ChannelPipeline getPipeline() throws Exception {
         SpliceLogUtils.debug(LOG, "Creating new channel pipeline...");
         ChannelPipeline pipeline = Channels.pipeline();
-        ((TimestampServerHandler) tsHandler).initializeIfNeeded();
-        pipeline.addLast("decoder", new FixedLengthFrameDecoder(TimestampServer.FIXED_MSG_RECEIVED_LENGTH));
+        TimestampServerHandler handler = (TimestampServerHandler) tsHandler;
+        handler.initializeIfNeeded();
+        pipeline.addLast("decoder", new FixedLengthFrameDecoder(handler.getRequestLength()));
         pipeline.addLast("handler", tsHandler);
         SpliceLogUtils.debug(LOG, "Done creating channel pipeline");
         return pipeline;
@@ -40,16 +40,36 @@ public class TimestampServer {
      */
     static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte timestamp
 
+    /**
+     * Fixed number of bytes in a batch request, when batching is enabled (see {@link #TimestampServer(int, TimestampBlockManager, int, boolean)}).
+     */
+    static final int BATCH_MSG_RECEIVED_LENGTH = 4; // 2 byte client id + 2 byte number of timestamps
+
+    /**
+     * Fixed number of bytes in the answer to a batch request.
+     */
+    static final int BATCH_MSG_SENT_LENGTH = 12; // 2 byte client id + 8 byte first timestamp + 2 byte number of timestamps
+
     private int port;
     private ChannelFactory factory;
     private Channel channel;
     private TimestampBlockManager timestampBlockManager;
     private int blockSize;
+    private boolean batchRequests;
 
     public TimestampServer(int port, TimestampBlockManager timestampBlockManager, int blockSize) {
+        this(port, timestampBlockManager, blockSize, false);
+    }
+
+    /**
+     * @param batchRequests whether clients send batch requests. The frames of a batch request differ from
+     *                      the original ones, so every client and the server must agree on this setting.
+     */
+    public TimestampServer(int port, TimestampBlockManager timestampBlockManager, int blockSize, boolean batchRequests) {
         this.port = port;
         this.timestampBlockManager=timestampBlockManager;
         this.blockSize = blockSize;
+        this.batchRequests = batchRequests;
     }
 
     public void startServer() {
@@ -62,7 +82,7 @@ public class TimestampServer {
         ServerBootstrap bootstrap = new ServerBootstrap(factory);
 
         // Instantiate handler once and share it
-        final TimestampServerHandler handler = new TimestampServerHandler(timestampBlockManager,blockSize);
+        final TimestampServerHandler handler = new TimestampServerHandler(timestampBlockManager,blockSize,batchRequests);
 
         // If we end up needing to use one of the memory aware executors,
         // do so with code like this (leave commented out for reference).
@@ -32,11 +32,24 @@ public class TimestampServerHandler extends TimestampBaseHandler {
     private volatile TimestampOracle oracle;
     private TimestampBlockManager timestampBlockManager;
     private int blockSize;
+    private boolean batchRequests;
 
     public TimestampServerHandler(TimestampBlockManager timestampBlockManager, int blockSize) {
+        this(timestampBlockManager, blockSize, false);
+    }
+
+    public TimestampServerHandler(TimestampBlockManager timestampBlockManager, int blockSize, boolean batchRequests) {
         super();
         this.timestampBlockManager=timestampBlockManager;
         this.blockSize = blockSize;
+        this.batchRequests = batchRequests;
+    }
+
+    /**
+     * @return the number of bytes in a request frame
+     */
+    int getRequestLength() {
+        return batchRequests ? TimestampServer.BATCH_MSG_RECEIVED_LENGTH : TimestampServer.FIXED_MSG_RECEIVED_LENGTH;
     }
 
     public void initializeIfNeeded() throws TimestampIOException{
@@ -56,24 +69,32 @@ public class TimestampServerHandler extends TimestampBaseHandler {
 
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
         assert buf != null;
-        ensureReadableBytes(buf, TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+        ensureReadableBytes(buf, getRequestLength());
 
         final short callerId = buf.readShort();
+        final int count = batchRequests ? buf.readUnsignedShort() : 1;
         ensureReadableBytes(buf, 0);
+        if (count == 0) {
+            throw new TimestampIOException("Caller id " + callerId + " requested zero timestamps");
+        }
 
-        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s", callerId);
-        long nextTimestamp = oracle.getNextTimestamp();
-        assert nextTimestamp > 0;
+        SpliceLogUtils.trace(LOG, "Received request for %s timestamps from client. Caller id = %s", count, callerId);
+        long firstTimestamp = oracle.getNextTimestamps(count);
+        assert firstTimestamp > 0;
 
 
         //
-        // Respond to the client
+        // Respond to the client with the first timestamp of the range; the client
+        // knows the increment, so it can work out the rest.
         //
 
-        ChannelBuffer writeBuf = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_SENT_LENGTH);
+        ChannelBuffer writeBuf = ChannelBuffers.buffer(batchRequests ? TimestampServer.BATCH_MSG_SENT_LENGTH : TimestampServer.FIXED_MSG_SENT_LENGTH);
         writeBuf.writeShort(callerId);
-        writeBuf.writeLong(nextTimestamp);
-        SpliceLogUtils.debug(LOG, "Responding to caller %s with timestamp %s", callerId, nextTimestamp);
+        writeBuf.writeLong(firstTimestamp);
+        if (batchRequests) {
+            writeBuf.writeShort(count);
+        }
+        SpliceLogUtils.debug(LOG, "Responding to caller %s with %s timestamps starting at %s", callerId, count, firstTimestamp);
         ChannelFuture futureResponse = e.getChannel().write(writeBuf); // Could also use Channels.write
         futureResponse.addListener(new ChannelFutureListener() {
                                        @Override
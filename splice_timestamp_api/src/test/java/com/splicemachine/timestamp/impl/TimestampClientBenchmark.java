@@ -0,0 +1,146 @@
+
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import com.splicemachine.timestamp.api.TimestampHostProvider;
+import com.splicemachine.timestamp.api.TimestampIOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures timestamp throughput and latency with many threads sharing one {@link TimestampClient}
+ * against a local {@link TimestampServer}, with and without request batching.
+ *
+ * This is not run as part of the test suite. Run it by hand with
+ * <pre>
+ *     java -cp ... TimestampClientBenchmark [threads] [seconds] [iterations]
+ * </pre>
+ * and compare the timestamps/second and p99 latency of the two configurations.
+ */
+public class TimestampClientBenchmark{
+
+    public static void main(String...args) throws Exception{
+        int threads=args.length>0?Integer.parseInt(args[0]):64;
+        int seconds=args.length>1?Integer.parseInt(args[1]):10;
+        int iterations=args.length>2?Integer.parseInt(args[2]):3;
+
+        TimestampServer server=new TimestampServer(0,new InMemoryBlockManager(),10000);
+        TimestampServer batchServer=new TimestampServer(0,new InMemoryBlockManager(),10000,true);
+        server.startServer();
+        batchServer.startServer();
+        // the original protocol of one request per timestamp
+        TimestampClient unbatched=new TimestampClient(60000,hostProvider(server.getBoundPort()));
+        TimestampClient batched=new TimestampClient(60000,hostProvider(batchServer.getBoundPort()),true);
+        try{
+            System.out.printf("threads=%d, seconds=%d, iterations=%d%n",threads,seconds,iterations);
+            for(int i=0;i<iterations;i++){
+                System.out.printf("--- iteration %d%n",i);
+                run("unbatched",unbatched,threads,seconds);
+                run("batched",batched,threads,seconds);
+            }
+        }finally{
+            unbatched.shutdown();
+            batched.shutdown();
+            server.stopServer();
+            batchServer.stopServer();
+        }
+    }
+
+    private static TimestampHostProvider hostProvider(final int port){
+        return new TimestampHostProvider(){
+            @Override public String getHost(){ return "localhost"; }
+            @Override public int getPort(){ return port; }
+        };
+    }
+
+    private static void run(String name,final TimestampClient client,int threads,int seconds) throws Exception{
+        final long deadline=System.nanoTime()+TimeUnit.SECONDS.toNanos(seconds);
+        final CountDownLatch start=new CountDownLatch(1);
+        final List<long[]> latencies=new ArrayList<>(threads);
+        final int[] counts=new int[threads];
+        List<Thread> workers=new ArrayList<>(threads);
+        long batchesBefore=client.getNumberBatchRequests();
+        for(int i=0;i<threads;i++){
+            final int index=i;
+            final long[] samples=new long[1<<20];
+            latencies.add(samples);
+            Thread t=new Thread(new Runnable(){
+                @Override
+                public void run(){
+                    try{
+                        start.await();
+                        int n=0;
+                        long now;
+                        while((now=System.nanoTime())<deadline){
+                            client.getNextTimestamp();
+                            samples[n&(samples.length-1)]=System.nanoTime()-now;
+                            n++;
+                        }
+                        counts[index]=n;
+                    }catch(InterruptedException|TimestampIOException e){
+                        throw new RuntimeException(e);
+                    }
+                }
+            },"timestamp-bench-"+i);
+            workers.add(t);
+            t.start();
+        }
+        long s=System.nanoTime();
+        start.countDown();
+        for(Thread t:workers)
+            t.join();
+        long elapsed=System.nanoTime()-s;
+
+        long total=0;
+        int sampled=0;
+        for(int i=0;i<threads;i++){
+            total+=counts[i];
+            sampled+=Math.min(counts[i],latencies.get(i).length);
+        }
+        long[] all=new long[sampled];
+        int pos=0;
+        for(int i=0;i<threads;i++){
+            int n=Math.min(counts[i],latencies.get(i).length);
+            System.arraycopy(latencies.get(i),0,all,pos,n);
+            pos+=n;
+        }
+        Arrays.sort(all);
+        long batches=client.getNumberBatchRequests()-batchesBefore;
+        System.out.printf("%-10s %,12.0f ts/s, p50=%,8d us, p99=%,8d us, %,10d requests (%.1f ts/request)%n",
+                name,
+                total/(elapsed/1e9d),
+                percentile(all,0.50)/1000,
+                percentile(all,0.99)/1000,
+                batches,
+                batches==0?0d:(double)total/batches);
+    }
+
+    private static long percentile(long[] sorted,double p){
+        if(sorted.length==0) return 0L;
+        return sorted[Math.min(sorted.length-1,(int)(p*sorted.length))];
+    }
+
+    private static class InMemoryBlockManager implements TimestampBlockManager{
+        @Override public void reserveNextBlock(long currentMaxReserved){ }
+        @Override public long initialize(){ return 0L; }
+    }
+}
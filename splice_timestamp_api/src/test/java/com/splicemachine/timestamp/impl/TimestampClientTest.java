@@ -19,9 +19,23 @@ package com.splicemachine.timestamp.impl;
 import com.splicemachine.timestamp.api.TimestampBlockManager;
 import com.splicemachine.timestamp.api.TimestampHostProvider;
 import com.splicemachine.timestamp.api.TimestampIOException;
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
@@ -55,4 +69,79 @@ public class TimestampClientTest {
         // We make sure the connection is active
         tc.getNextTimestamp();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testServerAnswersSingleRequestsByDefault() throws Exception {
+        TimestampServer ts = new TimestampServer(0, Mockito.mock(TimestampBlockManager.class, Mockito.RETURNS_DEEP_STUBS), 10);
+        ts.startServer();
+        // a client which predates batch requests sends a bare caller id, and reads back the caller id and a timestamp
+        try (Socket socket = new Socket("localhost", ts.getBoundPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            long last = -1;
+            for (short callerId = 0; callerId < 3; callerId++) {
+                out.writeShort(callerId);
+                out.flush();
+                Assert.assertEquals(callerId, in.readShort());
+                long timestamp = in.readLong();
+                Assert.assertTrue("Timestamps went backwards", timestamp > last);
+                last = timestamp;
+            }
+            socket.setSoTimeout(100);
+            try {
+                in.readByte();
+                fail("Server sent more than a caller id and a timestamp");
+            } catch (SocketTimeoutException expected) {
+                //nothing else was sent
+            }
+        } finally {
+            ts.stopServer();
+        }
+    }
+
+    @Test
+    public void testConcurrentCallersGetDistinctTimestamps() throws Exception {
+        TimestampServer ts = new TimestampServer(0, Mockito.mock(TimestampBlockManager.class, Mockito.RETURNS_DEEP_STUBS), 10, true);
+        ts.startServer();
+
+        TimestampHostProvider hostProvider = Mockito.mock(TimestampHostProvider.class);
+        when(hostProvider.getHost()).thenReturn("localhost");
+        when(hostProvider.getPort()).thenReturn(ts.getBoundPort());
+        // a small batch size and a single request in flight force the callers to share requests
+        final TimestampClient tc = new TimestampClient(10000, hostProvider, 8, 1);
+
+        int numThreads = 16;
+        final int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() throws Exception {
+                        List<Long> timestamps = new ArrayList<>(perThread);
+                        for (int j = 0; j < perThread; j++) {
+                            timestamps.add(tc.getNextTimestamp());
+                        }
+                        return timestamps;
+                    }
+                }));
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                long last = -1;
+                for (Long timestamp : future.get()) {
+                    Assert.assertTrue("Timestamps went backwards for a single caller", timestamp > last);
+                    Assert.assertTrue("Duplicate timestamp " + timestamp, seen.add(timestamp));
+                    last = timestamp;
+                }
+            }
+            Assert.assertEquals(numThreads * perThread, seen.size());
+            Assert.assertTrue("Requests were never batched", tc.getNumberBatchRequests() < numThreads * perThread);
+        } finally {
+            executor.shutdownNow();
+            tc.shutdown();
+            ts.stopServer();
+        }
+    }
+}
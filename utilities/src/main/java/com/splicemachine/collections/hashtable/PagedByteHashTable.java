@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.collections.hashtable;
+
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+import com.splicemachine.primitives.Bytes;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing multi-map from byte[] keys to byte[] values, where all key and value bytes
+ * are copied into a small number of large, fixed-size pages.
+ * <p>
+ * Compared to a {@code HashMap<ByteBuffer,List<Object>>}, this structure holds a handful of objects
+ * regardless of how many entries are stored, so it puts almost no pressure on the garbage collector,
+ * and its memory footprint can be computed exactly (see {@link #getMemoryUsage()}).
+ * <p>
+ * Layout:
+ * <ul>
+ *     <li>key record: {@code [int length][key bytes]}</li>
+ *     <li>value record: {@code [long nextValueAddress][int length][value bytes]}</li>
+ * </ul>
+ * An address is {@code (pageIndex << 32) | pageOffset}. All the values for a given key form a singly
+ * linked list (in reverse insertion order) whose head is held in the slot arrays. Slots are found using
+ * linear probing on a murmur3 hash of the key bytes.
+ * <p>
+ * This class is <em>not</em> thread safe for writes. Once loading has completed, any number of threads may
+ * read concurrently (as long as the table is safely published), provided each uses its own {@link ValueCursor}.
+ */
+public class PagedByteHashTable{
+    public static final int DEFAULT_PAGE_SIZE=1<<18; //256 KB
+    private static final float LOAD_FACTOR=0.75f;
+    private static final long NO_ADDRESS=-1L;
+    private static final int VALUE_HEADER_SIZE=Bytes.SIZEOF_LONG+Bytes.SIZEOF_INT;
+
+    private final Hash32 hashFunction=HashFunctions.murmur3(0);
+    private final int pageSize;
+
+    private byte[][] pages;
+    private int currentPage=-1;
+    private int pagePosition;
+    private long pageBytes;
+
+    private int[] hashes; //0 == empty slot
+    private long[] keyAddresses;
+    private long[] headAddresses;
+    private int mask;
+    private int resizeThreshold;
+
+    private int size;
+    private long valueCount;
+
+    public PagedByteHashTable(){
+        this(16,DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedByteHashTable(int initialSize,int pageSize){
+        assert pageSize>0: "Page size must be positive";
+        this.pageSize=pageSize;
+        this.pages=new byte[4][];
+        int s=1;
+        while(s<initialSize)
+            s<<=1;
+        allocateSlots(s);
+    }
+
+    /**
+     * Associate {@code value} with {@code key}. Duplicate keys are allowed, and will
+     * result in multiple values being returned for that key.
+     */
+    public void put(byte[] key,byte[] value){
+        put(key,0,key.length,value,0,value.length);
+    }
+
+    public void put(byte[] key,int keyOffset,int keyLength,byte[] value,int valueOffset,int valueLength){
+        if(size>=resizeThreshold)
+            resize();
+        int hash=hash(key,keyOffset,keyLength);
+        int pos=hash & mask;
+        while(hashes[pos]!=0){
+            if(hashes[pos]==hash && keyEquals(keyAddresses[pos],key,keyOffset,keyLength)){
+                headAddresses[pos]=writeValue(headAddresses[pos],value,valueOffset,valueLength);
+                valueCount++;
+                return;
+            }
+            pos=(pos+1) & mask;
+        }
+        hashes[pos]=hash;
+        keyAddresses[pos]=writeKey(key,keyOffset,keyLength);
+        headAddresses[pos]=writeValue(NO_ADDRESS,value,valueOffset,valueLength);
+        size++;
+        valueCount++;
+    }
+
+    /**
+     * Position {@code cursor} at the values which are associated with {@code key}.
+     *
+     * @return true if there is at least one value for this key, false otherwise (in which case the
+     * cursor is left empty).
+     */
+    public boolean get(byte[] key,int keyOffset,int keyLength,ValueCursor cursor){
+        int hash=hash(key,keyOffset,keyLength);
+        int pos=hash & mask;
+        while(hashes[pos]!=0){
+            if(hashes[pos]==hash && keyEquals(keyAddresses[pos],key,keyOffset,keyLength)){
+                cursor.reset(headAddresses[pos]);
+                return true;
+            }
+            pos=(pos+1) & mask;
+        }
+        cursor.reset(NO_ADDRESS);
+        return false;
+    }
+
+    public ValueCursor newCursor(){
+        return new ValueCursor();
+    }
+
+    /**
+     * @return the number of distinct keys in the table
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return the number of values in the table (including values for duplicate keys)
+     */
+    public long valueCount(){
+        return valueCount;
+    }
+
+    /**
+     * @return the number of bytes which are retained by this table's pages and slot arrays. This excludes
+     * the (constant) object headers of the table itself.
+     */
+    public long getMemoryUsage(){
+        long slots=hashes.length;
+        return pageBytes
+                +(long)pages.length*Long.BYTES
+                +slots*(Integer.BYTES+2*Long.BYTES);
+    }
+
+    /**
+     * Iterates over the values for a single key, without copying them out of the table.
+     */
+    public final class ValueCursor{
+        private long nextAddress=NO_ADDRESS;
+        private byte[] array;
+        private int offset;
+        private int length;
+
+        private ValueCursor(){}
+
+        public boolean hasNext(){
+            return nextAddress!=NO_ADDRESS;
+        }
+
+        /**
+         * Advance to the next value. After this call, {@link #array()}, {@link #offset()} and
+         * {@link #length()} describe the current value.
+         */
+        public void next(){
+            assert nextAddress!=NO_ADDRESS: "Programmer error: advanced past the end of the cursor";
+            byte[] page=pages[pageOf(nextAddress)];
+            int pos=offsetOf(nextAddress);
+            nextAddress=Bytes.bytesToLong(page,pos);
+            length=Bytes.bytesToInt(page,pos+Bytes.SIZEOF_LONG);
+            offset=pos+VALUE_HEADER_SIZE;
+            array=page;
+        }
+
+        public byte[] array(){ return array; }
+        public int offset(){ return offset; }
+        public int length(){ return length; }
+
+        private void reset(long address){
+            this.nextAddress=address;
+            this.array=null;
+            this.offset=0;
+            this.length=0;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private int hash(byte[] key,int offset,int length){
+        int h=hashFunction.hash(key,offset,length);
+        //0 is reserved to indicate an empty slot
+        return h==0?1:h;
+    }
+
+    private boolean keyEquals(long keyAddress,byte[] key,int keyOffset,int keyLength){
+        byte[] page=pages[pageOf(keyAddress)];
+        int pos=offsetOf(keyAddress);
+        int len=Bytes.bytesToInt(page,pos);
+        return Bytes.equals(page,pos+Bytes.SIZEOF_INT,len,key,keyOffset,keyLength);
+    }
+
+    private long writeKey(byte[] key,int offset,int length){
+        long address=allocate(Bytes.SIZEOF_INT+length);
+        byte[] page=pages[currentPage];
+        int pos=offsetOf(address);
+        Bytes.intToBytes(length,page,pos);
+        System.arraycopy(key,offset,page,pos+Bytes.SIZEOF_INT,length);
+        return address;
+    }
+
+    private long writeValue(long next,byte[] value,int offset,int length){
+        long address=allocate(VALUE_HEADER_SIZE+length);
+        byte[] page=pages[currentPage];
+        int pos=offsetOf(address);
+        Bytes.longToBytes(next,page,pos);
+        Bytes.intToBytes(length,page,pos+Bytes.SIZEOF_LONG);
+        System.arraycopy(value,offset,page,pos+VALUE_HEADER_SIZE,length);
+        return address;
+    }
+
+    private long allocate(int recordSize){
+        if(currentPage<0 || pagePosition+recordSize>pages[currentPage].length){
+            /*
+             * Records never span pages; a record which is larger than the page size
+             * gets a dedicated page of exactly the right size.
+             */
+            currentPage++;
+            if(currentPage==pages.length)
+                pages=Arrays.copyOf(pages,2*pages.length);
+            int newPageSize=Math.max(pageSize,recordSize);
+            pages[currentPage]=new byte[newPageSize];
+            pageBytes+=newPageSize;
+            pagePosition=0;
+        }
+        long address=((long)currentPage<<32) | pagePosition;
+        pagePosition+=recordSize;
+        return address;
+    }
+
+    private void allocateSlots(int numSlots){
+        this.hashes=new int[numSlots];
+        this.keyAddresses=new long[numSlots];
+        this.headAddresses=new long[numSlots];
+        this.mask=numSlots-1;
+        this.resizeThreshold=(int)(LOAD_FACTOR*numSlots);
+    }
+
+    private void resize(){
+        int[] oldHashes=hashes;
+        long[] oldKeys=keyAddresses;
+        long[] oldHeads=headAddresses;
+        allocateSlots(2*oldHashes.length);
+        //we kept the hash codes around, so there is no need to re-read the keys
+        for(int i=0;i<oldHashes.length;i++){
+            int h=oldHashes[i];
+            if(h==0) continue;
+            int pos=h & mask;
+            while(hashes[pos]!=0)
+                pos=(pos+1) & mask;
+            hashes[pos]=h;
+            keyAddresses[pos]=oldKeys[i];
+            headAddresses[pos]=oldHeads[i];
+        }
+    }
+
+    private static int pageOf(long address){
+        return (int)(address>>>32);
+    }
+
+    private static int offsetOf(long address){
+        return (int)address;
+    }
+}
@@ -49,6 +49,13 @@ public class SpliceSnappy {
         }
     }
 
+    /**
+     * @return true if the native library is installed, otherwise the compress and uncompress methods copy their input
+     */
+    public static boolean isInstalled() {
+        return installed;
+    }
+
     public static int maxCompressedLength(int byteSize) {
         return installed ? Snappy.maxCompressedLength(byteSize) : byteSize;
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.collections.hashtable;
+
+import com.splicemachine.primitives.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PagedByteHashTableTest{
+
+    @Test
+    public void emptyTableFindsNothing() throws Exception{
+        PagedByteHashTable table=new PagedByteHashTable();
+        PagedByteHashTable.ValueCursor cursor=table.newCursor();
+        byte[] key=Bytes.toBytes("missing");
+        Assert.assertFalse(table.get(key,0,key.length,cursor));
+        Assert.assertFalse(cursor.hasNext());
+        Assert.assertEquals(0,table.size());
+    }
+
+    @Test
+    public void duplicateKeysReturnAllValues() throws Exception{
+        PagedByteHashTable table=new PagedByteHashTable();
+        byte[] key=Bytes.toBytes("key");
+        table.put(key,Bytes.toBytes("a"));
+        table.put(key,Bytes.toBytes("b"));
+        table.put(Bytes.toBytes("other"),Bytes.toBytes("c"));
+
+        Assert.assertEquals(2,table.size());
+        Assert.assertEquals(3,table.valueCount());
+        Assert.assertEquals(Collections.singletonList("c"),read(table,"other"));
+        List<String> values=read(table,"key");
+        Collections.sort(values);
+        Assert.assertEquals(2,values.size());
+        Assert.assertEquals("a",values.get(0));
+        Assert.assertEquals("b",values.get(1));
+    }
+
+    @Test
+    public void recordsLargerThanThePageSizeAreStored() throws Exception{
+        PagedByteHashTable table=new PagedByteHashTable(4,16);
+        StringBuilder sb=new StringBuilder();
+        for(int i=0;i<100;i++)
+            sb.append(i);
+        String big=sb.toString();
+        table.put(Bytes.toBytes("small"),Bytes.toBytes("v"));
+        table.put(Bytes.toBytes(big),Bytes.toBytes(big));
+        table.put(Bytes.toBytes("after"),Bytes.toBytes("v2"));
+
+        Assert.assertEquals(Collections.singletonList(big),read(table,big));
+        Assert.assertEquals(Collections.singletonList("v"),read(table,"small"));
+        Assert.assertEquals(Collections.singletonList("v2"),read(table,"after"));
+    }
+
+    @Test
+    public void matchesHashMapAcrossResizes() throws Exception{
+        PagedByteHashTable table=new PagedByteHashTable(2,1024);
+        Map<String,List<String>> correct=new HashMap<>();
+        Random random=new Random(0L);
+        for(int i=0;i<50000;i++){
+            String k=Integer.toString(random.nextInt(10000));
+            String v=Integer.toString(i);
+            table.put(Bytes.toBytes(k),Bytes.toBytes(v));
+            List<String> values=correct.get(k);
+            if(values==null){
+                values=new ArrayList<>();
+                correct.put(k,values);
+            }
+            values.add(v);
+        }
+        Assert.assertEquals(correct.size(),table.size());
+        for(Map.Entry<String,List<String>> entry:correct.entrySet()){
+            List<String> actual=read(table,entry.getKey());
+            //values come back in reverse insertion order
+            Collections.reverse(actual);
+            Assert.assertEquals("Incorrect values for key "+entry.getKey(),entry.getValue(),actual);
+        }
+    }
+
+    @Test
+    public void memoryUsageCoversAllocatedPages() throws Exception{
+        PagedByteHashTable table=new PagedByteHashTable(16,128);
+        long empty=table.getMemoryUsage();
+        for(int i=0;i<10;i++)
+            table.put(Bytes.toBytes(i),new byte[100]);
+        //each entry needs its own page
+        Assert.assertTrue("Memory usage did not grow",table.getMemoryUsage()>=empty+10*128);
+    }
+
+    private static List<String> read(PagedByteHashTable table,String key){
+        byte[] k=Bytes.toBytes(key);
+        PagedByteHashTable.ValueCursor cursor=table.newCursor();
+        List<String> values=new ArrayList<>();
+        if(!table.get(k,0,k.length,cursor))
+            return values;
+        while(cursor.hasNext()){
+            cursor.next();
+            values.add(Bytes.toString(cursor.array(),cursor.offset(),cursor.length()));
+        }
+        return values;
+    }
+}